@@ -0,0 +1,126 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A symbol table interning labels to dense integers.
+ * <p>
+ * Each distinct label is given an <em>index</em> the first time it is
+ * {@link #intern(Object) interned}, starting from 1 and increasing by 1.
+ * Index {@link #EPSILON} is reserved for the <code>null</code> label. Indices
+ * are never reassigned, so that automata built over the same alphabet may be
+ * combined comparing label indices instead of labels.
+ * <p>
+ * Interning is thread-safe and lookups never block, so an alphabet may be
+ * shared by automata built concurrently.
+ * 
+ * @param <L>
+ *            the type of labels
+ * @see Automaton#symbols()
+ */
+public class Alphabet<L> {
+
+	/**
+	 * The index of the <code>null</code> label.
+	 */
+	public static final int EPSILON = 0;
+
+	private final ConcurrentHashMap<L, Integer> indices = new ConcurrentHashMap<>();
+
+	/* labels by index, published with the size before their index */
+	private volatile Object[] labels = new Object[16];
+
+	private volatile int size = 1;
+
+	/**
+	 * Returns the index of a label, interning it if needed.
+	 * 
+	 * @param label
+	 *            a label, possibly null
+	 * @return the index of <code>label</code> in this alphabet.
+	 */
+	public int intern(L label) {
+		if (label == null)
+			return EPSILON;
+		Integer i = indices.get(label);
+		if (i != null)
+			return i;
+		synchronized (this) {
+			i = indices.get(label);
+			if (i != null)
+				return i;
+			int n = size;
+			Object[] ls = labels;
+			if (n == ls.length)
+				ls = Arrays.copyOf(ls, n * 2);
+			ls[n] = label;
+			labels = ls;
+			size = n + 1;
+			/* only now may other threads find n and look up its label */
+			indices.put(label, n);
+			return n;
+		}
+	}
+
+	/**
+	 * Returns the index of a label without interning it.
+	 * 
+	 * @param label
+	 *            a label, possibly null
+	 * @return the index of <code>label</code> in this alphabet or -1 if it has
+	 *         never been interned.
+	 */
+	public int indexOf(Object label) {
+		if (label == null)
+			return EPSILON;
+		Integer i = indices.get(label);
+		return i == null ? -1 : i;
+	}
+
+	/**
+	 * Returns the label with given index.
+	 * 
+	 * @param index
+	 *            an index returned by {@link #intern(Object)}
+	 * @return the label with index <code>index</code>.
+	 * @throws IndexOutOfBoundsException
+	 *             if no label has this index.
+	 */
+	@SuppressWarnings("unchecked")
+	public L label(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("no label with index " + index);
+		return (L) labels[index];
+	}
+
+	/**
+	 * Returns the number of indices allocated in this alphabet, including
+	 * {@link #EPSILON}. All indices are strictly lower than this number.
+	 * 
+	 * @return the size of this alphabet.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public String toString() {
+		return Arrays.asList(labels).subList(1, size).toString();
+	}
+}
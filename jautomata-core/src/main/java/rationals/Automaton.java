@@ -73,34 +73,28 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 
 	// The set of all objects which are labels of
 	// transitions of this automaton.
-	protected Set<L> alphabet;
+	protected final Set<L> alphabet;
 
 	// The set of all states of this automaton.
-	private Set<State> states;
+	private final Set<State> states;
 
 	// the set of initial states
-	private Set<State> initials;
+	private final Set<State> initials;
 
 	// the set of terminal states
-	private Set<State> terminals;
-
-	// Allows access to transitions of this automaton
-	// starting from a given state and labelled by
-	// a given object. The keys of this map are instances
-	// of class Key and
-	// values are sets of transitions.
-	private Map<Key, Set<Transition<L>>> transitions;
-
-	// Allows access to transitions of this automaton
-	// arriving to a given state and labelled by
-	// a given object. The keys of this map are instances
-	// of class Key and
-	// values are sets of transitions.
-	private Map<Key, Set<Transition<L>>> reverse;
+	private final Set<State> terminals;
+
+	// Stores transitions of this automaton and allows access to
+	// them by start or end state and label.
+	private final TransitionTable<L> transitions;
 
 	private StateFactory<L, Tr, T> stateFactory = new DefaultStateFactory<>(this);
 
     private StateLabels stateLabels = new StateLabels();
+
+	// the epsilon closures, built on demand and dropped when epsilon
+	// transitions change
+	private volatile EpsilonClosure<L> epsilonClosures;
     
 	/**
 	 * @return
@@ -114,6 +108,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 */
 	public void setStateFactory(StateFactory<L, Tr, T> factory) {
 		this.stateFactory = factory;
+		this.epsilonClosures = null;
 		factory.setAutomaton(this);
 	}
 
@@ -158,6 +153,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 * @param word
 	 *            a List of Object interpreted as a word
 	 * @return an automaton which recognizes <em>label</em>
+	 * @see DawgBuilder for the automaton of many words
 	 */
 	public static <L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> Automaton<L, Tr, T>  labelAutomaton(List<L> word) {
 		Automaton<L, Tr, T> v = new Automaton<>();
@@ -186,7 +182,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 * An empty automaton recognizes the empty language.
 	 */
 	public Automaton() {
-		this(null);
+		this(null, null);
 	}
 
 	/**
@@ -197,13 +193,42 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 *            null.
 	 */
 	public Automaton(StateFactory<L, Tr, T> sf) {
+		this(sf, null);
+	}
+
+	/**
+	 * Create a new empty automaton whose labels are interned in given
+	 * alphabet. Automata sharing an alphabet can be combined without hashing
+	 * their labels again.
+	 * 
+	 * @param symbols
+	 *            the alphabet to use. May be null, in which case a new
+	 *            alphabet is created.
+	 */
+	public Automaton(Alphabet<L> symbols) {
+		this(null, new MapTransitionTable<>(symbols));
+	}
+
+	/**
+	 * Create a new empty automaton with given state factory and transitions
+	 * storage.
+	 * 
+	 * @param sf
+	 *            the StateFactory object to use for creating new states. May be
+	 *            null.
+	 * @param table
+	 *            the TransitionTable object used to store transitions. May be
+	 *            null, in which case a {@link MapTransitionTable} is used.
+	 * @see CompactTransitionTable
+	 */
+	public Automaton(StateFactory<L, Tr, T> sf, TransitionTable<L> table) {
 		this.stateFactory = sf == null ? new DefaultStateFactory<>(this) : sf;
+		stateFactory.setAutomaton(this);
 		alphabet = new HashSet<>();
 		states = stateFactory.stateSet();
 		initials = stateFactory.stateSet();
 		terminals = stateFactory.stateSet();
-		transitions = new HashMap<>();
-		reverse = new HashMap<>();
+		transitions = table == null ? new MapTransitionTable<L>() : table;
 	}
 
 	/**
@@ -242,6 +267,17 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 		return alphabet;
 	}
 
+	/**
+	 * Returns the symbol table interning the labels of this automaton. The
+	 * alphabet <em>X</em> of this automaton is a subset of the labels of the
+	 * returned alphabet, which may be shared with other automata.
+	 * 
+	 * @return the Alphabet used by this automaton.
+	 */
+	public Alphabet<L> symbols() {
+		return transitions.symbols();
+	}
+
 	/**
 	 * Returns the set of states <em>Q</em> associated with this automaton.
 	 * 
@@ -277,27 +313,23 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 
 	// Computes and return the set of all accessible states, starting
 	// from a given set of states and using transitions
-	// contained in a given Map
-	protected Set<State> access(Set<State> start, Map<Key, Set<Transition<L>>> map) {
-		Set<State> current = start;
-		Set<State> old;
-		do {
-			old = current;
-			current = stateFactory.stateSet();
-			Iterator<State> i = old.iterator();
-			while (i.hasNext()) {
-				State e = i.next();
-				current.add(e);
-				Iterator<L> j = alphabet.iterator();
-				while (j.hasNext()) {
-					Iterator<Transition<L>> k = find(map, e, j.next()).iterator();
-					while (k.hasNext()) {
-						current.add(k.next().end());
-					}
-				}
+	// in the given direction. Only the states reached are visited, so
+	// that querying a few states of a large automaton stays cheap
+	protected Set<State> access(Set<State> start, boolean forward) {
+		Set<State> ret = stateFactory.stateSet();
+		Deque<State> todo = new ArrayDeque<>();
+		for (State s : start)
+			if (ret.add(s))
+				todo.add(s);
+		while (!todo.isEmpty()) {
+			State s = todo.poll();
+			for (Transition<L> tr : forward ? transitions.delta(s) : transitions.deltaMinusOne(s)) {
+				State next = forward ? tr.end() : tr.start();
+				if (ret.add(next))
+					todo.add(next);
 			}
-		} while (current.size() != old.size());
-		return current;
+		}
+		return ret;
 	}
 
 	/**
@@ -309,7 +341,8 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 * @see State
 	 */
 	public Set<State> accessibleStates() {
-		return access(initials, transitions);
+		StateGraph<L> graph = StateGraph.of(this);
+		return graph.toStates(graph.accessible());
 	}
 
 	/**
@@ -321,14 +354,14 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 * @return a - possibly empty - set of accessible states
 	 */
 	public Set<State> accessibleStates(Set<State> states) {
-		return access(states, transitions);
+		return access(states, true);
 	}
 
 	@Override
 	public Set<State> accessibleStates(State state) {
 		Set<State> s = stateFactory.stateSet();
 		s.add(state);
-		return access(s, transitions);
+		return access(s, true);
 	}
 
 	/**
@@ -341,7 +374,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 * @return a - possibly empty - set of coaccessible states
 	 */
 	public Set<State> coAccessibleStates(Set<State> states) {
-		return access(states, reverse);
+		return access(states, false);
 	}
 
 	/**
@@ -353,7 +386,8 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 * @see State
 	 */
 	public Set<State> coAccessibleStates() {
-		return access(terminals, reverse);
+		StateGraph<L> graph = StateGraph.of(this);
+		return graph.toStates(graph.coAccessible());
 	}
 
 	/**
@@ -368,31 +402,8 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 * @see State
 	 */
 	public Set<State> accessibleAndCoAccessibleStates() {
-		Set<State> ac = accessibleStates();
-		ac.retainAll(coAccessibleStates());
-		return ac;
-	}
-
-	// Computes and return the set of all transitions, starting
-	// from a given state and labelled by a given label
-	// contained in a given Map
-	protected Set<Transition<L>> find(Map<Key, Set<Transition<L>>> m, State e, L l) {
-		Key n = new Key(e, l);
-		if (!m.containsKey(n))
-			return new HashSet<Transition<L>>();
-		return m.get(n);
-	}
-
-	// add a given transition in a given Map
-	protected void add(Map<Key, Set<Transition<L>>> m, Transition<L> t) {
-		Key n = new Key(t.start(), t.label());
-		Set<Transition<L>> s;
-		if (!m.containsKey(n)) {
-			s = new HashSet<>();
-			m.put(n, s);
-		} else
-			s = m.get(n);
-		s.add(t);
+		StateGraph<L> graph = StateGraph.of(this);
+		return graph.toStates(graph.trim());
 	}
 
 	/**
@@ -402,10 +413,15 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 * @see Transition
 	 */
 	public Set<Transition<L>> delta() {
-		Set<Transition<L>> s = new HashSet<>();
-		for (Set<Transition<L>> tr : transitions.values())
-			s.addAll(tr);
-		return s;
+		return transitions.delta();
+	}
+
+	/**
+	 * @return the number of transitions of this automaton, without copying
+	 *         them.
+	 */
+	public int transitionCount() {
+		return transitions.size();
 	}
 
 	/**
@@ -421,7 +437,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 * @see Transition
 	 */
 	public Set<Transition<L>> delta(State state, L label) {
-		return find(transitions, state, label);
+		return transitions.delta(state, label);
 	}
 
 	/**
@@ -436,13 +452,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 */
 	@Override
 	public Set<Transition<L>> deltaFrom(State from, State to) {
-		Set<Transition<L>> t = delta(from);
-		for (Iterator<Transition<L>> i = t.iterator(); i.hasNext();) {
-			Transition<L> tr = i.next();
-			if (!to.equals(tr.end()))
-				i.remove();
-		}
-		return t;
+		return transitions.deltaFrom(from, to);
 	}
 
 	/**
@@ -453,10 +463,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 * @return a new Set of transitions (maybe empty)
 	 */
 	public Set<Transition<L>> delta(State state) {
-		Set<Transition<L>> s = new HashSet<>();
-		for (L lt : alphabet)
-			s.addAll(delta(state, lt));
-		return s;
+		return transitions.delta(state);
 	}
 
 	/**
@@ -480,26 +487,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 * @return a Map
 	 */
 	public Map<Couple, Set<Transition<L>>> couples() {
-		// loop on transition map keys
-		Iterator<Map.Entry<Key, Set<Transition<L>>>> it = transitions.entrySet().iterator();
-		Map<Couple, Set<Transition<L>>> ret = new HashMap<>();
-		while (it.hasNext()) {
-			Map.Entry<Key, Set<Transition<L>>> e = it.next();
-			// get start and end state
-			State st = e.getKey().s;
-			Iterator<Transition<L>> trans = e.getValue().iterator();
-			while (trans.hasNext()) {
-				Transition<L> tr = trans.next();
-				State nd = tr.end();
-				Couple cpl = new Couple(st, nd);
-				Set<Transition<L>> s = ret.get(cpl);
-				if (s == null)
-					s = new HashSet<>();
-				s.add(tr);
-				ret.put(cpl, s);
-			}
-		}
-		return ret;
+		return transitions.couples();
 	}
 
 	/**
@@ -512,7 +500,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 */
 	@Override
 	public Set<Transition<L>> deltaMinusOne(State state, L label) {
-		return find(reverse, state, label);
+		return transitions.deltaMinusOne(state, label);
 	}
 
 	/**
@@ -536,8 +524,8 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 		if (!alphabet.contains(transition.label())) {
 			alphabet.add(transition.label());
 		}
-		add(transitions, transition);
-		add(reverse, new Transition<>(transition.end(), transition.label(), transition.start()));
+		if (transitions.add(transition) && transition.label() == null)
+			epsilonClosures = null;
 	}
 
 	/**
@@ -549,30 +537,8 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 *            the alphabet to project on
 	 */
 	public void projectOn(Set<?> alph) {
-		// remove unwanted transitions from ret
-		Iterator<Map.Entry<Key, Set<Transition<L>>>> trans = transitions.entrySet().iterator();
-		Set<Transition<L>> newtrans = new HashSet<>();
-		while (trans.hasNext()) {
-			Map.Entry<Key, Set<Transition<L>>> entry = trans.next();
-			Key k = entry.getKey();
-			Iterator<Transition<L>> tit = entry.getValue().iterator();
-			while (tit.hasNext()) {
-				Transition<?> tr = tit.next();
-				if (!alph.contains(k.l)) {
-					// create epsilon transition
-					newtrans.add(new Transition<L>(k.s, null, tr.end()));
-					// remove transition
-					tit.remove();
-				}
-			}
-		}
-		// add newly created transitions
-		if (!newtrans.isEmpty()) {
-			for (Transition<L> tr : newtrans) {
-				add(transitions, tr);
-				add(reverse, new Transition<>(tr.end(), tr.label(), tr.start()));
-			}
-		}
+		transitions.projectOn(alph);
+		epsilonClosures = null;
 		// remove alphabet
 		alphabet.retainAll(alph);
 	}
@@ -596,7 +562,9 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 */
 	@Override
 	public Automaton<L, Tr, T> clone() {
-		Automaton<L, Tr, T> b = new Automaton<L, Tr, T>();
+		@SuppressWarnings("unchecked")
+		StateFactory<L, Tr, T> sf = (StateFactory<L, Tr, T>) stateFactory.clone();
+		Automaton<L, Tr, T> b = new Automaton<L, Tr, T>(sf, transitions.newTable());
 		Map<State, State> map = new HashMap<>();
 		for (State e : states)
 			map.put(e, b.addState(e.isInitial(), e.isTerminal()));
@@ -610,6 +578,111 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 		return b;
 	}
 
+	/**
+	 * Returns an immutable snapshot of this automaton.
+	 * <p>
+	 * The snapshot has its own copy of the states, labels and transitions of
+	 * this automaton, transitions being stored in a
+	 * {@link CompactTransitionTable}. It shares the {@link #symbols()
+	 * alphabet} of this automaton. Its methods which modify an automaton throw
+	 * {@link UnsupportedOperationException}, and it may be safely read by
+	 * several threads without synchronization. Later modifications of this
+	 * automaton do not affect the snapshot.
+	 * 
+	 * @return a frozen copy of this automaton.
+	 * @see FrozenAutomaton
+	 */
+	public FrozenAutomaton<L, Tr, T> freeze() {
+		return new FrozenAutomaton<>(this);
+	}
+
+	/**
+	 * Starts a streaming run of this automaton from its initial states. The
+	 * run indexes this automaton once and then reads letters in constant
+	 * memory, see {@link Run}.
+	 * 
+	 * @return a new Run.
+	 */
+	public Run<L> run() {
+		return new Run<>(this, initials());
+	}
+
+	/**
+	 * Starts a streaming run of this automaton from given states.
+	 * 
+	 * @param start
+	 *            the states to start from.
+	 * @return a new Run.
+	 */
+	public Run<L> run(Set<State> start) {
+		return new Run<>(this, start);
+	}
+
+	/**
+	 * Creates a deterministic automaton equivalent to this automaton whose
+	 * states are only computed when a word reaches them, and kept in a table
+	 * of bounded size, see {@link LazyDfa}.
+	 * 
+	 * @param capacity
+	 *            the maximum number of states in the table, at least 2.
+	 * @return a new LazyDfa.
+	 */
+	public LazyDfa<L> lazyDfa(int capacity) {
+		return new LazyDfa<>(this, capacity);
+	}
+
+	/**
+	 * Returns the index of the epsilon closures of the states of this
+	 * automaton. The index is built on the first call and kept until an
+	 * epsilon transition is added, relabelled or projected out, see
+	 * {@link EpsilonClosure}.
+	 * 
+	 * @return the epsilon closure index of this automaton.
+	 */
+	public EpsilonClosure<L> epsilonClosures() {
+		EpsilonClosure<L> ret = epsilonClosures;
+		if (ret == null)
+			epsilonClosures = ret = new EpsilonClosure<>(this);
+		return ret;
+	}
+
+	/**
+	 * Computes the set of states reachable from given states through epsilon
+	 * transitions.
+	 * 
+	 * @param s
+	 *            a set of states.
+	 * @return a new set containing <code>s</code> and all the states
+	 *         reachable from it by epsilon transitions.
+	 */
+	public Set<State> epsilonClosure(Set<State> s) {
+		return epsilonClosures().closure(s);
+	}
+
+	/*
+	 * Copies the states, labels and transitions of this automaton into empty
+	 * automaton b, bypassing b's methods.
+	 */
+	void copyTo(Automaton<L, Tr, T> b) {
+		b.id = id;
+		b.alphabet.addAll(alphabet);
+		Map<State, State> map = new HashMap<>();
+		for (State e : states) {
+			Object label = stateLabels.label(e);
+			State s = label == null ? b.stateFactory.create(e.isInitial(), e.isTerminal()) : b.stateFactory.create(e.isInitial(), e.isTerminal(), label);
+			if (e.isInitial())
+				b.initials.add(s);
+			if (e.isTerminal())
+				b.terminals.add(s);
+			b.states.add(s);
+			if (label != null)
+				b.stateLabels.bind(s, label);
+			map.put(e, s);
+		}
+		for (Transition<L> t : delta())
+			b.transitions.add(new Transition<>(map.get(t.start()), t.label(), map.get(t.end())));
+	}
+
     /**
      * 
      * @return the set of labels matching initial states.
@@ -634,37 +707,6 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
         return stateLabels.labels(states);
     }
 
-    private class Key {
-		private State s;
-
-		private L l;
-
-		protected Key(State s, L l) {
-			this.s = s;
-			this.l = l;
-		}
-
-		public boolean equals(Object o) {
-			if (!(o instanceof Automaton.Key))
-				return false;
-			Key t = (Key) o;
-			return (l == null ? t.l == null : l.equals(t.l))	&& (s == null ? t.s == null : s.equals(t.s));
-		}
-
-		public int hashCode() {
-			int x, y;
-			if (s == null)
-				x = 0;
-			else
-				x = s.hashCode();
-			if (l == null)
-				y = 0;
-			else
-				y = l.hashCode();
-			return y << 16 | x;
-		}
-	}
-
 	/**
 	 * Returns true if this automaton accepts given word -- ie. sequence of
 	 * letters. Note that this method accepts words with letters not in this
@@ -847,17 +889,12 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 */
 	public Set<State> step(Set<State> s, L o) {
 		Set<State> ns = stateFactory.stateSet();
+		if (o == null)
+			return ns;
 		Set<State> ec = TransformationsToolBox.epsilonClosure(s, this);
-		Iterator<State> it = ec.iterator();
-		while (it.hasNext()) {
-			State st = it.next();
-			Iterator<?> it2 = delta(st).iterator();
-			while (it2.hasNext()) {
-				Transition<?> tr = (Transition<?>) it2.next();
-				if (tr.label() != null && tr.label().equals(o))
-					ns.add(tr.end());
-			}
-		}
+		for (State st : ec)
+			for (Transition<L> tr : transitions.delta(st, o))
+				ns.add(tr.end());
 		return ns;
 	}
 
@@ -869,17 +906,10 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 		L lbl = tr.label();
 		alphabet.remove(lbl);
 		alphabet.add(msg);
-		/* update transition map */
-		Key k = new Key(tr.start(), lbl);
-		Set<Transition<L>> s = transitions.remove(k);
-		if (s != null)
-			transitions.put(new Key(tr.start(), msg), s);
-		/* update reverse map */
-		k = new Key(tr.end(), lbl);
-		s = reverse.remove(k);
-		if (s != null)
-			reverse.put(new Key(tr.end(), msg), s);
+		transitions.relabel(tr, msg);
 		tr.setLabel(msg);
+		if (lbl == null || msg == null)
+			epsilonClosures = null;
 	}
 
 	/**
@@ -888,12 +918,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 */
 	@Override
 	public Set<Transition<L>> deltaMinusOne(State st) {
-		Set<Transition<L>> s = new HashSet<>();
-		Iterator<L> alphit = alphabet().iterator();
-		while (alphit.hasNext()) {
-			s.addAll(deltaMinusOne(st, alphit.next()));
-		}
-		return s;
+		return transitions.deltaMinusOne(st);
 	}
 
 	/**
@@ -951,7 +976,7 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 	 * @return the newly created state.
 	 */
 	public State state(L label) {
-		State s = stateLabels.state(label);
+		State s = labelled(label);
 		if (s == null) {
 			s = stateFactory.create(false, false, label);
 			states.add(s);
@@ -960,6 +985,11 @@ public class Automaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>>
 		return s;
 	}
 
+	/* the state bound to label, or null */
+	State labelled(Object label) {
+		return stateLabels.state(label);
+	}
+
 	/**
 	 * Starts creation of a new transition from the given state. Note that the
 	 * state is created with given label if it does not exists.
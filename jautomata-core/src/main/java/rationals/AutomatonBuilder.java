@@ -0,0 +1,325 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Builds large automata from transitions given as triples of ints.
+ * <p>
+ * States are numbered from <code>0</code> in order of creation and labels
+ * by their index in the {@link Alphabet} of the builder, {@link Alphabet#EPSILON}
+ * standing for epsilon transitions. Transitions are accumulated in int
+ * arrays, then {@link #build()} sorts them and packs them at once in a
+ * {@link CompactTransitionTable}, removing duplicates. This avoids the
+ * lookups and allocations made by {@link Automaton#addTransition(Transition)}
+ * for each transition.
+ * <p>
+ * By default, the states and labels of each transition are checked when it
+ * is added. Checks may be disabled with {@link #setValidating(boolean)} when
+ * the transitions are known to be valid, eg. when loading an automaton which
+ * was saved by this library: the automaton built from invalid transitions
+ * is then undefined.
+ * 
+ * @see CompactTransitionTable
+ */
+public final class AutomatonBuilder<L> {
+
+	private final Alphabet<L> symbols;
+
+	private boolean validating = true;
+
+	private int nstates;
+
+	private final BitSet initials = new BitSet();
+
+	private final BitSet terminals = new BitSet();
+
+	/* transitions added so far */
+	private int[] starts = new int[16];
+
+	private int[] labels = new int[16];
+
+	private int[] ends = new int[16];
+
+	private int size;
+
+	/**
+	 * Creates a builder with its own alphabet.
+	 */
+	public AutomatonBuilder() {
+		this(null);
+	}
+
+	/**
+	 * Creates a builder interning labels in given alphabet.
+	 * 
+	 * @param symbols
+	 *            the alphabet to use. May be null, in which case a new
+	 *            alphabet is created.
+	 */
+	public AutomatonBuilder(Alphabet<L> symbols) {
+		this.symbols = symbols == null ? new Alphabet<L>() : symbols;
+	}
+
+	/**
+	 * @return the alphabet numbering the labels of this builder, which is
+	 *         shared with the automata it builds.
+	 */
+	public Alphabet<L> symbols() {
+		return symbols;
+	}
+
+	/**
+	 * Enables or disables the checks made when transitions are added.
+	 * 
+	 * @param validating
+	 *            if false, transitions are stored without checking their
+	 *            states and labels.
+	 * @return this builder.
+	 */
+	public AutomatonBuilder<L> setValidating(boolean validating) {
+		this.validating = validating;
+		return this;
+	}
+
+	/**
+	 * @return the number of states added so far.
+	 */
+	public int stateCount() {
+		return nstates;
+	}
+
+	/**
+	 * @return the number of transitions added so far, including duplicates.
+	 */
+	public int transitionCount() {
+		return size;
+	}
+
+	/**
+	 * Adds a state.
+	 * 
+	 * @param initial
+	 *            if true, the new state is initial.
+	 * @param terminal
+	 *            if true, the new state is terminal.
+	 * @return the number of the new state.
+	 */
+	public int addState(boolean initial, boolean terminal) {
+		initials.set(nstates, initial);
+		terminals.set(nstates, terminal);
+		return nstates++;
+	}
+
+	/**
+	 * Adds states which are neither initial nor terminal.
+	 * 
+	 * @param n
+	 *            the number of states to add.
+	 * @return the number of the first new state, the others following it.
+	 */
+	public int addStates(int n) {
+		int ret = nstates;
+		nstates += n;
+		return ret;
+	}
+
+	/**
+	 * Makes a state initial.
+	 * 
+	 * @param q
+	 *            a state number.
+	 * @return this builder.
+	 * @throws NoSuchStateException
+	 *             if there is no state numbered <code>q</code>.
+	 */
+	public AutomatonBuilder<L> setInitial(int q) throws NoSuchStateException {
+		check(q);
+		initials.set(q);
+		return this;
+	}
+
+	/**
+	 * Makes a state terminal.
+	 * 
+	 * @param q
+	 *            a state number.
+	 * @return this builder.
+	 * @throws NoSuchStateException
+	 *             if there is no state numbered <code>q</code>.
+	 */
+	public AutomatonBuilder<L> setTerminal(int q) throws NoSuchStateException {
+		check(q);
+		terminals.set(q);
+		return this;
+	}
+
+	/**
+	 * @param label
+	 *            a label, possibly null.
+	 * @return the number of <code>label</code>, added to the alphabet of this
+	 *         builder if needed.
+	 */
+	public int label(L label) {
+		return symbols.intern(label);
+	}
+
+	/**
+	 * Adds a transition.
+	 * 
+	 * @param from
+	 *            the number of the start state.
+	 * @param label
+	 *            the number of the label in {@link #symbols()}.
+	 * @param to
+	 *            the number of the end state.
+	 * @return this builder.
+	 * @throws NoSuchStateException
+	 *             if validating and <code>from</code> or <code>to</code> is
+	 *             not a state number.
+	 * @throws IllegalArgumentException
+	 *             if validating and <code>label</code> is not the number of a
+	 *             label.
+	 */
+	public AutomatonBuilder<L> addTransition(int from, int label, int to) throws NoSuchStateException {
+		if (validating)
+			check(from, label, to);
+		if (size == starts.length)
+			grow(size + 1);
+		starts[size] = from;
+		labels[size] = label;
+		ends[size++] = to;
+		return this;
+	}
+
+	/**
+	 * Adds a transition with a label given as an object.
+	 * 
+	 * @param from
+	 *            the number of the start state.
+	 * @param label
+	 *            a label, possibly null for an epsilon transition.
+	 * @param to
+	 *            the number of the end state.
+	 * @return this builder.
+	 * @throws NoSuchStateException
+	 *             if validating and <code>from</code> or <code>to</code> is
+	 *             not a state number.
+	 */
+	public AutomatonBuilder<L> addTransition(int from, L label, int to) throws NoSuchStateException {
+		return addTransition(from, symbols.intern(label), to);
+	}
+
+	/**
+	 * Adds transitions given as consecutive triples of start state, label
+	 * and end state numbers.
+	 * 
+	 * @param triples
+	 *            an array of triples.
+	 * @param offset
+	 *            the index in <code>triples</code> of the first start state.
+	 * @param count
+	 *            the number of transitions to add.
+	 * @return this builder.
+	 * @throws NoSuchStateException
+	 *             if validating and a transition has an invalid state. No
+	 *             transition is added in this case.
+	 * @throws IllegalArgumentException
+	 *             if validating and a transition has an invalid label. No
+	 *             transition is added in this case.
+	 */
+	public AutomatonBuilder<L> addTransitions(int[] triples, int offset, int count) throws NoSuchStateException {
+		if (validating)
+			for (int i = 0; i < count; i++) {
+				int j = offset + 3 * i;
+				check(triples[j], triples[j + 1], triples[j + 2]);
+			}
+		if (size + count > starts.length)
+			grow(size + count);
+		for (int i = 0, j = offset; i < count; i++) {
+			starts[size] = triples[j++];
+			labels[size] = triples[j++];
+			ends[size++] = triples[j++];
+		}
+		return this;
+	}
+
+	/**
+	 * Creates an automaton with the states and transitions added to this
+	 * builder, which is emptied.
+	 * 
+	 * @return a new automaton storing its transitions in a
+	 *         {@link CompactTransitionTable} sharing the alphabet of this
+	 *         builder.
+	 */
+	public <Tr extends Transition<L>, T extends Builder<L, Tr, T>> Automaton<L, Tr, T> build() {
+		return build(new State[nstates]);
+	}
+
+	/**
+	 * Creates an automaton with the states and transitions added to this
+	 * builder, which is emptied, and stores its states by number.
+	 * 
+	 * @param states
+	 *            an array of at least {@link #stateCount()} elements, where
+	 *            the state numbered <code>q</code> is stored at index
+	 *            <code>q</code>.
+	 * @return a new automaton storing its transitions in a
+	 *         {@link CompactTransitionTable} sharing the alphabet of this
+	 *         builder.
+	 */
+	public <Tr extends Transition<L>, T extends Builder<L, Tr, T>> Automaton<L, Tr, T> build(State[] states) {
+		CompactTransitionTable<L> table = new CompactTransitionTable<>(symbols);
+		Automaton<L, Tr, T> a = new Automaton<>(null, table);
+		for (int q = 0; q < nstates; q++)
+			states[q] = a.addState(initials.get(q), terminals.get(q));
+		BitSet used = new BitSet();
+		for (int i = 0; i < size; i++)
+			used.set(labels[i]);
+		for (int l = used.nextSetBit(0); l >= 0; l = used.nextSetBit(l + 1))
+			a.alphabet.add(symbols.label(l));
+		table.load(states, nstates, starts, labels, ends, size);
+		nstates = size = 0;
+		initials.clear();
+		terminals.clear();
+		starts = new int[16];
+		labels = new int[16];
+		ends = new int[16];
+		return a;
+	}
+
+	private void grow(int min) {
+		int n = Math.max(min, starts.length * 2);
+		starts = Arrays.copyOf(starts, n);
+		labels = Arrays.copyOf(labels, n);
+		ends = Arrays.copyOf(ends, n);
+	}
+
+	private void check(int q) throws NoSuchStateException {
+		if (q < 0 || q >= nstates)
+			throw new NoSuchStateException("no state numbered " + q);
+	}
+
+	private void check(int from, int label, int to) throws NoSuchStateException {
+		check(from);
+		check(to);
+		if (label < 0 || label >= symbols.size())
+			throw new IllegalArgumentException("no label numbered " + label);
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * Fork-join task computing the membership of a range of words for
+ * CompiledDfa.acceptAll(). Ranges are split on multiples of 64 words so that
+ * each leaf writes its own words of the result bitset. A leaf remembers the
+ * states reached along the previous word and only reads the suffix of each
+ * word which is not shared with the previous one.
+ */
+final class BatchAccept<L> extends RecursiveAction {
+
+	private static final long serialVersionUID = 1L;
+
+	/* number of words handled by one leaf, a multiple of 64 */
+	static final int LEAF = 4096;
+
+	private final CompiledDfa<L> dfa;
+
+	private final List<? extends List<L>> words;
+
+	private final int[][] encoded;
+
+	private final long[] result;
+
+	private final int from;
+
+	private final int to;
+
+	BatchAccept(CompiledDfa<L> dfa, List<? extends List<L>> words, int[][] encoded, long[] result, int from, int to) {
+		this.dfa = dfa;
+		this.words = words;
+		this.encoded = encoded;
+		this.result = result;
+		this.from = from;
+		this.to = to;
+	}
+
+	@Override
+	protected void compute() {
+		if (to - from <= LEAF) {
+			leaf();
+			return;
+		}
+		int mid = from + (((to - from) >>> 1) & ~63);
+		invokeAll(new BatchAccept<L>(dfa, words, encoded, result, from, mid), new BatchAccept<L>(dfa, words,
+				encoded, result, mid, to));
+	}
+
+	private void leaf() {
+		int[] path = new int[17];
+		path[0] = dfa.start();
+		int valid = 0;
+		if (encoded != null) {
+			int[] prev = null;
+			for (int i = from; i < to; i++) {
+				int[] word = encoded[i];
+				int k = 0;
+				if (prev != null) {
+					int m = Math.min(valid, word.length);
+					while (k < m && prev[k] == word[k])
+						k++;
+				}
+				if (path.length <= word.length)
+					path = Arrays.copyOf(path, Math.max(word.length + 1, path.length * 2));
+				int q = path[k];
+				while (k < word.length && q >= 0) {
+					int c = word[k++];
+					q = c < 0 ? -1 : dfa.stepColumn(q, c);
+					path[k] = q;
+				}
+				valid = k;
+				prev = word;
+				if (k == word.length && dfa.isAccepting(q))
+					result[i >>> 6] |= 1L << i;
+			}
+			return;
+		}
+		List<L> prev = null;
+		for (int i = from; i < to; i++) {
+			List<L> word = words.get(i);
+			if (!(word instanceof RandomAccess)) {
+				if (dfa.accept(word))
+					result[i >>> 6] |= 1L << i;
+				prev = null;
+				continue;
+			}
+			int len = word.size();
+			int k = 0;
+			if (prev != null) {
+				int m = Math.min(valid, len);
+				while (k < m) {
+					L x = word.get(k), y = prev.get(k);
+					if (x != y && (x == null || !x.equals(y)))
+						break;
+					k++;
+				}
+			}
+			if (path.length <= len)
+				path = Arrays.copyOf(path, Math.max(len + 1, path.length * 2));
+			int q = path[k];
+			while (k < len && q >= 0) {
+				q = dfa.next(q, word.get(k++));
+				path[k] = q;
+			}
+			valid = k;
+			prev = word;
+			if (k == len && dfa.isAccepting(q))
+				result[i >>> 6] |= 1L << i;
+		}
+	}
+}
@@ -0,0 +1,406 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A state factory whose sets of states are bitsets.
+ * <p>
+ * States created by this factory are numbered densely, as in
+ * {@link DefaultStateFactory}, and sets returned by {@link #stateSet()} store
+ * these numbers in an array of <code>long</code>. Membership tests are
+ * constant time and bulk operations, {@link Object#equals(Object)} and
+ * {@link Object#hashCode()} work a word at a time, which makes sets of states
+ * cheap keys in the maps used by subset constructions like
+ * {@link rationals.transformations.ToDFA}.
+ * <p>
+ * Hash codes are computed from the words of the bitset and are cached. As
+ * allowed by {@link StateFactory#stateSet()}, they are not consistent with
+ * hash codes of other implementations of Set: sets of states used as keys
+ * in a map should all be created by the same factory. Equality with other
+ * sets still follows the contract of {@link Set#equals(Object)}. States not
+ * created by this factory may be stored in these sets but do not benefit from
+ * the bitset representation.
+ * <p>
+ * Use it by constructing an automaton with
+ * <code>new Automaton&lt;&gt;(new BitSetStateFactory&lt;&gt;())</code>.
+ */
+public class BitSetStateFactory<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> extends DefaultStateFactory<L, Tr, T> {
+
+	/* states created by this factory, indexed by number */
+	private State[] created = new State[64];
+
+	private int count;
+
+	/**
+	 * Creates a factory which must be attached to an automaton through
+	 * {@link #setAutomaton(Automaton)}, which is done by
+	 * {@link Automaton#Automaton(StateFactory)}.
+	 */
+	public BitSetStateFactory() {
+		super(null);
+	}
+
+	@Override
+	public State create(boolean initial, boolean terminal) {
+		return register(super.create(initial, terminal));
+	}
+
+	@Override
+	public State create(boolean initial, boolean terminal, Object label) {
+		return register(super.create(initial, terminal, label));
+	}
+
+	private State register(State s) {
+		int i = ((DefaultStateFactory<?, ?, ?>.DefaultState) s).i;
+		if (i >= created.length)
+			created = Arrays.copyOf(created, Math.max(i + 1, created.length * 2));
+		created[i] = s;
+		count = Math.max(count, i + 1);
+		return s;
+	}
+
+	/* number of s if it has been created by this factory, -1 otherwise */
+	private int index(Object s) {
+		if (!(s instanceof DefaultStateFactory.DefaultState))
+			return -1;
+		int i = ((DefaultStateFactory<?, ?, ?>.DefaultState) s).i;
+		return i < count && created[i] == s ? i : -1;
+	}
+
+	@Override
+	public Set<State> stateSet() {
+		return new StateBitSet();
+	}
+
+	@Override
+	public Set<State> stateSet(Set<State> s) {
+		StateBitSet ret = new StateBitSet();
+		ret.addAll(s);
+		return ret;
+	}
+
+	@Override
+	public BitSetStateFactory<L, Tr, T> clone() {
+		BitSetStateFactory<L, Tr, T> cl = (BitSetStateFactory<L, Tr, T>) super.clone();
+		cl.created = new State[64];
+		cl.count = 0;
+		return cl;
+	}
+
+	private static final long[] EMPTY = new long[0];
+
+	private final class StateBitSet extends AbstractSet<State> {
+
+		private long[] words = EMPTY;
+
+		private int size;
+
+		/* cached hash code, valid if hashed is true */
+		private int hash;
+
+		private boolean hashed;
+
+		private int modCount;
+
+		/* states not created by this factory, lazily allocated */
+		private Set<State> others;
+
+		private void modified() {
+			hashed = false;
+			modCount++;
+		}
+
+		private boolean factoryOf(Object o) {
+			return o instanceof BitSetStateFactory.StateBitSet && ((BitSetStateFactory<?, ?, ?>.StateBitSet) o).factory() == BitSetStateFactory.this;
+		}
+
+		private BitSetStateFactory<?, ?, ?> factory() {
+			return BitSetStateFactory.this;
+		}
+
+		@Override
+		public int size() {
+			return size + (others == null ? 0 : others.size());
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			int i = index(o);
+			if (i < 0)
+				return others != null && others.contains(o);
+			int w = i >>> 6;
+			return w < words.length && (words[w] & (1L << i)) != 0;
+		}
+
+		@Override
+		public boolean add(State s) {
+			int i = index(s);
+			if (i < 0) {
+				if (others == null)
+					others = new HashSet<>();
+				if (!others.add(s))
+					return false;
+				modified();
+				return true;
+			}
+			int w = i >>> 6;
+			if (w >= words.length)
+				words = Arrays.copyOf(words, Math.max(w + 1, Math.max(2 * words.length, count + 63 >>> 6)));
+			long b = 1L << i;
+			if ((words[w] & b) != 0)
+				return false;
+			words[w] |= b;
+			size++;
+			modified();
+			return true;
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			int i = index(o);
+			if (i < 0) {
+				if (others == null || !others.remove(o))
+					return false;
+				modified();
+				return true;
+			}
+			int w = i >>> 6;
+			long b = 1L << i;
+			if (w >= words.length || (words[w] & b) == 0)
+				return false;
+			words[w] &= ~b;
+			size--;
+			modified();
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			Arrays.fill(words, 0L);
+			size = 0;
+			others = null;
+			modified();
+		}
+
+		private void recount() {
+			int n = 0;
+			for (long w : words)
+				n += Long.bitCount(w);
+			size = n;
+			modified();
+		}
+
+		@Override
+		public boolean addAll(Collection<? extends State> c) {
+			if (!factoryOf(c))
+				return super.addAll(c);
+			BitSetStateFactory<?, ?, ?>.StateBitSet s = (BitSetStateFactory<?, ?, ?>.StateBitSet) c;
+			if (s.words.length > words.length)
+				words = Arrays.copyOf(words, s.words.length);
+			boolean changed = false;
+			for (int i = 0; i < s.words.length; i++) {
+				long w = words[i] | s.words[i];
+				changed |= w != words[i];
+				words[i] = w;
+			}
+			if (s.others != null)
+				for (State o : s.others)
+					changed |= add(o);
+			if (changed)
+				recount();
+			return changed;
+		}
+
+		@Override
+		public boolean removeAll(Collection<?> c) {
+			if (!factoryOf(c))
+				return super.removeAll(c);
+			BitSetStateFactory<?, ?, ?>.StateBitSet s = (BitSetStateFactory<?, ?, ?>.StateBitSet) c;
+			boolean changed = false;
+			for (int i = 0, n = Math.min(words.length, s.words.length); i < n; i++) {
+				long w = words[i] & ~s.words[i];
+				changed |= w != words[i];
+				words[i] = w;
+			}
+			if (others != null && s.others != null)
+				changed |= others.removeAll(s.others);
+			if (changed)
+				recount();
+			return changed;
+		}
+
+		@Override
+		public boolean retainAll(Collection<?> c) {
+			if (!factoryOf(c))
+				return super.retainAll(c);
+			BitSetStateFactory<?, ?, ?>.StateBitSet s = (BitSetStateFactory<?, ?, ?>.StateBitSet) c;
+			boolean changed = false;
+			for (int i = 0; i < words.length; i++) {
+				long w = i < s.words.length ? words[i] & s.words[i] : 0L;
+				changed |= w != words[i];
+				words[i] = w;
+			}
+			if (others != null && !others.isEmpty()) {
+				if (s.others == null) {
+					others.clear();
+					changed = true;
+				} else
+					changed |= others.retainAll(s.others);
+			}
+			if (changed)
+				recount();
+			return changed;
+		}
+
+		@Override
+		public boolean containsAll(Collection<?> c) {
+			if (!factoryOf(c))
+				return super.containsAll(c);
+			BitSetStateFactory<?, ?, ?>.StateBitSet s = (BitSetStateFactory<?, ?, ?>.StateBitSet) c;
+			for (int i = 0; i < s.words.length; i++)
+				if ((s.words[i] & ~(i < words.length ? words[i] : 0L)) != 0)
+					return false;
+			return s.others == null || (others == null ? s.others.isEmpty() : others.containsAll(s.others));
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (o == this)
+				return true;
+			if (!factoryOf(o))
+				return super.equals(o);
+			BitSetStateFactory<?, ?, ?>.StateBitSet s = (BitSetStateFactory<?, ?, ?>.StateBitSet) o;
+			if (s.size != size || (hashed && s.hashed && hash != s.hash))
+				return false;
+			int n = Math.min(words.length, s.words.length);
+			for (int i = 0; i < n; i++)
+				if (words[i] != s.words[i])
+					return false;
+			/* sizes are equal hence remaining words are empty */
+			boolean no = others == null || others.isEmpty();
+			boolean sno = s.others == null || s.others.isEmpty();
+			return no && sno || (!no && !sno && others.equals(s.others));
+		}
+
+		@Override
+		public int hashCode() {
+			if (!hashed) {
+				long h = 1;
+				int n = words.length;
+				while (n > 0 && words[n - 1] == 0)
+					n--;
+				for (int i = 0; i < n; i++)
+					h = 31 * h + words[i];
+				int ret = (int) (h ^ (h >>> 32));
+				if (others != null)
+					ret += others.hashCode();
+				hash = ret;
+				hashed = true;
+			}
+			return hash;
+		}
+
+		@Override
+		public Iterator<State> iterator() {
+			return new Iterator<State>() {
+
+				private int expected = modCount;
+
+				/* next bit to return, or words.length * 64 when done */
+				private int next = nextBit(0);
+
+				private int last;
+
+				/* true if last returned element comes from others */
+				private boolean fromRest;
+
+				private boolean canRemove;
+
+				private Iterator<State> rest;
+
+				private int nextBit(int from) {
+					int w = from >>> 6;
+					if (w >= words.length)
+						return words.length << 6;
+					long word = words[w] & (-1L << from);
+					while (true) {
+						if (word != 0)
+							return (w << 6) + Long.numberOfTrailingZeros(word);
+						if (++w == words.length)
+							return words.length << 6;
+						word = words[w];
+					}
+				}
+
+				private void check() {
+					if (expected != modCount)
+						throw new ConcurrentModificationException();
+				}
+
+				@Override
+				public boolean hasNext() {
+					if (next < words.length << 6)
+						return true;
+					if (rest == null && others != null)
+						rest = others.iterator();
+					return rest != null && rest.hasNext();
+				}
+
+				@Override
+				public State next() {
+					check();
+					if (!hasNext())
+						throw new NoSuchElementException();
+					canRemove = true;
+					if (next < words.length << 6) {
+						fromRest = false;
+						last = next;
+						next = nextBit(next + 1);
+						return created[last];
+					}
+					fromRest = true;
+					return rest.next();
+				}
+
+				@Override
+				public void remove() {
+					check();
+					if (!canRemove)
+						throw new IllegalStateException();
+					canRemove = false;
+					if (fromRest)
+						rest.remove();
+					else {
+						words[last >>> 6] &= ~(1L << last);
+						size--;
+					}
+					modified();
+					expected = modCount;
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,525 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compact storage engine for transitions.
+ * <p>
+ * States are numbered densely in order of first appearance, labels are
+ * numbered by the table's {@link Alphabet}, and
+ * transitions are stored as triples of ints. Forward and reverse adjacency are
+ * kept in <em>compressed sparse row</em> (CSR) layout: for each state, the
+ * outgoing (resp. incoming) transitions are stored contiguously in int
+ * arrays, sorted by label then by end (resp. start) state. Transitions added
+ * since the last packing are chained per state in a small pending area which
+ * is merged in the CSR arrays when it grows beyond the size of the packed
+ * part, which keeps the amortized cost of additions logarithmic.
+ * <p>
+ * Lookups create {@link Transition} objects on the fly, which means that
+ * <strong>subclasses of Transition are not preserved</strong>: this table is
+ * not suitable for automata using specialized transitions, like
+ * IO automata. It uses an order of magnitude less memory than
+ * {@link MapTransitionTable} on large automata.
+ * <p>
+ * Lookups never modify the table. Instances are not thread-safe while being
+ * modified.
+ * 
+ * @see MapTransitionTable
+ */
+public class CompactTransitionTable<L> implements TransitionTable<L> {
+
+	/* minimal size of pending area before merging */
+	private static final int MIN_PENDING = 1024;
+
+	private static final int[] EMPTY = new int[0];
+
+	/* state numbering */
+	private final Map<State, Integer> stateIds = new HashMap<>();
+
+	private State[] states = new State[16];
+
+	private int nstates;
+
+	/* label numbering */
+	private final Alphabet<L> symbols;
+
+	/* packed part: forward and reverse CSR */
+	private int packedStates;
+
+	private int packedSize;
+
+	private int[] outOffsets = new int[1];
+
+	private int[] outLabels = EMPTY;
+
+	private int[] outTargets = EMPTY;
+
+	private int[] inOffsets = new int[1];
+
+	private int[] inLabels = EMPTY;
+
+	private int[] inSources = EMPTY;
+
+	/* pending part: transitions chained per state */
+	private int pending;
+
+	private int[] pendingStart = EMPTY;
+
+	private int[] pendingLabel = EMPTY;
+
+	private int[] pendingEnd = EMPTY;
+
+	private int[] nextOut = EMPTY;
+
+	private int[] nextIn = EMPTY;
+
+	private int[] headOut = EMPTY;
+
+	private int[] headIn = EMPTY;
+
+	/**
+	 * Creates an empty table with its own alphabet.
+	 */
+	public CompactTransitionTable() {
+		this(null);
+	}
+
+	/**
+	 * Creates an empty table interning labels in given alphabet.
+	 * 
+	 * @param symbols
+	 *            the alphabet to use. May be null, in which case a new
+	 *            alphabet is created.
+	 */
+	public CompactTransitionTable(Alphabet<L> symbols) {
+		this.symbols = symbols == null ? new Alphabet<L>() : symbols;
+	}
+
+	/**
+	 * Returns the number of a state in this table.
+	 * 
+	 * @param state
+	 *            a state
+	 * @return an int between 0 and the number of states known to this table,
+	 *         or -1 if <code>state</code> does not appear in any transition.
+	 */
+	protected int stateId(State state) {
+		Integer i = stateIds.get(state);
+		return i == null ? -1 : i;
+	}
+
+	/**
+	 * Returns the number of a label in this table.
+	 * 
+	 * @param label
+	 *            a label, possibly null
+	 * @return the index of <code>label</code> in the alphabet of this table,
+	 *         or -1 if <code>label</code> is not known.
+	 */
+	protected int labelId(L label) {
+		return symbols.indexOf(label);
+	}
+
+	private int internState(State state) {
+		Integer i = stateIds.get(state);
+		if (i != null)
+			return i;
+		if (nstates == states.length) {
+			states = Arrays.copyOf(states, nstates * 2);
+		}
+		if (nstates >= headOut.length) {
+			int n = Math.max(16, headOut.length * 2);
+			headOut = grow(headOut, n, -1);
+			headIn = grow(headIn, n, -1);
+		}
+		states[nstates] = state;
+		stateIds.put(state, nstates);
+		return nstates++;
+	}
+
+	private int internLabel(L label) {
+		return symbols.intern(label);
+	}
+
+	private static int[] grow(int[] a, int n, int fill) {
+		int l = a.length;
+		a = Arrays.copyOf(a, n);
+		if (fill != 0)
+			Arrays.fill(a, l, n, fill);
+		return a;
+	}
+
+	private static long key(int label, int state) {
+		return ((long) label << 32) | (state & 0xffffffffL);
+	}
+
+	/*
+	 * index of the first transition in packed row of s with given key or
+	 * greater
+	 */
+	private static int lowerBound(int[] lbls, int[] ends, int from, int to, long k) {
+		int lo = from, hi = to;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (key(lbls[mid], ends[mid]) < k)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	private boolean contains(int s, int l, int e) {
+		if (s < packedStates) {
+			int to = outOffsets[s + 1];
+			int i = lowerBound(outLabels, outTargets, outOffsets[s], to, key(l, e));
+			if (i < to && outLabels[i] == l && outTargets[i] == e)
+				return true;
+		}
+		for (int p = headOut[s]; p != -1; p = nextOut[p])
+			if (pendingLabel[p] == l && pendingEnd[p] == e)
+				return true;
+		return false;
+	}
+
+	@Override
+	public boolean add(Transition<L> transition) {
+		int s = internState(transition.start());
+		int e = internState(transition.end());
+		int l = internLabel(transition.label());
+		if (contains(s, l, e))
+			return false;
+		if (pending == pendingStart.length) {
+			int n = Math.max(16, pending * 2);
+			pendingStart = grow(pendingStart, n, 0);
+			pendingLabel = grow(pendingLabel, n, 0);
+			pendingEnd = grow(pendingEnd, n, 0);
+			nextOut = grow(nextOut, n, 0);
+			nextIn = grow(nextIn, n, 0);
+		}
+		pendingStart[pending] = s;
+		pendingLabel[pending] = l;
+		pendingEnd[pending] = e;
+		nextOut[pending] = headOut[s];
+		headOut[s] = pending;
+		nextIn[pending] = headIn[e];
+		headIn[e] = pending;
+		pending++;
+		if (pending > Math.max(MIN_PENDING, packedSize))
+			pack();
+		return true;
+	}
+
+	/**
+	 * Merges all pending transitions into the packed arrays. This method may
+	 * be called after a bulk of additions to free the memory used by pending
+	 * transitions and get the best lookup performances.
+	 */
+	public void pack() {
+		/* collect all transitions grouped by start state */
+		int[] offsets = new int[nstates + 1];
+		for (int s = 0; s < packedStates; s++)
+			offsets[s + 1] = outOffsets[s + 1] - outOffsets[s];
+		for (int p = 0; p < pending; p++)
+			offsets[pendingStart[p] + 1]++;
+		for (int s = 0; s < nstates; s++)
+			offsets[s + 1] += offsets[s];
+		long[] keys = new long[offsets[nstates]];
+		int[] fill = Arrays.copyOf(offsets, nstates);
+		for (int s = 0; s < packedStates; s++)
+			for (int i = outOffsets[s]; i < outOffsets[s + 1]; i++)
+				keys[fill[s]++] = key(outLabels[i], outTargets[i]);
+		for (int p = 0; p < pending; p++)
+			keys[fill[pendingStart[p]]++] = key(pendingLabel[p], pendingEnd[p]);
+		/* sort and remove duplicates in each row */
+		int[] ooffsets = new int[nstates + 1];
+		int[] olabels = new int[keys.length];
+		int[] otargets = new int[keys.length];
+		int n = 0;
+		for (int s = 0; s < nstates; s++) {
+			Arrays.sort(keys, offsets[s], offsets[s + 1]);
+			for (int i = offsets[s]; i < offsets[s + 1]; i++) {
+				if (i > offsets[s] && keys[i] == keys[i - 1])
+					continue;
+				olabels[n] = (int) (keys[i] >>> 32);
+				otargets[n] = (int) keys[i];
+				n++;
+			}
+			ooffsets[s + 1] = n;
+		}
+		keys = null;
+		/* build reverse arrays */
+		int[] ioffsets = new int[nstates + 1];
+		for (int i = 0; i < n; i++)
+			ioffsets[otargets[i] + 1]++;
+		for (int s = 0; s < nstates; s++)
+			ioffsets[s + 1] += ioffsets[s];
+		long[] rkeys = new long[n];
+		fill = Arrays.copyOf(ioffsets, nstates);
+		for (int s = 0; s < nstates; s++)
+			for (int i = ooffsets[s]; i < ooffsets[s + 1]; i++)
+				rkeys[fill[otargets[i]]++] = key(olabels[i], s);
+		int[] ilabels = new int[n];
+		int[] isources = new int[n];
+		for (int s = 0; s < nstates; s++) {
+			Arrays.sort(rkeys, ioffsets[s], ioffsets[s + 1]);
+			for (int i = ioffsets[s]; i < ioffsets[s + 1]; i++) {
+				ilabels[i] = (int) (rkeys[i] >>> 32);
+				isources[i] = (int) rkeys[i];
+			}
+		}
+		/* install new arrays */
+		this.outOffsets = ooffsets;
+		this.outLabels = n == olabels.length ? olabels : Arrays.copyOf(olabels, n);
+		this.outTargets = n == otargets.length ? otargets : Arrays.copyOf(otargets, n);
+		this.inOffsets = ioffsets;
+		this.inLabels = ilabels;
+		this.inSources = isources;
+		this.packedStates = nstates;
+		this.packedSize = n;
+		this.pending = 0;
+		this.pendingStart = this.pendingLabel = this.pendingEnd = EMPTY;
+		this.nextOut = this.nextIn = EMPTY;
+		Arrays.fill(headOut, -1);
+		Arrays.fill(headIn, -1);
+	}
+
+	/*
+	 * Loads transitions given as triples of state and label numbers into
+	 * this empty table and packs them, states[s] being the state numbered s.
+	 * The arrays of triples become the pending area, hence are not copied.
+	 */
+	void load(State[] sts, int n, int[] starts, int[] labels, int[] ends, int m) {
+		if (nstates > 0 || pending > 0)
+			throw new IllegalStateException("table is not empty");
+		this.states = Arrays.copyOf(sts, Math.max(n, 16));
+		for (int s = 0; s < n; s++)
+			stateIds.put(sts[s], s);
+		this.nstates = n;
+		this.headOut = new int[n];
+		this.headIn = new int[n];
+		this.pendingStart = starts;
+		this.pendingLabel = labels;
+		this.pendingEnd = ends;
+		this.pending = m;
+		pack();
+	}
+
+	/*
+	 * collect transitions from packed row and pending chain of state s,
+	 * filtering on label l if it is not negative. reverse means we are reading
+	 * incoming transitions.
+	 */
+	private Set<Transition<L>> collect(int s, int l, boolean reverse) {
+		Set<Transition<L>> ret = new HashSet<>();
+		State st = states[s];
+		if (s < packedStates) {
+			int[] offsets = reverse ? inOffsets : outOffsets;
+			int[] lbls = reverse ? inLabels : outLabels;
+			int[] ends = reverse ? inSources : outTargets;
+			int to = offsets[s + 1];
+			int i = l < 0 ? offsets[s] : lowerBound(lbls, ends, offsets[s], to, key(l, 0));
+			for (; i < to && (l < 0 || lbls[i] == l); i++)
+				ret.add(new Transition<L>(st, symbols.label(lbls[i]), states[ends[i]]));
+		}
+		if (reverse) {
+			for (int p = headIn[s]; p != -1; p = nextIn[p])
+				if (l < 0 || pendingLabel[p] == l)
+					ret.add(new Transition<L>(st, symbols.label(pendingLabel[p]), states[pendingStart[p]]));
+		} else {
+			for (int p = headOut[s]; p != -1; p = nextOut[p])
+				if (l < 0 || pendingLabel[p] == l)
+					ret.add(new Transition<L>(st, symbols.label(pendingLabel[p]), states[pendingEnd[p]]));
+		}
+		return ret;
+	}
+
+	@Override
+	public Set<Transition<L>> delta(State state, L label) {
+		int s = stateId(state);
+		int l = labelId(label);
+		if (s < 0 || l < 0)
+			return new HashSet<>();
+		return collect(s, l, false);
+	}
+
+	@Override
+	public Set<Transition<L>> delta(State state) {
+		int s = stateId(state);
+		if (s < 0)
+			return new HashSet<>();
+		return collect(s, -1, false);
+	}
+
+	@Override
+	public Set<Transition<L>> deltaFrom(State from, State to) {
+		Set<Transition<L>> ret = new HashSet<>();
+		int s = stateId(from);
+		int e = stateId(to);
+		if (s < 0 || e < 0)
+			return ret;
+		/* rows are sorted by label first: the whole row of s is scanned */
+		if (s < packedStates)
+			for (int i = outOffsets[s]; i < outOffsets[s + 1]; i++)
+				if (outTargets[i] == e)
+					ret.add(new Transition<L>(states[s], symbols.label(outLabels[i]), states[e]));
+		for (int p = headOut[s]; p != -1; p = nextOut[p])
+			if (pendingEnd[p] == e)
+				ret.add(new Transition<L>(states[s], symbols.label(pendingLabel[p]), states[e]));
+		return ret;
+	}
+
+	@Override
+	public Set<Transition<L>> deltaMinusOne(State state, L label) {
+		int s = stateId(state);
+		int l = labelId(label);
+		if (s < 0 || l < 0)
+			return new HashSet<>();
+		return collect(s, l, true);
+	}
+
+	@Override
+	public Set<Transition<L>> deltaMinusOne(State state) {
+		int s = stateId(state);
+		if (s < 0)
+			return new HashSet<>();
+		return collect(s, -1, true);
+	}
+
+	@Override
+	public Set<Transition<L>> delta() {
+		Set<Transition<L>> ret = new HashSet<>();
+		for (int s = 0; s < nstates; s++)
+			ret.addAll(collect(s, -1, false));
+		return ret;
+	}
+
+	@Override
+	public Map<Couple, Set<Transition<L>>> couples() {
+		Map<Couple, Set<Transition<L>>> ret = new HashMap<>();
+		for (Transition<L> tr : delta()) {
+			Couple cpl = new Couple(tr.start(), tr.end());
+			Set<Transition<L>> s = ret.get(cpl);
+			if (s == null)
+				ret.put(cpl, s = new HashSet<>());
+			s.add(tr);
+		}
+		return ret;
+	}
+
+	@Override
+	public void relabel(Transition<L> transition, L label) {
+		int s = stateId(transition.start());
+		int e = stateId(transition.end());
+		int l = labelId(transition.label());
+		if (s < 0 || e < 0 || l < 0)
+			return;
+		int nl = internLabel(label);
+		if (nl == l || !contains(s, l, e))
+			return;
+		boolean merged = contains(s, nl, e);
+		for (int p = headOut[s]; p != -1; p = nextOut[p])
+			if (pendingLabel[p] == l && pendingEnd[p] == e) {
+				/* pending chains are not sorted */
+				if (!merged) {
+					pendingLabel[p] = nl;
+					return;
+				}
+				/* pending transitions cannot be removed, packed ones can */
+				pack();
+				break;
+			}
+		int i = lowerBound(outLabels, outTargets, outOffsets[s], outOffsets[s + 1], key(l, e));
+		int j = lowerBound(inLabels, inSources, inOffsets[e], inOffsets[e + 1], key(l, s));
+		if (merged) {
+			remove(outOffsets, outLabels, outTargets, s, i);
+			remove(inOffsets, inLabels, inSources, e, j);
+			packedSize--;
+			return;
+		}
+		outLabels[i] = nl;
+		resort(outLabels, outTargets, outOffsets[s], outOffsets[s + 1], i);
+		inLabels[j] = nl;
+		resort(inLabels, inSources, inOffsets[e], inOffsets[e + 1], j);
+	}
+
+	/* removes transition i of the packed row of s */
+	private void remove(int[] offsets, int[] lbls, int[] ends, int s, int i) {
+		System.arraycopy(lbls, i + 1, lbls, i, packedSize - i - 1);
+		System.arraycopy(ends, i + 1, ends, i, packedSize - i - 1);
+		for (int r = s + 1; r <= packedStates; r++)
+			offsets[r]--;
+	}
+
+	/* moves transition i, whose label changed, to its place in its sorted row */
+	private static void resort(int[] lbls, int[] ends, int from, int to, int i) {
+		int l = lbls[i], e = ends[i];
+		long k = key(l, e);
+		for (; i > from && key(lbls[i - 1], ends[i - 1]) > k; i--) {
+			lbls[i] = lbls[i - 1];
+			ends[i] = ends[i - 1];
+		}
+		for (; i + 1 < to && key(lbls[i + 1], ends[i + 1]) < k; i++) {
+			lbls[i] = lbls[i + 1];
+			ends[i] = ends[i + 1];
+		}
+		lbls[i] = l;
+		ends[i] = e;
+	}
+
+	@Override
+	public void projectOn(Set<?> alph) {
+		int eps = internLabel(null);
+		pack();
+		/* labels to keep, tested once per label */
+		BitSet seen = new BitSet();
+		BitSet keep = new BitSet();
+		for (int i = 0; i < packedSize; i++) {
+			int l = outLabels[i];
+			if (!seen.get(l)) {
+				seen.set(l);
+				if (alph.contains(symbols.label(l)))
+					keep.set(l);
+			}
+			if (!keep.get(l))
+				outLabels[i] = eps;
+		}
+		pack();
+	}
+
+	@Override
+	public int size() {
+		return packedSize + pending;
+	}
+
+	@Override
+	public TransitionTable<L> newTable() {
+		return new CompactTransitionTable<>(symbols);
+	}
+
+	@Override
+	public Alphabet<L> symbols() {
+		return symbols;
+	}
+}
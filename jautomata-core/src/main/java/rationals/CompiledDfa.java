@@ -0,0 +1,393 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+
+import rationals.properties.IsDeterministic;
+import rationals.transformations.ToDFA;
+
+/**
+ * A deterministic automaton compiled to a transition table.
+ * <p>
+ * The states of the automaton are numbered from <code>0</code> to
+ * {@link #stateCount()}<code> - 1</code> and the labels it uses are given a
+ * column in a single <code>int[]</code> table: the successor of state
+ * <code>q</code> by the label in column <code>c</code> is found at index
+ * <code>q * labelCount() + c</code>, <code>-1</code> denoting the dead state.
+ * Accepting states are stored in a bitset. Reading a letter is thus a single
+ * array lookup, and {@link #accept(int[])} does not allocate any memory.
+ * <p>
+ * Words are given either as lists of labels or as arrays of indices in the
+ * {@link Alphabet} of the compiled automaton, see {@link #symbols()} and
+ * {@link #encode(List)}. Letters which do not label any transition of the
+ * automaton are rejected, as with {@link Automaton#accept(List)}.
+ * <p>
+ * Instances are immutable and can be shared by any number of threads; large
+ * batches of words can be tested in parallel with
+ * {@link #acceptAll(Collection)}.
+ * 
+ * @see #compile(Automaton)
+ */
+public final class CompiledDfa<L> {
+
+	private final Alphabet<L> symbols;
+
+	/* alphabet index -> column in table, or -1 */
+	private final int[] columns;
+
+	/* column -> alphabet index */
+	private final int[] labels;
+
+	private final int nlabels;
+
+	private final int nstates;
+
+	private final int[] table;
+
+	private final long[] accepting;
+
+	private final int start;
+
+	private CompiledDfa(Alphabet<L> symbols, int[] columns, int[] labels, int nstates, int[] table, long[] accepting,
+			int start) {
+		this.symbols = symbols;
+		this.columns = columns;
+		this.labels = labels;
+		this.nlabels = labels.length;
+		this.nstates = nstates;
+		this.table = table;
+		this.accepting = accepting;
+		this.start = start;
+	}
+
+	/**
+	 * Compiles the given automaton. If <code>a</code> is not deterministic,
+	 * it is first determinized using {@link ToDFA}. <code>a</code> itself is
+	 * never modified.
+	 * 
+	 * @param a
+	 *            the automaton to compile.
+	 * @return a compiled automaton recognizing the same language as
+	 *         <code>a</code>.
+	 */
+	public static <L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> CompiledDfa<L> compile(
+			Automaton<L, Tr, T> a) {
+		if (!new IsDeterministic<L, Tr, T>().test(a))
+			a = new ToDFA<L, Tr, T>().transform(a);
+		Alphabet<L> symbols = a.symbols();
+		int[] columns = new int[symbols.size()];
+		Arrays.fill(columns, -1);
+		int[] labels = new int[a.alphabet().size()];
+		int nlabels = 0;
+		for (L l : a.alphabet()) {
+			int idx = symbols.intern(l);
+			if (idx >= columns.length)
+				columns = Arrays.copyOf(columns, idx + 1);
+			columns[idx] = nlabels;
+			labels[nlabels++] = idx;
+		}
+		/* initial state first so that unreachable states do not matter */
+		Map<State, Integer> ids = new HashMap<>();
+		for (State s : a.initials())
+			ids.put(s, ids.size());
+		for (State s : a.states())
+			if (!ids.containsKey(s))
+				ids.put(s, ids.size());
+		int nstates = ids.size();
+		if ((long) nstates * nlabels > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("automaton too large to compile: " + nstates + " states, " + nlabels
+					+ " labels");
+		int[] table = new int[nstates * nlabels];
+		Arrays.fill(table, -1);
+		long[] accepting = new long[(nstates + 63) >>> 6];
+		for (Map.Entry<State, Integer> e : ids.entrySet()) {
+			int q = e.getValue();
+			if (e.getKey().isTerminal())
+				accepting[q >>> 6] |= 1L << q;
+			for (Transition<L> tr : a.delta(e.getKey()))
+				table[q * nlabels + columns[symbols.indexOf(tr.label())]] = ids.get(tr.end());
+		}
+		return new CompiledDfa<L>(symbols, columns, labels, nstates, table, accepting, nstates == 0
+				|| a.initials().isEmpty() ? -1 : 0);
+	}
+
+	/**
+	 * @return the alphabet indexing the labels of this automaton.
+	 */
+	public Alphabet<L> symbols() {
+		return symbols;
+	}
+
+	/**
+	 * @return the number of states of this automaton.
+	 */
+	public int stateCount() {
+		return nstates;
+	}
+
+	/**
+	 * @return the number of distinct labels of this automaton, ie. the width
+	 *         of its transition table.
+	 */
+	public int labelCount() {
+		return nlabels;
+	}
+
+	/**
+	 * Returns the label of a given column of the transition table.
+	 * 
+	 * @param column
+	 *            a column between 0 and {@link #labelCount()}<code> - 1</code>.
+	 * @return the index in {@link #symbols()} of the label of this column.
+	 */
+	public int labelAt(int column) {
+		return labels[column];
+	}
+
+	/**
+	 * Returns the column of the transition table for a given label.
+	 * 
+	 * @param label
+	 *            an index in {@link #symbols()}.
+	 * @return a column, or -1 if this label does not appear in this
+	 *         automaton.
+	 */
+	public int column(int label) {
+		return label >= 0 && label < columns.length ? columns[label] : -1;
+	}
+
+	/**
+	 * @return the initial state, or -1 if this automaton has no initial
+	 *         state.
+	 */
+	public int start() {
+		return start;
+	}
+
+	/**
+	 * @param state
+	 *            a state number.
+	 * @return true if <code>state</code> is accepting. The dead state -1 is
+	 *         never accepting.
+	 */
+	public boolean isAccepting(int state) {
+		return state >= 0 && (accepting[state >>> 6] & (1L << state)) != 0;
+	}
+
+	/**
+	 * Returns the successor of a state by a label.
+	 * 
+	 * @param state
+	 *            a state number or -1.
+	 * @param label
+	 *            an index in {@link #symbols()}.
+	 * @return the successor state, or -1 if there is none.
+	 */
+	public int step(int state, int label) {
+		if (state < 0 || label < 0 || label >= columns.length)
+			return -1;
+		int c = columns[label];
+		return c < 0 ? -1 : table[state * nlabels + c];
+	}
+
+	/**
+	 * Returns the successor of a state by a column of the transition table.
+	 * This is the raw table lookup, without any check.
+	 * 
+	 * @param state
+	 *            a state number.
+	 * @param column
+	 *            a column of the table.
+	 * @return the successor state, or -1 if there is none.
+	 */
+	public int stepColumn(int state, int column) {
+		return table[state * nlabels + column];
+	}
+
+	/**
+	 * Tests whether this automaton accepts a word given as alphabet indices.
+	 * 
+	 * @param word
+	 *            an array of indices in {@link #symbols()}.
+	 * @return true if <code>word</code> is accepted.
+	 */
+	public boolean accept(int[] word) {
+		return accept(word, 0, word.length);
+	}
+
+	/**
+	 * Tests whether this automaton accepts a slice of an array of alphabet
+	 * indices.
+	 * 
+	 * @param word
+	 *            an array of indices in {@link #symbols()}.
+	 * @param from
+	 *            first index of the word in <code>word</code>, inclusive.
+	 * @param to
+	 *            last index of the word in <code>word</code>, exclusive.
+	 * @return true if <code>word[from..to[</code> is accepted.
+	 */
+	public boolean accept(int[] word, int from, int to) {
+		int q = start;
+		for (int i = from; i < to && q >= 0; i++) {
+			int l = word[i];
+			if (l < 0 || l >= columns.length)
+				return false;
+			int c = columns[l];
+			if (c < 0)
+				return false;
+			q = table[q * nlabels + c];
+		}
+		return isAccepting(q);
+	}
+
+	/**
+	 * Tests whether this automaton accepts a word. No memory is allocated
+	 * when <code>word</code> implements {@link RandomAccess}.
+	 * 
+	 * @param word
+	 *            a list of labels.
+	 * @return true if <code>word</code> is accepted.
+	 */
+	public boolean accept(List<L> word) {
+		int q = start;
+		if (word instanceof RandomAccess) {
+			for (int i = 0, n = word.size(); i < n && q >= 0; i++)
+				q = next(q, word.get(i));
+		} else {
+			for (Iterator<L> it = word.iterator(); it.hasNext() && q >= 0;)
+				q = next(q, it.next());
+		}
+		return isAccepting(q);
+	}
+
+	/* successor of q by a letter, q being a live state */
+	int next(int q, L letter) {
+		if (letter == null)
+			return -1;
+		int l = symbols.indexOf(letter);
+		if (l < 0 || l >= columns.length)
+			return -1;
+		int c = columns[l];
+		return c < 0 ? -1 : table[q * nlabels + c];
+	}
+
+	/**
+	 * Tests the membership of a batch of words in parallel, in the
+	 * {@link DefaultPool}.
+	 * 
+	 * @param words
+	 *            a collection of words.
+	 * @return a BitSet whose bit <code>i</code> is set iff the
+	 *         <code>i</code>-th word of <code>words</code>, in iteration order,
+	 *         is accepted.
+	 * @see #acceptAll(Collection, ForkJoinPool)
+	 */
+	public BitSet acceptAll(Collection<? extends List<L>> words) {
+		return acceptAll(words, DefaultPool.get());
+	}
+
+	/**
+	 * Tests the membership of a batch of words in parallel.
+	 * <p>
+	 * Words are split into chunks of a few thousands processed by the tasks
+	 * of <code>pool</code>, all sharing this automaton. Inside a chunk, the
+	 * prefix a word shares with the previous word is not read again: sorting
+	 * the words, or grouping them by prefix, before calling this method makes
+	 * the most of it. Words which are not {@link RandomAccess} lists are read
+	 * entirely.
+	 * 
+	 * @param words
+	 *            a collection of words.
+	 * @param pool
+	 *            the pool running the tasks.
+	 * @return a BitSet whose bit <code>i</code> is set iff the
+	 *         <code>i</code>-th word of <code>words</code>, in iteration order,
+	 *         is accepted.
+	 */
+	public BitSet acceptAll(Collection<? extends List<L>> words, ForkJoinPool pool) {
+		List<? extends List<L>> list = words instanceof List && words instanceof RandomAccess ? (List<? extends List<L>>) words
+				: new ArrayList<List<L>>(words);
+		return run(pool, list, null, list.size());
+	}
+
+	/**
+	 * Tests the membership of a batch of words given as alphabet indices, in
+	 * parallel.
+	 * 
+	 * @param words
+	 *            an array of words, each one being an array of indices in
+	 *            {@link #symbols()}.
+	 * @param pool
+	 *            the pool running the tasks.
+	 * @return a BitSet whose bit <code>i</code> is set iff
+	 *         <code>words[i]</code> is accepted.
+	 * @see #acceptAll(Collection, ForkJoinPool)
+	 */
+	public BitSet acceptAll(int[][] words, ForkJoinPool pool) {
+		int[][] encoded = new int[words.length][];
+		for (int i = 0; i < words.length; i++) {
+			int[] w = words[i];
+			int[] e = new int[w.length];
+			for (int j = 0; j < w.length; j++)
+				e[j] = column(w[j]);
+			encoded[i] = e;
+		}
+		return run(pool, null, encoded, words.length);
+	}
+
+	private BitSet run(ForkJoinPool pool, List<? extends List<L>> words, int[][] encoded, int n) {
+		long[] result = new long[(n + 63) >>> 6];
+		BatchAccept<L> task = new BatchAccept<L>(this, words, encoded, result, 0, n);
+		if (n <= BatchAccept.LEAF)
+			task.invoke();
+		else
+			pool.invoke(task);
+		return BitSet.valueOf(result);
+	}
+
+	/**
+	 * Translates a word into alphabet indices, suitable for
+	 * {@link #accept(int[])}. Letters unknown to the alphabet are translated to
+	 * -1.
+	 * 
+	 * @param word
+	 *            a list of labels.
+	 * @return a new array of indices in {@link #symbols()}.
+	 */
+	public int[] encode(List<L> word) {
+		int[] ret = new int[word.size()];
+		int i = 0;
+		for (L l : word)
+			ret[i++] = l == null ? -1 : symbols.indexOf(l);
+		return ret;
+	}
+
+	public String toString() {
+		return "CompiledDfa[" + nstates + " states, " + nlabels + " labels]";
+	}
+}
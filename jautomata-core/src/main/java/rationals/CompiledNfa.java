@@ -0,0 +1,335 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An automaton compiled to int arrays.
+ * <p>
+ * States are numbered from <code>0</code> to {@link #stateCount()}
+ * <code> - 1</code> and labels are identified by their index in the
+ * {@link Alphabet} of the automaton. The labelled transitions leaving state
+ * <code>q</code> are numbered from {@link #outStart(int)} to
+ * {@link #outEnd(int)}, sorted by label then by target. Epsilon transitions
+ * are only visible through the epsilon closure of <code>q</code>, which
+ * includes <code>q</code> and is added to bitsets over the state numbers by
+ * {@link #addClosure(int, long[])}. Closures come from the
+ * {@link EpsilonClosure} index of the automaton, which keeps one closure per
+ * strongly connected component of the epsilon transitions, computed when
+ * first needed.
+ * <p>
+ * This is the index used by {@link Run} and by determinization. Instances
+ * are immutable and can be shared by any number of threads; later
+ * modifications of the automaton are not reflected.
+ * 
+ * @see #compile(Automaton)
+ */
+public final class CompiledNfa<L> {
+
+	private final Alphabet<L> symbols;
+
+	private final StateFactory<L, ?, ?> factory;
+
+	private final State[] states;
+
+	private final Map<State, Integer> ids;
+
+	private final int[] initials;
+
+	private final long[] terminals;
+
+	/* labelled transitions, rows sorted by label then target */
+	private final int[] offsets;
+
+	private final int[] labels;
+
+	private final int[] targets;
+
+	/* epsilon closures of the states numbered below indexed */
+	private final EpsilonClosure<L> closures;
+
+	private final int indexed;
+
+	/* states whose epsilon closure contains a terminal state */
+	private final long[] accepting;
+
+	private <Tr extends Transition<L>, T extends Builder<L, Tr, T>> CompiledNfa(Automaton<L, Tr, T> a) {
+		this.symbols = a.symbols();
+		this.factory = a.getStateFactory();
+		/*
+		 * states are numbered as in the epsilon closures index of a, then
+		 * states added since it was built, which have no epsilon transition
+		 */
+		this.closures = a.epsilonClosures();
+		this.indexed = closures.stateCount();
+		int n = a.states().size();
+		this.states = new State[n];
+		this.ids = new HashMap<>(n * 2);
+		for (int i = 0; i < indexed; i++) {
+			states[i] = closures.state(i);
+			ids.put(states[i], i);
+		}
+		int added = indexed;
+		for (State s : a.states())
+			if (closures.id(s) < 0) {
+				states[added] = s;
+				ids.put(s, added++);
+			}
+		int[] inits = new int[a.initials().size()];
+		int ninits = 0;
+		for (State s : a.initials())
+			inits[ninits++] = ids.get(s);
+		Arrays.sort(inits, 0, ninits);
+		this.initials = Arrays.copyOf(inits, ninits);
+		this.terminals = new long[(n + 63) >>> 6];
+		this.accepting = new long[(n + 63) >>> 6];
+		int[] indexedTerminals = new int[a.terminals().size()];
+		int nterminals = 0;
+		for (State s : a.terminals()) {
+			int i = ids.get(s);
+			terminals[i >>> 6] |= 1L << i;
+			if (i < indexed)
+				indexedTerminals[nterminals++] = i;
+			else
+				accepting[i >>> 6] |= 1L << i;
+		}
+		/* closures meeting a terminal state, found backward without computing them */
+		for (int q : closures.reaching(Arrays.copyOf(indexedTerminals, nterminals)))
+			accepting[q >>> 6] |= 1L << q;
+		/* labelled transitions, epsilon ones being only used through closures */
+		long[][] rows = new long[n][];
+		this.offsets = new int[n + 1];
+		for (int i = 0; i < n; i++) {
+			Set<Transition<L>> out = a.delta(states[i]);
+			long[] row = new long[out.size()];
+			int k = 0;
+			for (Transition<L> tr : out)
+				if (tr.label() != null)
+					row[k++] = ((long) symbols.intern(tr.label()) << 32) | ids.get(tr.end());
+			Arrays.sort(row, 0, k);
+			rows[i] = Arrays.copyOf(row, k);
+			offsets[i + 1] = offsets[i] + k;
+		}
+		this.labels = new int[offsets[n]];
+		this.targets = new int[offsets[n]];
+		for (int i = 0; i < n; i++)
+			for (int k = 0; k < rows[i].length; k++) {
+				labels[offsets[i] + k] = (int) (rows[i][k] >>> 32);
+				targets[offsets[i] + k] = (int) rows[i][k];
+			}
+	}
+
+	/**
+	 * Compiles the given automaton.
+	 * 
+	 * @param a
+	 *            the automaton to compile. It is not modified, except for
+	 *            the interning of its labels in its alphabet.
+	 * @return a new compiled automaton.
+	 */
+	public static <L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> CompiledNfa<L> compile(
+			Automaton<L, Tr, T> a) {
+		return new CompiledNfa<L>(a);
+	}
+
+	/**
+	 * @return the alphabet indexing the labels of this automaton.
+	 */
+	public Alphabet<L> symbols() {
+		return symbols;
+	}
+
+	/**
+	 * @return the state factory of the compiled automaton.
+	 */
+	public StateFactory<L, ?, ?> getStateFactory() {
+		return factory;
+	}
+
+	/**
+	 * @return the number of states of this automaton.
+	 */
+	public int stateCount() {
+		return states.length;
+	}
+
+	/**
+	 * @param q
+	 *            a state number.
+	 * @return the state of the compiled automaton numbered <code>q</code>.
+	 */
+	public State state(int q) {
+		return states[q];
+	}
+
+	/**
+	 * @param state
+	 *            a state of the compiled automaton.
+	 * @return the number of <code>state</code>, or -1 if it is not a state of
+	 *         the compiled automaton.
+	 */
+	public int id(State state) {
+		Integer i = ids.get(state);
+		return i == null ? -1 : i;
+	}
+
+	/**
+	 * @return a new sorted array of the initial states.
+	 */
+	public int[] initials() {
+		return initials.clone();
+	}
+
+	/**
+	 * @param q
+	 *            a state number.
+	 * @return true if <code>q</code> is terminal.
+	 */
+	public boolean isTerminal(int q) {
+		return (terminals[q >>> 6] & (1L << q)) != 0;
+	}
+
+	/**
+	 * @param q
+	 *            a state number.
+	 * @return true if the epsilon closure of <code>q</code> contains a
+	 *         terminal state.
+	 */
+	public boolean closureAccepts(int q) {
+		return (accepting[q >>> 6] & (1L << q)) != 0;
+	}
+
+	/**
+	 * @return the number of labelled transitions of this automaton.
+	 */
+	public int transitionCount() {
+		return labels.length;
+	}
+
+	/**
+	 * @param q
+	 *            a state number.
+	 * @return the number of the first labelled transition leaving
+	 *         <code>q</code>.
+	 */
+	public int outStart(int q) {
+		return offsets[q];
+	}
+
+	/**
+	 * @param q
+	 *            a state number.
+	 * @return the number following the last labelled transition leaving
+	 *         <code>q</code>.
+	 */
+	public int outEnd(int q) {
+		return offsets[q + 1];
+	}
+
+	/**
+	 * @param t
+	 *            a transition number.
+	 * @return the index in {@link #symbols()} of the label of
+	 *         <code>t</code>.
+	 */
+	public int label(int t) {
+		return labels[t];
+	}
+
+	/**
+	 * @param t
+	 *            a transition number.
+	 * @return the target state of <code>t</code>.
+	 */
+	public int target(int t) {
+		return targets[t];
+	}
+
+	/**
+	 * Finds the transitions leaving a state with a given label: they are
+	 * numbered from the returned value up to the first transition with
+	 * another label or {@link #outEnd(int)}.
+	 * 
+	 * @param q
+	 *            a state number.
+	 * @param label
+	 *            an index in {@link #symbols()}.
+	 * @return the number of the first transition leaving <code>q</code>
+	 *         whose label is not lower than <code>label</code>.
+	 */
+	public int find(int q, int label) {
+		int from = offsets[q], to = offsets[q + 1];
+		while (from < to) {
+			int mid = (from + to) >>> 1;
+			if (labels[mid] < label)
+				from = mid + 1;
+			else
+				to = mid;
+		}
+		return from;
+	}
+
+	/**
+	 * Adds the epsilon closure of a state to a set.
+	 * 
+	 * @param q
+	 *            a state number.
+	 * @param set
+	 *            a bitset over the state numbers, of at least
+	 *            <code>(stateCount() + 63) / 64</code> words.
+	 */
+	public void addClosure(int q, long[] set) {
+		if (q < indexed)
+			closures.addClosure(q, set);
+		else
+			set[q >>> 6] |= 1L << q;
+	}
+
+	/**
+	 * @param q
+	 *            a state number.
+	 * @return the first word of a bitset set by
+	 *         {@link #addClosure(int, long[])} for <code>q</code>.
+	 */
+	public int closureLow(int q) {
+		return q < indexed ? closures.closureLow(q) : q >>> 6;
+	}
+
+	/**
+	 * @param q
+	 *            a state number.
+	 * @return the word following the last word of a bitset set by
+	 *         {@link #addClosure(int, long[])} for <code>q</code>.
+	 */
+	public int closureHigh(int q) {
+		return q < indexed ? closures.closureHigh(q) : (q >>> 6) + 1;
+	}
+
+	/**
+	 * @param q
+	 *            a state number.
+	 * @return a new array of the states in the epsilon closure of
+	 *         <code>q</code>, in increasing order.
+	 */
+	public int[] closureOf(int q) {
+		return q < indexed ? closures.closureOf(q) : new int[] { q };
+	}
+}
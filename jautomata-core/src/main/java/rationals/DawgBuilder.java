@@ -0,0 +1,345 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Builds the minimal deterministic automaton recognizing a finite set of
+ * words, incrementally.
+ * <p>
+ * Words are added one at a time with {@link #add(List)}, in an order where
+ * the words sharing a prefix are consecutive, eg. in lexicographic order for
+ * any order of labels. Only the states reading the last word added may still
+ * change: when a word is added, the states reading the suffix of the
+ * previous word past their common prefix are replaced by an equivalent state
+ * found in a <em>register</em>, or registered. The register is a hash table
+ * of the states built so far, keyed by their terminal flag and transitions,
+ * so each state is built once and the whole construction takes time linear
+ * in the total length of the words. This is the algorithm for sorted data of
+ * J. Daciuk, S. Mihov, B. W. Watson and R. E. Watson, <em>Incremental
+ * construction of minimal acyclic finite-state automata</em> (Computational
+ * Linguistics 26(1), 2000).
+ * <p>
+ * Words in any order may be given to {@link #of(Iterator, boolean)}, which
+ * sorts them first by the index of their labels in the alphabet of the
+ * builder.
+ * <p>
+ * The automaton is built with an {@link AutomatonBuilder}, hence stores its
+ * transitions in a {@link CompactTransitionTable}. It is trim, except for
+ * the initial state of the empty language, and may be used with any
+ * transformation.
+ * 
+ * @see Automaton#labelAutomaton(List)
+ */
+public final class DawgBuilder<L> {
+
+	private final Alphabet<L> symbols;
+
+	/* registered states, whose transitions sorted by label are first[q]..first[q+1]-1 */
+	private int nstates;
+
+	private boolean[] terminals = new boolean[16];
+
+	private int[] first = new int[17];
+
+	private int[] labels = new int[16];
+
+	private int[] targets = new int[16];
+
+	/* the register, as an open addressing table of state numbers plus one */
+	private int[] table = new int[64];
+
+	/* the last word added */
+	private int[] word = new int[16];
+
+	private int length;
+
+	/*
+	 * states reading the last word, which are not registered yet: the state
+	 * at depth i has the registered children kids[i], as label and target
+	 * pairs in longs, and reads word[i] to the state at depth i + 1
+	 */
+	private boolean[] finals = new boolean[16];
+
+	private long[][] kids = new long[16][];
+
+	private int[] nkids = new int[16];
+
+	/**
+	 * Creates a builder with its own alphabet.
+	 */
+	public DawgBuilder() {
+		this(null);
+	}
+
+	/**
+	 * Creates a builder interning labels in given alphabet.
+	 * 
+	 * @param symbols
+	 *            the alphabet to use. May be null, in which case a new
+	 *            alphabet is created.
+	 */
+	public DawgBuilder(Alphabet<L> symbols) {
+		this.symbols = symbols == null ? new Alphabet<L>() : symbols;
+		kids[0] = new long[4];
+	}
+
+	/**
+	 * Builds the minimal automaton recognizing some words.
+	 * 
+	 * @param words
+	 *            the words to recognize.
+	 * @param sorted
+	 *            if true, the words sharing a prefix are known to be
+	 *            consecutive and are added as they come. Otherwise all the
+	 *            words are read and sorted first.
+	 * @return a new minimal deterministic automaton recognizing the words.
+	 * @throws IllegalArgumentException
+	 *             if a word contains a null label, or if <code>sorted</code>
+	 *             is true and the words are not sorted.
+	 */
+	public static <L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> Automaton<L, Tr, T> of(
+			Iterator<? extends List<L>> words, boolean sorted) {
+		DawgBuilder<L> builder = new DawgBuilder<>();
+		if (sorted) {
+			while (words.hasNext())
+				builder.add(words.next());
+			return builder.build();
+		}
+		List<int[]> encoded = new ArrayList<>();
+		while (words.hasNext())
+			encoded.add(builder.encode(words.next()));
+		Collections.sort(encoded, new Comparator<int[]>() {
+			public int compare(int[] u, int[] v) {
+				int n = Math.min(u.length, v.length);
+				for (int i = 0; i < n; i++)
+					if (u[i] != v[i])
+						return u[i] < v[i] ? -1 : 1;
+				return u.length - v.length;
+			}
+		});
+		for (int[] w : encoded)
+			builder.add(w, w.length);
+		return builder.build();
+	}
+
+	/**
+	 * @return the alphabet numbering the labels of this builder, which is
+	 *         shared with the automata it builds.
+	 */
+	public Alphabet<L> symbols() {
+		return symbols;
+	}
+
+	/**
+	 * @return the number of states registered so far, not counting the
+	 *         states reading the last word added.
+	 */
+	public int stateCount() {
+		return nstates;
+	}
+
+	/**
+	 * Adds a word to recognize. Adding the same word twice in a row has no
+	 * effect.
+	 * 
+	 * @param w
+	 *            a list of non null labels.
+	 * @return this builder.
+	 * @throws IllegalArgumentException
+	 *             if <code>w</code> contains a null label, or if a word
+	 *             sharing a longer prefix with <code>w</code> than the last
+	 *             word added was added before it. No word is added in this
+	 *             case.
+	 */
+	public DawgBuilder<L> add(List<L> w) {
+		int[] ls = encode(w);
+		return add(ls, ls.length);
+	}
+
+	/**
+	 * Creates an automaton recognizing the words added to this builder, which
+	 * is emptied.
+	 * 
+	 * @return a new minimal deterministic automaton sharing the alphabet of
+	 *         this builder.
+	 */
+	public <Tr extends Transition<L>, T extends Builder<L, Tr, T>> Automaton<L, Tr, T> build() {
+		replaceOrRegister(0);
+		int root = register(0);
+		AutomatonBuilder<L> b = new AutomatonBuilder<>(symbols).setValidating(false);
+		b.addStates(nstates);
+		int[] triples = new int[3 * first[nstates]];
+		try {
+			for (int q = 0; q < nstates; q++) {
+				if (terminals[q])
+					b.setTerminal(q);
+				for (int t = first[q]; t < first[q + 1]; t++) {
+					triples[3 * t] = q;
+					triples[3 * t + 1] = labels[t];
+					triples[3 * t + 2] = targets[t];
+				}
+			}
+			b.setInitial(root);
+			b.addTransitions(triples, 0, first[nstates]);
+		} catch (NoSuchStateException e) {
+			throw new Error(e);
+		}
+		clear();
+		return b.build();
+	}
+
+	private int[] encode(List<L> w) {
+		int[] ls = new int[w.size()];
+		int i = 0;
+		for (L l : w) {
+			if (l == null)
+				throw new IllegalArgumentException("null label in word " + w);
+			ls[i++] = symbols.intern(l);
+		}
+		return ls;
+	}
+
+	private DawgBuilder<L> add(int[] w, int n) {
+		int p = 0, max = Math.min(n, length);
+		while (p < max && w[p] == word[p])
+			p++;
+		if (p < n)
+			for (int i = 0; i < nkids[p]; i++)
+				if ((int) (kids[p][i] >>> 32) == w[p])
+					throw new IllegalArgumentException("words are not sorted");
+		replaceOrRegister(p);
+		if (n >= word.length) {
+			int size = Math.max(n + 1, word.length * 2);
+			word = Arrays.copyOf(word, size);
+			finals = Arrays.copyOf(finals, size);
+			kids = Arrays.copyOf(kids, size);
+			nkids = Arrays.copyOf(nkids, size);
+		}
+		for (int i = p + 1; i <= n; i++) {
+			finals[i] = false;
+			nkids[i] = 0;
+			if (kids[i] == null)
+				kids[i] = new long[4];
+		}
+		System.arraycopy(w, p, word, p, n - p);
+		length = n;
+		finals[n] = true;
+		return this;
+	}
+
+	/* registers the states reading the last word below depth p */
+	private void replaceOrRegister(int p) {
+		for (int i = length; i > p; i--) {
+			int q = register(i);
+			if (nkids[i - 1] == kids[i - 1].length)
+				kids[i - 1] = Arrays.copyOf(kids[i - 1], nkids[i - 1] * 2);
+			kids[i - 1][nkids[i - 1]++] = ((long) word[i - 1] << 32) | q;
+		}
+		length = Math.min(length, p);
+	}
+
+	/* the registered state equivalent to the state at depth i, registering it if needed */
+	private int register(int i) {
+		long[] ks = kids[i];
+		int k = nkids[i];
+		Arrays.sort(ks, 0, k);
+		boolean f = finals[i];
+		int h = f ? 1 : 0;
+		for (int j = 0; j < k; j++)
+			h = 31 * h + (int) (ks[j] ^ (ks[j] >>> 32));
+		int mask = table.length - 1;
+		for (int s = mix(h) & mask;; s = (s + 1) & mask) {
+			int q = table[s] - 1;
+			if (q < 0)
+				break;
+			if (equal(q, f, ks, k))
+				return q;
+		}
+		int q = nstates++;
+		if (q + 1 == terminals.length) {
+			terminals = Arrays.copyOf(terminals, terminals.length * 2);
+			first = Arrays.copyOf(first, terminals.length + 1);
+		}
+		int m = first[q];
+		if (m + k > labels.length) {
+			labels = Arrays.copyOf(labels, Math.max(m + k, labels.length * 2));
+			targets = Arrays.copyOf(targets, labels.length);
+		}
+		for (int j = 0; j < k; j++) {
+			labels[m + j] = (int) (ks[j] >>> 32);
+			targets[m + j] = (int) ks[j];
+		}
+		terminals[q] = f;
+		first[q + 1] = m + k;
+		if (2 * nstates > table.length)
+			rehash();
+		else
+			insert(q, h);
+		return q;
+	}
+
+	private boolean equal(int q, boolean f, long[] ks, int k) {
+		if (terminals[q] != f || first[q + 1] - first[q] != k)
+			return false;
+		for (int j = 0, t = first[q]; j < k; j++, t++)
+			if (labels[t] != (int) (ks[j] >>> 32) || targets[t] != (int) ks[j])
+				return false;
+		return true;
+	}
+
+	private int hash(int q) {
+		int h = terminals[q] ? 1 : 0;
+		for (int t = first[q]; t < first[q + 1]; t++) {
+			long key = ((long) labels[t] << 32) | targets[t];
+			h = 31 * h + (int) (key ^ (key >>> 32));
+		}
+		return h;
+	}
+
+	private void insert(int q, int h) {
+		int mask = table.length - 1, s = mix(h) & mask;
+		while (table[s] != 0)
+			s = (s + 1) & mask;
+		table[s] = q + 1;
+	}
+
+	private void rehash() {
+		table = new int[table.length * 2];
+		for (int q = 0; q < nstates; q++)
+			insert(q, hash(q));
+	}
+
+	private static int mix(int h) {
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private void clear() {
+		nstates = length = 0;
+		first[0] = 0;
+		finals[0] = false;
+		nkids[0] = 0;
+		Arrays.fill(table, 0);
+	}
+}
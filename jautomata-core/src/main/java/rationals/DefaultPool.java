@@ -0,0 +1,40 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The fork-join pool of the parallel algorithms of this library, used when
+ * they are not given one. It has as many threads as available processors
+ * and is created on first use.
+ */
+public final class DefaultPool {
+
+	/* created when this class is first used */
+	private static final ForkJoinPool POOL = new ForkJoinPool();
+
+	private DefaultPool() {
+	}
+
+	/**
+	 * @return the pool shared by all parallel algorithms not given one.
+	 */
+	public static ForkJoinPool get() {
+		return POOL;
+	}
+}
@@ -57,11 +57,11 @@ public class DefaultStateFactory<L, Tr extends Transition<L>, T extends Builder<
          * @see rationals.State#setInitial(boolean)
          */
         public State setInitial(boolean initial) {
-            this.initial = initial;
             if (initial)
                 a.initials().add(this);
             else
                 a.initials().remove(this);
+            this.initial = initial;
             return this;
         }
 
@@ -71,11 +71,11 @@ public class DefaultStateFactory<L, Tr extends Transition<L>, T extends Builder<
          * @see rationals.State#setTerminal(boolean)
          */
         public State setTerminal(boolean terminal) {
-            this.terminal = terminal;
             if (terminal)
                 a.terminals().add(this);
             else
                 a.terminals().remove(this);
+            this.terminal = terminal;
             return this;
         }
 
@@ -149,7 +149,7 @@ public class DefaultStateFactory<L, Tr extends Transition<L>, T extends Builder<
     public Set<State> stateSet(Set<State> s) {
     	Set<State> result = new HashSet<>();
     	result.addAll(s);
-        return s;
+        return result;
     }
 
     public DefaultStateFactory<L, Tr, T> clone() {
@@ -0,0 +1,326 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An index of the epsilon closures of the states of an automaton.
+ * <p>
+ * The graph of epsilon transitions is collapsed into its strongly connected
+ * components, whose states all have the same closure. The closure of a
+ * component is computed the first time the closure of one of its states is
+ * asked for and kept: afterwards, adding the closure of a state to a set
+ * with {@link #addClosure(int, long[])} is a union of bitsets. Kept closures
+ * are bitsets over the state numbers of this index, trimmed to their first
+ * and last non empty words, or sorted arrays of state numbers when this is
+ * smaller. They may still take a space quadratic in the number of states on
+ * long chains of epsilon transitions. States whose only epsilon transitions
+ * are loops are their own closure, which is not stored.
+ * <p>
+ * An index is obtained with {@link Automaton#epsilonClosures()}, which keeps
+ * it until an epsilon transition of the automaton is added, relabelled or
+ * projected out. States added to the automaton later have no epsilon
+ * transition yet and are their own closure. An index may be used by several
+ * threads.
+ */
+public final class EpsilonClosure<L> {
+
+	private final StateFactory<L, ?, ?> factory;
+
+	/* epsilon transitions only */
+	private final StateGraph<L> graph;
+
+	private final int[] components;
+
+	/* states without epsilon transitions to other states */
+	private final boolean[] trivial;
+
+	private final boolean empty;
+
+	/*
+	 * closure of each component, computed on demand: either an int[] of its
+	 * states, or a long[] whose first element is the number of the first word
+	 * of the bitset, followed by the words up to the last non zero one
+	 */
+	private final AtomicReferenceArray<Object> closures;
+
+	<Tr extends Transition<L>, T extends Builder<L, Tr, T>> EpsilonClosure(Automaton<L, Tr, T> a) {
+		this.factory = a.getStateFactory();
+		this.graph = StateGraph.ofEpsilon(a);
+		int n = graph.stateCount();
+		this.trivial = new boolean[n];
+		boolean none = true;
+		for (int q = 0; q < n; q++) {
+			trivial[q] = true;
+			for (int t = graph.outStart(q); t < graph.outEnd(q); t++)
+				trivial[q] &= graph.target(t) == q;
+			none &= trivial[q];
+		}
+		this.empty = none;
+		this.components = none ? new int[n] : graph.components();
+		int ncomps = 0;
+		for (int c : components)
+			ncomps = Math.max(ncomps, c + 1);
+		this.closures = new AtomicReferenceArray<>(none ? 0 : ncomps);
+	}
+
+	/**
+	 * @return true if the automaton has epsilon transitions other than loops.
+	 */
+	public boolean hasEpsilonTransitions() {
+		return !empty;
+	}
+
+	/**
+	 * @return the number of states of the index.
+	 */
+	public int stateCount() {
+		return graph.stateCount();
+	}
+
+	/**
+	 * @param q
+	 *            a state number.
+	 * @return the state numbered <code>q</code>.
+	 */
+	public State state(int q) {
+		return graph.state(q);
+	}
+
+	/**
+	 * @param state
+	 *            a state.
+	 * @return the number of <code>state</code>, or -1 if it was not a state
+	 *         of the automaton when the index was built.
+	 */
+	public int id(State state) {
+		return graph.id(state);
+	}
+
+	/**
+	 * Adds the epsilon closure of a state to a set.
+	 * 
+	 * @param q
+	 *            a state number.
+	 * @param set
+	 *            a bitset over the state numbers, of at least
+	 *            <code>(stateCount() + 63) / 64</code> words.
+	 */
+	public void addClosure(int q, long[] set) {
+		if (trivial[q]) {
+			set[q >>> 6] |= 1L << q;
+			return;
+		}
+		or(closure(q), set);
+	}
+
+	/**
+	 * @param q
+	 *            a state number.
+	 * @return the first word of a bitset set by
+	 *         {@link #addClosure(int, long[])} for <code>q</code>.
+	 */
+	public int closureLow(int q) {
+		if (trivial[q])
+			return q >>> 6;
+		Object closure = closure(q);
+		if (closure instanceof int[])
+			return ((int[]) closure)[0] >>> 6;
+		return (int) ((long[]) closure)[0];
+	}
+
+	/**
+	 * @param q
+	 *            a state number.
+	 * @return the word following the last word of a bitset set by
+	 *         {@link #addClosure(int, long[])} for <code>q</code>.
+	 */
+	public int closureHigh(int q) {
+		if (trivial[q])
+			return (q >>> 6) + 1;
+		Object closure = closure(q);
+		if (closure instanceof int[]) {
+			int[] members = (int[]) closure;
+			return (members[members.length - 1] >>> 6) + 1;
+		}
+		long[] words = (long[]) closure;
+		return (int) words[0] + words.length - 1;
+	}
+
+	/**
+	 * Lists the states whose epsilon closure meets given states, without
+	 * computing any closure.
+	 * 
+	 * @param qs
+	 *            state numbers.
+	 * @return a new array of the states from which a state of
+	 *         <code>qs</code> can be reached by epsilon transitions,
+	 *         including those of <code>qs</code>.
+	 */
+	public int[] reaching(int[] qs) {
+		return graph.breadthFirst(qs, false);
+	}
+
+	/**
+	 * Lists the epsilon closure of a state.
+	 * 
+	 * @param q
+	 *            a state number.
+	 * @return a new array of the numbers of the states in the epsilon
+	 *         closure of <code>q</code>, which includes <code>q</code>, in
+	 *         increasing order.
+	 */
+	public int[] closureOf(int q) {
+		if (trivial[q])
+			return new int[] { q };
+		Object closure = closure(q);
+		if (closure instanceof int[])
+			return ((int[]) closure).clone();
+		long[] words = (long[]) closure;
+		int count = 0;
+		for (int i = 1; i < words.length; i++)
+			count += Long.bitCount(words[i]);
+		int[] ret = new int[count];
+		int k = 0, from = (int) words[0];
+		for (int i = 1; i < words.length; i++)
+			for (long bits = words[i]; bits != 0; bits &= bits - 1)
+				ret[k++] = ((from + i - 1) << 6) + Long.numberOfTrailingZeros(bits);
+		return ret;
+	}
+
+	/**
+	 * Computes the epsilon closure of a set of states. The closure of a single
+	 * state is kept, while closures of several states are computed by one
+	 * traversal reusing the closures already kept.
+	 * 
+	 * @param states
+	 *            a set of states.
+	 * @return a new set made by the state factory of the automaton, holding
+	 *         <code>states</code> and all the states reachable from them by
+	 *         epsilon transitions.
+	 */
+	public Set<State> closure(Set<State> states) {
+		Set<State> ret = factory.stateSet();
+		int single = -1, nontrivial = 0;
+		for (State s : states) {
+			int q = graph.id(s);
+			if (q < 0 || trivial[q])
+				ret.add(s);
+			else if (nontrivial++ == 0)
+				single = q;
+		}
+		if (nontrivial == 0)
+			return ret;
+		long[] set = new long[(graph.stateCount() + 63) >>> 6];
+		if (nontrivial == 1)
+			addClosure(single, set);
+		else {
+			int[] stack = new int[nontrivial];
+			int sp = 0;
+			for (State s : states) {
+				int q = graph.id(s);
+				if (q < 0 || trivial[q])
+					continue;
+				Object known = closures.get(components[q]);
+				if (known != null)
+					or(known, set);
+				else if ((set[q >>> 6] & (1L << q)) == 0) {
+					set[q >>> 6] |= 1L << q;
+					stack[sp++] = q;
+				}
+			}
+			explore(stack, sp, set, -1);
+		}
+		for (int w = 0; w < set.length; w++)
+			for (long bits = set[w]; bits != 0; bits &= bits - 1)
+				ret.add(graph.state((w << 6) + Long.numberOfTrailingZeros(bits)));
+		return ret;
+	}
+
+	/* the closure of the component of q, computed once */
+	private Object closure(int q) {
+		int c = components[q];
+		Object ret = closures.get(c);
+		if (ret != null)
+			return ret;
+		long[] set = new long[(graph.stateCount() + 63) >>> 6];
+		set[q >>> 6] |= 1L << q;
+		explore(new int[] { q }, 1, set, c);
+		int lo = 0, hi = set.length, count = 0;
+		while (set[lo] == 0)
+			lo++;
+		while (set[hi - 1] == 0)
+			hi--;
+		for (int w = lo; w < hi; w++)
+			count += Long.bitCount(set[w]);
+		if (count <= 2 * (hi - lo)) {
+			int[] members = new int[count];
+			int k = 0;
+			for (int w = lo; w < hi; w++)
+				for (long bits = set[w]; bits != 0; bits &= bits - 1)
+					members[k++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+			ret = members;
+		} else {
+			long[] words = new long[hi - lo + 1];
+			words[0] = lo;
+			System.arraycopy(set, lo, words, 1, hi - lo);
+			ret = words;
+		}
+		closures.set(c, ret);
+		return ret;
+	}
+
+	/*
+	 * adds to set the states reachable from the states on the stack, which
+	 * are already in set. The kept closures of states are used instead of
+	 * exploring from them, except for component c.
+	 */
+	private void explore(int[] stack, int sp, long[] set, int c) {
+		while (sp > 0) {
+			int p = stack[--sp];
+			Object known = components[p] == c ? null : closures.get(components[p]);
+			if (known != null) {
+				or(known, set);
+				continue;
+			}
+			for (int t = graph.outStart(p); t < graph.outEnd(p); t++) {
+				int r = graph.target(t);
+				if ((set[r >>> 6] & (1L << r)) == 0) {
+					set[r >>> 6] |= 1L << r;
+					if (sp == stack.length)
+						stack = Arrays.copyOf(stack, sp * 2);
+					stack[sp++] = r;
+				}
+			}
+		}
+	}
+
+	private static void or(Object closure, long[] set) {
+		if (closure instanceof int[]) {
+			for (int q : (int[]) closure)
+				set[q >>> 6] |= 1L << q;
+			return;
+		}
+		long[] words = (long[]) closure;
+		int from = (int) words[0];
+		for (int i = 1; i < words.length; i++)
+			set[from + i - 1] |= words[i];
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * An immutable snapshot of an automaton, created by {@link Automaton#freeze()}.
+ * <p>
+ * A frozen automaton can be used everywhere an automaton is expected as
+ * long as it is not modified: it recognizes the same language than the
+ * automaton it was created from, and transformations accept it as input.
+ * Methods which would modify it throw {@link UnsupportedOperationException},
+ * and so do the sets returned by {@link #states()}, {@link #initials()},
+ * {@link #terminals()} and {@link #alphabet()}, as well as
+ * {@link State#setInitial(boolean)} and {@link State#setTerminal(boolean)}
+ * on its states.
+ * <p>
+ * All its content is built in its constructor and never modified afterwards,
+ * hence it can be shared by any number of threads calling
+ * {@link #accept(java.util.List)}, {@link #steps(java.util.List)},
+ * {@link #delta(State)} and other query methods without locking.
+ * 
+ * @see Automaton#freeze()
+ */
+public final class FrozenAutomaton<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> extends Automaton<L, Tr, T> {
+
+	private final Set<State> states;
+
+	private final Set<State> initials;
+
+	private final Set<State> terminals;
+
+	private final Set<L> alphabet;
+
+	FrozenAutomaton(Automaton<L, Tr, T> a) {
+		this(a, new CompactTransitionTable<L>(a.symbols()));
+	}
+
+	@SuppressWarnings("unchecked")
+	private FrozenAutomaton(Automaton<L, Tr, T> a, CompactTransitionTable<L> table) {
+		super((StateFactory<L, Tr, T>) a.getStateFactory().clone(), table);
+		a.copyTo(this);
+		table.pack();
+		this.states = Collections.unmodifiableSet(super.states());
+		this.initials = Collections.unmodifiableSet(super.initials());
+		this.terminals = Collections.unmodifiableSet(super.terminals());
+		this.alphabet = Collections.unmodifiableSet(super.alphabet());
+	}
+
+	private static UnsupportedOperationException frozen() {
+		return new UnsupportedOperationException("cannot modify a frozen automaton");
+	}
+
+	@Override
+	public Set<State> states() {
+		return states;
+	}
+
+	@Override
+	public Set<State> initials() {
+		return initials;
+	}
+
+	@Override
+	public Set<State> terminals() {
+		return terminals;
+	}
+
+	@Override
+	public Set<L> alphabet() {
+		return alphabet;
+	}
+
+	/**
+	 * @return this automaton, which is already frozen.
+	 */
+	@Override
+	public FrozenAutomaton<L, Tr, T> freeze() {
+		return this;
+	}
+
+	@Override
+	public State addState(boolean initial, boolean terminal) {
+		throw frozen();
+	}
+
+	@Override
+	public void addTransition(Transition<L> transition) throws NoSuchStateException {
+		throw frozen();
+	}
+
+	@Override
+	public void projectOn(Set<?> alph) {
+		throw frozen();
+	}
+
+	@Override
+	public void updateTransitionWith(Transition<L> tr, L msg) {
+		throw frozen();
+	}
+
+	/**
+	 * Returns the state with given label.
+	 * 
+	 * @param label
+	 *            the state's label.
+	 * @return the state of this automaton with this label.
+	 * @throws UnsupportedOperationException
+	 *             if no state has this label, as it would have to be created.
+	 */
+	@Override
+	public State state(L label) {
+		State s = labelled(label);
+		if (s == null)
+			throw frozen();
+		return s;
+	}
+
+	@Override
+	public void setStateFactory(StateFactory<L, Tr, T> factory) {
+		throw frozen();
+	}
+
+	@Override
+	public void setBuilder(Builder<L, Tr, T> t) {
+		throw frozen();
+	}
+
+	@Override
+	public void setId(Object id) {
+		throw frozen();
+	}
+}
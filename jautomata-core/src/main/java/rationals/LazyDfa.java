@@ -0,0 +1,424 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A deterministic automaton built lazily while reading words.
+ * <p>
+ * States of the deterministic automaton are epsilon closed sets of states of
+ * a {@link CompiledNfa}. They are only discovered when a word reaches them,
+ * and each transition is computed the first time it is followed, then
+ * remembered in a transition table. Reading a letter along a known
+ * transition is a single array lookup, while {@link Run} always follows the
+ * transitions of all current states.
+ * <p>
+ * The table holds at most <code>capacity</code> states, so its memory is
+ * bounded by about <code>capacity</code> times the number of labels plus the
+ * number of states of the automaton, in ints. When a new state does not fit,
+ * the whole table is flushed and filling restarts from the current state. If
+ * flushes come too often, ie. if less than {@value #MIN_LETTERS_PER_STATE}
+ * letters per cached state were read since the previous flush, the table
+ * does not pay off and the rest of the word is read by a plain {@link Run}
+ * instead. The table is tried again after the next {@link #reset()}.
+ * <p>
+ * The table survives {@link #reset()}, so that reading many words with the
+ * same instance reuses the states discovered by previous words.
+ * {@link #hits()}, {@link #misses()}, {@link #flushes()} and
+ * {@link #fallbacks()} tell how well it performs.
+ * <p>
+ * Letters are read as by {@link Run}: a letter which does not belong to the
+ * alphabet of the automaton, or a <code>null</code> letter, kills the run.
+ * Instances are not thread-safe.
+ * 
+ * @see Automaton#lazyDfa(int)
+ */
+public final class LazyDfa<L> {
+
+	/* flushes are tolerated if each cached state served this many letters */
+	static final int MIN_LETTERS_PER_STATE = 10;
+
+	private final CompiledNfa<L> nfa;
+
+	private final int capacity;
+
+	private final int nlabels;
+
+	/* the closure of the initial states */
+	private final int[] startMembers;
+
+	/* cached states: sorted members, hash and acceptance */
+	private final int[][] members;
+
+	private final int[] hashes;
+
+	private final long[] accepting;
+
+	/*
+	 * transitions, indexed by state * nlabels + label: 0 if unknown, -1 to
+	 * the empty set, or target + 1
+	 */
+	private final int[] delta;
+
+	/* open addressing table of state + 1 by hash */
+	private final int[] slots;
+
+	private int size;
+
+	/* the cached start state, or -1 */
+	private int start = -1;
+
+	/* the current state, or -1 if dead */
+	private int current;
+
+	/* the run used after falling back, or null */
+	private Run<L> run;
+
+	/* successor being built */
+	private final int[] next;
+
+	private final long[] inNext;
+
+	/* range of the non empty words of inNext */
+	private int lo, hi;
+
+	private long length;
+
+	/* letters read through the table, and their number at the last flush */
+	private long letters;
+
+	private long flushedAt;
+
+	private long hits, misses, flushes, fallbacks;
+
+	/**
+	 * Creates a lazy deterministic automaton from a compiled automaton.
+	 * Instances built from the same compiled automaton share its index but
+	 * not their tables.
+	 * 
+	 * @param nfa
+	 *            a compiled automaton.
+	 * @param capacity
+	 *            the maximum number of states in the table, at least 2.
+	 */
+	public LazyDfa(CompiledNfa<L> nfa, int capacity) {
+		if (capacity < 2)
+			throw new IllegalArgumentException("capacity must be at least 2, got " + capacity);
+		this.nfa = nfa;
+		this.capacity = capacity;
+		this.nlabels = nfa.symbols().size();
+		if ((long) capacity * nlabels > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("table of " + capacity + " states by " + nlabels + " labels is too large");
+		this.members = new int[capacity][];
+		this.hashes = new int[capacity];
+		this.accepting = new long[(capacity + 63) >>> 6];
+		this.delta = new int[capacity * nlabels];
+		this.slots = new int[Integer.highestOneBit(capacity) << 2];
+		int n = nfa.stateCount();
+		this.next = new int[n];
+		this.inNext = new long[(n + 63) >>> 6];
+		this.lo = inNext.length;
+		for (int q : nfa.initials())
+			addClosure(q);
+		this.startMembers = Arrays.copyOf(next, collect());
+		reset();
+	}
+
+	<Tr extends Transition<L>, T extends Builder<L, Tr, T>> LazyDfa(Automaton<L, Tr, T> a, int capacity) {
+		this(CompiledNfa.compile(a), capacity);
+	}
+
+	/**
+	 * Resets this automaton to its start state, as if no letter had been
+	 * read. The table is kept.
+	 */
+	public void reset() {
+		run = null;
+		length = 0;
+		if (startMembers.length == 0) {
+			current = -1;
+			return;
+		}
+		if (start < 0) {
+			int h = hash(startMembers, startMembers.length);
+			start = find(startMembers, startMembers.length, h);
+			if (start < 0) {
+				if (size == capacity)
+					flush();
+				start = add(startMembers.clone(), h);
+			}
+		}
+		current = start;
+	}
+
+	/**
+	 * Reads one letter.
+	 * 
+	 * @param letter
+	 *            the letter to read.
+	 * @return true if this automaton is still alive, ie. if the current set of
+	 *         states is not empty.
+	 */
+	public boolean feed(L letter) {
+		length++;
+		if (run != null)
+			return run.feed(letter);
+		return step(letter == null ? -1 : nfa.symbols().indexOf(letter));
+	}
+
+	/**
+	 * Reads letters from an iterator until it is exhausted or this automaton
+	 * dies.
+	 * 
+	 * @param letters
+	 *            an iterator over letters.
+	 * @return true if this automaton is still alive.
+	 */
+	public boolean feedAll(Iterator<? extends L> letters) {
+		boolean alive = !isDead();
+		while (alive && letters.hasNext())
+			alive = feed(letters.next());
+		return alive;
+	}
+
+	/**
+	 * Tells whether a word is accepted from the initial states. This resets
+	 * this automaton first.
+	 * 
+	 * @param word
+	 *            a word.
+	 * @return true if <code>word</code> is accepted.
+	 */
+	public boolean accept(List<? extends L> word) {
+		reset();
+		for (int i = 0, n = word.size(); i < n; i++)
+			if (!feed(word.get(i)))
+				return false;
+		return isAccepting();
+	}
+
+	private boolean step(int label) {
+		if (current < 0)
+			return false;
+		/* labels interned in the shared alphabet after compilation have no transition */
+		if (label <= Alphabet.EPSILON || label >= nlabels) {
+			current = -1;
+			return false;
+		}
+		letters++;
+		int i = current * nlabels + label;
+		int t = delta[i];
+		if (t != 0) {
+			hits++;
+			current = t < 0 ? -1 : t - 1;
+			return t > 0;
+		}
+		misses++;
+		for (int q : members[current])
+			for (int k = nfa.find(q, label), e = nfa.outEnd(q); k < e && nfa.label(k) == label; k++) {
+				int p = nfa.target(k);
+				/* closures are transitive: if p is there, so is its closure */
+				if ((inNext[p >>> 6] & (1L << p)) == 0)
+					addClosure(p);
+			}
+		int n = collect();
+		if (n == 0) {
+			delta[i] = -1;
+			current = -1;
+			return false;
+		}
+		int h = hash(next, n);
+		int id = find(next, n, h);
+		if (id < 0) {
+			if (size == capacity) {
+				boolean slow = letters - flushedAt < (long) MIN_LETTERS_PER_STATE * capacity;
+				int[] from = members[current];
+				flush();
+				if (slow) {
+					fallbacks++;
+					Set<State> states = nfa.getStateFactory().stateSet();
+					for (int k = 0; k < n; k++)
+						states.add(nfa.state(next[k]));
+					run = new Run<>(nfa, states);
+					return true;
+				}
+				current = add(from, hash(from, from.length));
+				i = current * nlabels + label;
+				id = find(next, n, h);
+			}
+			if (id < 0)
+				id = add(Arrays.copyOf(next, n), h);
+		}
+		delta[i] = id + 1;
+		current = id;
+		return true;
+	}
+
+	/* adds the closure of q to the successor being built */
+	private void addClosure(int q) {
+		nfa.addClosure(q, inNext);
+		lo = Math.min(lo, nfa.closureLow(q));
+		hi = Math.max(hi, nfa.closureHigh(q));
+	}
+
+	/*
+	 * moves the states of the successor being built to next, in increasing
+	 * order, and returns their number
+	 */
+	private int collect() {
+		int n = 0;
+		for (int i = lo; i < hi; i++) {
+			for (long w = inNext[i]; w != 0; w &= w - 1)
+				next[n++] = (i << 6) + Long.numberOfTrailingZeros(w);
+			inNext[i] = 0;
+		}
+		lo = inNext.length;
+		hi = 0;
+		return n;
+	}
+
+	private static int hash(int[] set, int n) {
+		int h = n;
+		for (int i = 0; i < n; i++)
+			h = h * 0x9e3779b1 + set[i];
+		return h ^ (h >>> 16);
+	}
+
+	/* the cached state with the given members, or -1 */
+	private int find(int[] set, int n, int h) {
+		int mask = slots.length - 1;
+		for (int s = h & mask;; s = (s + 1) & mask) {
+			int id = slots[s] - 1;
+			if (id < 0)
+				return -1;
+			if (hashes[id] == h && same(members[id], set, n))
+				return id;
+		}
+	}
+
+	private static boolean same(int[] a, int[] b, int n) {
+		if (a.length != n)
+			return false;
+		for (int i = 0; i < n; i++)
+			if (a[i] != b[i])
+				return false;
+		return true;
+	}
+
+	private int add(int[] set, int h) {
+		int id = size++;
+		members[id] = set;
+		hashes[id] = h;
+		accepting[id >>> 6] &= ~(1L << id);
+		for (int p : set)
+			if (nfa.isTerminal(p)) {
+				accepting[id >>> 6] |= 1L << id;
+				break;
+			}
+		int mask = slots.length - 1;
+		int s = h & mask;
+		while (slots[s] != 0)
+			s = (s + 1) & mask;
+		slots[s] = id + 1;
+		return id;
+	}
+
+	private void flush() {
+		Arrays.fill(members, 0, size, null);
+		Arrays.fill(delta, 0, size * nlabels, 0);
+		Arrays.fill(slots, 0);
+		size = 0;
+		start = -1;
+		flushes++;
+		flushedAt = letters;
+	}
+
+	/**
+	 * @return true if the current set of states contains a terminal state,
+	 *         ie. if the letters read so far form a word accepted from the
+	 *         initial states.
+	 */
+	public boolean isAccepting() {
+		if (run != null)
+			return run.isAccepting();
+		return current >= 0 && (accepting[current >>> 6] & (1L << current)) != 0;
+	}
+
+	/**
+	 * @return true if no state is reachable anymore. A dead automaton never
+	 *         becomes alive again, except by {@link #reset()}.
+	 */
+	public boolean isDead() {
+		return run != null ? run.isDead() : current < 0;
+	}
+
+	/**
+	 * @return the number of letters read since the creation or last reset of
+	 *         this automaton.
+	 */
+	public long length() {
+		return length;
+	}
+
+	/**
+	 * @return the maximum number of states in the table.
+	 */
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return the number of states currently in the table.
+	 */
+	public int cachedStates() {
+		return size;
+	}
+
+	/**
+	 * @return the number of letters read along a transition found in the
+	 *         table.
+	 */
+	public long hits() {
+		return hits;
+	}
+
+	/**
+	 * @return the number of letters whose transition had to be computed.
+	 */
+	public long misses() {
+		return misses;
+	}
+
+	/**
+	 * @return the number of times the table was full and was flushed.
+	 */
+	public long flushes() {
+		return flushes;
+	}
+
+	/**
+	 * @return the number of times a word was finished by a plain {@link Run}
+	 *         because the table was flushed too often.
+	 */
+	public long fallbacks() {
+		return fallbacks;
+	}
+}
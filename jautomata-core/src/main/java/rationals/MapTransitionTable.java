@@ -0,0 +1,307 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The default storage engine for transitions of automata.
+ * <p>
+ * Transitions are indexed in two maps from (state, label) couples to sets of
+ * transitions: one for forward lookup and one for reverse lookup. This table
+ * stores the very {@link Transition} instances which are added to it, hence
+ * subclasses of <code>Transition</code> are preserved.
+ * <p>
+ * In addition to these maps, transitions are indexed by start state then end
+ * state, and reversed transitions by end state, so that all transitions from
+ * or to a state are found in time proportional to their number, whatever the
+ * size of the alphabet.
+ * <p>
+ * Keys use the index of labels in the table's {@link Alphabet}, so that
+ * lookups hash and compare labels only once.
+ * 
+ * @see CompactTransitionTable
+ */
+public class MapTransitionTable<L> implements TransitionTable<L> {
+
+	// Allows access to transitions of this automaton
+	// starting from a given state and labelled by
+	// a given object. The keys of this map are instances
+	// of class Key and
+	// values are sets of transitions.
+	private final Map<Key, Set<Transition<L>>> transitions = new HashMap<>();
+
+	// Allows access to transitions of this automaton
+	// arriving to a given state and labelled by
+	// a given object. The keys of this map are instances
+	// of class Key and
+	// values are sets of transitions.
+	private final Map<Key, Set<Transition<L>>> reverse = new HashMap<>();
+
+	// Allows access to transitions of this automaton
+	// starting from a given state, grouped by end state.
+	private final Map<State, Map<State, Set<Transition<L>>>> outgoing = new HashMap<>();
+
+	// Allows access to reversed transitions of this automaton
+	// arriving to a given state.
+	private final Map<State, Set<Transition<L>>> incoming = new HashMap<>();
+
+	// indices of labels of all transitions ever added
+	private final BitSet labels = new BitSet();
+
+	private final Alphabet<L> symbols;
+
+	private int size;
+
+	/**
+	 * Creates an empty table with its own alphabet.
+	 */
+	public MapTransitionTable() {
+		this(null);
+	}
+
+	/**
+	 * Creates an empty table interning labels in given alphabet.
+	 * 
+	 * @param symbols
+	 *            the alphabet to use. May be null, in which case a new
+	 *            alphabet is created.
+	 */
+	public MapTransitionTable(Alphabet<L> symbols) {
+		this.symbols = symbols == null ? new Alphabet<L>() : symbols;
+	}
+
+	// Computes and return the set of all transitions, starting
+	// from a given state and labelled by a given label
+	// contained in a given Map
+	private Set<Transition<L>> find(Map<Key, Set<Transition<L>>> m, State e, int l) {
+		Set<Transition<L>> s = l < 0 ? null : m.get(new Key(e, l));
+		if (s == null)
+			return new HashSet<>();
+		return s;
+	}
+
+	// add a given transition in a given Map
+	private boolean add(Map<Key, Set<Transition<L>>> m, Transition<L> t, int l) {
+		Key n = new Key(t.start(), l);
+		Set<Transition<L>> s = m.get(n);
+		if (s == null) {
+			s = new HashSet<>();
+			m.put(n, s);
+		}
+		return s.add(t);
+	}
+
+	@Override
+	public boolean add(Transition<L> transition) {
+		int l = symbols.intern(transition.label());
+		labels.set(l);
+		if (!add(transitions, transition, l))
+			return false;
+		Transition<L> rev = new Transition<>(transition.end(), transition.label(), transition.start());
+		add(reverse, rev, l);
+		index(transition, rev);
+		size++;
+		return true;
+	}
+
+	private void index(Transition<L> tr, Transition<L> rev) {
+		Map<State, Set<Transition<L>>> m = outgoing.get(tr.start());
+		if (m == null) {
+			m = new HashMap<>();
+			outgoing.put(tr.start(), m);
+		}
+		Set<Transition<L>> s = m.get(tr.end());
+		if (s == null) {
+			s = new HashSet<>();
+			m.put(tr.end(), s);
+		}
+		s.add(tr);
+		s = incoming.get(rev.start());
+		if (s == null) {
+			s = new HashSet<>();
+			incoming.put(rev.start(), s);
+		}
+		s.add(rev);
+	}
+
+	@Override
+	public Set<Transition<L>> delta(State state, L label) {
+		return find(transitions, state, symbols.indexOf(label));
+	}
+
+	@Override
+	public Set<Transition<L>> delta(State state) {
+		Set<Transition<L>> s = new HashSet<>();
+		Map<State, Set<Transition<L>>> m = outgoing.get(state);
+		if (m != null)
+			for (Set<Transition<L>> trs : m.values())
+				s.addAll(trs);
+		return s;
+	}
+
+	@Override
+	public Set<Transition<L>> deltaFrom(State from, State to) {
+		Map<State, Set<Transition<L>>> m = outgoing.get(from);
+		Set<Transition<L>> s = m == null ? null : m.get(to);
+		return s == null ? new HashSet<Transition<L>>() : new HashSet<>(s);
+	}
+
+	@Override
+	public Set<Transition<L>> deltaMinusOne(State state, L label) {
+		return find(reverse, state, symbols.indexOf(label));
+	}
+
+	@Override
+	public Set<Transition<L>> deltaMinusOne(State state) {
+		Set<Transition<L>> s = incoming.get(state);
+		return s == null ? new HashSet<Transition<L>>() : new HashSet<>(s);
+	}
+
+	@Override
+	public Set<Transition<L>> delta() {
+		Set<Transition<L>> s = new HashSet<>();
+		for (Set<Transition<L>> tr : transitions.values())
+			s.addAll(tr);
+		return s;
+	}
+
+	@Override
+	public Map<Couple, Set<Transition<L>>> couples() {
+		// loop on transition map keys
+		Iterator<Map.Entry<Key, Set<Transition<L>>>> it = transitions.entrySet().iterator();
+		Map<Couple, Set<Transition<L>>> ret = new HashMap<>();
+		while (it.hasNext()) {
+			Map.Entry<Key, Set<Transition<L>>> e = it.next();
+			// get start and end state
+			State st = e.getKey().s;
+			Iterator<Transition<L>> trans = e.getValue().iterator();
+			while (trans.hasNext()) {
+				Transition<L> tr = trans.next();
+				State nd = tr.end();
+				Couple cpl = new Couple(st, nd);
+				Set<Transition<L>> s = ret.get(cpl);
+				if (s == null)
+					s = new HashSet<>();
+				s.add(tr);
+				ret.put(cpl, s);
+			}
+		}
+		return ret;
+	}
+
+	@Override
+	public void relabel(Transition<L> tr, L msg) {
+		int lbl = symbols.indexOf(tr.label());
+		int nl = symbols.intern(msg);
+		if (lbl < 0)
+			return;
+		labels.set(nl);
+		/* update transition map */
+		Key k = new Key(tr.start(), lbl);
+		Set<Transition<L>> s = transitions.remove(k);
+		if (s != null)
+			transitions.put(new Key(tr.start(), nl), s);
+		/* update reverse map */
+		k = new Key(tr.end(), lbl);
+		s = reverse.remove(k);
+		if (s != null)
+			reverse.put(new Key(tr.end(), nl), s);
+	}
+
+	@Override
+	public void projectOn(Set<?> alph) {
+		// indices of labels to keep
+		BitSet keep = new BitSet();
+		for (int l = labels.nextSetBit(0); l >= 0; l = labels.nextSetBit(l + 1))
+			if (alph.contains(symbols.label(l)))
+				keep.set(l);
+		// remove unwanted transitions
+		Set<Transition<L>> newtrans = new HashSet<>();
+		Iterator<Map.Entry<Key, Set<Transition<L>>>> trans = transitions.entrySet().iterator();
+		while (trans.hasNext()) {
+			Map.Entry<Key, Set<Transition<L>>> entry = trans.next();
+			Key k = entry.getKey();
+			if (keep.get(k.l))
+				continue;
+			Map<State, Set<Transition<L>>> out = outgoing.get(k.s);
+			for (Transition<L> tr : entry.getValue()) {
+				out.get(tr.end()).remove(tr);
+				// create epsilon transition
+				newtrans.add(new Transition<L>(k.s, null, tr.end()));
+			}
+			size -= entry.getValue().size();
+			trans.remove();
+		}
+		Iterator<Map.Entry<Key, Set<Transition<L>>>> rev = reverse.entrySet().iterator();
+		while (rev.hasNext()) {
+			Map.Entry<Key, Set<Transition<L>>> entry = rev.next();
+			if (keep.get(entry.getKey().l))
+				continue;
+			incoming.get(entry.getKey().s).removeAll(entry.getValue());
+			rev.remove();
+		}
+		labels.and(keep);
+		// add newly created transitions
+		for (Transition<L> tr : newtrans)
+			add(tr);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public TransitionTable<L> newTable() {
+		return new MapTransitionTable<>(symbols);
+	}
+
+	@Override
+	public Alphabet<L> symbols() {
+		return symbols;
+	}
+
+	private class Key {
+		private State s;
+
+		private int l;
+
+		protected Key(State s, int l) {
+			this.s = s;
+			this.l = l;
+		}
+
+		public boolean equals(Object o) {
+			if (!(o instanceof MapTransitionTable.Key))
+				return false;
+			@SuppressWarnings("unchecked")
+			Key t = (Key) o;
+			return l == t.l && (s == null ? t.s == null : s.equals(t.s));
+		}
+
+		public int hashCode() {
+			int x = s == null ? 0 : s.hashCode();
+			return x * 31 + l * 0x9e3779b9;
+		}
+	}
+}
@@ -0,0 +1,328 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * A streaming run of an automaton.
+ * <p>
+ * A run is created by {@link Automaton#run()} and is fed letters one at a
+ * time, or from an {@link Iterator}, a {@link CharSequence}, a {@link Reader}
+ * or an {@link InputStream}. It never needs the whole word: it only maintains
+ * the set of states reached so far, so its memory is bounded by the size of
+ * the automaton, whatever the length of the input.
+ * <p>
+ * The transitions and epsilon closures of the automaton are indexed once when
+ * the run is created, in a {@link CompiledNfa}: later modifications of the
+ * automaton do not affect the run. Feeding a letter follows the transitions of the epsilon closure of the
+ * current states, like {@link Automaton#step(Set, Object)}. A letter which
+ * does not belong to the alphabet of the automaton, or a <code>null</code>
+ * letter, kills the run.
+ * <p>
+ * Characters are read as {@link Character} letters. Bytes are read as the
+ * {@link Character} whose code is the unsigned value of the byte, ie. as
+ * ISO-8859-1 text.
+ * <p>
+ * Runs are not thread-safe, but {@link #copy()} creates independent runs
+ * sharing the same index.
+ * 
+ * @see Automaton#run()
+ */
+public final class Run<L> {
+
+	private final CompiledNfa<L> nfa;
+
+	/* label of ISO-8859-1 characters, or -1 */
+	private final int[] latin1;
+
+	private final int[] start;
+
+	/* current states */
+	private int[] current;
+
+	private int ncurrent;
+
+	private long[] inCurrent;
+
+	/* states being reached by the current step */
+	private int[] next;
+
+	private long[] inNext;
+
+	/* states of the closure of current states, visited by the current step */
+	private final long[] inVisited;
+
+	private long length;
+
+	<Tr extends Transition<L>, T extends Builder<L, Tr, T>> Run(Automaton<L, Tr, T> a, Set<State> start) {
+		this(CompiledNfa.compile(a), start);
+	}
+
+	/**
+	 * Creates a run of a compiled automaton. Runs of the same compiled
+	 * automaton share its index.
+	 * 
+	 * @param nfa
+	 *            a compiled automaton.
+	 * @param start
+	 *            the states to start from.
+	 */
+	public Run(CompiledNfa<L> nfa, Set<State> start) {
+		this.nfa = nfa;
+		this.latin1 = new int[256];
+		for (int c = 0; c < latin1.length; c++)
+			latin1[c] = nfa.symbols().indexOf(Character.valueOf((char) c));
+		int n = nfa.stateCount();
+		this.current = new int[n];
+		this.next = new int[n];
+		int words = (n + 63) >>> 6;
+		this.inCurrent = new long[words];
+		this.inNext = new long[words];
+		this.inVisited = new long[words];
+		int[] s = new int[start.size()];
+		int k = 0;
+		for (State st : start) {
+			int i = nfa.id(st);
+			if (i >= 0)
+				s[k++] = i;
+		}
+		this.start = Arrays.copyOf(s, k);
+		reset();
+	}
+
+	private Run(Run<L> run) {
+		this.nfa = run.nfa;
+		this.latin1 = run.latin1;
+		this.start = run.start;
+		this.current = run.current.clone();
+		this.ncurrent = run.ncurrent;
+		this.inCurrent = run.inCurrent.clone();
+		this.next = new int[current.length];
+		this.inNext = new long[inCurrent.length];
+		this.inVisited = new long[inCurrent.length];
+		this.length = run.length;
+	}
+
+	/**
+	 * Creates an independent copy of this run, in the same current states.
+	 * The index of the automaton is shared.
+	 * 
+	 * @return a new Run.
+	 */
+	public Run<L> copy() {
+		return new Run<L>(this);
+	}
+
+	/**
+	 * Resets this run to its start states, as if no letter had been read.
+	 */
+	public void reset() {
+		clear(current, ncurrent, inCurrent);
+		ncurrent = 0;
+		for (int i : start)
+			if ((inCurrent[i >>> 6] & (1L << i)) == 0) {
+				inCurrent[i >>> 6] |= 1L << i;
+				current[ncurrent++] = i;
+			}
+		length = 0;
+	}
+
+	private static void clear(int[] list, int n, long[] bits) {
+		for (int k = 0; k < n; k++)
+			bits[list[k] >>> 6] = 0;
+	}
+
+	/**
+	 * Reads one letter.
+	 * 
+	 * @param letter
+	 *            the letter to read.
+	 * @return true if this run is still alive, ie. if at least one state was
+	 *         reached.
+	 */
+	public boolean feed(L letter) {
+		return step(label(letter));
+	}
+
+	/**
+	 * Reads letters from an iterator until it is exhausted or this run dies.
+	 * 
+	 * @param letters
+	 *            an iterator over letters.
+	 * @return true if this run is still alive.
+	 */
+	public boolean feedAll(Iterator<? extends L> letters) {
+		boolean alive = ncurrent > 0;
+		while (alive && letters.hasNext())
+			alive = step(label(letters.next()));
+		return alive;
+	}
+
+	/**
+	 * Reads the characters of a sequence as {@link Character} letters until the
+	 * end of the sequence or until this run dies.
+	 * 
+	 * @param chars
+	 *            a sequence of characters.
+	 * @return true if this run is still alive.
+	 */
+	public boolean feedAll(CharSequence chars) {
+		boolean alive = ncurrent > 0;
+		for (int i = 0, n = chars.length(); alive && i < n; i++)
+			alive = step(label(chars.charAt(i)));
+		return alive;
+	}
+
+	/**
+	 * Reads characters from a reader as {@link Character} letters until the
+	 * end of the stream or until this run dies. The reader is not closed.
+	 * 
+	 * @param reader
+	 *            a character stream.
+	 * @return true if this run is still alive.
+	 * @throws IOException
+	 *             if <code>reader</code> fails.
+	 */
+	public boolean feedAll(Reader reader) throws IOException {
+		char[] buf = new char[8192];
+		boolean alive = ncurrent > 0;
+		int len;
+		while (alive && (len = reader.read(buf)) >= 0)
+			for (int i = 0; alive && i < len; i++)
+				alive = step(label(buf[i]));
+		return alive;
+	}
+
+	/**
+	 * Reads bytes from a stream as ISO-8859-1 {@link Character} letters until
+	 * the end of the stream or until this run dies. The stream is not closed.
+	 * 
+	 * @param in
+	 *            a byte stream.
+	 * @return true if this run is still alive.
+	 * @throws IOException
+	 *             if <code>in</code> fails.
+	 */
+	public boolean feedAll(InputStream in) throws IOException {
+		byte[] buf = new byte[8192];
+		boolean alive = ncurrent > 0;
+		int len;
+		while (alive && (len = in.read(buf)) >= 0)
+			for (int i = 0; alive && i < len; i++)
+				alive = step(latin1[buf[i] & 0xff]);
+		return alive;
+	}
+
+	private int label(Object letter) {
+		if (letter == null)
+			return -1;
+		if (letter instanceof Character)
+			return label(((Character) letter).charValue());
+		return nfa.symbols().indexOf(letter);
+	}
+
+	private int label(char c) {
+		return c < latin1.length ? latin1[c] : nfa.symbols().indexOf(Character.valueOf(c));
+	}
+
+	private boolean step(int label) {
+		length++;
+		int nnext = 0;
+		if (label > Alphabet.EPSILON) {
+			CompiledNfa<L> nfa = this.nfa;
+			int lo = inVisited.length, hi = 0;
+			for (int i = 0; i < ncurrent; i++) {
+				int q = current[i];
+				/* closures are transitive: if q is there, so is its closure */
+				if ((inVisited[q >>> 6] & (1L << q)) != 0)
+					continue;
+				nfa.addClosure(q, inVisited);
+				lo = Math.min(lo, nfa.closureLow(q));
+				hi = Math.max(hi, nfa.closureHigh(q));
+			}
+			for (int w = lo; w < hi; w++) {
+				for (long bits = inVisited[w]; bits != 0; bits &= bits - 1) {
+					int p = (w << 6) + Long.numberOfTrailingZeros(bits);
+					for (int k = nfa.find(p, label), e = nfa.outEnd(p); k < e && nfa.label(k) == label; k++) {
+						int t = nfa.target(k);
+						if ((inNext[t >>> 6] & (1L << t)) == 0) {
+							inNext[t >>> 6] |= 1L << t;
+							next[nnext++] = t;
+						}
+					}
+				}
+				inVisited[w] = 0;
+			}
+		}
+		clear(current, ncurrent, inCurrent);
+		int[] tl = current;
+		current = next;
+		next = tl;
+		long[] tb = inCurrent;
+		inCurrent = inNext;
+		inNext = tb;
+		ncurrent = nnext;
+		return nnext > 0;
+	}
+
+	/**
+	 * @return true if the epsilon closure of the current states contains a
+	 *         terminal state, ie. if the letters read so far form a word
+	 *         accepted from the start states.
+	 */
+	public boolean isAccepting() {
+		for (int i = 0; i < ncurrent; i++)
+			if (nfa.closureAccepts(current[i]))
+				return true;
+		return false;
+	}
+
+	/**
+	 * @return true if no state is reachable anymore. A dead run never becomes
+	 *         alive again, except by {@link #reset()}.
+	 */
+	public boolean isDead() {
+		return ncurrent == 0;
+	}
+
+	/**
+	 * @return the number of letters read since the creation or last reset of
+	 *         this run.
+	 */
+	public long length() {
+		return length;
+	}
+
+	/**
+	 * Returns the current states of this run. The epsilon closure of these
+	 * states is not included, as for {@link Automaton#step(Set, Object)}.
+	 * 
+	 * @return a new Set of states of the automaton.
+	 */
+	public Set<State> states() {
+		Set<State> ret = nfa.getStateFactory().stateSet();
+		for (int i = 0; i < ncurrent; i++)
+			ret.add(nfa.state(current[i]));
+		return ret;
+	}
+}
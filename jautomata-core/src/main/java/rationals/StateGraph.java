@@ -0,0 +1,507 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The transition graph of an automaton, indexed by ints.
+ * <p>
+ * States are numbered from <code>0</code> to {@link #stateCount()}
+ * <code> - 1</code>. The transitions leaving state <code>q</code> are
+ * numbered from {@link #outStart(int)} to {@link #outEnd(int)}, whatever
+ * their label, and the transitions entering <code>q</code> are listed from
+ * {@link #inStart(int)} to {@link #inEnd(int)} by {@link #in(int)}.
+ * <p>
+ * The traversals are iterative and run in time linear in the size of the
+ * graph, so that they can be used on automata of any depth. Sets of states
+ * are given as arrays of state numbers, which {@link #toStates(int[])}
+ * converts back to states. Instances are immutable; later modifications of
+ * the automaton are not reflected.
+ * 
+ * @see #of(Automaton)
+ */
+public final class StateGraph<L> {
+
+	private final StateFactory<L, ?, ?> factory;
+
+	private final State[] states;
+
+	private final Map<State, Integer> ids;
+
+	private final int[] initials;
+
+	private final long[] terminals;
+
+	/* transitions by source */
+	private final int[] offsets;
+
+	private final int[] sources;
+
+	private final int[] targets;
+
+	private final Transition<L>[] transitions;
+
+	/* transition numbers by target */
+	private final int[] inOffsets;
+
+	private final int[] ins;
+
+	private <Tr extends Transition<L>, T extends Builder<L, Tr, T>> StateGraph(Automaton<L, Tr, T> a, boolean epsilon) {
+		this.factory = a.getStateFactory();
+		int n = a.states().size();
+		this.states = a.states().toArray(new State[n]);
+		this.ids = new HashMap<>(n * 2);
+		for (int i = 0; i < n; i++)
+			ids.put(states[i], i);
+		this.initials = ids(a.initials());
+		this.terminals = new long[(n + 63) >>> 6];
+		for (State s : a.terminals()) {
+			int i = id(s);
+			if (i >= 0)
+				terminals[i >>> 6] |= 1L << i;
+		}
+		this.offsets = new int[n + 1];
+		int[] tgts = new int[epsilon ? 16 : Math.max(a.transitionCount(), 16)];
+		/* generic arrays cannot be created, but this one only holds a.delta() */
+		@SuppressWarnings("unchecked")
+		Transition<L>[] trs = (Transition<L>[]) new Transition<?>[tgts.length];
+		int m = 0;
+		for (int i = 0; i < n; i++) {
+			for (Transition<L> tr : epsilon ? a.delta(states[i], null) : a.delta(states[i])) {
+				if (m == tgts.length) {
+					tgts = Arrays.copyOf(tgts, m * 2);
+					trs = Arrays.copyOf(trs, m * 2);
+				}
+				tgts[m] = ids.get(tr.end());
+				trs[m++] = tr;
+			}
+			offsets[i + 1] = m;
+		}
+		this.targets = Arrays.copyOf(tgts, m);
+		this.transitions = Arrays.copyOf(trs, m);
+		this.sources = new int[m];
+		for (int i = 0; i < n; i++)
+			Arrays.fill(sources, offsets[i], offsets[i + 1], i);
+		/* incoming transitions, by a counting sort on targets */
+		this.inOffsets = new int[n + 1];
+		for (int t = 0; t < m; t++)
+			inOffsets[targets[t] + 1]++;
+		for (int i = 0; i < n; i++)
+			inOffsets[i + 1] += inOffsets[i];
+		this.ins = new int[m];
+		int[] next = Arrays.copyOf(inOffsets, n);
+		for (int t = 0; t < m; t++)
+			ins[next[targets[t]]++] = t;
+	}
+
+	/**
+	 * Builds the transition graph of an automaton, in time linear in its
+	 * number of states and transitions.
+	 * 
+	 * @param a
+	 *            the automaton. It is not modified.
+	 * @return a new graph.
+	 */
+	public static <L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> StateGraph<L> of(Automaton<L, Tr, T> a) {
+		return new StateGraph<L>(a, false);
+	}
+
+	/**
+	 * Builds the graph of the epsilon transitions of an automaton, on all its
+	 * states.
+	 * 
+	 * @param a
+	 *            the automaton. It is not modified.
+	 * @return a new graph, whose transitions are the epsilon transitions of
+	 *         <code>a</code>.
+	 */
+	public static <L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> StateGraph<L> ofEpsilon(
+			Automaton<L, Tr, T> a) {
+		return new StateGraph<L>(a, true);
+	}
+
+	/**
+	 * @return the number of states of the graph.
+	 */
+	public int stateCount() {
+		return states.length;
+	}
+
+	/**
+	 * @param q
+	 *            a state number.
+	 * @return the state numbered <code>q</code>.
+	 */
+	public State state(int q) {
+		return states[q];
+	}
+
+	/**
+	 * @param state
+	 *            a state of the automaton.
+	 * @return the number of <code>state</code>, or -1 if it is not a state of
+	 *         the automaton.
+	 */
+	public int id(State state) {
+		Integer i = ids.get(state);
+		return i == null ? -1 : i;
+	}
+
+	/**
+	 * @param states
+	 *            a set of states.
+	 * @return a new array of the numbers of the states of the automaton in
+	 *         <code>states</code>. Other states are ignored.
+	 */
+	public int[] ids(Set<State> states) {
+		int[] ret = new int[states.size()];
+		int k = 0;
+		for (State s : states) {
+			int i = id(s);
+			if (i >= 0)
+				ret[k++] = i;
+		}
+		return k == ret.length ? ret : Arrays.copyOf(ret, k);
+	}
+
+	/**
+	 * @param qs
+	 *            state numbers.
+	 * @return a new set made by the state factory of the automaton, holding
+	 *         the states numbered by <code>qs</code>.
+	 */
+	public Set<State> toStates(int[] qs) {
+		Set<State> ret = factory.stateSet();
+		for (int q : qs)
+			ret.add(states[q]);
+		return ret;
+	}
+
+	/**
+	 * @return a new array of the initial states.
+	 */
+	public int[] initials() {
+		return initials.clone();
+	}
+
+	/**
+	 * @return a new array of the terminal states, in increasing order.
+	 */
+	public int[] terminals() {
+		return members(terminals);
+	}
+
+	/**
+	 * @param q
+	 *            a state number.
+	 * @return true if <code>q</code> is terminal.
+	 */
+	public boolean isTerminal(int q) {
+		return (terminals[q >>> 6] & (1L << q)) != 0;
+	}
+
+	/**
+	 * @return the number of transitions of the graph.
+	 */
+	public int transitionCount() {
+		return targets.length;
+	}
+
+	/**
+	 * @param q
+	 *            a state number.
+	 * @return the number of the first transition leaving <code>q</code>.
+	 */
+	public int outStart(int q) {
+		return offsets[q];
+	}
+
+	/**
+	 * @param q
+	 *            a state number.
+	 * @return the number following the last transition leaving
+	 *         <code>q</code>.
+	 */
+	public int outEnd(int q) {
+		return offsets[q + 1];
+	}
+
+	/**
+	 * @param q
+	 *            a state number.
+	 * @return the position in {@link #in(int)} of the first transition
+	 *         entering <code>q</code>.
+	 */
+	public int inStart(int q) {
+		return inOffsets[q];
+	}
+
+	/**
+	 * @param q
+	 *            a state number.
+	 * @return the position in {@link #in(int)} following the last transition
+	 *         entering <code>q</code>.
+	 */
+	public int inEnd(int q) {
+		return inOffsets[q + 1];
+	}
+
+	/**
+	 * @param i
+	 *            a position between {@link #inStart(int)} and
+	 *            {@link #inEnd(int)}.
+	 * @return the number of a transition entering a state.
+	 */
+	public int in(int i) {
+		return ins[i];
+	}
+
+	/**
+	 * @param t
+	 *            a transition number.
+	 * @return the source state of <code>t</code>.
+	 */
+	public int source(int t) {
+		return sources[t];
+	}
+
+	/**
+	 * @param t
+	 *            a transition number.
+	 * @return the target state of <code>t</code>.
+	 */
+	public int target(int t) {
+		return targets[t];
+	}
+
+	/**
+	 * @param t
+	 *            a transition number.
+	 * @return the transition of the automaton numbered <code>t</code>.
+	 */
+	public Transition<L> transition(int t) {
+		return transitions[t];
+	}
+
+	/**
+	 * Lists the states reachable from given states in breadth-first order.
+	 * 
+	 * @param from
+	 *            the state numbers to start from.
+	 * @param forward
+	 *            if false, transitions are followed backward, hence the
+	 *            result is the set of states from which a state in
+	 *            <code>from</code> can be reached.
+	 * @return a new array of the reachable states, including the states of
+	 *         <code>from</code>, in the order they are visited.
+	 */
+	public int[] breadthFirst(int[] from, boolean forward) {
+		int[] queue = new int[states.length];
+		boolean[] seen = new boolean[states.length];
+		int tail = 0;
+		for (int q : from)
+			if (!seen[q]) {
+				seen[q] = true;
+				queue[tail++] = q;
+			}
+		for (int head = 0; head < tail; head++) {
+			int q = queue[head];
+			int end = forward ? offsets[q + 1] : inOffsets[q + 1];
+			for (int i = forward ? offsets[q] : inOffsets[q]; i < end; i++) {
+				int r = forward ? targets[i] : sources[ins[i]];
+				if (!seen[r]) {
+					seen[r] = true;
+					queue[tail++] = r;
+				}
+			}
+		}
+		return Arrays.copyOf(queue, tail);
+	}
+
+	/**
+	 * Lists the states reachable from given states in depth-first preorder,
+	 * using an explicit stack.
+	 * 
+	 * @param from
+	 *            the state numbers to start from, in order.
+	 * @param forward
+	 *            if false, transitions are followed backward.
+	 * @return a new array of the reachable states, including the states of
+	 *         <code>from</code>, in the order they are visited.
+	 */
+	public int[] depthFirst(int[] from, boolean forward) {
+		int n = states.length;
+		int[] order = new int[n], stack = new int[n], next = new int[n];
+		boolean[] seen = new boolean[n];
+		int k = 0;
+		for (int root : from) {
+			if (seen[root])
+				continue;
+			seen[root] = true;
+			order[k++] = root;
+			stack[0] = root;
+			next[0] = forward ? offsets[root] : inOffsets[root];
+			int depth = 1;
+			while (depth > 0) {
+				int q = stack[depth - 1];
+				if (next[depth - 1] == (forward ? offsets[q + 1] : inOffsets[q + 1])) {
+					depth--;
+					continue;
+				}
+				int i = next[depth - 1]++;
+				int r = forward ? targets[i] : sources[ins[i]];
+				if (!seen[r]) {
+					seen[r] = true;
+					order[k++] = r;
+					stack[depth] = r;
+					next[depth++] = forward ? offsets[r] : inOffsets[r];
+				}
+			}
+		}
+		return Arrays.copyOf(order, k);
+	}
+
+	/**
+	 * @return a new array of the states accessible from an initial state, in
+	 *         breadth-first order.
+	 */
+	public int[] accessible() {
+		return breadthFirst(initials, true);
+	}
+
+	/**
+	 * @return a new array of the states from which a terminal state is
+	 *         accessible, in backward breadth-first order.
+	 */
+	public int[] coAccessible() {
+		return breadthFirst(terminals(), false);
+	}
+
+	/**
+	 * Trims the graph.
+	 * 
+	 * @return a new array of the states which are both accessible and
+	 *         co-accessible, in increasing order.
+	 */
+	public int[] trim() {
+		long[] acc = new long[terminals.length], ret = new long[terminals.length];
+		for (int q : accessible())
+			acc[q >>> 6] |= 1L << q;
+		for (int q : coAccessible())
+			if ((acc[q >>> 6] & (1L << q)) != 0)
+				ret[q >>> 6] |= 1L << q;
+		return members(ret);
+	}
+
+	/**
+	 * Computes the strongly connected components of the graph with the
+	 * algorithm of R. E. Tarjan, using explicit stacks.
+	 * <p>
+	 * Components are numbered from <code>0</code> in reverse topological
+	 * order: a transition from a component numbered <code>c</code> leads to a
+	 * component numbered at most <code>c</code>.
+	 * 
+	 * @return a new array of the component number of each state.
+	 */
+	public int[] components() {
+		int n = states.length;
+		int[] comp = new int[n], index = new int[n], low = new int[n];
+		int[] stack = new int[n], calls = new int[n], next = new int[n];
+		Arrays.fill(comp, -1);
+		Arrays.fill(index, -1);
+		int counter = 0, sp = 0, ncomps = 0;
+		for (int root = 0; root < n; root++) {
+			if (index[root] >= 0)
+				continue;
+			int depth = 0;
+			calls[depth] = root;
+			next[depth++] = offsets[root];
+			index[root] = low[root] = counter++;
+			stack[sp++] = root;
+			while (depth > 0) {
+				int q = calls[depth - 1];
+				if (next[depth - 1] < offsets[q + 1]) {
+					int r = targets[next[depth - 1]++];
+					if (index[r] < 0) {
+						index[r] = low[r] = counter++;
+						stack[sp++] = r;
+						calls[depth] = r;
+						next[depth++] = offsets[r];
+					} else if (comp[r] < 0)
+						low[q] = Math.min(low[q], index[r]);
+					continue;
+				}
+				/* q is done */
+				if (low[q] == index[q]) {
+					int r;
+					do {
+						r = stack[--sp];
+						comp[r] = ncomps;
+					} while (r != q);
+					ncomps++;
+				}
+				if (--depth > 0) {
+					int p = calls[depth - 1];
+					low[p] = Math.min(low[p], low[q]);
+				}
+			}
+		}
+		return comp;
+	}
+
+	/**
+	 * Sorts the states of an acyclic graph.
+	 * 
+	 * @return a new array of all states such that each transition leads from
+	 *         a state to a state after it, or null if the graph has a cycle,
+	 *         including a loop on a state.
+	 */
+	public int[] topologicalOrder() {
+		int n = states.length;
+		int[] comp = components();
+		int ncomps = 0;
+		for (int q = 0; q < n; q++)
+			ncomps = Math.max(ncomps, comp[q] + 1);
+		/* acyclic iff every component is a single state */
+		if (ncomps < n)
+			return null;
+		int[] ret = new int[n];
+		for (int q = 0; q < n; q++)
+			ret[n - 1 - comp[q]] = q;
+		for (int t = 0; t < targets.length; t++)
+			if (sources[t] == targets[t])
+				return null;
+		return ret;
+	}
+
+	/* the members of a bitset, in increasing order */
+	private static int[] members(long[] set) {
+		int k = 0;
+		for (long w : set)
+			k += Long.bitCount(w);
+		int[] ret = new int[k];
+		k = 0;
+		for (int w = 0; w < set.length; w++)
+			for (long bits = set[w]; bits != 0; bits &= bits - 1)
+				ret[k++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+		return ret;
+	}
+}
@@ -38,6 +38,14 @@ class StateLabels {
         return labelToStates.get(label);
     }
 
+    /**
+     * @param state a state
+     * @return the label bound to <code>state</code>, or null.
+     */
+    public Object label(State state) {
+        return stateToLabels.get(state);
+    }
+
     public Set<Object> labels(Set<State> states) {
         Set<Object> ret = new HashSet<Object>();
         for (State state : states) {
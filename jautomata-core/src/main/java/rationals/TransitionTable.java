@@ -0,0 +1,166 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Storage engine for the transitions of an {@link Automaton}.
+ * <p>
+ * An automaton delegates all storage and lookup of its transitions to an
+ * instance of this interface. The default implementation is
+ * {@link MapTransitionTable}, which indexes transitions by (state, label)
+ * couples in hash maps. {@link CompactTransitionTable} trades the ability to
+ * keep arbitrary {@link Transition} instances for a much smaller footprint.
+ * A table is selected when constructing an automaton, see
+ * {@link Automaton#Automaton(StateFactory, TransitionTable)}.
+ * <p>
+ * Reverse lookups follow the convention of {@link Automaton#deltaMinusOne(State, Object)}:
+ * they return <em>reversed</em> transitions, ie. for each transition
+ * <em>(q , l , q')</em> arriving in <em>q'</em>, the transition
+ * <em>(q' , l , q)</em>.
+ * <p>
+ * Tables index labels through an {@link Alphabet} which may be shared with
+ * other tables, hence with other automata.
+ * 
+ * @see Automaton
+ */
+public interface TransitionTable<L> {
+
+	/**
+	 * Adds a transition to this table. Validity of the states is not checked
+	 * at this level.
+	 * 
+	 * @param transition
+	 *            the transition to add. May not be null.
+	 * @return true if the transition was not already in this table.
+	 */
+	boolean add(Transition<L> transition);
+
+	/**
+	 * Returns the set of transitions starting from <code>state</code> and
+	 * labelled by <code>label</code>. The returned set must not be modified.
+	 * 
+	 * @param state
+	 *            a start state
+	 * @param label
+	 *            a label, possibly null
+	 * @return a - possibly empty - set of transitions.
+	 */
+	Set<Transition<L>> delta(State state, L label);
+
+	/**
+	 * Returns a new set containing all the transitions starting from
+	 * <code>state</code>. Implementations should answer in time proportional
+	 * to the out-degree of <code>state</code>.
+	 * 
+	 * @param state
+	 *            a start state
+	 * @return a new Set of transitions (maybe empty)
+	 */
+	Set<Transition<L>> delta(State state);
+
+	/**
+	 * Returns a new set containing all the transitions from <code>from</code>
+	 * to <code>to</code>.
+	 * 
+	 * @param from
+	 *            a start state
+	 * @param to
+	 *            an end state
+	 * @return a new Set of transitions (maybe empty)
+	 */
+	Set<Transition<L>> deltaFrom(State from, State to);
+
+	/**
+	 * Returns the set of reversed transitions arriving in <code>state</code>
+	 * and labelled by <code>label</code>. The returned set must not be
+	 * modified.
+	 * 
+	 * @param state
+	 *            an end state
+	 * @param label
+	 *            a label, possibly null
+	 * @return a - possibly empty - set of reversed transitions.
+	 */
+	Set<Transition<L>> deltaMinusOne(State state, L label);
+
+	/**
+	 * Returns a new set containing all the reversed transitions arriving in
+	 * <code>state</code>.
+	 * 
+	 * @param state
+	 *            an end state
+	 * @return a new Set of reversed transitions (maybe empty)
+	 */
+	Set<Transition<L>> deltaMinusOne(State state);
+
+	/**
+	 * Returns a new set containing all the transitions in this table.
+	 * 
+	 * @return a Set of transitions.
+	 */
+	Set<Transition<L>> delta();
+
+	/**
+	 * Returns a mapping from couples (q,q') of states to all (q,l,q')
+	 * transitions from q to q'.
+	 * 
+	 * @return a new Map.
+	 */
+	Map<Couple, Set<Transition<L>>> couples();
+
+	/**
+	 * Changes the label of a transition stored in this table.
+	 * 
+	 * @param transition
+	 *            a transition of this table.
+	 * @param label
+	 *            the new label.
+	 */
+	void relabel(Transition<L> transition, L label);
+
+	/**
+	 * Replaces the label of every transition whose label is not in
+	 * <code>alphabet</code> with <code>null</code>, ie. turns these
+	 * transitions into epsilon transitions.
+	 * 
+	 * @param alphabet
+	 *            the set of labels to keep.
+	 */
+	void projectOn(Set<?> alphabet);
+
+	/**
+	 * @return the number of transitions stored in this table.
+	 */
+	int size();
+
+	/**
+	 * @return the alphabet interning the labels of this table.
+	 */
+	Alphabet<L> symbols();
+
+	/**
+	 * Creates a new empty table of the same kind than this table, sharing its
+	 * alphabet. This is used to preserve the storage engine when copying
+	 * automata.
+	 * 
+	 * @return a new empty TransitionTable.
+	 */
+	TransitionTable<L> newTable();
+}
@@ -0,0 +1,436 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.mapped;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import rationals.Alphabet;
+
+/**
+ * An automaton stored off-heap in a memory-mapped file.
+ * <p>
+ * States are numbered from 0 to {@link #stateCount()} - 1 and labels are
+ * represented by their index in an {@link Alphabet}, {@link Alphabet#EPSILON}
+ * denoting epsilon transitions. Transitions are stored in the file in
+ * compressed sparse row layout, forward and reverse, each row being sorted by
+ * label then by target state. Only the initial and terminal bitsets and the
+ * row offsets are read through the mapping, hence an automaton with tens of
+ * millions of transitions uses a few objects on the heap, and no
+ * {@link rationals.Transition} or {@link rationals.State} object is ever
+ * created.
+ * <p>
+ * Instances are created by {@link MappedAutomatonWriter#finish()} or by
+ * opening an existing file with {@link #open(File, Alphabet)}. The file does
+ * not store labels themselves, so it must be opened with the alphabet it was
+ * written with. Instances are immutable and may be queried by several threads
+ * concurrently.
+ * 
+ * @see MappedAutomatonWriter
+ */
+public class MappedAutomaton<L> implements Closeable {
+
+	static final int MAGIC = 0x4a415554;
+
+	static final int VERSION = 1;
+
+	/*
+	 * magic, version, number of states, number of transitions, then the
+	 * positions of the initial and terminal bitsets, of the forward and reverse
+	 * offsets and of the forward and reverse (label, state) pairs
+	 */
+	static final int HEADER = 16 + 6 * 8;
+
+	private final Alphabet<L> symbols;
+
+	private final RandomAccessFile file;
+
+	private final int nstates;
+
+	private final int ntransitions;
+
+	private final LongBuffer initials;
+
+	private final LongBuffer terminals;
+
+	private final IntBuffer outOffsets;
+
+	private final IntBuffer inOffsets;
+
+	private final IntBuffer outPairs;
+
+	private final IntBuffer inPairs;
+
+	private MappedAutomaton(RandomAccessFile file, Alphabet<L> symbols) throws IOException {
+		this.file = file;
+		this.symbols = symbols;
+		FileChannel ch = file.getChannel();
+		ByteBuffer header = ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+		if (header.getInt() != MAGIC)
+			throw new IOException("not a mapped automaton file");
+		int version = header.getInt();
+		if (version != VERSION)
+			throw new IOException("unsupported mapped automaton version " + version);
+		this.nstates = header.getInt();
+		this.ntransitions = header.getInt();
+		long words = 8L * words(nstates);
+		this.initials = ch.map(FileChannel.MapMode.READ_ONLY, header.getLong(), words).asLongBuffer();
+		this.terminals = ch.map(FileChannel.MapMode.READ_ONLY, header.getLong(), words).asLongBuffer();
+		this.outOffsets = ch.map(FileChannel.MapMode.READ_ONLY, header.getLong(), 4L * (nstates + 1)).asIntBuffer();
+		this.inOffsets = ch.map(FileChannel.MapMode.READ_ONLY, header.getLong(), 4L * (nstates + 1)).asIntBuffer();
+		this.outPairs = ch.map(FileChannel.MapMode.READ_ONLY, header.getLong(), 8L * ntransitions).asIntBuffer();
+		this.inPairs = ch.map(FileChannel.MapMode.READ_ONLY, header.getLong(), 8L * ntransitions).asIntBuffer();
+	}
+
+	static int words(int nbits) {
+		return (nbits + 63) >>> 6;
+	}
+
+	/**
+	 * Opens an automaton previously written by a {@link MappedAutomatonWriter}.
+	 * 
+	 * @param file
+	 *            the file to map.
+	 * @param symbols
+	 *            the alphabet used when writing the automaton.
+	 * @return a new MappedAutomaton.
+	 * @throws IOException
+	 *             if the file cannot be mapped or has not been written by a
+	 *             MappedAutomatonWriter.
+	 */
+	public static <L> MappedAutomaton<L> open(File file, Alphabet<L> symbols) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			return new MappedAutomaton<>(raf, symbols);
+		} catch (IOException | RuntimeException e) {
+			raf.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the alphabet indexing the labels of this automaton.
+	 */
+	public Alphabet<L> symbols() {
+		return symbols;
+	}
+
+	/**
+	 * @return the number of states of this automaton.
+	 */
+	public int stateCount() {
+		return nstates;
+	}
+
+	/**
+	 * @return the number of transitions of this automaton.
+	 */
+	public int transitionCount() {
+		return ntransitions;
+	}
+
+	public boolean isInitial(int state) {
+		return (initials.get(state >>> 6) & (1L << state)) != 0;
+	}
+
+	public boolean isTerminal(int state) {
+		return (terminals.get(state >>> 6) & (1L << state)) != 0;
+	}
+
+	/**
+	 * @return a new BitSet containing the initial states.
+	 */
+	public BitSet initials() {
+		return toBitSet(initials);
+	}
+
+	/**
+	 * @return a new BitSet containing the terminal states.
+	 */
+	public BitSet terminals() {
+		return toBitSet(terminals);
+	}
+
+	private static BitSet toBitSet(LongBuffer words) {
+		long[] ws = new long[words.capacity()];
+		words.duplicate().get(ws);
+		return BitSet.valueOf(ws);
+	}
+
+	/**
+	 * Returns the number of transitions starting from a state. Transitions
+	 * from <code>state</code> are numbered from 0 to the returned value - 1 and
+	 * can be read through {@link #label(int, int)} and {@link #target(int, int)}
+	 * in order of labels then targets.
+	 * 
+	 * @param state
+	 *            a state
+	 * @return the out-degree of <code>state</code>.
+	 */
+	public int outDegree(int state) {
+		return outOffsets.get(state + 1) - outOffsets.get(state);
+	}
+
+	/**
+	 * @return the label index of the <code>i</code>-th transition from
+	 *         <code>state</code>.
+	 */
+	public int label(int state, int i) {
+		return outPairs.get(2 * (outOffsets.get(state) + i));
+	}
+
+	/**
+	 * @return the end state of the <code>i</code>-th transition from
+	 *         <code>state</code>.
+	 */
+	public int target(int state, int i) {
+		return outPairs.get(2 * (outOffsets.get(state) + i) + 1);
+	}
+
+	/**
+	 * Returns the states reached from <code>state</code> by transitions
+	 * labelled by <code>label</code>.
+	 * 
+	 * @param state
+	 *            a start state
+	 * @param label
+	 *            a label index
+	 * @return a new, sorted, array of states.
+	 */
+	public int[] delta(int state, int label) {
+		return row(outOffsets, outPairs, state, label);
+	}
+
+	/**
+	 * Returns the states from which <code>state</code> is reached by
+	 * transitions labelled by <code>label</code>.
+	 * 
+	 * @param state
+	 *            an end state
+	 * @param label
+	 *            a label index
+	 * @return a new, sorted, array of states.
+	 */
+	public int[] deltaMinusOne(int state, int label) {
+		return row(inOffsets, inPairs, state, label);
+	}
+
+	private static int[] row(IntBuffer offsets, IntBuffer pairs, int state, int label) {
+		int from = offsets.get(state);
+		int to = offsets.get(state + 1);
+		int lo = lowerBound(pairs, from, to, label);
+		int hi = lowerBound(pairs, lo, to, label + 1);
+		int[] ret = new int[hi - lo];
+		for (int i = lo; i < hi; i++)
+			ret[i - lo] = pairs.get(2 * i + 1);
+		return ret;
+	}
+
+	/* first index in [from, to) whose label is not lower than label */
+	private static int lowerBound(IntBuffer pairs, int from, int to, int label) {
+		while (from < to) {
+			int mid = (from + to) >>> 1;
+			if (pairs.get(2 * mid) < label)
+				from = mid + 1;
+			else
+				to = mid;
+		}
+		return from;
+	}
+
+	/**
+	 * Computes the states reachable from given states through epsilon
+	 * transitions.
+	 * 
+	 * @param states
+	 *            a set of states, which is not modified.
+	 * @return a new BitSet containing <code>states</code> and the states
+	 *         reachable from them through epsilon transitions.
+	 */
+	public BitSet epsilonClosure(BitSet states) {
+		BitSet ret = (BitSet) states.clone();
+		int[] todo = new int[Math.max(16, states.cardinality())];
+		int n = 0;
+		for (int s = states.nextSetBit(0); s >= 0; s = states.nextSetBit(s + 1))
+			todo[n++] = s;
+		while (n > 0) {
+			int s = todo[--n];
+			for (int i = outOffsets.get(s), end = outOffsets.get(s + 1); i < end && outPairs.get(2 * i) == Alphabet.EPSILON; i++) {
+				int t = outPairs.get(2 * i + 1);
+				if (!ret.get(t)) {
+					ret.set(t);
+					if (n == todo.length)
+						todo = Arrays.copyOf(todo, n * 2);
+					todo[n++] = t;
+				}
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the states reached by reading one letter from given states, as
+	 * {@link rationals.Automaton#step(java.util.Set, Object)} does: epsilon
+	 * transitions are followed before reading the letter.
+	 * 
+	 * @param states
+	 *            a set of states, which is not modified.
+	 * @param label
+	 *            the index of the letter to read.
+	 * @return a new BitSet.
+	 */
+	public BitSet step(BitSet states, int label) {
+		BitSet ret = new BitSet();
+		if (label == Alphabet.EPSILON)
+			return ret;
+		BitSet ec = epsilonClosure(states);
+		for (int s = ec.nextSetBit(0); s >= 0; s = ec.nextSetBit(s + 1)) {
+			int end = outOffsets.get(s + 1);
+			for (int i = lowerBound(outPairs, outOffsets.get(s), end, label); i < end && outPairs.get(2 * i) == label; i++)
+				ret.set(outPairs.get(2 * i + 1));
+		}
+		return ret;
+	}
+
+	/**
+	 * @param word
+	 *            a word as an array of label indices.
+	 * @return the set of states reached from the initial states after reading
+	 *         <code>word</code>, epsilon transitions included.
+	 */
+	public BitSet steps(int[] word) {
+		BitSet s = initials();
+		for (int l : word) {
+			s = step(s, l);
+			if (s.isEmpty())
+				return s;
+		}
+		return epsilonClosure(s);
+	}
+
+	/**
+	 * @param word
+	 *            a word as an array of label indices.
+	 * @return true if this automaton accepts <code>word</code>.
+	 */
+	public boolean accept(int[] word) {
+		BitSet s = steps(word);
+		for (int q = s.nextSetBit(0); q >= 0; q = s.nextSetBit(q + 1))
+			if (isTerminal(q))
+				return true;
+		return false;
+	}
+
+	/**
+	 * @param word
+	 *            a word as a list of labels.
+	 * @return true if this automaton accepts <code>word</code>.
+	 */
+	public boolean accept(List<L> word) {
+		int[] w = new int[word.size()];
+		int i = 0;
+		for (L l : word) {
+			int id = symbols.indexOf(l);
+			/* epsilon is not a letter */
+			if (id <= Alphabet.EPSILON)
+				return false;
+			w[i++] = id;
+		}
+		return accept(w);
+	}
+
+	/**
+	 * @return the states reachable from an initial state.
+	 */
+	public BitSet accessibleStates() {
+		return accessibleStates(initials());
+	}
+
+	/**
+	 * @param states
+	 *            a set of states, which is not modified.
+	 * @return the states reachable from <code>states</code>.
+	 */
+	public BitSet accessibleStates(BitSet states) {
+		return access(states, outOffsets, outPairs);
+	}
+
+	/**
+	 * @return the states from which a terminal state is reachable.
+	 */
+	public BitSet coAccessibleStates() {
+		return coAccessibleStates(terminals());
+	}
+
+	/**
+	 * @param states
+	 *            a set of states, which is not modified.
+	 * @return the states from which a state in <code>states</code> is
+	 *         reachable.
+	 */
+	public BitSet coAccessibleStates(BitSet states) {
+		return access(states, inOffsets, inPairs);
+	}
+
+	/**
+	 * @return the states which are both accessible and co-accessible.
+	 */
+	public BitSet accessibleAndCoAccessibleStates() {
+		BitSet ret = accessibleStates();
+		ret.and(coAccessibleStates());
+		return ret;
+	}
+
+	private static BitSet access(BitSet start, IntBuffer offsets, IntBuffer pairs) {
+		BitSet ret = (BitSet) start.clone();
+		int[] todo = new int[Math.max(16, start.cardinality())];
+		int n = 0;
+		for (int s = start.nextSetBit(0); s >= 0; s = start.nextSetBit(s + 1))
+			todo[n++] = s;
+		while (n > 0) {
+			int s = todo[--n];
+			for (int i = offsets.get(s), end = offsets.get(s + 1); i < end; i++) {
+				int t = pairs.get(2 * i + 1);
+				if (!ret.get(t)) {
+					ret.set(t);
+					if (n == todo.length)
+						todo = Arrays.copyOf(todo, n * 2);
+					todo[n++] = t;
+				}
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Closes the underlying file. The mapping stays valid until this object
+	 * is garbage collected.
+	 */
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+}
@@ -0,0 +1,434 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.mapped;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Set;
+
+import rationals.Alphabet;
+import rationals.Automaton;
+import rationals.Builder;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.Transition;
+
+/**
+ * Writes a {@link MappedAutomaton} to a file.
+ * <p>
+ * States and transitions are streamed: transitions are appended to a
+ * temporary file next to the target file, and only per-state counters are
+ * kept on the heap. {@link #finish()} then lays out the transitions in the
+ * target file in two passes over the temporary file, removing duplicate
+ * transitions.
+ * <p>
+ * Transformations which build their result through
+ * {@link Automaton#addState(boolean, boolean)} and
+ * {@link Automaton#addTransition(Transition)} can write directly into this
+ * writer through the write-only automaton returned by {@link #automaton()},
+ * for example with
+ * {@link rationals.transformations.ToDFA#transformTo(Automaton, Automaton)},
+ * {@link rationals.transformations.Product#transformTo(Automaton, Automaton, Automaton)}
+ * or
+ * {@link rationals.transformations.Pruner#transformTo(Automaton, Automaton)}.
+ * <p>
+ * The layout uses one mapping per section, hence an automaton may not have
+ * more than {@link #MAX_TRANSITIONS} transitions.
+ */
+public class MappedAutomatonWriter<L> implements Closeable {
+
+	/**
+	 * The maximal number of transitions of a mapped automaton.
+	 */
+	public static final int MAX_TRANSITIONS = Integer.MAX_VALUE / 8;
+
+	private final File file;
+
+	private final File tmp;
+
+	private final Alphabet<L> symbols;
+
+	private final DataOutputStream out;
+
+	private final BitSet initials = new BitSet();
+
+	private final BitSet terminals = new BitSet();
+
+	private int[] outDegrees = new int[64];
+
+	private int nstates;
+
+	private int ntransitions;
+
+	private boolean finished;
+
+	/**
+	 * Creates a writer for given file.
+	 * 
+	 * @param file
+	 *            the file to write. It is overwritten by {@link #finish()}.
+	 * @param symbols
+	 *            the alphabet interning labels of transitions.
+	 * @throws IOException
+	 *             if the temporary file cannot be created.
+	 */
+	public MappedAutomatonWriter(File file, Alphabet<L> symbols) throws IOException {
+		this.file = file;
+		this.symbols = symbols;
+		File dir = file.getAbsoluteFile().getParentFile();
+		this.tmp = File.createTempFile(file.getName(), ".tmp", dir);
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16));
+	}
+
+	/**
+	 * @return the alphabet interning labels of transitions.
+	 */
+	public Alphabet<L> symbols() {
+		return symbols;
+	}
+
+	/**
+	 * Adds a new state.
+	 * 
+	 * @param initial
+	 *            true if the state is initial.
+	 * @param terminal
+	 *            true if the state is terminal.
+	 * @return the number of the new state.
+	 */
+	public int addState(boolean initial, boolean terminal) {
+		checkNotFinished();
+		int s = nstates++;
+		if (s == outDegrees.length)
+			outDegrees = Arrays.copyOf(outDegrees, s * 2);
+		initials.set(s, initial);
+		terminals.set(s, terminal);
+		return s;
+	}
+
+	public void setInitial(int state, boolean initial) {
+		checkState(state);
+		initials.set(state, initial);
+	}
+
+	public void setTerminal(int state, boolean terminal) {
+		checkState(state);
+		terminals.set(state, terminal);
+	}
+
+	/**
+	 * Adds a transition.
+	 * 
+	 * @param from
+	 *            the start state.
+	 * @param label
+	 *            the label of the transition, possibly null.
+	 * @param to
+	 *            the end state.
+	 * @throws IOException
+	 *             if the transition cannot be written.
+	 */
+	public void addTransition(int from, L label, int to) throws IOException {
+		addTransition(from, symbols.intern(label), to);
+	}
+
+	/**
+	 * Adds a transition.
+	 * 
+	 * @param from
+	 *            the start state.
+	 * @param label
+	 *            the index of the label of the transition in the alphabet of
+	 *            this writer.
+	 * @param to
+	 *            the end state.
+	 * @throws IOException
+	 *             if the transition cannot be written.
+	 */
+	public void addTransition(int from, int label, int to) throws IOException {
+		checkState(from);
+		checkState(to);
+		if (label < 0 || label >= symbols.size())
+			throw new IllegalArgumentException("no label with index " + label);
+		if (ntransitions == MAX_TRANSITIONS)
+			throw new IllegalStateException("too many transitions for a mapped automaton");
+		out.writeInt(from);
+		out.writeInt(label);
+		out.writeInt(to);
+		outDegrees[from]++;
+		ntransitions++;
+	}
+
+	private void checkNotFinished() {
+		if (finished)
+			throw new IllegalStateException("writer is finished");
+	}
+
+	private void checkState(int state) {
+		checkNotFinished();
+		if (state < 0 || state >= nstates)
+			throw new IllegalArgumentException("no state " + state);
+	}
+
+	/**
+	 * Lays out the automaton in the target file and opens it.
+	 * 
+	 * @return the written automaton.
+	 * @throws IOException
+	 *             if the file cannot be written.
+	 */
+	public MappedAutomaton<L> finish() throws IOException {
+		checkNotFinished();
+		finished = true;
+		out.close();
+		int n = nstates;
+		int words = MappedAutomaton.words(n);
+		long initPos = MappedAutomaton.HEADER;
+		long termPos = initPos + 8L * words;
+		long outOffPos = termPos + 8L * words;
+		long inOffPos = outOffPos + 4L * (n + 1);
+		long outPos = inOffPos + 4L * (n + 1);
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(0);
+			FileChannel ch = raf.getChannel();
+			LongBuffer lb = map(ch, initPos, 8L * words).asLongBuffer();
+			lb.put(Arrays.copyOf(initials.toLongArray(), words));
+			lb = map(ch, termPos, 8L * words).asLongBuffer();
+			lb.put(Arrays.copyOf(terminals.toLongArray(), words));
+			/* scatter forward transitions in rows */
+			int[] fill = new int[n + 1];
+			for (int s = 0; s < n; s++)
+				fill[s + 1] = fill[s] + outDegrees[s];
+			outDegrees = null;
+			IntBuffer outPairs = map(ch, outPos, 8L * ntransitions).asIntBuffer();
+			int[] offsets = fill.clone();
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(tmp), 1 << 16))) {
+				for (int i = 0; i < ntransitions; i++) {
+					int s = in.readInt();
+					int p = fill[s]++;
+					outPairs.put(2 * p, in.readInt());
+					outPairs.put(2 * p + 1, in.readInt());
+				}
+			}
+			/* sort and deduplicate rows, moving them to the left */
+			int[] inDegrees = new int[n];
+			long[] keys = new long[16];
+			int m = 0;
+			for (int s = 0; s < n; s++) {
+				int from = offsets[s];
+				int len = offsets[s + 1] - from;
+				offsets[s] = m;
+				if (len > keys.length)
+					keys = new long[Math.max(len, keys.length * 2)];
+				for (int i = 0; i < len; i++)
+					keys[i] = key(outPairs.get(2 * (from + i)), outPairs.get(2 * (from + i) + 1));
+				Arrays.sort(keys, 0, len);
+				for (int i = 0; i < len; i++) {
+					if (i > 0 && keys[i] == keys[i - 1])
+						continue;
+					int t = (int) keys[i];
+					outPairs.put(2 * m, (int) (keys[i] >>> 32));
+					outPairs.put(2 * m + 1, t);
+					inDegrees[t]++;
+					m++;
+				}
+			}
+			offsets[n] = m;
+			map(ch, outOffPos, 4L * (n + 1)).asIntBuffer().put(offsets);
+			/* reverse transitions */
+			long inPos = outPos + 8L * m;
+			int[] inOffsets = new int[n + 1];
+			for (int s = 0; s < n; s++)
+				inOffsets[s + 1] = inOffsets[s] + inDegrees[s];
+			inDegrees = null;
+			fill = inOffsets.clone();
+			IntBuffer inPairs = map(ch, inPos, 8L * m).asIntBuffer();
+			for (int s = 0; s < n; s++)
+				for (int i = offsets[s]; i < offsets[s + 1]; i++) {
+					int p = fill[outPairs.get(2 * i + 1)]++;
+					inPairs.put(2 * p, outPairs.get(2 * i));
+					inPairs.put(2 * p + 1, s);
+				}
+			for (int s = 0; s < n; s++) {
+				int from = inOffsets[s];
+				int len = inOffsets[s + 1] - from;
+				if (len > keys.length)
+					keys = new long[Math.max(len, keys.length * 2)];
+				for (int i = 0; i < len; i++)
+					keys[i] = key(inPairs.get(2 * (from + i)), inPairs.get(2 * (from + i) + 1));
+				Arrays.sort(keys, 0, len);
+				for (int i = 0; i < len; i++) {
+					inPairs.put(2 * (from + i), (int) (keys[i] >>> 32));
+					inPairs.put(2 * (from + i) + 1, (int) keys[i]);
+				}
+			}
+			map(ch, inOffPos, 4L * (n + 1)).asIntBuffer().put(inOffsets);
+			ByteBuffer header = map(ch, 0, MappedAutomaton.HEADER);
+			header.putInt(MappedAutomaton.MAGIC).putInt(MappedAutomaton.VERSION).putInt(n).putInt(m);
+			header.putLong(initPos).putLong(termPos).putLong(outOffPos).putLong(inOffPos).putLong(outPos).putLong(inPos);
+		} finally {
+			tmp.delete();
+		}
+		return MappedAutomaton.open(file, symbols);
+	}
+
+	private static ByteBuffer map(FileChannel ch, long pos, long size) throws IOException {
+		return ch.map(FileChannel.MapMode.READ_WRITE, pos, size);
+	}
+
+	/* labels and states are non negative */
+	private static long key(int label, int state) {
+		return ((long) label << 32) | state;
+	}
+
+	/**
+	 * Discards this writer if it is not finished.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (finished)
+			return;
+		finished = true;
+		out.close();
+		tmp.delete();
+	}
+
+	/**
+	 * Returns a write-only automaton whose states and transitions are written
+	 * to this writer. Only {@link Automaton#addState(boolean, boolean)},
+	 * {@link Automaton#addTransition(Transition)},
+	 * {@link Automaton#build(State, Object, State)} and the methods of its
+	 * states are supported, other methods see an empty automaton or throw
+	 * {@link UnsupportedOperationException}.
+	 * 
+	 * @return an Automaton writing to this writer.
+	 */
+	public <Tr extends Transition<L>, T extends Builder<L, Tr, T>> Automaton<L, Tr, T> automaton() {
+		return new Sink<>();
+	}
+
+	private class MappedState implements State {
+
+		private final int id;
+
+		MappedState(int id) {
+			this.id = id;
+		}
+
+		@Override
+		public boolean isInitial() {
+			return initials.get(id);
+		}
+
+		@Override
+		public boolean isTerminal() {
+			return terminals.get(id);
+		}
+
+		@Override
+		public State setInitial(boolean initial) {
+			MappedAutomatonWriter.this.setInitial(id, initial);
+			return this;
+		}
+
+		@Override
+		public State setTerminal(boolean terminal) {
+			MappedAutomatonWriter.this.setTerminal(id, terminal);
+			return this;
+		}
+
+		MappedAutomatonWriter<?> writer() {
+			return MappedAutomatonWriter.this;
+		}
+
+		@Override
+		public int hashCode() {
+			return id;
+		}
+
+		@Override
+		public String toString() {
+			return Integer.toString(id);
+		}
+	}
+
+	private class Sink<Tr extends Transition<L>, T extends Builder<L, Tr, T>> extends Automaton<L, Tr, T> {
+
+		Sink() {
+			super(symbols);
+		}
+
+		private int id(State s) throws NoSuchStateException {
+			if (!(s instanceof MappedAutomatonWriter.MappedState) || ((MappedAutomatonWriter<?>.MappedState) s).writer() != MappedAutomatonWriter.this)
+				throw new NoSuchStateException();
+			return ((MappedAutomatonWriter<?>.MappedState) s).id;
+		}
+
+		@Override
+		public State addState(boolean initial, boolean terminal) {
+			return new MappedState(MappedAutomatonWriter.this.addState(initial, terminal));
+		}
+
+		@Override
+		public void addTransition(Transition<L> transition) throws NoSuchStateException {
+			build(transition.start(), transition.label(), transition.end());
+		}
+
+		@Override
+		public void build(State from, L l, State to) throws NoSuchStateException {
+			try {
+				MappedAutomatonWriter.this.addTransition(id(from), l, id(to));
+			} catch (IOException e) {
+				throw new IllegalStateException("cannot write transition", e);
+			}
+		}
+
+		@Override
+		public Set<State> states() {
+			throw new UnsupportedOperationException("write-only automaton");
+		}
+
+		@Override
+		public Set<State> initials() {
+			throw new UnsupportedOperationException("write-only automaton");
+		}
+
+		@Override
+		public Set<State> terminals() {
+			throw new UnsupportedOperationException("write-only automaton");
+		}
+
+		@Override
+		public Set<Transition<L>> delta() {
+			throw new UnsupportedOperationException("write-only automaton");
+		}
+	}
+}
@@ -0,0 +1,268 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.properties;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import rationals.Automaton;
+import rationals.Builder;
+import rationals.CompiledNfa;
+import rationals.Transition;
+import rationals.transformations.ExecutionContext;
+
+/**
+ * Language inclusion using antichains.
+ * <p>
+ * Like {@link ModelCheck}, <code>test(a, b)</code> returns true if and only if
+ * the language of <code>b</code> is included in the language of
+ * <code>a</code>. Instead of complementing <code>a</code>, this test explores
+ * breadth-first the pairs <em>(p, S)</em> where <em>p</em> is a state of
+ * <code>b</code> and <em>S</em> the set of states of <code>a</code> reached by
+ * the same word, building the subsets of <code>a</code> only as needed. A pair
+ * <em>(p, S')</em> is not explored if some pair <em>(p, S)</em> with <em>S</em>
+ * included in <em>S'</em> was, as any word leading from <em>(p, S')</em> to a
+ * counterexample also leads from <em>(p, S)</em> to one: only the antichain of
+ * minimal subsets is kept for each state of <code>b</code>. Exploration stops
+ * at the first pair where <code>b</code> accepts and <code>a</code> does not.
+ * <p>
+ * As exploration is breadth-first, the counterexample returned by
+ * {@link #counterExample()} is a shortest word accepted by <code>b</code> and
+ * not by <code>a</code>. The exploration may be bounded by an
+ * {@link ExecutionContext}, counting explored pairs as states.
+ * <p>
+ * This is based on M. De Wulf, L. Doyen, T.A. Henzinger and J.-F. Raskin,
+ * <em>Antichains: a new algorithm for checking universality of finite
+ * automata</em>, CAV 2006.
+ * 
+ * @see ModelCheck
+ */
+public class AntichainInclusion<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> implements BinaryTest<L, Tr, T> {
+
+	private final ExecutionContext context;
+
+	private List<L> counterExample;
+
+	public AntichainInclusion() {
+		this(new ExecutionContext());
+	}
+
+	/**
+	 * Creates a test whose exploration is bounded by given context.
+	 * 
+	 * @param context
+	 *            the bounds of the exploration.
+	 */
+	public AntichainInclusion(ExecutionContext context) {
+		this.context = context;
+	}
+
+	/* an explored pair */
+	private static final class Pair {
+
+		/* state of b */
+		final int p;
+
+		/* states of a, epsilon closed */
+		final long[] set;
+
+		final int depth;
+
+		/* the pair and label of b leading here, for counterexamples */
+		final Pair parent;
+
+		final int label;
+
+		/* subsumed before being explored */
+		boolean dead;
+
+		Pair(int p, long[] set, int depth, Pair parent, int label) {
+			this.p = p;
+			this.set = set;
+			this.depth = depth;
+			this.parent = parent;
+			this.label = label;
+		}
+	}
+
+	/* state shared by the steps of a test */
+	private static final class Exploration {
+
+		final CompiledNfa<?> a;
+
+		final CompiledNfa<?> b;
+
+		/* index in a's alphabet of b's labels, or -1 */
+		final int[] labels;
+
+		/* minimal subsets of explored pairs, by state of b */
+		final List<List<Pair>> antichains;
+
+		final ArrayDeque<Pair> todo = new ArrayDeque<>();
+
+		int pairs;
+
+		/* successors of the pair being explored, by label of b */
+		final long[][] posts;
+
+		final int[] used;
+
+		int nused;
+
+		Exploration(CompiledNfa<?> a, CompiledNfa<?> b) {
+			this.a = a;
+			this.b = b;
+			this.labels = new int[b.symbols().size()];
+			for (int l = 1; l < labels.length; l++)
+				labels[l] = a.symbols().indexOf(b.symbols().label(l));
+			this.antichains = new ArrayList<>(b.stateCount());
+			for (int p = 0; p < b.stateCount(); p++)
+				antichains.add(new ArrayList<Pair>());
+			this.posts = new long[labels.length][];
+			this.used = new int[labels.length];
+		}
+
+		/*
+		 * adds pair (p, set) to the antichain and the queue unless it is
+		 * subsumed, returns it if it is a counterexample
+		 */
+		Pair add(ExecutionContext context, int p, long[] set, Pair parent, int label) {
+			int depth = parent == null ? 0 : parent.depth + 1;
+			List<Pair> antichain = antichains.get(p);
+			for (Pair q : antichain)
+				if (includes(set, q.set))
+					return null;
+			for (Iterator<Pair> i = antichain.iterator(); i.hasNext();) {
+				Pair q = i.next();
+				if (includes(q.set, set)) {
+					i.remove();
+					/* pairs of previous levels are kept to preserve shortest paths */
+					if (q.depth == depth)
+						q.dead = true;
+				}
+			}
+			Pair pair = new Pair(p, set, depth, parent, label);
+			antichain.add(pair);
+			todo.add(pair);
+			context.check("AntichainInclusion", ++pairs, 0);
+			return b.closureAccepts(p) && !accepts(set) ? pair : null;
+		}
+
+		boolean accepts(long[] set) {
+			for (int w = 0; w < set.length; w++)
+				for (long bits = set[w]; bits != 0; bits &= bits - 1)
+					if (a.isTerminal((w << 6) + Long.numberOfTrailingZeros(bits)))
+						return true;
+			return false;
+		}
+
+		/* states of a reached from the pair being explored by label l of b */
+		long[] post(long[] set, int l) {
+			long[] ret = posts[l];
+			if (ret != null)
+				return ret;
+			posts[l] = ret = new long[set.length];
+			used[nused++] = l;
+			int la = labels[l];
+			if (la <= 0)
+				return ret;
+			for (int w = 0; w < set.length; w++)
+				for (long bits = set[w]; bits != 0; bits &= bits - 1) {
+					int q = (w << 6) + Long.numberOfTrailingZeros(bits);
+					for (int t = a.find(q, la), e = a.outEnd(q); t < e && a.label(t) == la; t++)
+						closure(a, a.target(t), ret);
+				}
+			return ret;
+		}
+	}
+
+	/* true if sub is included in set */
+	private static boolean includes(long[] set, long[] sub) {
+		for (int i = 0; i < set.length; i++)
+			if ((sub[i] & ~set[i]) != 0)
+				return false;
+		return true;
+	}
+
+	private static void closure(CompiledNfa<?> nfa, int q, long[] set) {
+		if ((set[q >>> 6] & (1L << q)) != 0)
+			return;
+		nfa.addClosure(q, set);
+	}
+
+	/**
+	 * Tests whether the language of <code>b</code> is included in the
+	 * language of <code>a</code>.
+	 * 
+	 * @param a
+	 *            the including automaton.
+	 * @param b
+	 *            the included automaton.
+	 * @return true if every word accepted by <code>b</code> is accepted by
+	 *         <code>a</code>.
+	 */
+	public boolean test(Automaton<L, Tr, T> a, Automaton<L, Tr, T> b) {
+		CompiledNfa<L> na = CompiledNfa.compile(a);
+		CompiledNfa<L> nb = CompiledNfa.compile(b);
+		Exploration x = new Exploration(na, nb);
+		long[] init = new long[(na.stateCount() + 63) >>> 6];
+		for (int q : na.initials())
+			closure(na, q, init);
+		Pair found = null;
+		for (int p : nb.initials())
+			if (found == null)
+				found = x.add(context, p, init, null, 0);
+		while (found == null && !x.todo.isEmpty()) {
+			Pair pair = x.todo.poll();
+			if (pair.dead)
+				continue;
+			while (x.nused > 0)
+				x.posts[x.used[--x.nused]] = null;
+			int[] closure = nb.closureOf(pair.p);
+			for (int i = 0; found == null && i < closure.length; i++) {
+				int r = closure[i];
+				for (int t = nb.outStart(r), e = nb.outEnd(r); found == null && t < e; t++) {
+					int l = nb.label(t);
+					found = x.add(context, nb.target(t), x.post(pair.set, l), pair, l);
+				}
+			}
+		}
+		if (found == null) {
+			counterExample = null;
+			return true;
+		}
+		List<L> word = new ArrayList<>();
+		for (Pair pair = found; pair.parent != null; pair = pair.parent)
+			word.add(nb.symbols().label(pair.label));
+		Collections.reverse(word);
+		counterExample = word;
+		return false;
+	}
+
+	/**
+	 * Return a shortest word accepted by <code>b</code> and not by
+	 * <code>a</code>, found by the last test.
+	 * 
+	 * @return a word, or null if the last test succeeded or no test was run.
+	 */
+	public List<L> counterExample() {
+		return counterExample;
+	}
+}
@@ -16,29 +16,42 @@
  */
 package rationals.properties;
 
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import rationals.Automaton;
 import rationals.Builder;
-import rationals.Couple;
 import rationals.State;
 import rationals.Transition;
 
 /**
  * This method computes the (strong) bisimulation relation between two states.
+ * <p>
+ * Two states are bisimilar if they are both terminal or both not terminal,
+ * and each transition from one of them is matched by a transition with the
+ * same label from the other, leading to bisimilar states. Epsilon
+ * transitions are handled as transitions with a <code>null</code> label.
+ * <p>
+ * The coarsest bisimulation over the disjoint union of the two automata is
+ * computed once by {@link #setAutomata(Automaton, Automaton)}, using Paige
+ * and Tarjan's partition refinement in time <em>O(m log n)</em> for
+ * <em>n</em> states and <em>m</em> transitions. Queries then take constant
+ * time.
  * 
  * @version $Id: Bisimulation.java 2 2006-08-24 14:41:48Z oqube $
+ * @see WeakBisimulation
  */
 public class Bisimulation<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> implements Relation<L, Tr, T> {
 
-    private Automaton<L, Tr, T> a1;
+    private final Map<State, Integer> ids1 = new HashMap<>();
 
-    private Automaton<L, Tr, T> a2;
+    private final Map<State, Integer> ids2 = new HashMap<>();
 
-    private Set<Couple> exp;
+    /* the block of each state of the union */
+    private int[] blocks;
 
     /**
      * Constructor with two automaton.
@@ -66,9 +79,20 @@ public class Bisimulation<L, Tr extends Transition<L>, T extends Builder<L, Tr,
      *      rationals.Automaton)
      */
     public void setAutomata(Automaton<L, Tr, T> a1, Automaton<L, Tr, T> a2) {
-        this.a1 = a1;
-        this.a2 = a2;
-        this.exp = new HashSet<>();
+        PaigeTarjan lts = new PaigeTarjan();
+        ids1.clear();
+        ids2.clear();
+        addTo(lts, a1, ids1);
+        addTo(lts, a2, ids2);
+        this.blocks = lts.refine();
+    }
+
+    /*
+     * adds the states and transitions of a to lts, recording the number of
+     * each state in ids
+     */
+    void addTo(PaigeTarjan lts, Automaton<L, Tr, T> a, Map<State, Integer> ids) {
+        lts.add(a, ids);
     }
 
     /*
@@ -78,56 +102,30 @@ public class Bisimulation<L, Tr extends Transition<L>, T extends Builder<L, Tr,
      *      rationals.State)
      */
     public boolean equivalence(State q0a, State q0b) {
-        Couple cpl = new Couple(q0a, q0b);
-        /* check states are unknown */
-        if (exp.contains(cpl))
-            return true;
-        exp.add(cpl);
-        /* iterate over all transitions */
-        Set<Transition<L>> tas = a1.delta(q0a);
-        Set<Transition<L>> tbs = a2.delta(q0b);
-        Iterator<Transition<L>> it = tas.iterator();
-        while (it.hasNext()) {
-            Transition<L> tr = it.next();
-            State ea = tr.end();
-            /* check transition exists in b */
-            Set<Transition<L>> tbsl = a2.delta(q0b, tr.label());
-            if (tbsl.isEmpty())
-                return false;
-            Iterator<Transition<L>> trb = tbsl.iterator();
-            while (trb.hasNext()) {
-                Transition<L> tb = trb.next();
-                /* mark transition as visited */
-                tbs.remove(tb);
-                State eb = tb.end();
-                if (!equivalence(ea, eb) && !trb.hasNext())
-                    return false;
-            }
-        }
-        /* checks all transitions from b has been visited */
-        if (!tbs.isEmpty()) {
-            exp.remove(cpl);
-            return false;
-        }
-        /* OK */
-        return true;
+        Integer qa = ids1.get(q0a), qb = ids2.get(q0b);
+        return qa != null && qb != null && blocks[qa] == blocks[qb];
     }
 
     /**
-     * Checks that all combination of states from nsa and nsb
-     * are bisimilar.
+     * Checks that each state of nsa is bisimilar to some state of nsb, and
+     * conversely.
      * 
      */
     public boolean equivalence(Set<State> nsa, Set<State> nsb) {
-       for(Iterator<State> i = nsa.iterator();i.hasNext();) {
-           State sa = i.next();
-           for(Iterator<State> j = nsb.iterator();j.hasNext();) {
-               State sb = j.next();
-               if(!equivalence(sa,sb))
-                   return false;
-           }
-       }
-       return true;
+        BitSet ba = new BitSet(), bb = new BitSet();
+        for (State s : nsa) {
+            Integer q = ids1.get(s);
+            if (q == null)
+                return false;
+            ba.set(blocks[q]);
+        }
+        for (State s : nsb) {
+            Integer q = ids2.get(s);
+            if (q == null)
+                return false;
+            bb.set(blocks[q]);
+        }
+        return ba.equals(bb);
     }
     
     /* (non-Javadoc)
@@ -0,0 +1,164 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.properties;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import rationals.Builder;
+import rationals.Transition;
+
+/**
+ * Language equivalence of sets of states using bisimulation up to
+ * congruence.
+ * <p>
+ * Like {@link HopcroftKarpEquivalence}, this relation explores breadth-first
+ * the pairs of sets of states reached by the same words from two sets. A pair
+ * is not explored if it already belongs to the congruence closure of the
+ * pairs found so far, ie. to the smallest equivalence relation containing
+ * these pairs and compatible with union of sets. This prunes much more pairs
+ * than union-find on nondeterministic automata, where the determinized
+ * automata need not be built at all. Congruence is checked by rewriting each
+ * set, adding to it one side of every pair whose other side it includes,
+ * until it includes the other set or cannot grow anymore.
+ * <p>
+ * Pairs are only compared with pairs at a lower or the same depth, so that
+ * {@link #getErrorTrace()} returns a shortest distinguishing word.
+ * <p>
+ * This is the algorithm HKC of F. Bonchi and D. Pous, <em>Checking NFA
+ * equivalence with bisimulations up to congruence</em>, POPL 2013.
+ * 
+ * @see HopcroftKarpEquivalence
+ * @see LanguageEquivalent
+ */
+public class CongruenceEquivalence<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> extends SubsetEquivalence<L, Tr, T> {
+
+	/*
+	 * pairs found so far, by first state of each of their sets: a pair can
+	 * only rewrite a set containing one of these states
+	 */
+	private List<List<Node>> buckets;
+
+	/* pairs with an empty set, which rewrite any set */
+	private List<Node> always;
+
+	@Override
+	boolean check(Node root) {
+		buckets = new ArrayList<>(stateCount());
+		for (int i = 0; i < stateCount(); i++)
+			buckets.add(new ArrayList<Node>());
+		always = new ArrayList<>();
+		ArrayDeque<Node> todo = new ArrayDeque<>();
+		add(root, todo);
+		while (!todo.isEmpty()) {
+			Node n = todo.poll();
+			if (congruent(n)) {
+				n.skipped = true;
+				continue;
+			}
+			if (accepts(n.x) != accepts(n.y))
+				return fail(n);
+			for (int c = 0; c < letterCount(); c++)
+				add(new Node(post(n.x, c), post(n.y, c), n, c), todo);
+		}
+		return true;
+	}
+
+	private void add(Node n, ArrayDeque<Node> todo) {
+		todo.add(n);
+		int i = first(n.x), j = first(n.y);
+		if (i < 0 || j < 0) {
+			always.add(n);
+			return;
+		}
+		buckets.get(i).add(n);
+		if (j != i)
+			buckets.get(j).add(n);
+	}
+
+	private static int first(long[] set) {
+		for (int w = 0; w < set.length; w++)
+			if (set[w] != 0)
+				return (w << 6) + Long.numberOfTrailingZeros(set[w]);
+		return -1;
+	}
+
+	/*
+	 * true if the sets of n are in the congruence closure of the other pairs
+	 * found so far, skipped pairs and pairs deeper than n excluded
+	 */
+	private boolean congruent(Node n) {
+		if (Arrays.equals(n.x, n.y))
+			return true;
+		return rewrites(n.x, n.y, n) && rewrites(n.y, n.x, n);
+	}
+
+	/*
+	 * true if the normal form of set includes target: the rewriting stops as
+	 * soon as it does
+	 */
+	private boolean rewrites(long[] set, long[] target, Node n) {
+		long[] z = set.clone();
+		boolean changed = true;
+		while (changed) {
+			if (includes(z, target))
+				return true;
+			changed = false;
+			for (Node m : always)
+				changed |= rewrite(z, m, n);
+			for (int w = 0; w < z.length; w++)
+				for (long bits = z[w]; bits != 0; bits &= bits - 1)
+					for (Node m : buckets.get((w << 6) + Long.numberOfTrailingZeros(bits)))
+						changed |= rewrite(z, m, n);
+		}
+		return false;
+	}
+
+	private static boolean rewrite(long[] z, Node m, Node n) {
+		return m != n && !m.skipped && m.depth <= n.depth && rewrite(z, m);
+	}
+
+	/* adds one side of m to z if z includes the other, returns true if z grew */
+	private static boolean rewrite(long[] z, Node m) {
+		if (includes(z, m.x))
+			return add(z, m.y);
+		if (includes(z, m.y))
+			return add(z, m.x);
+		return false;
+	}
+
+	private static boolean includes(long[] set, long[] sub) {
+		for (int i = 0; i < set.length; i++)
+			if ((sub[i] & ~set[i]) != 0)
+				return false;
+		return true;
+	}
+
+	private static boolean add(long[] set, long[] other) {
+		boolean changed = false;
+		for (int i = 0; i < set.length; i++) {
+			long w = set[i] | other[i];
+			if (w != set[i]) {
+				set[i] = w;
+				changed = true;
+			}
+		}
+		return changed;
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.properties;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import rationals.Builder;
+import rationals.Transition;
+
+/**
+ * Language equivalence of states using the algorithm of Hopcroft and Karp.
+ * <p>
+ * Two sets of states are language equivalent if they accept the same words.
+ * This relation explores breadth-first the pairs of sets reached from the two
+ * sets by the same words, as in a subset construction, and merges the sets of
+ * each explored pair in a union-find structure. A pair whose sets are already
+ * in the same class is not explored again, so that on deterministic automata
+ * the number of explored pairs is at most the number of states. Sets are
+ * built only as needed, which makes this relation also usable on
+ * nondeterministic automata. {@link CongruenceEquivalence} explores fewer
+ * pairs on these, at a higher cost per pair.
+ * <p>
+ * When the sets are not equivalent, {@link #getErrorTrace()} returns a
+ * shortest word accepted from one and not from the other.
+ * 
+ * @see CongruenceEquivalence
+ * @see AreEquivalent
+ */
+public class HopcroftKarpEquivalence<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> extends SubsetEquivalence<L, Tr, T> {
+
+	/* a set used as a map key */
+	private static final class Key {
+
+		final long[] set;
+
+		final int hash;
+
+		Key(long[] set) {
+			this.set = set;
+			this.hash = Arrays.hashCode(set);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Key && Arrays.equals(set, ((Key) o).set);
+		}
+	}
+
+	private Map<Key, Integer> ids;
+
+	/* union-find forest over set ids */
+	private int[] parent;
+
+	@Override
+	boolean check(Node root) {
+		ids = new HashMap<>();
+		parent = new int[16];
+		if (accepts(root.x) != accepts(root.y))
+			return fail(root);
+		ArrayDeque<Node> todo = new ArrayDeque<>();
+		union(id(root.x), id(root.y));
+		todo.add(root);
+		while (!todo.isEmpty()) {
+			Node n = todo.poll();
+			for (int c = 0; c < letterCount(); c++) {
+				Node m = new Node(post(n.x, c), post(n.y, c), n, c);
+				if (accepts(m.x) != accepts(m.y))
+					return fail(m);
+				if (union(id(m.x), id(m.y)))
+					todo.add(m);
+			}
+		}
+		return true;
+	}
+
+	private int id(long[] set) {
+		Key k = new Key(set);
+		Integer id = ids.get(k);
+		if (id != null)
+			return id;
+		int n = ids.size();
+		ids.put(k, n);
+		if (n == parent.length)
+			parent = Arrays.copyOf(parent, n * 2);
+		parent[n] = n;
+		return n;
+	}
+
+	private int find(int i) {
+		while (parent[i] != i) {
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+
+	/* merges the classes of i and j, returns false if they were equal */
+	private boolean union(int i, int j) {
+		i = find(i);
+		j = find(j);
+		if (i == j)
+			return false;
+		parent[i] = j;
+		return true;
+	}
+}
@@ -0,0 +1,53 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.properties;
+
+import java.util.List;
+
+import rationals.Builder;
+import rationals.Transition;
+
+/**
+ * Tests that two automata accept the same language, using
+ * {@link CongruenceEquivalence}. After a failed test,
+ * {@link #getErrorTrace()} is a shortest word accepted by one automaton and
+ * not by the other.
+ * 
+ * @see CongruenceEquivalence
+ */
+public class LanguageEquivalent<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> extends AreEquivalent<L, Tr, T> {
+
+	private final CongruenceEquivalence<L, Tr, T> relation;
+
+	public LanguageEquivalent() {
+		this(new CongruenceEquivalence<L, Tr, T>());
+	}
+
+	private LanguageEquivalent(CongruenceEquivalence<L, Tr, T> relation) {
+		super(relation);
+		this.relation = relation;
+	}
+
+	/**
+	 * @return a shortest word distinguishing the automata of the last failed
+	 *         test, or null if it succeeded.
+	 */
+	public List<L> getErrorTrace() {
+		return relation.getErrorTrace();
+	}
+
+}
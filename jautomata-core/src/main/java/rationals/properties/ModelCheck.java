@@ -23,6 +23,7 @@ import rationals.Automaton;
 import rationals.Builder;
 import rationals.Transition;
 import rationals.transformations.Complement;
+import rationals.transformations.ExecutionContext;
 import rationals.transformations.Product;
 import rationals.transformations.Pruner;
 
@@ -41,13 +42,32 @@ import rationals.transformations.Pruner;
  * <p>
  * The resulting automaton can be retrieved using the method
  * {@see #counterExamples()}.
+ * <p>
+ * The complement and the product may be bounded by an
+ * {@link ExecutionContext}.
  * 
  * @version $Id: ModelCheck.java 2 2006-08-24 14:41:48Z oqube $
  */
 public class ModelCheck<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> implements BinaryTest<L, Tr, T> {
 
+    private final ExecutionContext context;
+
     private Automaton<L, Tr, T> counterExamples;
 
+    public ModelCheck() {
+        this(new ExecutionContext());
+    }
+
+    /**
+     * Creates a test whose constructions are bounded by given context.
+     * 
+     * @param context
+     *            the bounds of the complement and product.
+     */
+    public ModelCheck(ExecutionContext context) {
+        this.context = context;
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -60,8 +80,10 @@ public class ModelCheck<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>
     	Set<L> alphabet = new HashSet<>();
     	alphabet.addAll(a.alphabet());
     	alphabet.addAll(b.alphabet());
-        Automaton<L, Tr, T> ca = new Complement<L, Tr, T>(alphabet).transform(a);
-        counterExamples = new Pruner<L, Tr, T>().transform(new Product<L, Tr, T>().transform(ca, b));
+    	// epsilon is not a letter: completing on it would make the complement accept too much
+    	alphabet.remove(null);
+        Automaton<L, Tr, T> ca = new Complement<L, Tr, T>(alphabet, context).transform(a);
+        counterExamples = new Pruner<L, Tr, T>().transform(new Product<L, Tr, T>(context).transform(ca, b));
         if (new isEmpty<L, Tr, T>().test(counterExamples))
             return true;
         else
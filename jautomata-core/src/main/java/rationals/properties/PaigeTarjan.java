@@ -0,0 +1,388 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.properties;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import rationals.Automaton;
+import rationals.State;
+import rationals.Transition;
+
+/*
+ * Coarsest bisimulation of a labelled transition system, computed by the
+ * partition refinement of R. Paige and R. E. Tarjan, "Three partition
+ * refinement algorithms" (SIAM J. Comput. 1987), in time O(m log n).
+ *
+ * States and transitions are added with addState and addTransition, then
+ * refine() gives the block of each state. Two states are bisimilar iff they
+ * are in the same block; the initial partition separates terminal states
+ * from the others.
+ *
+ * Blocks are kept stable with respect to compound blocks, which are unions
+ * of blocks. Each step takes a compound block S made of several blocks,
+ * removes its smaller of two first blocks B, and splits blocks by the
+ * predecessors of B then by the predecessors of B that have no transition
+ * with the same label to S - B. The number of transitions from a state
+ * with a label to a compound block is kept in a record shared by these
+ * transitions, so that the second split costs the same as the first.
+ */
+final class PaigeTarjan {
+
+	/*
+	 * A refinable partition of 0..n-1, as in HopcroftReducer. Marking an
+	 * element twice has no effect, and split records in origin the set each
+	 * new set was split from.
+	 */
+	private static final class Partition {
+
+		int sets;
+
+		final int[] elems, loc, set, first, past, marked, origin, touched;
+
+		int ntouched;
+
+		Partition(int n) {
+			this.sets = n > 0 ? 1 : 0;
+			this.elems = new int[n];
+			this.loc = new int[n];
+			this.set = new int[n];
+			this.first = new int[n + 1];
+			this.past = new int[n + 1];
+			this.marked = new int[n + 1];
+			this.origin = new int[n + 1];
+			this.touched = new int[n + 1];
+			for (int i = 0; i < n; i++)
+				elems[i] = loc[i] = i;
+			past[0] = n;
+		}
+
+		void mark(int e) {
+			int s = set[e], i = loc[e], j = first[s] + marked[s];
+			if (i < j)
+				return;
+			elems[i] = elems[j];
+			loc[elems[i]] = i;
+			elems[j] = e;
+			loc[e] = j;
+			if (marked[s]++ == 0)
+				touched[ntouched++] = s;
+		}
+
+		void split() {
+			while (ntouched > 0) {
+				int s = touched[--ntouched], j = first[s] + marked[s];
+				if (j == past[s]) {
+					marked[s] = 0;
+					continue;
+				}
+				if (marked[s] <= past[s] - j) {
+					first[sets] = first[s];
+					past[sets] = first[s] = j;
+				} else {
+					past[sets] = past[s];
+					first[sets] = past[s] = j;
+				}
+				for (int i = first[sets]; i < past[sets]; i++)
+					set[elems[i]] = sets;
+				origin[sets] = s;
+				marked[s] = marked[sets++] = 0;
+			}
+		}
+	}
+
+	private final Map<Object, Integer> labelIds = new HashMap<>();
+
+	private boolean[] terminals = new boolean[16];
+
+	private int n;
+
+	private int[] tails = new int[16], labels = new int[16], heads = new int[16];
+
+	private int m;
+
+	/* state of the refinement */
+	private Partition blocks;
+
+	/* compound blocks, as doubly linked lists of blocks */
+	private int[] compound, next, prev, head, count;
+
+	private int compounds;
+
+	/* compound blocks with at least two blocks, possibly stale */
+	private int[] work;
+
+	private int nwork;
+
+	/* the record of each transition, with its count */
+	private int[] record, counts = new int[16];
+
+	/* in a step, the record of the old record for the splitter, or -1 */
+	private int[] split = new int[16], parent = new int[16];
+
+	private int[] free = new int[16];
+
+	private int records, nfree;
+
+	PaigeTarjan() {
+		labelIds.put(null, 0);
+	}
+
+	/* adds a state, numbered from 0 */
+	int addState(boolean terminal) {
+		if (n == terminals.length)
+			terminals = Arrays.copyOf(terminals, n * 2);
+		terminals[n] = terminal;
+		return n++;
+	}
+
+	void addTransition(int from, Object label, int to) {
+		Integer l = labelIds.get(label);
+		if (l == null) {
+			l = labelIds.size();
+			labelIds.put(label, l);
+		}
+		if (m == tails.length) {
+			tails = Arrays.copyOf(tails, m * 2);
+			labels = Arrays.copyOf(labels, m * 2);
+			heads = Arrays.copyOf(heads, m * 2);
+		}
+		tails[m] = from;
+		labels[m] = l;
+		heads[m++] = to;
+	}
+
+	/* adds the states and transitions of a, recording the number of each state in ids */
+	<L> void add(Automaton<L, ?, ?> a, Map<State, Integer> ids) {
+		for (State s : a.states())
+			ids.put(s, addState(s.isTerminal()));
+		for (Transition<L> tr : a.delta())
+			addTransition(ids.get(tr.start()), tr.label(), ids.get(tr.end()));
+	}
+
+	int stateCount() {
+		return n;
+	}
+
+	boolean isTerminal(int q) {
+		return terminals[q];
+	}
+
+	int transitionCount() {
+		return m;
+	}
+
+	/* number of distinct labels, the null label being 0 */
+	int labelCount() {
+		return labelIds.size();
+	}
+
+	int tail(int t) {
+		return tails[t];
+	}
+
+	int label(int t) {
+		return labels[t];
+	}
+
+	int head(int t) {
+		return heads[t];
+	}
+
+	/* the coarsest bisimulation, as the block of each state */
+	int[] refine() {
+		int nlabels = labelIds.size();
+		blocks = new Partition(n);
+		for (int q = 0; q < n; q++)
+			if (terminals[q])
+				blocks.mark(q);
+		blocks.split();
+		/* transitions by label, and by tail then label */
+		int[] byLabel = sort(labels, nlabels, null);
+		int[] byTail = sort(tails, n, sort(labels, nlabels, null));
+		/* one record per tail and label, counting its transitions */
+		record = new int[m];
+		for (int i = 0; i < m; i++) {
+			int t = byTail[i];
+			if (i == 0 || tails[t] != tails[byTail[i - 1]] || labels[t] != labels[byTail[i - 1]])
+				allocate(-1);
+			record[t] = records - 1;
+			counts[records - 1]++;
+		}
+		/* make blocks stable with respect to the set of all states */
+		for (int i = 0; i < m; i++) {
+			int t = byLabel[i];
+			if (i > 0 && labels[t] != labels[byLabel[i - 1]])
+				blocks.split();
+			blocks.mark(tails[t]);
+		}
+		blocks.split();
+		/* incoming transitions of each state */
+		int[] inOffsets = new int[n + 1];
+		for (int t = 0; t < m; t++)
+			inOffsets[heads[t] + 1]++;
+		for (int q = 0; q < n; q++)
+			inOffsets[q + 1] += inOffsets[q];
+		int[] in = sort(heads, n, null);
+		/* all blocks start in the same compound block */
+		compound = new int[n + 1];
+		next = new int[n + 1];
+		prev = new int[n + 1];
+		head = new int[n + 1];
+		count = new int[n + 1];
+		Arrays.fill(head, -1);
+		compounds = 1;
+		work = new int[2 * n + 2];
+		nwork = 0;
+		for (int b = 0; b < blocks.sets; b++)
+			link(b, 0);
+		if (count[0] > 1)
+			work[nwork++] = 0;
+		int[] group = new int[nlabels], groups = new int[nlabels], nextInGroup = new int[m];
+		int[] touched = new int[m];
+		Arrays.fill(group, -1);
+		while (nwork > 0) {
+			int s = work[--nwork];
+			if (count[s] < 2)
+				continue;
+			int b = head[s], c = next[b];
+			if (blocks.past[c] - blocks.first[c] < blocks.past[b] - blocks.first[b])
+				b = c;
+			unlink(b);
+			link(b, compounds++);
+			if (count[s] > 1)
+				work[nwork++] = s;
+			/* transitions into b, grouped by label */
+			int ngroups = 0;
+			for (int i = blocks.first[b]; i < blocks.past[b]; i++) {
+				int q = blocks.elems[i];
+				for (int j = inOffsets[q]; j < inOffsets[q + 1]; j++) {
+					int t = in[j], l = labels[t];
+					if (group[l] < 0)
+						groups[ngroups++] = l;
+					nextInGroup[t] = group[l];
+					group[l] = t;
+				}
+			}
+			for (int g = 0; g < ngroups; g++) {
+				int l = groups[g], ntouched = 0;
+				/* move transitions to records for b, splitting by pre(b) */
+				for (int t = group[l]; t >= 0; t = nextInGroup[t]) {
+					int r = record[t];
+					if (split[r] < 0) {
+						/* allocate may grow split */
+						int r1 = allocate(r);
+						split[r] = r1;
+						touched[ntouched++] = r;
+					}
+					counts[r]--;
+					counts[split[r]]++;
+					record[t] = split[r];
+					blocks.mark(tails[t]);
+				}
+				refineBlocks();
+				/* then by the states of pre(b) without transitions to s - b */
+				for (int t = group[l]; t >= 0; t = nextInGroup[t])
+					if (counts[parent[record[t]]] == 0)
+						blocks.mark(tails[t]);
+				refineBlocks();
+				for (int i = 0; i < ntouched; i++) {
+					int r = touched[i];
+					split[r] = -1;
+					if (counts[r] == 0)
+						free[nfree++] = r;
+				}
+				group[l] = -1;
+			}
+		}
+		return blocks.set;
+	}
+
+	/* splits marked blocks, new blocks joining the compound block of their origin */
+	private void refineBlocks() {
+		int before = blocks.sets;
+		blocks.split();
+		for (int b = before; b < blocks.sets; b++) {
+			int s = compound[blocks.origin[b]];
+			link(b, s);
+			if (count[s] == 2)
+				work[nwork++] = s;
+		}
+	}
+
+	private void link(int b, int s) {
+		compound[b] = s;
+		prev[b] = -1;
+		next[b] = head[s];
+		if (head[s] >= 0)
+			prev[head[s]] = b;
+		head[s] = b;
+		count[s]++;
+	}
+
+	private void unlink(int b) {
+		int s = compound[b];
+		if (prev[b] >= 0)
+			next[prev[b]] = next[b];
+		else
+			head[s] = next[b];
+		if (next[b] >= 0)
+			prev[next[b]] = prev[b];
+		count[s]--;
+	}
+
+	/* a new record with a zero count */
+	private int allocate(int from) {
+		int r;
+		if (nfree > 0)
+			r = free[--nfree];
+		else {
+			if (records == counts.length) {
+				int size = records * 2;
+				counts = Arrays.copyOf(counts, size);
+				parent = Arrays.copyOf(parent, size);
+				free = Arrays.copyOf(free, size);
+				split = Arrays.copyOf(split, size);
+				Arrays.fill(split, records, size, -1);
+			}
+			r = records++;
+		}
+		counts[r] = 0;
+		parent[r] = from;
+		split[r] = -1;
+		return r;
+	}
+
+	/*
+	 * transitions sorted by keys[t] in 0..range-1, stably with respect to
+	 * order, or to their number if order is null
+	 */
+	private int[] sort(int[] keys, int range, int[] order) {
+		int[] offsets = new int[range + 1];
+		for (int t = 0; t < m; t++)
+			offsets[keys[t] + 1]++;
+		for (int k = 0; k < range; k++)
+			offsets[k + 1] += offsets[k];
+		int[] ret = new int[m];
+		for (int i = 0; i < m; i++) {
+			int t = order == null ? i : order[i];
+			ret[offsets[keys[t]]++] = t;
+		}
+		return ret;
+	}
+}
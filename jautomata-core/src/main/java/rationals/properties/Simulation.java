@@ -18,13 +18,12 @@ package rationals.properties;
 
 import rationals.Automaton;
 import rationals.Builder;
-import rationals.Couple;
 import rationals.State;
 import rationals.Transition;
 
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -35,6 +34,7 @@ import java.util.Set;
  * a simulation S of A by B is a relation in <code>Qa x Qb</code> 
  * s.t., whenever <code>(qa,qb) \in S</code>,
  * <ul>
+ * <li>if <code>qa \in Ta</code> then <code>qb \in Tb</code>,</li>
  * <li>for each <code>(qa,a,qa') \in deltaA</code>, exists <code>(qb,a,qb')\in deltaB</code>
  * and <code>(qa',qb') \in S</code>,</li>
  * </ul>
@@ -42,17 +42,21 @@ import java.util.Set;
  * <p />
  * Note that in general, a simulation is not symetric. A symmetric 
  * simulation is of course a bisimulation.
+ * <p />
+ * The maximal simulation over the disjoint union of the two automata is
+ * computed once by {@link #setAutomata(Automaton, Automaton)}, see
+ * {@link SimulationPreorder}.
  * 
  * @version $Id: Simulation.java 2 2006-08-24 14:41:48Z oqube $
  * @see rationals.properties.Bisimulation
  */
 public class Simulation<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> implements Relation<L, Tr, T> {
     
-    private Automaton<L, Tr, T> a1;
+    private final Map<State, Integer> ids1 = new HashMap<>();
 
-    private Automaton<L, Tr, T> a2;
+    private final Map<State, Integer> ids2 = new HashMap<>();
 
-    private Set<Couple> exp;
+    private SimulationPreorder preorder;
 
     /**
      * Constructor with two automataon.
@@ -73,65 +77,43 @@ public class Simulation<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>
      *      rationals.Automaton)
      */
     public void setAutomata(Automaton<L, Tr, T> a1, Automaton<L, Tr, T> a2) {
-        this.a1 = a1;
-        this.a2 = a2;
-        this.exp = new HashSet<>();
+        PaigeTarjan lts = new PaigeTarjan();
+        ids1.clear();
+        ids2.clear();
+        lts.add(a1, ids1);
+        lts.add(a2, ids2);
+        this.preorder = new SimulationPreorder(lts);
     }
 
     public Simulation() {}
     
     /**
-     * Checks that all combination of states from nsa and nsb
-     * are bisimilar.
+     * Checks that each state of nsa is simulated by some state of nsb.
      * 
      */
     public boolean equivalence(Set<State> nsa, Set<State> nsb) {
-       for(Iterator<State> i = nsa.iterator();i.hasNext();) {
-           State sa = i.next();
-           for(Iterator<State> j = nsb.iterator();j.hasNext();) {
-               State sb = j.next();
-               if(!equivalence(sa,sb))
-                   return false;
-           }
-       }
-       return true;
+        for (State sa : nsa) {
+            boolean found = false;
+            for (State sb : nsb)
+                if (equivalence(sa, sb)) {
+                    found = true;
+                    break;
+                }
+            if (!found)
+                return false;
+        }
+        return true;
     }
 
-    /*
-     * (non-Javadoc)
+    /**
+     * Checks that q0b simulates q0a.
      * 
      * @see rationals.tests.Relation#equivalence(rationals.State,
      *      rationals.State)
      */
     public boolean equivalence(State q0a, State q0b) {
-        Couple cpl = new Couple(q0a, q0b);
-        /* check states are unknown */
-        if (exp.contains(cpl))
-            return true;
-        exp.add(cpl);
-        /* iterate over all transitions */
-        Set<Transition<L>> tas = a1.delta(q0a);
-        Set<Transition<L>> tbs = a2.delta(q0b);
-        Iterator<Transition<L>> it = tas.iterator();
-        while (it.hasNext()) {
-            Transition<L> tr = it.next();
-            State ea = tr.end();
-            /* check transition exists in b */
-            Set<Transition<L>> tbsl = a2.delta(q0b, tr.label());
-            if (tbsl.isEmpty())
-                return false;
-            Iterator<Transition<L>> trb = tbsl.iterator();
-            while (trb.hasNext()) {
-                Transition<L> tb = trb.next();
-                /* mark transition as visited */
-                tbs.remove(tb);
-                State eb = tb.end();
-                if (!equivalence(ea, eb) && !trb.hasNext())
-                    return false;
-            }
-        }
-        /* OK */
-        return true;
+        Integer qa = ids1.get(q0a), qb = ids2.get(q0b);
+        return qa != null && qb != null && preorder.isSimulatedBy(qa, qb);
     }
 
     /* (non-Javadoc)
@@ -141,4 +123,4 @@ public class Simulation<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>
     	throw new UnsupportedOperationException();
     }
 
-}
+}
\ No newline at end of file
@@ -0,0 +1,428 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.properties;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import rationals.Automaton;
+import rationals.Builder;
+import rationals.State;
+import rationals.Transition;
+
+/**
+ * The maximal simulation preorder over the states of an automaton.
+ * <p>
+ * A state <em>q</em> simulates a state <em>p</em> if <em>q</em> is terminal
+ * whenever <em>p</em> is, and each transition <em>(p,a,p')</em> is matched
+ * by a transition <em>(q,a,q')</em> such that <em>q'</em> simulates
+ * <em>p'</em>. Epsilon transitions are handled as transitions with a
+ * <code>null</code> label. The <em>backward</em> preorder is the simulation
+ * preorder of the reverse automaton, where initial states play the role of
+ * terminal states. If <em>q</em> simulates <em>p</em> forward, then the
+ * language of <em>q</em> contains the language of <em>p</em>.
+ * <p>
+ * The whole relation is computed by the constructor, then queries take
+ * constant time. States are first merged into their classes for the
+ * coarsest bisimulation, see {@link Bisimulation}, as bisimilar states
+ * simulate each other. The preorder over <em>k</em> classes is then
+ * computed following M. R. Henzinger, T. A. Henzinger and P. W. Kopke,
+ * <em>Computing simulations on finite and infinite graphs</em> (FOCS 1995),
+ * in time <em>O(k m)</em>. It is stored as one bitset of <em>k</em> bits
+ * per class, and pending removals take at most as much space.
+ *
+ * @see Simulation
+ */
+public final class SimulationPreorder {
+
+	private final Map<State, Integer> ids;
+
+	private final State[] states;
+
+	/* class of each state */
+	private int[] classes;
+
+	/* sim[c] holds the classes simulating class c */
+	private long[][] sim;
+
+	/**
+	 * Computes the forward simulation preorder of an automaton.
+	 *
+	 * @param a
+	 *            an automaton. It is not modified.
+	 */
+	public <L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> SimulationPreorder(Automaton<L, Tr, T> a) {
+		this(a, false);
+	}
+
+	/**
+	 * Computes the forward or backward simulation preorder of an automaton.
+	 *
+	 * @param a
+	 *            an automaton. It is not modified.
+	 * @param backward
+	 *            if true, compute the backward simulation preorder.
+	 */
+	public <L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> SimulationPreorder(Automaton<L, Tr, T> a,
+			boolean backward) {
+		PaigeTarjan lts = new PaigeTarjan();
+		this.states = a.states().toArray(new State[a.states().size()]);
+		this.ids = new HashMap<>(states.length * 2);
+		for (State s : states)
+			ids.put(s, lts.addState(backward ? s.isInitial() : s.isTerminal()));
+		for (Transition<L> tr : a.delta()) {
+			int p = ids.get(tr.start()), q = ids.get(tr.end());
+			if (backward)
+				lts.addTransition(q, tr.label(), p);
+			else
+				lts.addTransition(p, tr.label(), q);
+		}
+		compute(lts);
+	}
+
+	/* the preorder over the states of lts, queried by number only */
+	SimulationPreorder(PaigeTarjan lts) {
+		this.states = null;
+		this.ids = null;
+		compute(lts);
+	}
+
+	/**
+	 * @return the number of states of this preorder.
+	 */
+	public int stateCount() {
+		return classes.length;
+	}
+
+	/**
+	 * @param state
+	 *            a state of the automaton.
+	 * @return the number of <code>state</code> in this preorder, or -1 if it
+	 *         is not a state of the automaton.
+	 */
+	public int id(State state) {
+		Integer i = ids.get(state);
+		return i == null ? -1 : i;
+	}
+
+	/**
+	 * @param q
+	 *            a state number.
+	 * @return the state with number <code>q</code>.
+	 */
+	public State state(int q) {
+		return states[q];
+	}
+
+	/**
+	 * @return the number of classes of bisimilar states.
+	 */
+	public int classCount() {
+		return sim.length;
+	}
+
+	/**
+	 * Tests whether <code>q</code> simulates <code>p</code>.
+	 *
+	 * @param p
+	 *            a state number.
+	 * @param q
+	 *            a state number.
+	 * @return true if <code>q</code> simulates <code>p</code>.
+	 */
+	public boolean isSimulatedBy(int p, int q) {
+		int c = classes[q];
+		return (sim[classes[p]][c >>> 6] & (1L << c)) != 0;
+	}
+
+	/**
+	 * Tests whether <code>q</code> simulates <code>p</code>.
+	 *
+	 * @param p
+	 *            a state of the automaton.
+	 * @param q
+	 *            a state of the automaton.
+	 * @return true if <code>q</code> simulates <code>p</code>, false if not
+	 *         or if a state does not belong to the automaton.
+	 */
+	public boolean isSimulatedBy(State p, State q) {
+		int i = id(p), j = id(q);
+		return i >= 0 && j >= 0 && isSimulatedBy(i, j);
+	}
+
+	/**
+	 * Numbers the classes of simulation equivalent states, ie. of states
+	 * simulating each other.
+	 *
+	 * @return the class of each state number, classes being numbered from 0
+	 *         in the order of their first state.
+	 */
+	public int[] equivalenceClasses() {
+		int k = sim.length;
+		int[] ofClass = new int[k], ret = new int[classes.length];
+		Arrays.fill(ofClass, -1);
+		int count = 0;
+		for (int q = 0; q < classes.length; q++) {
+			int c = classes[q];
+			if (ofClass[c] < 0) {
+				ofClass[c] = count;
+				for (int w = 0; w < sim[c].length; w++)
+					for (long bits = sim[c][w]; bits != 0; bits &= bits - 1) {
+						int d = (w << 6) + Long.numberOfTrailingZeros(bits);
+						if (ofClass[d] < 0 && (sim[d][c >>> 6] & (1L << c)) != 0)
+							ofClass[d] = count;
+					}
+				count++;
+			}
+			ret[q] = ofClass[c];
+		}
+		return ret;
+	}
+
+	private void compute(PaigeTarjan lts) {
+		this.classes = lts.refine();
+		int n = lts.stateCount(), k = 0;
+		for (int q = 0; q < n; q++)
+			k = Math.max(k, classes[q] + 1);
+		int nlabels = lts.labelCount();
+		/* transitions between classes, sorted by tail, label and head */
+		long[] keys = new long[lts.transitionCount()];
+		for (int t = 0; t < keys.length; t++)
+			keys[t] = ((long) classes[lts.tail(t)] * nlabels + lts.label(t)) * k + classes[lts.head(t)];
+		Arrays.sort(keys);
+		int m = 0;
+		for (int t = 0; t < keys.length; t++)
+			if (t == 0 || keys[t] != keys[t - 1])
+				keys[m++] = keys[t];
+		/*
+		 * runs of transitions with the same tail and label: run r has tail
+		 * runTail[r], label runLabel[r] and heads heads[runStart[r]..runStart[r+1][
+		 */
+		int[] heads = new int[m], runTail = new int[m], runLabel = new int[m], runStart = new int[m + 1];
+		int runs = 0;
+		for (int t = 0; t < m; t++) {
+			long tl = keys[t] / k;
+			heads[t] = (int) (keys[t] % k);
+			if (t == 0 || tl != keys[t - 1] / k) {
+				runTail[runs] = (int) (tl / nlabels);
+				runLabel[runs] = (int) (tl % nlabels);
+				runStart[runs++] = t;
+			}
+		}
+		runStart[runs] = m;
+		/* runs of each label */
+		int[] labelStart = new int[nlabels + 1], byLabel = new int[runs];
+		for (int r = 0; r < runs; r++)
+			labelStart[runLabel[r] + 1]++;
+		for (int l = 0; l < nlabels; l++)
+			labelStart[l + 1] += labelStart[l];
+		int[] fill = Arrays.copyOf(labelStart, nlabels);
+		for (int r = 0; r < runs; r++)
+			byLabel[fill[runLabel[r]]++] = r;
+		/* incoming transitions of each class, as runs sorted by label */
+		int[] inStart = new int[k + 1], in = new int[m];
+		for (int t = 0; t < m; t++)
+			inStart[heads[t] + 1]++;
+		for (int c = 0; c < k; c++)
+			inStart[c + 1] += inStart[c];
+		fill = Arrays.copyOf(inStart, k);
+		for (int b = 0; b < runs; b++) {
+			int r = byLabel[b];
+			for (int t = runStart[r]; t < runStart[r + 1]; t++)
+				in[fill[heads[t]]++] = r;
+		}
+		/*
+		 * initially, d simulates c if it has all the labels of c, and is
+		 * terminal if c is
+		 */
+		BitSet[] signature = new BitSet[k];
+		for (int c = 0; c < k; c++)
+			signature[c] = new BitSet();
+		for (int q = 0; q < n; q++)
+			if (lts.isTerminal(q))
+				signature[classes[q]].set(nlabels);
+		for (int r = 0; r < runs; r++)
+			signature[runTail[r]].set(runLabel[r]);
+		long[][] labelSets = new long[k][];
+		for (int c = 0; c < k; c++)
+			labelSets[c] = signature[c].toLongArray();
+		Map<BitSet, Integer> kinds = new HashMap<>();
+		int words = (k + 63) >>> 6;
+		sim = new long[k][];
+		for (int c = 0; c < k; c++) {
+			Integer first = kinds.get(signature[c]);
+			if (first != null) {
+				sim[c] = sim[first].clone();
+				continue;
+			}
+			kinds.put(signature[c], c);
+			sim[c] = new long[words];
+			for (int d = 0; d < k; d++)
+				if (contains(labelSets[d], labelSets[c]))
+					sim[c][d >>> 6] |= 1L << d;
+		}
+		/* refinement */
+		Refinement refinement = new Refinement(k, heads, runTail, runLabel, runStart, inStart, in);
+		for (int v = 0; v < k; v++)
+			refinement.initial(v, labelStart, byLabel);
+		refinement.run();
+	}
+
+	private static boolean contains(long[] x, long[] y) {
+		for (int i = 0; i < y.length; i++)
+			if ((y[i] & ~(i < x.length ? x[i] : 0)) != 0)
+				return false;
+		return true;
+	}
+
+	/*
+	 * The removal of simulating classes. removed[v] holds the classes
+	 * removed from sim[v] since v was last processed, v being queued when it
+	 * is not null.
+	 */
+	private final class Refinement {
+
+		final int[] heads, runTail, runLabel, runStart, inStart, in;
+
+		final long[][] removed;
+
+		final int[] queue;
+
+		int head, size;
+
+		/* released rows of removed, all zero */
+		final long[][] pool;
+
+		int npool;
+
+		/* classes to remove, and the step they were last considered in */
+		final int[] remove, stamp;
+
+		int step;
+
+		Refinement(int k, int[] heads, int[] runTail, int[] runLabel, int[] runStart, int[] inStart, int[] in) {
+			this.heads = heads;
+			this.runTail = runTail;
+			this.runLabel = runLabel;
+			this.runStart = runStart;
+			this.inStart = inStart;
+			this.in = in;
+			this.removed = new long[k][];
+			this.queue = new int[k];
+			/* the rows of removed and the one being processed */
+			this.pool = new long[k + 1][];
+			this.remove = new int[k];
+			this.stamp = new int[k];
+		}
+
+		/* true if a head of run r is in the set x */
+		boolean intersects(int r, long[] x) {
+			for (int t = runStart[r]; t < runStart[r + 1]; t++) {
+				int h = heads[t];
+				if ((x[h >>> 6] & (1L << h)) != 0)
+					return true;
+			}
+			return false;
+		}
+
+		/*
+		 * considers all classes with a transition as candidates for removal,
+		 * as if sim[v] had been the set of all classes
+		 */
+		void initial(int v, int[] labelStart, int[] byLabel) {
+			if (removed[v] != null)
+				Arrays.fill(removed[v], 0);
+			for (int i = inStart[v]; i < inStart[v + 1];) {
+				int l = runLabel[in[i]], j = i;
+				while (j < inStart[v + 1] && runLabel[in[j]] == l)
+					j++;
+				int nremove = 0;
+				for (int b = labelStart[l]; b < labelStart[l + 1]; b++) {
+					int r = byLabel[b];
+					if (!intersects(r, sim[v]))
+						remove[nremove++] = runTail[r];
+				}
+				apply(i, j, nremove);
+				i = j;
+			}
+		}
+
+		void run() {
+			while (size > 0) {
+				int v = queue[head];
+				head = (head + 1) % queue.length;
+				size--;
+				long[] delta = removed[v];
+				removed[v] = null;
+				if (delta == null)
+					continue;
+				for (int i = inStart[v]; i < inStart[v + 1];) {
+					int l = runLabel[in[i]], j = i;
+					while (j < inStart[v + 1] && runLabel[in[j]] == l)
+						j++;
+					/* classes with an l transition to delta and none to sim[v] */
+					step++;
+					int nremove = 0;
+					for (int w = 0; w < delta.length; w++)
+						for (long bits = delta[w]; bits != 0; bits &= bits - 1) {
+							int d = (w << 6) + Long.numberOfTrailingZeros(bits);
+							for (int e = inStart[d]; e < inStart[d + 1]; e++) {
+								int r = in[e], p = runTail[r];
+								if (runLabel[r] == l && stamp[p] != step) {
+									stamp[p] = step;
+									if (!intersects(r, sim[v]))
+										remove[nremove++] = p;
+								}
+							}
+						}
+					apply(i, j, nremove);
+					i = j;
+				}
+				release(delta);
+			}
+		}
+
+		/* removes remove[0..nremove[ from the tails of in[from..to[ */
+		void apply(int from, int to, int nremove) {
+			if (nremove == 0)
+				return;
+			for (int i = from; i < to; i++) {
+				int u = runTail[in[i]];
+				long[] s = sim[u];
+				for (int x = 0; x < nremove; x++) {
+					int d = remove[x];
+					long bit = 1L << d;
+					if ((s[d >>> 6] & bit) != 0) {
+						s[d >>> 6] &= ~bit;
+						if (removed[u] == null) {
+							removed[u] = npool > 0 ? pool[--npool] : new long[s.length];
+							queue[(head + size++) % queue.length] = u;
+						}
+						removed[u][d >>> 6] |= bit;
+					}
+				}
+			}
+		}
+
+		void release(long[] row) {
+			Arrays.fill(row, 0);
+			pool[npool++] = row;
+		}
+	}
+}
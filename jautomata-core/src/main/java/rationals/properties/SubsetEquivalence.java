@@ -0,0 +1,213 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.properties;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import rationals.Alphabet;
+import rationals.Automaton;
+import rationals.Builder;
+import rationals.CompiledNfa;
+import rationals.State;
+import rationals.Transition;
+
+/*
+ * Base class of language equivalences exploring pairs of sets of states
+ * breadth-first, so that the error trace is a shortest distinguishing word.
+ * The states of both automata are numbered in one bitset, those of the
+ * second automaton starting at the first word following those of the first,
+ * and sets are epsilon closed.
+ */
+abstract class SubsetEquivalence<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> implements Relation<L, Tr, T> {
+
+	private CompiledNfa<L> a1;
+
+	private CompiledNfa<L> a2;
+
+	/* number of the first state of a2, a multiple of 64 */
+	private int offset;
+
+	/* closures of states of a2, moved to sets after the offset */
+	private long[] scratch;
+
+	/* letters of both automata, and their index in each alphabet or -1 */
+	private final List<L> letters = new ArrayList<>();
+
+	private int[] labels1;
+
+	private int[] labels2;
+
+	private List<L> errorTrace;
+
+	/* a pair of sets reached by the same word */
+	static final class Node {
+
+		final long[] x;
+
+		final long[] y;
+
+		final Node parent;
+
+		final int letter;
+
+		final int depth;
+
+		/* found redundant with the other pairs */
+		boolean skipped;
+
+		Node(long[] x, long[] y, Node parent, int letter) {
+			this.x = x;
+			this.y = y;
+			this.parent = parent;
+			this.letter = letter;
+			this.depth = parent == null ? 0 : parent.depth + 1;
+		}
+	}
+
+	public void setAutomata(Automaton<L, Tr, T> a1, Automaton<L, Tr, T> a2) {
+		this.a1 = CompiledNfa.compile(a1);
+		this.a2 = a1 == a2 ? this.a1 : CompiledNfa.compile(a2);
+		this.offset = ((this.a1.stateCount() + 63) >>> 6) << 6;
+		this.scratch = new long[(this.a2.stateCount() + 63) >>> 6];
+		letters.clear();
+		Alphabet<L> s1 = this.a1.symbols(), s2 = this.a2.symbols();
+		int n1 = s1.size(), n2 = s2.size();
+		int[] l1 = new int[n1 + n2], l2 = new int[n1 + n2];
+		for (int i = Alphabet.EPSILON + 1; i < n1; i++) {
+			l1[letters.size()] = i;
+			l2[letters.size()] = s2.indexOf(s1.label(i));
+			letters.add(s1.label(i));
+		}
+		for (int i = Alphabet.EPSILON + 1; i < n2; i++)
+			if (s1.indexOf(s2.label(i)) < 0) {
+				l1[letters.size()] = -1;
+				l2[letters.size()] = i;
+				letters.add(s2.label(i));
+			}
+		this.labels1 = l1;
+		this.labels2 = l2;
+	}
+
+	public boolean equivalence(State s1, State s2) {
+		return equivalence(Collections.singleton(s1), Collections.singleton(s2));
+	}
+
+	public boolean equivalence(Set<State> nsa, Set<State> nsb) {
+		long[] x = newSet(), y = newSet();
+		for (State s : nsa) {
+			int q = a1.id(s);
+			if (q >= 0)
+				closure(a1, q, 0, x);
+		}
+		for (State s : nsb) {
+			int q = a2.id(s);
+			if (q >= 0)
+				closure(a2, q, offset, y);
+		}
+		errorTrace = null;
+		return check(new Node(x, y, null, -1));
+	}
+
+	/*
+	 * explores pairs from root, returns false after setting the error trace
+	 * if a pair is distinguished
+	 */
+	abstract boolean check(Node root);
+
+	/* number of state numbers of both automata */
+	int stateCount() {
+		return offset + a2.stateCount();
+	}
+
+	int letterCount() {
+		return letters.size();
+	}
+
+	long[] newSet() {
+		return new long[(stateCount() + 63) >>> 6];
+	}
+
+	/* states reached from x by the letter c */
+	long[] post(long[] x, int c) {
+		long[] ret = newSet();
+		for (int w = 0; w < x.length; w++)
+			for (long bits = x[w]; bits != 0; bits &= bits - 1) {
+				int q = (w << 6) + Long.numberOfTrailingZeros(bits);
+				if (q < offset)
+					post(a1, labels1[c], q, 0, ret);
+				else
+					post(a2, labels2[c], q - offset, offset, ret);
+			}
+		return ret;
+	}
+
+	private void post(CompiledNfa<?> nfa, int l, int q, int offset, long[] ret) {
+		if (l <= Alphabet.EPSILON)
+			return;
+		for (int t = nfa.find(q, l), e = nfa.outEnd(q); t < e && nfa.label(t) == l; t++)
+			closure(nfa, nfa.target(t), offset, ret);
+	}
+
+	private void closure(CompiledNfa<?> nfa, int q, int offset, long[] set) {
+		int p = q + offset;
+		if ((set[p >>> 6] & (1L << p)) != 0)
+			return;
+		if (offset == 0) {
+			nfa.addClosure(q, set);
+			return;
+		}
+		nfa.addClosure(q, scratch);
+		for (int w = nfa.closureLow(q), hi = nfa.closureHigh(q); w < hi; w++) {
+			set[(offset >>> 6) + w] |= scratch[w];
+			scratch[w] = 0;
+		}
+	}
+
+	/* true if x contains a terminal state */
+	boolean accepts(long[] x) {
+		for (int w = 0; w < x.length; w++)
+			for (long bits = x[w]; bits != 0; bits &= bits - 1) {
+				int q = (w << 6) + Long.numberOfTrailingZeros(bits);
+				if (q < offset ? a1.isTerminal(q) : a2.isTerminal(q - offset))
+					return true;
+			}
+		return false;
+	}
+
+	/* records the word leading to node as the error trace */
+	boolean fail(Node node) {
+		List<L> trace = new ArrayList<>(node.depth);
+		for (Node n = node; n.parent != null; n = n.parent)
+			trace.add(letters.get(n.letter));
+		Collections.reverse(trace);
+		errorTrace = trace;
+		return false;
+	}
+
+	/**
+	 * Returns a shortest word accepted from one of the sets of states of the
+	 * last failed test and not from the other.
+	 * 
+	 * @return a List of letters, or null if the last test succeeded.
+	 */
+	public List<L> getErrorTrace() {
+		return errorTrace;
+	}
+}
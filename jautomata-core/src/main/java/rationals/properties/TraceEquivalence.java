@@ -138,8 +138,7 @@ public class TraceEquivalence<L, Tr extends Transition<L>, T extends Builder<L,
      */
     public void mapAlphabet(List<Transition<L>> tas, Map<L, Set<State>> am, Automaton<L, Tr, T> a) {
         /* compute set of states for each letter */
-        while (!tas.isEmpty()) {
-            Transition<L> tr = tas.remove(0);
+        for (Transition<L> tr : tas) {
             L l = tr.label();
             if (l == null)
                 continue;
@@ -150,6 +149,7 @@ public class TraceEquivalence<L, Tr extends Transition<L>, T extends Builder<L,
             }
             as.add(tr.end());
         }
+        tas.clear();
     }
 
     /**
@@ -16,55 +16,65 @@
  */
 package rationals.properties;
 
+import java.util.Arrays;
+import java.util.Map;
+
+import rationals.Alphabet;
 import rationals.Automaton;
 import rationals.Builder;
+import rationals.CompiledNfa;
 import rationals.State;
 import rationals.Transition;
-import rationals.transformations.EpsilonTransitionRemover;
-
-import java.util.List;
-import java.util.Set;
 
 /**
  * This method computes the weak bisimulation relation between two states.
- * The weak bisimulation is computed as (strong) bisimulation between the two 
- * given automata where all epsilon transitions have been removed.
+ * <p>
+ * Epsilon transitions are silent moves. Two states are weakly bisimilar if
+ * they both reach a terminal state by epsilon transitions or both do not,
+ * and each transition from one of them is matched by a sequence of
+ * transitions from the other, made of epsilon transitions around a
+ * transition with the same label, or of epsilon transitions only when
+ * matching an epsilon transition, leading to weakly bisimilar states.
+ * <p>
+ * This is computed as the (strong) bisimulation of the automata saturated
+ * with these sequences, which are read from the epsilon closures of
+ * states. Saturation may add up to <em>n<sup>2</sup></em> transitions per
+ * label for <em>n</em> states.
  * 
  * @version $Id: WeakBisimulation.java 2 2006-08-24 14:41:48Z oqube $
  */
-public class WeakBisimulation<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> implements Relation<L, Tr, T> {
-
-    private Bisimulation<L, Tr, T> bisim;
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see rationals.tests.Relation#setAutomata(rationals.Automaton,
-     *      rationals.Automaton)
-     */
-    public void setAutomata(Automaton<L, Tr, T> a1, Automaton<L, Tr, T> a2) {
-        EpsilonTransitionRemover<L, Tr, T> er = new EpsilonTransitionRemover<>();
-        this.bisim = new Bisimulation<>(er.transform(a1), er.transform(a2));
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see rationals.tests.Relation#equivalence(rationals.State,
-     *      rationals.State)
-     */
-    public boolean equivalence(State q0a, State q0b) {
-        return bisim.equivalence(q0a, q0b);
-    }
+public class WeakBisimulation<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> extends Bisimulation<L, Tr, T> {
 
-    public boolean equivalence(Set<State> nsa, Set<State> nsb) {
-        return bisim.equivalence(nsa, nsb);
-    }
-    
-    /* (non-Javadoc)
-     * @see rationals.properties.Relation#getErrorTrace()
-     */
-    public List<L> getErrorTrace() {
-        throw new UnsupportedOperationException();
+    @Override
+    void addTo(PaigeTarjan lts, Automaton<L, Tr, T> a, Map<State, Integer> ids) {
+        CompiledNfa<L> nfa = CompiledNfa.compile(a);
+        Alphabet<L> symbols = nfa.symbols();
+        int n = nfa.stateCount();
+        int[] id = new int[n];
+        for (int q = 0; q < n; q++) {
+            id[q] = lts.addState(nfa.closureAccepts(q));
+            ids.put(nfa.state(q), id[q]);
+        }
+        /* label and target of the sequences from each state */
+        long[] moves = new long[16];
+        for (int q = 0; q < n; q++) {
+            int k = 0;
+            for (int p : nfa.closureOf(q)) {
+                if (k == moves.length)
+                    moves = Arrays.copyOf(moves, k * 2);
+                moves[k++] = ((long) Alphabet.EPSILON << 32) | p;
+                for (int t = nfa.outStart(p); t < nfa.outEnd(p); t++) {
+                    for (int r : nfa.closureOf(nfa.target(t))) {
+                        if (k == moves.length)
+                            moves = Arrays.copyOf(moves, k * 2);
+                        moves[k++] = ((long) nfa.label(t) << 32) | r;
+                    }
+                }
+            }
+            Arrays.sort(moves, 0, k);
+            for (int i = 0; i < k; i++)
+                if (i == 0 || moves[i] != moves[i - 1])
+                    lts.addTransition(id[q], symbols.label((int) (moves[i] >>> 32)), id[(int) moves[i]]);
+        }
     }
 }
\ No newline at end of file
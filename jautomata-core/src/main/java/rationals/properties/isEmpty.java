@@ -18,13 +18,14 @@ package rationals.properties;
 
 import rationals.Automaton;
 import rationals.Builder;
-import rationals.State;
+import rationals.StateGraph;
 import rationals.Transition;
 
 public class isEmpty<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> implements UnaryTest<L, Tr, T> {
 	
   public boolean test(Automaton<L, Tr, T> a) {
-    for (State s: a.accessibleStates()) if (s.isTerminal()) return false;
+    StateGraph<L> graph = StateGraph.of(a);
+    for (int q : graph.accessible()) if (graph.isTerminal(q)) return false;
     return true;
   }
   
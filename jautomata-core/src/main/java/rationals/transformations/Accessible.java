@@ -16,15 +16,11 @@
  */
 package rationals.transformations;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Set;
-
 import rationals.Automaton;
 import rationals.Builder;
 import rationals.NoSuchStateException;
 import rationals.State;
+import rationals.StateGraph;
 import rationals.Transition;
 
 /**
@@ -48,49 +44,29 @@ public class Accessible<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>
 	 * @see rationals.transformations.UnaryTransformation#transform(rationals.Automaton)
 	 */
 	public Automaton<L, Tr, T> transform(Automaton<L, Tr, T> a) {
-		Set<Transition<L>> trs = a.delta();
 		Automaton<L, Tr, T> b = new Automaton<>();
-		Map<State, State> stmap = new HashMap<>();
 		/* initial state = state */
 		State ns = b.addState(true, state.isTerminal());
-		stmap.put(state, ns);
-		explore(state, stmap, a, b);
-		/* explore a and remove transitions from trs */
-		Iterator<Transition<L>> it = trs.iterator();
-		while(it.hasNext()) {
-			Transition<L> tr = it.next();
-			State nstart = stmap.get(tr.start());
-			State nend = stmap.get(tr.end());
-			if(nstart != null && nend != null)
-				try {
-					b.addTransition(new Transition<>(nstart,tr.label(),nend));
-				} catch (NoSuchStateException e) {
-					throw new Error(e);
-				}
+		StateGraph<L> graph = StateGraph.of(a);
+		int q = graph.id(state);
+		if (q < 0)
+			return b;
+		/* explore a breadth first, without recursion */
+		int[] reached = graph.breadthFirst(new int[] { q }, true);
+		State[] stmap = new State[graph.stateCount()];
+		stmap[q] = ns;
+		for (int i = 1; i < reached.length; i++) {
+			State e = graph.state(reached[i]);
+			stmap[reached[i]] = b.addState(e.isInitial(), e.isTerminal());
 		}
-		return b;
-	}
-
-	/**
-	 * Recursive function to explore transitions from a state
-	 * @param state
-	 * @param stmap
-	 * @param b
-	 */
-	private void explore(State curstate, Map<State, State> stmap, Automaton<L, Tr, T> a, Automaton<L, Tr, T> b) {
-		Iterator<Transition<L>> it = a.delta(curstate).iterator();
-		while(it.hasNext()) {
-			Transition<L> tr = it.next();
-			State e = tr.end();
-			State ne = stmap.get(e);
-			if(ne != null)
-				continue;
-			else {
-				ne = b.addState(e.isInitial(),e.isTerminal());
-				stmap.put(e,ne);
-				explore(e,stmap,a,b);
-			}
+		try {
+			for (int p : reached)
+				for (int t = graph.outStart(p); t < graph.outEnd(p); t++)
+					b.addTransition(new Transition<>(stmap[p], graph.transition(t).label(), stmap[graph.target(t)]));
+		} catch (NoSuchStateException e) {
+			throw new Error(e);
 		}
+		return b;
 	}
 
 }
@@ -31,6 +31,8 @@ import rationals.Transition;
  * 
  * This transformation computes the complement of an automaton: The automaton is first converted to a DFA (if it is not
  * already a DFA), and the set of final states becomes the entire set of states minus the original set of final states.
+ * <p>
+ * As determinization may be exponential, the construction may be bounded by an {@link ExecutionContext}.
  * 
  * @author Arnaud Bailly
  * @author Andrew Bate
@@ -39,12 +41,27 @@ public class Complement<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>
 
 	protected final Set<L> alphabet;
 
+	protected final ExecutionContext context;
+
 	public Complement(Set<L> alphabet) {
-		this.alphabet = alphabet;
+		this(alphabet, new ExecutionContext());
 	}
 
 	public Complement() {
-		this.alphabet = null;
+		this(null, new ExecutionContext());
+	}
+
+	/**
+	 * Creates a complementation bounded by given context.
+	 * 
+	 * @param alphabet
+	 *            the alphabet to complement on, or null for the alphabet of the automaton.
+	 * @param context
+	 *            the bounds of the determinization.
+	 */
+	public Complement(Set<L> alphabet, ExecutionContext context) {
+		this.alphabet = alphabet;
+		this.context = context;
 	}
 	
     /*
@@ -54,7 +71,7 @@ public class Complement<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>
      */
     public Automaton<L, Tr, T> transform(Automaton<L, Tr, T> a) {
     	Set<L> alph = alphabet != null ? alphabet : a.alphabet(); 
-    	Automaton<L, Tr, T> complement = new SinkComplete<L, Tr, T>(alph).transform(new ToDFA<L, Tr, T>().transform(a));
+    	Automaton<L, Tr, T> complement = new SinkComplete<L, Tr, T>(alph).transform(new ToDFA<L, Tr, T>(context).transform(a));
     	Map<State, State> map = new HashMap<>();
     	Automaton<L, Tr, T> result = new Automaton<>();
     	for (State s : complement.states()) {
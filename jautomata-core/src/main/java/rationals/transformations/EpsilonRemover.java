@@ -0,0 +1,96 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.transformations;
+
+import java.util.Set;
+
+import rationals.Automaton;
+import rationals.Builder;
+import rationals.EpsilonClosure;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.StateGraph;
+import rationals.Transition;
+
+/**
+ * Removes epsilon transitions from an automaton without determinizing it.
+ * <p>
+ * The result has one state for each state <em>p</em> of the given automaton,
+ * with the same initial flag. <em>p</em> is terminal if its epsilon closure
+ * contains a terminal state, and has a transition <em>(p,a,r)</em> for each
+ * transition <em>(q,a,r)</em> with <em>q</em> in the epsilon closure of
+ * <em>p</em>. Hence the result has at most <em>n.m</em> transitions for an
+ * automaton with <em>n</em> states and <em>m</em> labelled transitions, and
+ * is computed in time proportional to its size plus the size of the
+ * closures. An automaton without epsilon transitions is copied.
+ * <p>
+ * Unlike {@link EpsilonTransitionRemover}, this transformation keeps the
+ * automaton non deterministic.
+ * 
+ * @see Automaton#epsilonClosures()
+ */
+public class EpsilonRemover<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> implements UnaryTransformation<L, Tr, T> {
+
+	public Automaton<L, Tr, T> transform(Automaton<L, Tr, T> a) {
+		Automaton<L, Tr, T> ret = new Automaton<>(a.symbols());
+		StateGraph<L> graph = StateGraph.of(a);
+		EpsilonClosure<L> closures = a.epsilonClosures();
+		int n = graph.stateCount();
+		/* the states of the closure index, numbered as in the graph */
+		int[] ids = new int[closures.stateCount()];
+		for (int i = 0; i < ids.length; i++)
+			ids[i] = graph.id(closures.state(i));
+		long[] set = new long[(closures.stateCount() + 63) >>> 6];
+		int[] closure = new int[n];
+		State[] news = new State[n];
+		for (int p = 0; p < n; p++)
+			news[p] = ret.addState(graph.state(p).isInitial(), false);
+		try {
+			for (int p = 0; p < n; p++) {
+				State s = graph.state(p);
+				Set<Transition<L>> epsilons = a.delta(s, null);
+				int k = 0;
+				int i = closures.id(s);
+				if (epsilons.isEmpty() || i < 0)
+					closure[k++] = p;
+				else {
+					closures.addClosure(i, set);
+					for (int w = 0; w < set.length; w++) {
+						for (long bits = set[w]; bits != 0; bits &= bits - 1)
+							closure[k++] = ids[(w << 6) + Long.numberOfTrailingZeros(bits)];
+						set[w] = 0;
+					}
+				}
+				boolean terminal = false;
+				for (int j = 0; j < k; j++) {
+					int q = closure[j];
+					terminal |= graph.isTerminal(q);
+					for (int t = graph.outStart(q); t < graph.outEnd(q); t++) {
+						L label = graph.transition(t).label();
+						if (label != null)
+							ret.addTransition(new Transition<>(news[p], label, news[graph.target(t)]));
+					}
+				}
+				if (terminal)
+					news[p].setTerminal(true);
+			}
+		} catch (NoSuchStateException e) {
+			throw new Error(e);
+		}
+		return ret;
+	}
+}
@@ -21,13 +21,19 @@ import rationals.Builder;
 import rationals.NoSuchStateException;
 import rationals.State;
 import rationals.Transition;
+import rationals.properties.HopcroftKarpEquivalence;
 import rationals.properties.ModelCheck;
+import rationals.properties.Relation;
 
 import java.util.*;
 
 /**
  * This class allows to remove epsilon transitions in an automaton. Epsilon
  * transition are transitions (q , l , q') where l is null.
+ * <p>
+ * As removal determinizes the automaton, it may be bounded by an
+ * {@link ExecutionContext}. {@link EpsilonRemover} removes epsilon
+ * transitions without determinizing.
  * 
  * @author Yves Roos
  * @author Andrew Bate
@@ -36,8 +42,32 @@ public class EpsilonTransitionRemover<L, Tr extends Transition<L>, T extends Bui
 
 	// TODO: add tests for this class
 	
+	/**
+	 * @deprecated no longer used: languages are compared by
+	 *             {@link #equivalence}.
+	 */
+	@Deprecated
 	protected final ModelCheck<L, Tr, T> m = new ModelCheck<>();
-	
+
+	protected final ExecutionContext context;
+
+	/* language equivalence of states, used to merge terminal states */
+	protected final Relation<L, Tr, T> equivalence = new HopcroftKarpEquivalence<>();
+
+	public EpsilonTransitionRemover() {
+		this(new ExecutionContext());
+	}
+
+	/**
+	 * Creates a transformation bounded by given context.
+	 * 
+	 * @param context
+	 *            the bounds of the construction.
+	 */
+	public EpsilonTransitionRemover(ExecutionContext context) {
+		this.context = context;
+	}
+
     @Override
     public Automaton<L, Tr, T> transform(Automaton<L, Tr, T> a) {
         Automaton<L, Tr, T> ret = new Automaton<>(); /* resulting automaton */
@@ -47,6 +77,7 @@ public class EpsilonTransitionRemover<L, Tr extends Transition<L>, T extends Bui
         Set<State> cur = TransformationsToolBox.epsilonClosure(a.initials(), a);
         /* add cur as initial state of ret */
         State is = ret.addState(true, TransformationsToolBox.containsATerminalState(cur));
+        context.check("EpsilonTransitionRemover", 1, 0);
         Set<State> hv = new HashSet<>(cur);
         sm.put(hv,is);
         todo.add(hv);
@@ -56,6 +87,7 @@ public class EpsilonTransitionRemover<L, Tr extends Transition<L>, T extends Bui
             if(ns == null) {
                 ns = ret.addState(false,TransformationsToolBox.containsATerminalState(s));
                 sm.put(s,ns);
+                context.check("EpsilonTransitionRemover", sm.size(), ret.transitionCount());
             }
             /* set s as explored */
             done.add(s);
@@ -74,6 +106,7 @@ public class EpsilonTransitionRemover<L, Tr extends Transition<L>, T extends Bui
                 if(ne == null) {
                     ne = ret.addState(false,TransformationsToolBox.containsATerminalState(ar));
                     sm.put(hv,ne);
+                    context.check("EpsilonTransitionRemover", sm.size(), ret.transitionCount());
                 }
                 try {
                     /* create transition */
@@ -123,25 +156,18 @@ public class EpsilonTransitionRemover<L, Tr extends Transition<L>, T extends Bui
     protected Automaton<L, Tr, T> reduceFinalStates(Automaton<L, Tr, T> a) {
     	// reduced is the possible smaller automaton to be constructed
     	Automaton<L, Tr, T> reduced = new Automaton<>();
-    	// Map from each terminal state to the automaton encoding the language accessible from the state
-    	Map<State, Automaton<L, Tr, T>> finalToAccessible = new HashMap<>();
-    	for (State terminal : a.terminals()) {
-    		Accessible<L, Tr, T> accessible = new Accessible<>(terminal);
-    		Automaton<L, Tr, T> b = accessible.transform(a);
-    		finalToAccessible.put(terminal, b);
-    	}
+    	// languages are compared from the states of a
+    	equivalence.setAutomata(a, a);
     	// Map each state in the input automaton to an equivalent state in the resultant automaton
     	Map<State, State> canonicalStateMap = new HashMap<>();
     	// Put terminal states into a total order (in order to establish which terminal state in an equivalence class is the canonical member)
-    	List<State> order = new ArrayList<>(finalToAccessible.keySet());
+    	List<State> order = new ArrayList<>(a.terminals());
     	// Map from each terminal state in a to the smallest equivalent terminal state
     	for (int i = 0; i < order.size(); i++) {
     		State s1 = order.get(i);
-    		Automaton<L, Tr, T> s1Accessible = finalToAccessible.get(s1);
     		for (int j = 0; j < i; j++) {
     			State s2 = order.get(j);
-    			Automaton<L, Tr, T> s2Accessible = finalToAccessible.get(s2);
-    			if (sameLanguage(s1Accessible, s2Accessible)) {
+    			if (sameLanguage(s1, s2)) {
     				canonicalStateMap.put(s1, s2);
     				break;
     			}
@@ -178,8 +204,33 @@ public class EpsilonTransitionRemover<L, Tr extends Transition<L>, T extends Bui
     	return reduced;
     }
     
+    /**
+     * Tells whether the same language is accepted from two states of the
+     * automaton given to {@link #reduceFinalStates(Automaton)}.
+     * 
+     * @param s1
+     * @param s2
+     * @return true if the states are language equivalent.
+     */
+    protected boolean sameLanguage(State s1, State s2) {
+    	return equivalence.equivalence(s1, s2);
+    }
+
+    /**
+     * Tells whether two automata accept the same language.
+     * 
+     * @param a
+     * @param b
+     * @return true if the automata are language equivalent.
+     * @deprecated {@link #reduceFinalStates(Automaton)} compares states of
+     *             one automaton with {@link #sameLanguage(State, State)}
+     *             instead of building an automaton for each.
+     */
+    @Deprecated
     protected boolean sameLanguage(Automaton<L, Tr, T> a, Automaton<L, Tr, T> b) {
-    	return m.test(a, b) && m.test(b, a); 
+    	Relation<L, Tr, T> languages = new HopcroftKarpEquivalence<>();
+    	languages.setAutomata(a, b);
+    	return languages.equivalence(a.initials(), b.initials());
     }
 
 }
@@ -0,0 +1,195 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.transformations;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits and monitoring of a possibly expensive computation.
+ * <p>
+ * Determinization, complementation, products and epsilon removal may build
+ * automata exponentially larger than their input. A context given to these
+ * transformations bounds the number of states and transitions of every
+ * automaton they build, bounds the time they may take and allows cancelling
+ * them from another thread. When a bound is exceeded, or when the context is
+ * cancelled, the transformation stops and throws a
+ * {@link ResourceLimitException} telling how far it went.
+ * <p>
+ * Transformations call {@link #check(String, int, int)} each time they create
+ * a state. A {@link ProgressListener} may be notified every given number of
+ * states.
+ * <p>
+ * A context is meant for one computation: the deadline is computed when it is
+ * set, and cancelling a context cancels all the transformations using it. It
+ * may be shared by the threads of a parallel transformation, which see
+ * settings changed by other threads.
+ * 
+ * <pre>
+ * ExecutionContext ctx = new ExecutionContext().maxStates(100000).timeout(10, TimeUnit.SECONDS);
+ * Automaton dfa = new ToDFA(ctx).transform(nfa);
+ * </pre>
+ * 
+ * @see ToDFA
+ * @see Complement
+ * @see EpsilonTransitionRemover
+ * @see rationals.properties.ModelCheck
+ */
+public final class ExecutionContext {
+
+	private final long started = System.nanoTime();
+
+	/*
+	 * settings are volatile so that threads sharing the context see them,
+	 * even when set after the computation started. deadline and interval are
+	 * written before hasDeadline and listener, which are read first
+	 */
+	private volatile int maxStates = Integer.MAX_VALUE;
+
+	private volatile int maxTransitions = Integer.MAX_VALUE;
+
+	private volatile boolean hasDeadline;
+
+	private volatile long deadline;
+
+	private volatile boolean cancelled;
+
+	private volatile ProgressListener listener;
+
+	private volatile int interval;
+
+	/* last notification, to avoid notifying twice */
+	private String reportedOperation;
+
+	private int reportedStates;
+
+	/**
+	 * Bounds the number of states of the automata built.
+	 * 
+	 * @param max
+	 *            the maximum number of states.
+	 * @return this context.
+	 */
+	public ExecutionContext maxStates(int max) {
+		this.maxStates = max;
+		return this;
+	}
+
+	/**
+	 * Bounds the number of transitions of the automata built. As this bound is
+	 * only checked when a state is created, it may be exceeded by the
+	 * transitions of one state.
+	 * 
+	 * @param max
+	 *            the maximum number of transitions.
+	 * @return this context.
+	 */
+	public ExecutionContext maxTransitions(int max) {
+		this.maxTransitions = max;
+		return this;
+	}
+
+	/**
+	 * Sets a deadline, relative to the time of this call.
+	 * 
+	 * @param duration
+	 *            the time allowed to the computation.
+	 * @param unit
+	 *            the unit of <code>duration</code>.
+	 * @return this context.
+	 */
+	public ExecutionContext timeout(long duration, TimeUnit unit) {
+		this.deadline = System.nanoTime() + unit.toNanos(duration);
+		this.hasDeadline = true;
+		return this;
+	}
+
+	/**
+	 * Sets a listener notified each time the number of states of an automaton
+	 * being built reaches a multiple of <code>interval</code>.
+	 * 
+	 * @param listener
+	 *            the listener, or null to remove it.
+	 * @param interval
+	 *            a positive number of states.
+	 * @return this context.
+	 */
+	public ExecutionContext progress(ProgressListener listener, int interval) {
+		if (interval <= 0)
+			throw new IllegalArgumentException("interval must be positive, got " + interval);
+		this.interval = interval;
+		this.listener = listener;
+		return this;
+	}
+
+	/**
+	 * Cancels the computations using this context: they throw a
+	 * {@link ResourceLimitException} the next time they check it. This method
+	 * may be called from any thread.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * @return true if {@link #cancel()} has been called.
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Checks the bounds of this context, then notifies the progress listener
+	 * if needed. This is called by transformations each time they create a
+	 * state.
+	 * 
+	 * @param operation
+	 *            the name of the transformation.
+	 * @param states
+	 *            the number of states built so far.
+	 * @param transitions
+	 *            the number of transitions built so far.
+	 * @throws ResourceLimitException
+	 *             if the computation is cancelled, late or too large.
+	 */
+	public void check(String operation, int states, int transitions) {
+		if (cancelled)
+			throw abort(ResourceLimitException.Reason.CANCELLED, operation, states, transitions);
+		if (states > maxStates)
+			throw abort(ResourceLimitException.Reason.STATES, operation, states, transitions);
+		if (transitions > maxTransitions)
+			throw abort(ResourceLimitException.Reason.TRANSITIONS, operation, states, transitions);
+		if (hasDeadline && System.nanoTime() - deadline > 0)
+			throw abort(ResourceLimitException.Reason.DEADLINE, operation, states, transitions);
+		ProgressListener l = listener;
+		if (l != null && states % interval == 0)
+			report(l, operation, states, transitions);
+	}
+
+	private ResourceLimitException abort(ResourceLimitException.Reason reason, String operation, int states,
+			int transitions) {
+		return new ResourceLimitException(reason, operation, states, transitions, TimeUnit.NANOSECONDS.toMillis(System
+				.nanoTime() - started));
+	}
+
+	private synchronized void report(ProgressListener listener, String operation, int states, int transitions) {
+		if (operation.equals(reportedOperation) && states <= reportedStates)
+			return;
+		reportedOperation = operation;
+		reportedStates = states;
+		listener.progress(operation, states, transitions);
+	}
+}
@@ -0,0 +1,237 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.transformations;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import rationals.Alphabet;
+import rationals.Automaton;
+import rationals.Builder;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.Transition;
+import rationals.properties.IsDeterministic;
+
+/**
+ * Computes the minimal automaton from a deterministic automaton using
+ * Hopcroft's partition refinement.
+ * <p>
+ * This transformation computes the same automaton as {@link Reducer}, up to
+ * isomorphism, in time <em>O(m log n)</em> for an automaton with
+ * <em>n</em> states and <em>m</em> transitions. Non deterministic automata are
+ * first determinized using {@link ToDFA}; only the states accessible from the
+ * initial state are kept. As with {@link Reducer}, the transition function is
+ * not completed: a missing transition distinguishes two states.
+ * <p>
+ * The implementation follows A. Valmari and P. Lehtinen, <em>Efficient
+ * minimization of DFAs with partial transition functions</em> (STACS 2008):
+ * states and transitions are both partitioned, over int arrays, and
+ * transitions are split by label before refinement starts.
+ * 
+ * @see Reducer
+ */
+public class HopcroftReducer<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> implements UnaryTransformation<L, Tr, T> {
+
+	/*
+	 * A refinable partition of 0..n-1. Elements of set s are stored in
+	 * elems[first[s]..past[s][, loc is the inverse of elems and set gives the
+	 * set of each element. Marked elements of set s are moved to the front of
+	 * its range, marked[s] counting them; touched collects the sets with
+	 * marked elements. marked and touched are shared by the two partitions.
+	 */
+	private static final class Partition {
+
+		int sets;
+
+		final int[] elems, loc, set, first, past;
+
+		final int[] marked, touched;
+
+		int ntouched;
+
+		Partition(int n, int[] marked, int[] touched) {
+			this.sets = n > 0 ? 1 : 0;
+			this.elems = new int[n];
+			this.loc = new int[n];
+			this.set = new int[n];
+			this.first = new int[n + 1];
+			this.past = new int[n + 1];
+			this.marked = marked;
+			this.touched = touched;
+			for (int i = 0; i < n; i++)
+				elems[i] = loc[i] = i;
+			past[0] = n;
+		}
+
+		void mark(int e) {
+			int s = set[e], i = loc[e], j = first[s] + marked[s];
+			elems[i] = elems[j];
+			loc[elems[i]] = i;
+			elems[j] = e;
+			loc[e] = j;
+			if (marked[s]++ == 0)
+				touched[ntouched++] = s;
+		}
+
+		void split() {
+			while (ntouched > 0) {
+				int s = touched[--ntouched], j = first[s] + marked[s];
+				if (j == past[s]) {
+					marked[s] = 0;
+					continue;
+				}
+				/* the smaller part becomes the new set */
+				if (marked[s] <= past[s] - j) {
+					first[sets] = first[s];
+					past[sets] = first[s] = j;
+				} else {
+					past[sets] = past[s];
+					first[sets] = past[s] = j;
+				}
+				for (int i = first[sets]; i < past[sets]; i++)
+					set[elems[i]] = sets;
+				marked[s] = marked[sets++] = 0;
+			}
+		}
+	}
+
+	public Automaton<L, Tr, T> transform(Automaton<L, Tr, T> a) {
+		return transformTo(a, new Automaton<L, Tr, T>(a.symbols()));
+	}
+
+	/**
+	 * Compute transformation and stores the result in the given automaton.
+	 * 
+	 * @param a
+	 *            the automaton to minimize.
+	 * @param ret
+	 *            an empty automaton.
+	 * @return the automaton {@code ret} containing the result of the
+	 *         transformation.
+	 */
+	public Automaton<L, Tr, T> transformTo(Automaton<L, Tr, T> a, Automaton<L, Tr, T> ret) {
+		if (a.initials().size() != 1 || !new IsDeterministic<L, Tr, T>().test(a))
+			a = new ToDFA<L, Tr, T>().transform(a);
+		Alphabet<L> symbols = a.symbols();
+		/* number accessible states in breadth-first order, the initial one being 0 */
+		Map<State, Integer> ids = new HashMap<>();
+		State[] states = new State[16];
+		int[] tails = new int[16], labels = new int[16], heads = new int[16];
+		int n = 0, m = 0;
+		states[n++] = a.initials().iterator().next();
+		ids.put(states[0], 0);
+		for (int q = 0; q < n; q++)
+			for (Transition<L> tr : a.delta(states[q])) {
+				Integer h = ids.get(tr.end());
+				if (h == null) {
+					if (n == states.length)
+						states = Arrays.copyOf(states, n * 2);
+					h = n;
+					states[n++] = tr.end();
+					ids.put(tr.end(), h);
+				}
+				if (m == tails.length) {
+					tails = Arrays.copyOf(tails, m * 2);
+					labels = Arrays.copyOf(labels, m * 2);
+					heads = Arrays.copyOf(heads, m * 2);
+				}
+				tails[m] = q;
+				labels[m] = symbols.intern(tr.label());
+				heads[m++] = h;
+			}
+		int[] marked = new int[Math.max(n, m) + 1];
+		int[] touched = new int[Math.max(n, m) + 1];
+		Partition blocks = new Partition(n, marked, touched);
+		for (int q = 0; q < n; q++)
+			if (states[q].isTerminal())
+				blocks.mark(q);
+		blocks.split();
+		/* cords: transitions partitioned by label, using a counting sort */
+		Partition cords = new Partition(m, marked, touched);
+		if (m > 0) {
+			int[] count = new int[symbols.size() + 1];
+			for (int t = 0; t < m; t++)
+				count[labels[t] + 1]++;
+			for (int l = 0; l < symbols.size(); l++)
+				count[l + 1] += count[l];
+			for (int t = 0; t < m; t++) {
+				int i = count[labels[t]]++;
+				cords.elems[i] = t;
+				cords.loc[t] = i;
+			}
+			cords.sets = 0;
+			int l = labels[cords.elems[0]];
+			for (int i = 0; i < m; i++) {
+				int t = cords.elems[i];
+				if (labels[t] != l) {
+					l = labels[t];
+					cords.past[cords.sets++] = i;
+					cords.first[cords.sets] = i;
+				}
+				cords.set[t] = cords.sets;
+			}
+			cords.past[cords.sets++] = m;
+		}
+		/* incoming transitions of each state */
+		int[] inOffsets = new int[n + 1];
+		int[] in = new int[m];
+		for (int t = 0; t < m; t++)
+			inOffsets[heads[t] + 1]++;
+		for (int q = 0; q < n; q++)
+			inOffsets[q + 1] += inOffsets[q];
+		int[] fill = Arrays.copyOf(inOffsets, n);
+		for (int t = 0; t < m; t++)
+			in[fill[heads[t]]++] = t;
+		/*
+		 * split blocks by cords and cords by blocks. Block 0 is never used as a
+		 * splitter, as splitting by all other blocks has the same effect.
+		 */
+		int b = 1, c = 0;
+		while (c < cords.sets) {
+			for (int i = cords.first[c]; i < cords.past[c]; i++)
+				blocks.mark(tails[cords.elems[i]]);
+			blocks.split();
+			c++;
+			while (b < blocks.sets) {
+				for (int i = blocks.first[b]; i < blocks.past[b]; i++) {
+					int q = blocks.elems[i];
+					for (int j = inOffsets[q]; j < inOffsets[q + 1]; j++)
+						cords.mark(in[j]);
+				}
+				cords.split();
+				b++;
+			}
+		}
+		/* build the quotient, using the first state of each block */
+		State[] news = new State[blocks.sets];
+		for (int s = 0; s < blocks.sets; s++)
+			news[s] = ret.addState(blocks.set[0] == s, states[blocks.elems[blocks.first[s]]].isTerminal());
+		try {
+			for (int t = 0; t < m; t++) {
+				int q = tails[t];
+				if (blocks.loc[q] == blocks.first[blocks.set[q]])
+					ret.addTransition(new Transition<L>(news[blocks.set[q]], symbols.label(labels[t]),
+							news[blocks.set[heads[t]]]));
+			}
+		} catch (NoSuchStateException e) {
+			throw new Error(e);
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,306 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.transformations;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import rationals.Automaton;
+import rationals.Builder;
+import rationals.CompiledDfa;
+import rationals.DefaultPool;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.Transition;
+
+/**
+ * Computes the minimal automaton from a deterministic automaton using
+ * several threads.
+ * <p>
+ * This transformation computes the same automaton as {@link Reducer}, up to
+ * isomorphism, using Moore's refinement: starting from the partition
+ * separating terminal and non terminal states, each round gives every state
+ * the signature made of its class and the classes of its successors, and
+ * groups states with equal signatures, until the number of classes does not
+ * change anymore. Signatures of a round are computed and grouped in parallel,
+ * in the tasks of a {@link ForkJoinPool}, over the transition table of a
+ * {@link CompiledDfa}; grouping uses a lock-free hash table.
+ * <p>
+ * Moore's algorithm needs as many rounds as the depth of the distinguishing
+ * words, which makes {@link HopcroftReducer} faster on a single thread; this
+ * transformation pays off on large automata with several cores available.
+ * 
+ * @see Reducer
+ * @see HopcroftReducer
+ */
+public class ParallelReducer<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> implements UnaryTransformation<L, Tr, T> {
+
+	/* number of states handled by one task */
+	private static final int GRAIN = 8192;
+
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates a transformation running in the {@link DefaultPool}.
+	 */
+	public ParallelReducer() {
+		this(DefaultPool.get());
+	}
+
+	/**
+	 * Creates a transformation running in given pool.
+	 * 
+	 * @param pool
+	 *            the pool running the refinement.
+	 */
+	public ParallelReducer(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/* state shared by the tasks of a refinement */
+	private static final class Refinement<L> {
+
+		final CompiledDfa<L> dfa;
+
+		final int n, k;
+
+		/* class of each state in the last round, and in the current one */
+		int[] classes, next;
+
+		/* the representative of the signature of each state */
+		final int[] reps;
+
+		/* dense number of each representative, -1 until its class is numbered */
+		final int[] numbers;
+
+		/* open addressing table of representatives, -1 when empty */
+		final AtomicIntegerArray table;
+
+		final int mask;
+
+		Refinement(CompiledDfa<L> dfa) {
+			this.dfa = dfa;
+			this.n = dfa.stateCount();
+			this.k = dfa.labelCount();
+			this.classes = new int[n];
+			this.next = new int[n];
+			this.reps = new int[n];
+			this.numbers = new int[n];
+			int cap = Integer.highestOneBit(Math.max(2, n) * 2 - 1) << 1;
+			this.table = new AtomicIntegerArray(cap);
+			this.mask = cap - 1;
+		}
+
+		private int successorClass(int q, int c) {
+			int p = dfa.stepColumn(q, c);
+			return p < 0 ? -1 : classes[p];
+		}
+
+		private int hash(int q) {
+			int h = classes[q];
+			for (int c = 0; c < k; c++)
+				h = h * 0x9e3779b1 + successorClass(q, c);
+			return h ^ (h >>> 16);
+		}
+
+		private boolean same(int q, int r) {
+			if (classes[q] != classes[r])
+				return false;
+			for (int c = 0; c < k; c++)
+				if (successorClass(q, c) != successorClass(r, c))
+					return false;
+			return true;
+		}
+
+		/* finds or inserts the representative of the signature of each state */
+		void group(int from, int to) {
+			for (int q = from; q < to; q++) {
+				int i = hash(q) & mask;
+				while (true) {
+					int r = table.get(i);
+					if (r < 0) {
+						if (table.compareAndSet(i, -1, q)) {
+							reps[q] = q;
+							break;
+						}
+						r = table.get(i);
+					}
+					if (same(q, r)) {
+						reps[q] = r;
+						break;
+					}
+					i = (i + 1) & mask;
+				}
+			}
+		}
+
+		void renumber(int from, int to) {
+			for (int q = from; q < to; q++)
+				next[q] = numbers[reps[q]];
+		}
+
+		void clear(int from, int to) {
+			for (int i = from; i < to; i++)
+				table.set(i, -1);
+		}
+	}
+
+	private static final int GROUP = 0, RENUMBER = 1, CLEAR = 2;
+
+	private static final class Task<L> extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Refinement<L> refinement;
+
+		private final int phase, from, to;
+
+		Task(Refinement<L> refinement, int phase, int from, int to) {
+			this.refinement = refinement;
+			this.phase = phase;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > GRAIN) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new Task<L>(refinement, phase, from, mid), new Task<L>(refinement, phase, mid, to));
+				return;
+			}
+			switch (phase) {
+			case GROUP:
+				refinement.group(from, to);
+				break;
+			case RENUMBER:
+				refinement.renumber(from, to);
+				break;
+			default:
+				refinement.clear(from, to);
+			}
+		}
+	}
+
+	private void run(Refinement<L> r, int phase, int size) {
+		Task<L> task = new Task<L>(r, phase, 0, size);
+		if (size <= GRAIN)
+			task.invoke();
+		else
+			pool.invoke(task);
+	}
+
+	/**
+	 * Computes the equivalence classes of the states of a compiled automaton.
+	 * Two states are equivalent if they are both accepting or both not
+	 * accepting and, for each label, they both have no successor or
+	 * equivalent successors.
+	 * 
+	 * @param dfa
+	 *            a compiled automaton.
+	 * @return an array giving the class of each state of <code>dfa</code>,
+	 *         classes being numbered densely from 0 in the order of their
+	 *         smallest state.
+	 */
+	public int[] partition(CompiledDfa<L> dfa) {
+		Refinement<L> r = new Refinement<L>(dfa);
+		int n = r.n;
+		boolean acc = false, rej = false;
+		for (int q = 0; q < n; q++)
+			if (dfa.isAccepting(q))
+				acc = true;
+			else
+				rej = true;
+		for (int q = 0; q < n; q++)
+			r.classes[q] = acc && rej && dfa.isAccepting(q) ? 1 : 0;
+		int count = (acc ? 1 : 0) + (rej ? 1 : 0);
+		while (n > 0) {
+			run(r, CLEAR, r.table.length());
+			run(r, GROUP, n);
+			/*
+			 * representatives depend on the scheduling, so classes are
+			 * numbered in the order of their smallest state
+			 */
+			Arrays.fill(r.numbers, -1);
+			int ncount = 0;
+			for (int q = 0; q < n; q++)
+				if (r.numbers[r.reps[q]] < 0)
+					r.numbers[r.reps[q]] = ncount++;
+			run(r, RENUMBER, n);
+			int[] t = r.classes;
+			r.classes = r.next;
+			r.next = t;
+			if (ncount == count)
+				break;
+			count = ncount;
+		}
+		return r.classes;
+	}
+
+	public Automaton<L, Tr, T> transform(Automaton<L, Tr, T> a) {
+		return transformTo(a, new Automaton<L, Tr, T>(a.symbols()));
+	}
+
+	/**
+	 * Compute transformation and stores the result in the given automaton.
+	 * 
+	 * @param a
+	 *            the automaton to minimize.
+	 * @param ret
+	 *            an empty automaton.
+	 * @return the automaton {@code ret} containing the result of the
+	 *         transformation.
+	 */
+	public Automaton<L, Tr, T> transformTo(Automaton<L, Tr, T> a, Automaton<L, Tr, T> ret) {
+		CompiledDfa<L> dfa = CompiledDfa.compile(a);
+		if (dfa.start() < 0) {
+			ret.addState(true, false);
+			return ret;
+		}
+		int[] classes = partition(dfa);
+		/* build the classes accessible from the initial one */
+		int n = dfa.stateCount(), k = dfa.labelCount();
+		State[] news = new State[n];
+		int[] todo = new int[n];
+		int ntodo = 0;
+		int start = dfa.start();
+		news[classes[start]] = ret.addState(true, dfa.isAccepting(start));
+		todo[ntodo++] = start;
+		try {
+			for (int i = 0; i < ntodo; i++) {
+				int q = todo[i];
+				State from = news[classes[q]];
+				for (int c = 0; c < k; c++) {
+					int p = dfa.stepColumn(q, c);
+					if (p < 0)
+						continue;
+					State to = news[classes[p]];
+					if (to == null) {
+						to = news[classes[p]] = ret.addState(false, dfa.isAccepting(p));
+						todo[ntodo++] = p;
+					}
+					ret.addTransition(new Transition<L>(from, dfa.symbols().label(dfa.labelAt(c)), to));
+				}
+			}
+		} catch (NoSuchStateException e) {
+			throw new Error(e);
+		}
+		return ret;
+	}
+}
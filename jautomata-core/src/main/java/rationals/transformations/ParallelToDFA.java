@@ -0,0 +1,261 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.transformations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import rationals.Alphabet;
+import rationals.Automaton;
+import rationals.Builder;
+import rationals.CompiledNfa;
+import rationals.DefaultPool;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.Transition;
+
+/**
+ * Determinization of an automaton using several threads.
+ * <p>
+ * This transformation computes exactly the same automaton as {@link ToDFA},
+ * with states created in the same order, whatever the scheduling of its
+ * threads. Subsets are explored breadth-first, one level at a time: the
+ * successors of all the subsets of a level are computed in parallel by the
+ * tasks of a {@link ForkJoinPool}, which intern them in a
+ * {@link ConcurrentHashMap}. States are then created sequentially, visiting
+ * the subsets of the level in order and their labels in alphabet order, so
+ * that numbering is canonical.
+ * <p>
+ * Like {@link ToDFA}, the construction may be bounded by an
+ * {@link ExecutionContext}. Its bounds are checked by the tasks as they
+ * discover subsets, so that a level larger than the budget is not built to
+ * its end.
+ * 
+ * @see ToDFA
+ */
+public class ParallelToDFA<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> implements UnaryTransformation<L, Tr, T> {
+
+	/* number of subsets expanded by one task */
+	private static final int GRAIN = 32;
+
+	private final ForkJoinPool pool;
+
+	private final ExecutionContext context;
+
+	/**
+	 * Creates a transformation running in the {@link DefaultPool}.
+	 */
+	public ParallelToDFA() {
+		this(DefaultPool.get());
+	}
+
+	/**
+	 * Creates a transformation running in given pool.
+	 * 
+	 * @param pool
+	 *            the pool running the construction.
+	 */
+	public ParallelToDFA(ForkJoinPool pool) {
+		this(pool, new ExecutionContext());
+	}
+
+	/**
+	 * Creates a transformation running in given pool and bounded by given
+	 * context.
+	 * 
+	 * @param pool
+	 *            the pool running the construction.
+	 * @param context
+	 *            the bounds of the construction.
+	 */
+	public ParallelToDFA(ForkJoinPool pool, ExecutionContext context) {
+		this.pool = pool;
+		this.context = context;
+	}
+
+	/* an interned subset, numbered when its state is created */
+	private static final class Node {
+
+		final StateSubset subset;
+
+		final boolean accepting;
+
+		int id = -1;
+
+		Node(StateSubset subset, boolean accepting) {
+			this.subset = subset;
+			this.accepting = accepting;
+		}
+	}
+
+	/* the labels and successors of a subset, in alphabet order */
+	private static final class Expansion {
+
+		final int[] labels;
+
+		final Node[] successors;
+
+		Expansion(int[] labels, Node[] successors) {
+			this.labels = labels;
+			this.successors = successors;
+		}
+	}
+
+	/* state shared by the tasks of a construction */
+	private static final class Construction {
+
+		final CompiledNfa<?> nfa;
+
+		final ExecutionContext context;
+
+		final ConcurrentMap<StateSubset, Node> nodes = new ConcurrentHashMap<>();
+
+		/* number of subsets discovered */
+		final AtomicInteger discovered = new AtomicInteger();
+
+		/* number of transitions of the previous levels */
+		int transitions;
+
+		Construction(CompiledNfa<?> nfa, ExecutionContext context) {
+			this.nfa = nfa;
+			this.context = context;
+		}
+
+		Node intern(SubsetBuilder builder) {
+			boolean accepting = builder.accepting;
+			StateSubset s = builder.take();
+			Node n = nodes.get(s);
+			if (n != null)
+				return n;
+			n = new Node(s, accepting);
+			Node old = nodes.putIfAbsent(s, n);
+			if (old != null)
+				return old;
+			context.check("ParallelToDFA", discovered.incrementAndGet(), transitions);
+			return n;
+		}
+
+		Expansion expand(Node node, SubsetBuilder builder) {
+			builder.successors(node.subset);
+			int[] labels = new int[builder.nused];
+			Node[] successors = new Node[builder.nused];
+			for (int i = 0; i < builder.nused; i++) {
+				labels[i] = builder.used[i];
+				builder.successors(labels[i]);
+				successors[i] = intern(builder);
+			}
+			return new Expansion(labels, successors);
+		}
+	}
+
+	private static final class Expand extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Construction construction;
+
+		private final List<Node> level;
+
+		private final Expansion[] result;
+
+		private final int from, to;
+
+		Expand(Construction construction, List<Node> level, Expansion[] result, int from, int to) {
+			this.construction = construction;
+			this.level = level;
+			this.result = result;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > GRAIN) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new Expand(construction, level, result, from, mid), new Expand(construction, level, result,
+						mid, to));
+				return;
+			}
+			SubsetBuilder builder = new SubsetBuilder(construction.nfa);
+			for (int i = from; i < to; i++)
+				result[i] = construction.expand(level.get(i), builder);
+		}
+	}
+
+	public Automaton<L, Tr, T> transform(Automaton<L, Tr, T> a) {
+		return transformTo(a, new Automaton<L, Tr, T>(a.symbols()));
+	}
+
+	/**
+	 * Compute transformation and stores the result in the given automaton.
+	 * 
+	 * @param a
+	 *            the automaton to determinize.
+	 * @param ret
+	 *            an empty automaton.
+	 * @return the automaton {@code ret} containing the result of the
+	 *         transformation.
+	 */
+	public Automaton<L, Tr, T> transformTo(Automaton<L, Tr, T> a, Automaton<L, Tr, T> ret) {
+		CompiledNfa<L> nfa = CompiledNfa.compile(a);
+		Alphabet<L> symbols = nfa.symbols();
+		Construction construction = new Construction(nfa, context);
+		SubsetBuilder builder = new SubsetBuilder(nfa);
+		for (int q : nfa.initials())
+			builder.addClosure(q);
+		Node init = construction.intern(builder);
+		init.id = 0;
+		List<State> states = new ArrayList<>();
+		states.add(ret.addState(true, init.accepting));
+		List<Node> level = new ArrayList<>();
+		level.add(init);
+		try {
+			while (!level.isEmpty()) {
+				Expansion[] result = new Expansion[level.size()];
+				Expand task = new Expand(construction, level, result, 0, level.size());
+				if (level.size() <= GRAIN)
+					task.invoke();
+				else
+					pool.invoke(task);
+				List<Node> next = new ArrayList<>();
+				for (int i = 0; i < result.length; i++) {
+					State from = states.get(level.get(i).id);
+					Expansion e = result[i];
+					for (int j = 0; j < e.labels.length; j++) {
+						Node n = e.successors[j];
+						if (n.id < 0) {
+							n.id = states.size();
+							states.add(ret.addState(false, n.accepting));
+							next.add(n);
+						}
+						ret.addTransition(new Transition<L>(from, symbols.label(e.labels[j]), states.get(n.id)));
+					}
+					construction.transitions += e.labels.length;
+				}
+				level = next;
+			}
+		} catch (NoSuchStateException e) {
+			throw new Error(e);
+		}
+		return ret;
+	}
+}
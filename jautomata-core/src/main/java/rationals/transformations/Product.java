@@ -41,6 +41,8 @@ public class Product<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> i
 
 	private Synchronization<L> synchronization;
 
+	private final ExecutionContext context;
+
 	/**
 	 * Compute mix of two automata using default synchronization scheme which is
 	 * the equality of labels.
@@ -49,7 +51,18 @@ public class Product<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> i
 	 * @see rationals.Synchronization
 	 */
 	public Product() {
-		this.synchronization = new DefaultSynchronization<>();
+		this(new DefaultSynchronization<L>());
+	}
+
+	/**
+	 * Compute mix of two automata using default synchronization scheme,
+	 * bounded by given context.
+	 * 
+	 * @param context
+	 *            the bounds of the construction.
+	 */
+	public Product(ExecutionContext context) {
+		this(new DefaultSynchronization<L>(), context);
 	}
 
 	/**
@@ -59,11 +72,25 @@ public class Product<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> i
 	 *            a Synchronization object. Must not be null.
 	 */
 	public Product(Synchronization<L> synch) {
+		this(synch, new ExecutionContext());
+	}
+
+	/**
+	 * Compute mix of two automata using given synchronization scheme, bounded
+	 * by given context.
+	 * 
+	 * @param synch
+	 *            a Synchronization object. Must not be null.
+	 * @param context
+	 *            the bounds of the construction.
+	 */
+	public Product(Synchronization<L> synch, ExecutionContext context) {
 		this.synchronization = synch;
+		this.context = context;
 	}
 
 	public Automaton<L, Tr, T> transform(Automaton<L, Tr, T> a, Automaton<L, Tr, T> b) {
-		Automaton<L, Tr, T> ret = new Automaton<L, Tr, T>();
+		Automaton<L, Tr, T> ret = a.symbols() == b.symbols() ? new Automaton<L, Tr, T>(a.symbols()) : new Automaton<L, Tr, T>();
 		// FIXME: Potentially unsafe cast, but adding generics reveals an inconsistency in the APIs 
 		ret.setBuilder((T) new TransitionBuilder<L>());
 		return transformTo(a, b, ret);
@@ -79,6 +106,8 @@ public class Product<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> i
 	 *         transformation.
 	 */
 	public Automaton<L, Tr, T> transformTo(Automaton<L, Tr, T> a, Automaton<L, Tr, T> b, Automaton<L, Tr, T> ret) {
+		if (a.symbols() == b.symbols() && synchronization.getClass() == DefaultSynchronization.class)
+			return transformShared(a, b, ret);
 		Set<L> alph = synchronization.synchronizable(a.alphabet(), b.alphabet());
 		/* check alphabets */
 		Map<StatesCouple, State> amap = new HashMap<>();
@@ -171,11 +200,78 @@ public class Product<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> i
 		return ret;
 	}
 
+	/*
+	 * Product of automata sharing their alphabet with default
+	 * synchronization: labels synchronize iff their indices are equal.
+	 */
+	private Automaton<L, Tr, T> transformShared(Automaton<L, Tr, T> a, Automaton<L, Tr, T> b, Automaton<L, Tr, T> ret) {
+		Alphabet<L> symbols = a.symbols();
+		/* synchronizable label indices */
+		BitSet alph = new BitSet();
+		for (L l : a.alphabet())
+			if (b.alphabet().contains(l))
+				alph.set(symbols.indexOf(l));
+		SuccessorMap<L> tam = new SuccessorMap<>(symbols, a.getStateFactory());
+		SuccessorMap<L> tbm = new SuccessorMap<>(symbols, b.getStateFactory());
+		Map<StatesCouple, State> amap = new HashMap<>();
+		Queue<StatesCouple> todo = new LinkedList<>();
+		Set<StatesCouple> done = new HashSet<>();
+		Set<State> as = TransformationsToolBox.epsilonClosure(a.initials(), a);
+		Set<State> bs = TransformationsToolBox.epsilonClosure(b.initials(), b);
+		State from = ret.addState(true, TransformationsToolBox.containsATerminalState(as) && TransformationsToolBox.containsATerminalState(bs));
+		StatesCouple sc = new StatesCouple(as, bs);
+		amap.put(sc, from);
+		todo.add(sc);
+		do {
+			StatesCouple couple = todo.remove();
+			from = amap.get(couple);
+			if (done.contains(couple))
+				continue;
+			done.add(couple);
+			tam.clear();
+			tam.addAll(a.delta(couple.sa));
+			tbm.clear();
+			tbm.addAll(b.delta(couple.sb));
+			/* unsynchronizable transitions in A and synchronized transitions */
+			for (int i = 0; i < tam.size(); i++) {
+				int l = tam.label(i);
+				Set<State> asc = TransformationsToolBox.epsilonClosure(tam.successors(l), a);
+				if (!alph.get(l))
+					sc = new StatesCouple(asc, couple.sb);
+				else if ((bs = tbm.successors(l)) != null)
+					sc = new StatesCouple(asc, TransformationsToolBox.epsilonClosure(bs, b));
+				else
+					continue;
+				addTransition(ret, amap, todo, from, symbols.label(l), sc);
+			}
+			/* unsynchronizable transitions in B */
+			for (int i = 0; i < tbm.size(); i++) {
+				int l = tbm.label(i);
+				if (alph.get(l))
+					continue;
+				sc = new StatesCouple(couple.sa, TransformationsToolBox.epsilonClosure(tbm.successors(l), b));
+				addTransition(ret, amap, todo, from, symbols.label(l), sc);
+			}
+		} while (!todo.isEmpty());
+		return ret;
+	}
+
+	private void addTransition(Automaton<L, Tr, T> ret, Map<StatesCouple, State> amap, Queue<StatesCouple> todo, State from, L l, StatesCouple sc) {
+		makeNewState(ret, amap, sc, amap.get(sc));
+		todo.add(sc);
+		try {
+			ret.build(from, l, amap.get(sc));
+		} catch (NoSuchStateException e) {
+			throw new Error(e);
+		}
+	}
+
 	private void makeNewState(Automaton<L, Tr, T> ret, Map<StatesCouple, State> amap, StatesCouple sc, State to) {
 		if (to == null) {
 			to = ret.addState(false, TransformationsToolBox.containsATerminalState(sc.sa)
 					&& TransformationsToolBox.containsATerminalState(sc.sb));
 			amap.put(sc, to);
+			context.check("Product", amap.size(), ret.transitionCount());
 		}
 	}
 
@@ -0,0 +1,40 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.transformations;
+
+/**
+ * Notified of the progress of transformations using an
+ * {@link ExecutionContext}.
+ * 
+ * @see ExecutionContext#progress(ProgressListener, int)
+ */
+public interface ProgressListener {
+
+	/**
+	 * Callback method called while an automaton is being built. It may be
+	 * called by any thread running the transformation and should return
+	 * quickly.
+	 * 
+	 * @param operation
+	 *            the name of the transformation.
+	 * @param states
+	 *            the number of states built so far.
+	 * @param transitions
+	 *            the number of transitions built so far.
+	 */
+	void progress(String operation, int states, int transitions);
+}
@@ -34,6 +34,7 @@ import java.util.Set;
  * with letters from the projection alphabet are transformed into 
  * <code>null</code> transitions. The resulting automaton is obviously no 
  * more deterministic if the automaton <code>a</code> was.
+ * {@link EpsilonRemover} removes these transitions.
  * 
  * @author nono
  * @version $Id: Projection.java 2 2006-08-24 14:41:48Z oqube $
@@ -20,12 +20,9 @@ import rationals.Automaton;
 import rationals.Builder;
 import rationals.NoSuchStateException;
 import rationals.State;
+import rationals.StateGraph;
 import rationals.Transition;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
-
 /**
  * Removes states that neither accessible nor coaccessible.
  * 
@@ -34,26 +31,37 @@ import java.util.Map;
 public class Pruner<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> implements UnaryTransformation<L, Tr, T> {
 
   public Automaton<L, Tr, T> transform(Automaton<L, Tr, T> a) {
-    Map<State, State> conversion = new HashMap<>() ;
-    Iterator<State> i1 = a.accessibleAndCoAccessibleStates().iterator();
-    Automaton<L, Tr, T> b = new Automaton<>() ;
-    while(i1.hasNext()) {
-      State e = i1.next() ;
-      conversion.put(e , b.addState(e.isInitial() , e.isTerminal())) ;
+    return transformTo(a, new Automaton<L, Tr, T>()) ;
+  }
+
+  /**
+   * Compute transformation and stores the result in the given automaton.
+   * 
+   * @param a
+   *            the automaton to prune.
+   * @param b
+   *            an empty automaton.
+   * @return the automaton {@code b} containing the result of the
+   *         transformation.
+   */
+  public Automaton<L, Tr, T> transformTo(Automaton<L, Tr, T> a, Automaton<L, Tr, T> b) {
+    StateGraph<L> graph = StateGraph.of(a) ;
+    int[] kept = graph.trim() ;
+    State[] conversion = new State[graph.stateCount()] ;
+    for (int q : kept) {
+      State e = graph.state(q) ;
+      conversion[q] = b.addState(e.isInitial() , e.isTerminal()) ;
     }
-    Iterator<Transition<L>> i2 = a.delta().iterator();
-    while(i2.hasNext()) {
-      Transition<L> t = i2.next() ;
-      State bs = conversion.get(t.start()) ;
-      State be = conversion.get(t.end()) ;
-      if(bs == null || be == null) continue;
-      try {
-        b.addTransition(new Transition<>(bs, t.label(), be));
-      } catch (NoSuchStateException e) {
-    	  throw new Error(e);
-      }
+    try {
+      for (int q : kept)
+        for (int t = graph.outStart(q); t < graph.outEnd(q); t++) {
+          State be = conversion[graph.target(t)] ;
+          if (be != null)
+            b.addTransition(new Transition<>(conversion[q], graph.transition(t).label(), be));
+        }
+    } catch (NoSuchStateException e) {
+      throw new Error(e);
     }
     return b ;
   }
 }
-  
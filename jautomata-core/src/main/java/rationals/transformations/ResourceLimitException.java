@@ -0,0 +1,100 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.transformations;
+
+/**
+ * Thrown when a transformation exceeds the bounds of its
+ * {@link ExecutionContext}, or when the context is cancelled. The exception
+ * tells which bound was exceeded and how large the automaton being built was
+ * at this point.
+ * 
+ * @see ExecutionContext
+ */
+public class ResourceLimitException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The reasons for aborting a computation.
+	 */
+	public enum Reason {
+		/** too many states */
+		STATES,
+		/** too many transitions */
+		TRANSITIONS,
+		/** the deadline has passed */
+		DEADLINE,
+		/** the context was cancelled */
+		CANCELLED
+	}
+
+	private final Reason reason;
+
+	private final String operation;
+
+	private final int states;
+
+	private final int transitions;
+
+	private final long elapsed;
+
+	public ResourceLimitException(Reason reason, String operation, int states, int transitions, long elapsed) {
+		super(operation + " aborted (" + reason + ") after " + states + " states, " + transitions + " transitions and "
+				+ elapsed + " ms");
+		this.reason = reason;
+		this.operation = operation;
+		this.states = states;
+		this.transitions = transitions;
+		this.elapsed = elapsed;
+	}
+
+	/**
+	 * @return the reason for aborting.
+	 */
+	public Reason reason() {
+		return reason;
+	}
+
+	/**
+	 * @return the name of the aborted transformation.
+	 */
+	public String operation() {
+		return operation;
+	}
+
+	/**
+	 * @return the number of states built when aborting.
+	 */
+	public int states() {
+		return states;
+	}
+
+	/**
+	 * @return the number of transitions built when aborting.
+	 */
+	public int transitions() {
+		return transitions;
+	}
+
+	/**
+	 * @return the time elapsed since the creation of the context, in
+	 *         milliseconds.
+	 */
+	public long elapsed() {
+		return elapsed;
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.transformations;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import rationals.Automaton;
+import rationals.Builder;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.Transition;
+import rationals.properties.SimulationPreorder;
+
+/**
+ * Reduces a non deterministic automaton using simulations, without
+ * determinizing it.
+ * <p>
+ * The result accepts the same language as the given automaton, with at most
+ * as many states and transitions once useless states are removed. It is
+ * computed in the following steps:
+ * <ol>
+ * <li>states neither accessible nor co-accessible are removed, see
+ * {@link Pruner};</li>
+ * <li>states simulating each other forward are merged, then states
+ * simulating each other backward;</li>
+ * <li>a transition <em>(p,a,q)</em> is removed if there is a transition
+ * <em>(p,a,q')</em> such that <em>q'</em> simulates <em>q</em> forward and
+ * not conversely: <em>q</em> is a little brother of <em>q'</em>. Then
+ * <em>(p,a,q)</em> is removed if there is a transition <em>(p',a,q)</em>
+ * such that <em>p'</em> simulates <em>p</em> backward and not conversely;</li>
+ * <li>useless states are removed again.</li>
+ * </ol>
+ * Each step uses its own {@link SimulationPreorder}, hence the whole
+ * reduction runs in polynomial time. It is worth applying before
+ * exponential transformations such as {@link ToDFA} or {@link Complement}.
+ * Epsilon transitions are handled as transitions with a <code>null</code>
+ * label.
+ * <p>
+ * See L. Clemente and R. Mayr, <em>Advanced automata minimization</em>
+ * (POPL 2013), for the soundness of quotients and pruning with these
+ * relations.
+ *
+ * @see SimulationPreorder
+ */
+public class SimulationReducer<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> implements UnaryTransformation<L, Tr, T> {
+
+	public Automaton<L, Tr, T> transform(Automaton<L, Tr, T> a) {
+		Pruner<L, Tr, T> pruner = new Pruner<>();
+		a = pruner.transform(a);
+		a = quotient(a, false);
+		a = quotient(a, true);
+		a = prune(a, false);
+		a = prune(a, true);
+		return pruner.transform(a);
+	}
+
+	/* merges simulation equivalent states */
+	private Automaton<L, Tr, T> quotient(Automaton<L, Tr, T> a, boolean backward) {
+		SimulationPreorder sim = new SimulationPreorder(a, backward);
+		int[] classes = sim.equivalenceClasses();
+		int n = sim.stateCount(), k = 0;
+		for (int q = 0; q < n; q++)
+			k = Math.max(k, classes[q] + 1);
+		if (k == n)
+			return a;
+		boolean[] initials = new boolean[k], terminals = new boolean[k];
+		for (int q = 0; q < n; q++) {
+			initials[classes[q]] |= sim.state(q).isInitial();
+			terminals[classes[q]] |= sim.state(q).isTerminal();
+		}
+		Automaton<L, Tr, T> ret = new Automaton<>(a.symbols());
+		State[] news = new State[k];
+		for (int c = 0; c < k; c++)
+			news[c] = ret.addState(initials[c], terminals[c]);
+		try {
+			for (Transition<L> tr : a.delta())
+				ret.addTransition(new Transition<L>(news[classes[sim.id(tr.start())]], tr.label(),
+						news[classes[sim.id(tr.end())]]));
+		} catch (NoSuchStateException e) {
+			throw new Error(e);
+		}
+		return ret;
+	}
+
+	/* removes transitions to little brothers, or from them if backward */
+	private Automaton<L, Tr, T> prune(Automaton<L, Tr, T> a, boolean backward) {
+		SimulationPreorder sim = new SimulationPreorder(a, backward);
+		Automaton<L, Tr, T> ret = new Automaton<>(a.symbols());
+		Map<State, State> news = new HashMap<>();
+		for (State s : a.states())
+			news.put(s, ret.addState(s.isInitial(), s.isTerminal()));
+		boolean pruned = false;
+		try {
+			for (State s : a.states()) {
+				/* transitions from s, or reversed transitions to s */
+				for (Transition<L> tr : backward ? a.deltaMinusOne(s) : a.delta(s)) {
+					int q = sim.id(tr.end());
+					boolean little = false;
+					for (Transition<L> other : backward ? a.deltaMinusOne(s, tr.label()) : a.delta(s, tr.label())) {
+						int r = sim.id(other.end());
+						if (sim.isSimulatedBy(q, r) && !sim.isSimulatedBy(r, q)) {
+							little = true;
+							break;
+						}
+					}
+					if (little)
+						pruned = true;
+					else if (backward)
+						ret.addTransition(new Transition<L>(news.get(tr.end()), tr.label(), news.get(s)));
+					else
+						ret.addTransition(new Transition<L>(news.get(s), tr.label(), news.get(tr.end())));
+				}
+			}
+		} catch (NoSuchStateException e) {
+			throw new Error(e);
+		}
+		return pruned ? ret : a;
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.transformations;
+
+import java.util.Arrays;
+
+/*
+ * An immutable set of state numbers used by subset construction. The set is
+ * stored as a bitset trimmed to its first and last non empty words, so that
+ * equal sets have equal representations, and its hash is computed once.
+ */
+final class StateSubset {
+
+	/* index of the first stored word */
+	final int lo;
+
+	final long[] words;
+
+	final int hash;
+
+	StateSubset(long[] buf, int lo, int hi, int hash) {
+		this.lo = lo;
+		this.words = Arrays.copyOfRange(buf, lo, hi);
+		this.hash = hash;
+	}
+
+	static int hash(long[] buf, int lo, int hi) {
+		long h = lo;
+		for (int i = lo; i < hi; i++)
+			h = h * 0x9e3779b97f4a7c15L + buf[i];
+		return (int) (h ^ (h >>> 32));
+	}
+
+	/* true if this set is stored in buf[lo..hi[ */
+	boolean matches(long[] buf, int lo, int hi, int hash) {
+		if (this.hash != hash || this.lo != lo || words.length != hi - lo)
+			return false;
+		for (int i = 0; i < words.length; i++)
+			if (words[i] != buf[lo + i])
+				return false;
+		return true;
+	}
+
+	/* the members of this set, in increasing order */
+	int[] members() {
+		int n = 0;
+		for (long w : words)
+			n += Long.bitCount(w);
+		int[] ret = new int[n];
+		n = 0;
+		for (int i = 0; i < words.length; i++)
+			for (long w = words[i]; w != 0; w &= w - 1)
+				ret[n++] = ((lo + i) << 6) + Long.numberOfTrailingZeros(w);
+		return ret;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this)
+			return true;
+		if (!(o instanceof StateSubset))
+			return false;
+		StateSubset s = (StateSubset) o;
+		return hash == s.hash && lo == s.lo && Arrays.equals(words, s.words);
+	}
+}
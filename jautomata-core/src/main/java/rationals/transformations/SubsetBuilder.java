@@ -0,0 +1,131 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.transformations;
+
+import java.util.Arrays;
+
+import rationals.CompiledNfa;
+
+/*
+ * Builds the successors of a subset for all labels at once, for subset
+ * constructions. Transitions leaving the subset are first grouped by label
+ * in linked lists of targets, then the successor of each label is
+ * accumulated in a bitset from the closures of its targets.
+ */
+final class SubsetBuilder {
+
+	private final CompiledNfa<?> nfa;
+
+	/* the subset being built and its range of non empty words */
+	private final long[] buf;
+
+	private int lo, hi;
+
+	boolean accepting;
+
+	/* first pair of each label, -1 if none */
+	private final int[] heads;
+
+	private int[] targets = new int[64], nexts = new int[64];
+
+	private int npairs;
+
+	/* labels with transitions, sorted after successors(StateSubset) */
+	int[] used = new int[16];
+
+	int nused;
+
+	SubsetBuilder(CompiledNfa<?> nfa) {
+		this.nfa = nfa;
+		int words = (nfa.stateCount() + 63) >>> 6;
+		this.buf = new long[words];
+		this.lo = words;
+		this.hi = 0;
+		this.heads = new int[nfa.symbols().size()];
+		Arrays.fill(heads, -1);
+	}
+
+	/* adds the epsilon closure of q to the subset being built */
+	void addClosure(int q) {
+		int w = q >>> 6;
+		/* closures are transitive: if q is there, so is its closure */
+		if ((buf[w] & (1L << q)) != 0)
+			return;
+		if (nfa.closureAccepts(q))
+			accepting = true;
+		nfa.addClosure(q, buf);
+		lo = Math.min(lo, nfa.closureLow(q));
+		hi = Math.max(hi, nfa.closureHigh(q));
+	}
+
+	/*
+	 * interns the subset being built, then clears it; accepting still
+	 * tells whether it contained a terminal state
+	 */
+	int intern(SubsetTable subsets) {
+		int id = lo < hi ? subsets.intern(buf, lo, hi) : subsets.intern(buf, 0, 0);
+		clear();
+		return id;
+	}
+
+	/* returns the subset being built as a new subset, then clears it */
+	StateSubset take() {
+		StateSubset s = lo < hi ? new StateSubset(buf, lo, hi, StateSubset.hash(buf, lo, hi)) : new StateSubset(buf, 0,
+				0, StateSubset.hash(buf, 0, 0));
+		clear();
+		return s;
+	}
+
+	private void clear() {
+		for (int i = lo; i < hi; i++)
+			buf[i] = 0;
+		lo = buf.length;
+		hi = 0;
+	}
+
+	/* groups the transitions leaving s by label */
+	void successors(StateSubset s) {
+		for (int i = 0; i < nused; i++)
+			heads[used[i]] = -1;
+		nused = 0;
+		npairs = 0;
+		for (int q : s.members())
+			for (int t = nfa.outStart(q), n = nfa.outEnd(q); t < n; t++) {
+				int l = nfa.label(t);
+				if (heads[l] < 0) {
+					if (nused == used.length)
+						used = Arrays.copyOf(used, nused * 2);
+					used[nused++] = l;
+				}
+				if (npairs == targets.length) {
+					targets = Arrays.copyOf(targets, npairs * 2);
+					nexts = Arrays.copyOf(nexts, npairs * 2);
+				}
+				targets[npairs] = nfa.target(t);
+				nexts[npairs] = heads[l];
+				heads[l] = npairs++;
+			}
+		Arrays.sort(used, 0, nused);
+	}
+
+	/* builds the successor by label l of the last grouped subset */
+	void successors(int l) {
+		accepting = false;
+		for (int p = heads[l]; p >= 0; p = nexts[p])
+			addClosure(targets[p]);
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.transformations;
+
+import java.util.Arrays;
+
+/*
+ * Interns the subsets built by ToDFA. Subsets are numbered in order of
+ * interning and looked up directly from the bitset being built, so that a
+ * subset is only copied the first time it is found.
+ */
+final class SubsetTable {
+
+	private StateSubset[] subsets = new StateSubset[16];
+
+	private int size;
+
+	/* open addressing table of subset numbers plus one, 0 when empty */
+	private int[] slots = new int[32];
+
+	int size() {
+		return size;
+	}
+
+	StateSubset get(int id) {
+		return subsets[id];
+	}
+
+	/*
+	 * Returns the number of the subset stored in buf[lo..hi[, interning it
+	 * if needed: the subset is new iff the returned number is size() - 1
+	 * and size() grew.
+	 */
+	int intern(long[] buf, int lo, int hi) {
+		int hash = StateSubset.hash(buf, lo, hi);
+		int mask = slots.length - 1;
+		int i = hash & mask;
+		for (int id; (id = slots[i]) != 0; i = (i + 1) & mask)
+			if (subsets[id - 1].matches(buf, lo, hi, hash))
+				return id - 1;
+		if (size == subsets.length)
+			subsets = Arrays.copyOf(subsets, size * 2);
+		subsets[size++] = new StateSubset(buf, lo, hi, hash);
+		slots[i] = size;
+		if (size * 2 > slots.length)
+			rehash();
+		return size - 1;
+	}
+
+	private void rehash() {
+		slots = new int[slots.length * 2];
+		int mask = slots.length - 1;
+		for (int id = 0; id < size; id++) {
+			int i = subsets[id].hash & mask;
+			while (slots[i] != 0)
+				i = (i + 1) & mask;
+			slots[i] = id + 1;
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.transformations;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import rationals.Alphabet;
+import rationals.State;
+import rationals.StateFactory;
+import rationals.Transition;
+
+/**
+ * Groups the end states of sets of transitions by label index.
+ * <p>
+ * This is an int-indexed replacement for
+ * {@link TransformationsToolBox#mapAlphabet(Set, rationals.Automaton)} used in
+ * the inner loop of product constructions: labels are hashed once to get their
+ * index in an {@link Alphabet}, then all further work is done on ints. Storage
+ * is reused across calls to {@link #clear()}. Epsilon transitions are ignored.
+ */
+class SuccessorMap<L> {
+
+	private final Alphabet<L> symbols;
+
+	private final StateFactory<?, ?, ?> factory;
+
+	private Set<State>[] succ;
+
+	/* label indices with a non null successor set, in order of appearance */
+	private int[] used = new int[16];
+
+	private int size;
+
+	SuccessorMap(Alphabet<L> symbols, StateFactory<?, ?, ?> factory) {
+		this.symbols = symbols;
+		this.factory = factory;
+		@SuppressWarnings("unchecked")
+		Set<State>[] sets = (Set<State>[]) new Set<?>[Math.max(16, symbols.size())];
+		this.succ = sets;
+	}
+
+	void clear() {
+		for (int i = 0; i < size; i++)
+			succ[used[i]] = null;
+		size = 0;
+	}
+
+	void addAll(Set<? extends Transition<L>> ts) {
+		for (Transition<L> tr : ts) {
+			int l = symbols.indexOf(tr.label());
+			if (l == Alphabet.EPSILON)
+				continue;
+			if (l >= succ.length)
+				succ = Arrays.copyOf(succ, Math.max(l + 1, succ.length * 2));
+			Set<State> s = succ[l];
+			if (s == null) {
+				s = succ[l] = factory.stateSet();
+				if (size == used.length)
+					used = Arrays.copyOf(used, size * 2);
+				used[size++] = l;
+			}
+			s.add(tr.end());
+		}
+	}
+
+	/**
+	 * @return the number of labels with successors.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @param i
+	 *            an int between 0 and {@link #size()}
+	 * @return the index of the <code>i</code>-th label with successors.
+	 */
+	int label(int i) {
+		return used[i];
+	}
+
+	/**
+	 * @param label
+	 *            a label index
+	 * @return the set of successors on <code>label</code>, or null.
+	 */
+	Set<State> successors(int label) {
+		return label < succ.length ? succ[label] : null;
+	}
+}
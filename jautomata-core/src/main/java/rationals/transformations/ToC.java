@@ -27,7 +27,7 @@ import java.util.*;
 public class ToC<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> implements UnaryTransformation<L, Tr, T> {
 
     public Automaton<L, Tr, T> transform(Automaton<L, Tr, T> a) {
-        Automaton b = new EpsilonTransitionRemover().transform(a);
+        Automaton b = new EpsilonRemover().transform(a);
         Set Ib = b.initials();
         Set Tb = b.terminals();
         Map /* < Set <State>, Set < State > > */ subsets = new HashMap();
@@ -16,59 +16,95 @@
  */
 package rationals.transformations;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import rationals.Alphabet;
 import rationals.Automaton;
 import rationals.Builder;
+import rationals.CompiledNfa;
 import rationals.NoSuchStateException;
 import rationals.State;
 import rationals.Transition;
 
-import java.util.*;
-
 /**
  * Determinization of an automaton.
+ * <p>
+ * The number of states may be exponential in the size of the automaton: an
+ * {@link ExecutionContext} may be given to bound the construction, which
+ * then throws a {@link ResourceLimitException}.
  * 
  * @author yroos
  * @version $Id: ToDFA.java 7 2006-08-31 23:01:30Z oqube $
  */
 public class ToDFA<L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> implements UnaryTransformation<L, Tr, T> {
-  
+
+	private final ExecutionContext context;
+
+	public ToDFA() {
+		this(new ExecutionContext());
+	}
+
+	/**
+	 * Creates a determinization bounded by given context.
+	 * 
+	 * @param context
+	 *            the bounds of the construction.
+	 */
+	public ToDFA(ExecutionContext context) {
+		this.context = context;
+	}
+
 	public Automaton<L, Tr, T> transform(Automaton<L, Tr, T> a) {
-		Automaton<L, Tr, T> ret = new Automaton<>();
-		Map<Set<State>, State> bmap = new HashMap<>();
-		List<Set<State>>todo = new ArrayList<>();
-		Set<Set<State>>done = new HashSet<>();
-		Set<State> as = TransformationsToolBox.epsilonClosure(a.initials(), a);
-		State from = ret.addState(true, TransformationsToolBox.containsATerminalState(as));
-		bmap.put(as, from);
-		todo.add(as);
-		do {
-			Set<State> sts = todo.remove(0);
-			from = bmap.get(sts);
-			if (done.contains(sts))
-				continue;
-			done.add(sts);
-			/* get transition sets */
-			Map<L, Set<State>> tam = TransformationsToolBox.mapAlphabet(a.delta(sts), a);
-			/* unsynchronizable transitions in A */
-			for (Iterator<Map.Entry<L, Set<State>>> i = tam.entrySet().iterator(); i.hasNext();) {
-				Map.Entry<L, Set<State>> me = i.next();
-				L l = me.getKey();
-				as = (Set<State>) me.getValue();
-				Set<State> asc = TransformationsToolBox.epsilonClosure(as, a);
-				State to = (State) bmap.get(asc);
-				if (to == null) {
-					to = ret.addState(false, TransformationsToolBox
-							.containsATerminalState(asc));
-					bmap.put(asc, to);
-				}
-				todo.add(asc);
-				try {
-					ret.addTransition(new Transition<L>(from, l, to));
-				} catch (NoSuchStateException e) {
-					throw new Error(e);
+		return transformTo(a, new Automaton<L, Tr, T>(a.symbols()));
+	}
+
+	/**
+	 * Compute transformation and stores the result in the given automaton.
+	 * 
+	 * @param a
+	 *            the automaton to determinize.
+	 * @param ret
+	 *            an empty automaton.
+	 * @return the automaton {@code ret} containing the result of the
+	 *         transformation.
+	 * @throws ResourceLimitException
+	 *             if the bounds of the context of this transformation are
+	 *             exceeded.
+	 */
+	public Automaton<L, Tr, T> transformTo(Automaton<L, Tr, T> a, Automaton<L, Tr, T> ret) {
+		CompiledNfa<L> nfa = CompiledNfa.compile(a);
+		Alphabet<L> symbols = nfa.symbols();
+		SubsetBuilder builder = new SubsetBuilder(nfa);
+		SubsetTable subsets = new SubsetTable();
+		List<State> states = new ArrayList<>();
+		for (int q : nfa.initials())
+			builder.addClosure(q);
+		builder.intern(subsets);
+		states.add(ret.addState(true, builder.accepting));
+		int transitions = 0;
+		context.check("ToDFA", 1, 0);
+		/* subsets are numbered in order of discovery: the queue is the table */
+		try {
+			for (int s = 0; s < subsets.size(); s++) {
+				State from = states.get(s);
+				builder.successors(subsets.get(s));
+				for (int i = 0; i < builder.nused; i++) {
+					int l = builder.used[i];
+					builder.successors(l);
+					int size = subsets.size();
+					int to = builder.intern(subsets);
+					if (to == size) {
+						states.add(ret.addState(false, builder.accepting));
+						context.check("ToDFA", states.size(), transitions);
+					}
+					ret.addTransition(new Transition<L>(from, symbols.label(l), states.get(to)));
+					transitions++;
 				}
 			}
-		} while (!todo.isEmpty());
+		} catch (NoSuchStateException e) {
+			throw new Error(e);
+		}
 		return ret;
 	}
 
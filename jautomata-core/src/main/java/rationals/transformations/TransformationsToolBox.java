@@ -47,33 +47,10 @@ public class TransformationsToolBox {
    * @param a the automaton 
    * @return a - possibly empty - set of states reachable from <code>s</code> through
    * epsilon transitions. 
+   * @see Automaton#epsilonClosures()
    */
   public static <L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> Set<State> epsilonClosure(Set<State> s, Automaton<L, Tr, T> a) {
-      Set<State> exp = a.getStateFactory().stateSet();
-      exp.addAll(s); /* set of states to visit */
-      Set<State> view = a.getStateFactory().stateSet(); /* set of states visited */
-      Set<State> arr = a.getStateFactory().stateSet(); /* the set of arrival states */
-      arr.addAll(s);
-      do {
-          Set<State> ns = a.getStateFactory().stateSet();
-          ns.addAll(exp); /* arrival states */
-          Iterator<State> it = ns.iterator();
-          while (it.hasNext()) {
-              State st = it.next();
-              Iterator<Transition<L>> it2 = a.delta(st).iterator();
-              while (it2.hasNext()) {
-                  Transition<L> tr = it2.next();
-                  if (tr.label() == null && !view.contains(tr.end()) && !tr.end().equals(st)) {
-                      /* compute closure of epsilon transitions */
-                      exp.add(tr.end());
-                      arr.add(tr.end());
-                  }
-              }
-              exp.remove(st);
-              view.add(st);
-          }
-      } while (!exp.isEmpty());
-      return arr;
+      return a.epsilonClosure(s);
   }
 
   
@@ -87,10 +64,8 @@ public class TransformationsToolBox {
    */
   public static <L, Tr extends Transition<L>, T extends Builder<L, Tr, T>> Map<L, Set<State>> mapAlphabet(Set<Transition<L>> ts, Automaton<L, Tr, T> a) {
       Map<L, Set<State>> am = new HashMap<>();
-      List<Transition<L>> tas = new ArrayList<>(ts);
       /* compute set of states for each letter */
-      while (!tas.isEmpty()) {
-          Transition<L> tr = tas.remove(0);
+      for (Transition<L> tr : ts) {
           L l = tr.label();
           if (l == null)
               continue;
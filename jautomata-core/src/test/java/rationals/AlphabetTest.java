@@ -0,0 +1,152 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+import rationals.transformations.Product;
+import rationals.transformations.ToDFA;
+
+public class AlphabetTest extends TestCase {
+
+    private static final String[] LETTERS = { "a", "b", "c", "d" };
+
+    public void testInternsDensely() {
+        Alphabet<String> alph = new Alphabet<>();
+        assertEquals(Alphabet.EPSILON, alph.intern(null));
+        assertEquals(1, alph.intern("a"));
+        assertEquals(2, alph.intern("b"));
+        assertEquals(1, alph.intern(new String("a")));
+        assertEquals(3, alph.size());
+        assertEquals("b", alph.label(2));
+        assertNull(alph.label(Alphabet.EPSILON));
+        assertEquals(-1, alph.indexOf("z"));
+    }
+
+    public void testConcurrentInterningIsConsistent() throws Exception {
+        final Alphabet<Integer> alph = new Alphabet<>();
+        ExecutorService exec = Executors.newFixedThreadPool(4);
+        List<Future<int[]>> res = new ArrayList<>();
+        for (int t = 0; t < 4; t++)
+            res.add(exec.submit(new Callable<int[]>() {
+                public int[] call() {
+                    int[] ids = new int[1000];
+                    for (int i = 0; i < ids.length; i++)
+                        ids[i] = alph.intern(i);
+                    return ids;
+                }
+            }));
+        exec.shutdown();
+        int[] first = res.get(0).get();
+        for (Future<int[]> f : res)
+            assertTrue(Arrays.equals(first, f.get()));
+        assertEquals(1001, alph.size());
+        for (int i = 0; i < first.length; i++)
+            assertEquals(Integer.valueOf(i), alph.label(first[i]));
+    }
+
+    /* an index found by a reader must already have its label */
+    public void testLookupWhileInterning() throws Exception {
+        final Alphabet<Integer> alph = new Alphabet<>();
+        final int n = 100000;
+        ExecutorService exec = Executors.newFixedThreadPool(3);
+        List<Future<Integer>> res = new ArrayList<>();
+        for (int t = 0; t < 2; t++)
+            res.add(exec.submit(new Callable<Integer>() {
+                public Integer call() {
+                    int found = 0;
+                    for (int i = 0; i < n; i++) {
+                        int index;
+                        while ((index = alph.indexOf(i)) < 0)
+                            Thread.yield();
+                        assertEquals(Integer.valueOf(i), alph.label(index));
+                        found++;
+                    }
+                    return found;
+                }
+            }));
+        res.add(exec.submit(new Callable<Integer>() {
+            public Integer call() {
+                for (int i = 0; i < n; i++)
+                    alph.intern(i);
+                return n;
+            }
+        }));
+        exec.shutdown();
+        for (Future<Integer> f : res)
+            assertEquals(Integer.valueOf(n), f.get());
+    }
+
+    public void testCloneAndDeterminizationShareAlphabet() throws Exception {
+        Alphabet<String> alph = new Alphabet<>();
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = build(alph, "ab", "ac");
+        assertSame(alph, a.symbols());
+        assertSame(alph, a.clone().symbols());
+        assertSame(alph, new ToDFA<String, Transition<String>, TransitionBuilder<String>>().transform(a).symbols());
+    }
+
+    public void testProductOnSharedAlphabetIsSameAsOnDistinctAlphabets() throws Exception {
+        Alphabet<String> alph = new Alphabet<>();
+        Automaton<String, Transition<String>, TransitionBuilder<String>> sa = build(alph, "ab", "abc", "ca");
+        Automaton<String, Transition<String>, TransitionBuilder<String>> sb = build(alph, "ab", "ca", "cab", "db");
+        Automaton<String, Transition<String>, TransitionBuilder<String>> da = build(null, "ab", "abc", "ca");
+        Automaton<String, Transition<String>, TransitionBuilder<String>> db = build(null, "ab", "ca", "cab", "db");
+        Automaton<String, Transition<String>, TransitionBuilder<String>> shared = new Product<String, Transition<String>, TransitionBuilder<String>>().transform(sa, sb);
+        Automaton<String, Transition<String>, TransitionBuilder<String>> distinct = new Product<String, Transition<String>, TransitionBuilder<String>>().transform(da, db);
+        assertSame(alph, shared.symbols());
+        for (List<String> w : words(4))
+            assertEquals(w.toString(), distinct.accept(w), shared.accept(w));
+    }
+
+    /* automaton accepting given words, one letter per character */
+    private Automaton<String, Transition<String>, TransitionBuilder<String>> build(Alphabet<String> alph, String... words) throws NoSuchStateException {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>(alph);
+        State init = a.addState(true, false);
+        for (String w : words) {
+            State from = init;
+            for (int i = 0; i < w.length(); i++) {
+                State to = a.addState(false, i == w.length() - 1);
+                a.addTransition(new Transition<>(from, w.substring(i, i + 1), to));
+                from = to;
+            }
+        }
+        return a;
+    }
+
+    private List<List<String>> words(int n) {
+        List<List<String>> ret = new ArrayList<>();
+        ret.add(new ArrayList<String>());
+        for (int i = 0; i < ret.size(); i++) {
+            List<String> w = ret.get(i);
+            if (w.size() == n)
+                continue;
+            for (String l : LETTERS) {
+                List<String> nw = new ArrayList<>(w);
+                nw.add(l);
+                ret.add(nw);
+            }
+        }
+        return ret;
+    }
+}
@@ -20,6 +20,11 @@ import junit.framework.TestCase;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import rationals.properties.LanguageEquivalent;
 
 public class AutomatonBuilderTest extends TestCase {
 
@@ -69,6 +74,99 @@ public class AutomatonBuilderTest extends TestCase {
 		assertTrue("automaton should not accept word 'a'", !a.accept(Arrays.asList(new String[] { "a" })));
 	}
 
+	public void testBulkLoad() throws NoSuchStateException {
+		AutomatonBuilder<String> builder = new AutomatonBuilder<>();
+		int s0 = builder.addState(true, false);
+		int s1 = builder.addStates(2);
+		builder.setTerminal(s1 + 1);
+		int a = builder.label("a"), b = builder.label("b");
+		builder.addTransitions(new int[] { s0, a, s1, s1, b, s1 + 1, s0, a, s1, s1 + 1, Alphabet.EPSILON, s0 }, 0, 4);
+		builder.addTransition(s1, "a", s1);
+		assertEquals(5, builder.transitionCount());
+		State[] states = new State[3];
+		Automaton<String, Transition<String>, TransitionBuilder<String>> automaton = builder.build(states);
+		assertEquals(0, builder.stateCount());
+		assertEquals(3, automaton.states().size());
+		/* the duplicate transition is removed */
+		assertEquals(4, automaton.transitionCount());
+		assertEquals(new HashSet<>(Arrays.asList("a", "b", null)), automaton.alphabet());
+		assertTrue(states[0].isInitial());
+		assertTrue(states[2].isTerminal());
+		assertEquals(1, automaton.delta(states[1], "b").size());
+		assertTrue(automaton.accept(Arrays.asList("a", "a", "b", "a", "b")));
+		assertFalse(automaton.accept(Arrays.asList("a", "a")));
+		/* the automaton can still be modified */
+		automaton.addTransition(new Transition<>(states[0], "b", states[2]));
+		assertTrue(automaton.accept(Arrays.asList("b")));
+	}
+
+	public void testValidation() throws NoSuchStateException {
+		AutomatonBuilder<String> builder = new AutomatonBuilder<>();
+		builder.addStates(2);
+		int a = builder.label("a");
+		try {
+			builder.addTransitions(new int[] { 0, a, 1, 1, a, 2 }, 0, 2);
+			fail("state 2 does not exist");
+		} catch (NoSuchStateException e) {
+		}
+		assertEquals(0, builder.transitionCount());
+		try {
+			builder.addTransition(0, a + 1, 1);
+			fail("label " + (a + 1) + " does not exist");
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			builder.setInitial(-1);
+			fail("state -1 does not exist");
+		} catch (NoSuchStateException e) {
+		}
+		/* states may be added after transitions when not validating */
+		builder.setValidating(false).addTransition(1, a, 2);
+		builder.addState(false, true);
+		builder.setInitial(0).addTransition(0, a, 1);
+		assertTrue(builder.<Transition<String>, TransitionBuilder<String>> build().accept(Arrays.asList("a", "a")));
+	}
+
+	public void testSameAutomatonAsAddTransition() throws NoSuchStateException {
+		String[] labels = { null, "a", "b" };
+		Random random = new Random(24);
+		LanguageEquivalent<String, Transition<String>, TransitionBuilder<String>> equivalent = new LanguageEquivalent<>();
+		for (int round = 0; round < 100; round++) {
+			int n = 1 + random.nextInt(10);
+			AutomatonBuilder<String> builder = new AutomatonBuilder<>();
+			Automaton<String, Transition<String>, TransitionBuilder<String>> expected = new Automaton<>();
+			State[] states = new State[n];
+			for (int i = 0; i < n; i++) {
+				boolean initial = random.nextInt(3) == 0, terminal = random.nextInt(3) == 0;
+				builder.addState(initial, terminal);
+				states[i] = expected.addState(initial, terminal);
+			}
+			int m = random.nextInt(4 * n);
+			int[] triples = new int[3 * m];
+			for (int i = 0; i < m; i++) {
+				int from = random.nextInt(n), l = random.nextInt(3), to = random.nextInt(n);
+				triples[3 * i] = from;
+				triples[3 * i + 1] = builder.label(labels[l]);
+				triples[3 * i + 2] = to;
+				expected.addTransition(new Transition<>(states[from], labels[l], states[to]));
+			}
+			builder.setValidating(round % 2 == 0).addTransitions(triples, 0, m);
+			State[] built = new State[n];
+			Automaton<String, Transition<String>, TransitionBuilder<String>> actual = builder.build(built);
+			assertEquals(expected.transitionCount(), actual.transitionCount());
+			assertEquals(expected.alphabet(), actual.alphabet());
+			for (int i = 0; i < n; i++) {
+				Set<String> out = new HashSet<>(), builtOut = new HashSet<>();
+				for (Transition<String> tr : expected.delta(states[i]))
+					out.add(tr.label() + "->" + Arrays.asList(states).indexOf(tr.end()));
+				for (Transition<String> tr : actual.delta(built[i]))
+					builtOut.add(tr.label() + "->" + Arrays.asList(built).indexOf(tr.end()));
+				assertEquals(out, builtOut);
+			}
+			assertTrue(equivalent.test(expected, actual));
+		}
+	}
+
 	public void setUp() {
 		a = new Automaton<String, Transition<String>, TransitionBuilder<String>>();
 		a.setBuilder(new TransitionBuilder<String>());
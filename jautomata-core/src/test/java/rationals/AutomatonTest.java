@@ -176,4 +176,33 @@ public class AutomatonTest extends TestCase {
 		exp = Arrays.asList(new String[] {  "a", "b","c", "b", "c" });
 		assertTrue("Automaton does accept 'abcbc'",!t.accept(exp));
     }
+
+    public void testDeltaFromAndToState() throws NoSuchStateException {
+        automaton.addTransition(new Transition<>(ss[0],"c",ss[1]));
+        Set<Transition<String>> exp = new HashSet<>();
+        exp.add(new Transition<>(ss[0],"b",ss[1]));
+        exp.add(new Transition<>(ss[0],"c",ss[1]));
+        assertEquals(exp, automaton.deltaFrom(ss[0], ss[1]));
+        assertTrue(automaton.deltaFrom(ss[0], ss[3]).isEmpty());
+        exp.add(new Transition<>(ss[0],"a",ss[0]));
+        assertEquals(exp, automaton.delta(ss[0]));
+        exp.clear();
+        exp.add(new Transition<>(ss[1],"b",ss[0]));
+        exp.add(new Transition<>(ss[1],"c",ss[0]));
+        exp.add(new Transition<>(ss[1],"a",ss[2]));
+        assertEquals(exp, automaton.deltaMinusOne(ss[1]));
+    }
+
+    public void testDeltaFromAfterProjection() {
+        Set<String> alph = new HashSet<>();
+        alph.add("a");
+        automaton.projectOn(alph);
+        Set<Transition<String>> exp = new HashSet<>();
+        exp.add(new Transition<String>(ss[0],null,ss[1]));
+        assertEquals(exp, automaton.deltaFrom(ss[0], ss[1]));
+        exp.clear();
+        exp.add(new Transition<String>(ss[1],null,ss[0]));
+        exp.add(new Transition<>(ss[1],"a",ss[2]));
+        assertEquals(exp, automaton.deltaMinusOne(ss[1]));
+    }
 }
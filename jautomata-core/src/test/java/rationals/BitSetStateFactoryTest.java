@@ -0,0 +1,92 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import rationals.transformations.ToDFA;
+
+public class BitSetStateFactoryTest extends StateFactoryTest {
+
+    public BitSetStateFactoryTest(String arg0) {
+        super(arg0, new BitSetStateFactory<>());
+    }
+
+    public void testWordWiseEqualsAndHashCode() {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>(new BitSetStateFactory<String, Transition<String>, TransitionBuilder<String>>());
+        Set<State> s1 = a.getStateFactory().stateSet();
+        Set<State> s2 = a.getStateFactory().stateSet();
+        Set<State> plain = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            State st = a.addState(false, false);
+            if (i % 3 == 0) {
+                s1.add(st);
+                plain.add(st);
+            }
+        }
+        /* insert in reverse order */
+        Object[] sts = plain.toArray();
+        for (int i = sts.length - 1; i >= 0; i--)
+            s2.add((State) sts[i]);
+        assertEquals(s1, s2);
+        assertEquals(s1.hashCode(), s2.hashCode());
+        assertEquals(plain, s1);
+        assertEquals(s1, plain);
+        s2.remove(sts[0]);
+        assertFalse(s1.equals(s2));
+        assertEquals(plain.size() - 1, s2.size());
+    }
+
+    public void testIteratorRemove() {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>(new BitSetStateFactory<String, Transition<String>, TransitionBuilder<String>>());
+        for (int i = 0; i < 100; i++)
+            a.addState(i % 2 == 0, false);
+        Set<State> s = a.getStateFactory().stateSet(a.states());
+        for (Iterator<State> it = s.iterator(); it.hasNext();)
+            if (it.next().isInitial())
+                it.remove();
+        assertEquals(50, s.size());
+        for (State st : s)
+            assertFalse(st.isInitial());
+    }
+
+    public void testDeterminizationIsUnchanged() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> bits = new Automaton<>(new BitSetStateFactory<String, Transition<String>, TransitionBuilder<String>>());
+        Automaton<String, Transition<String>, TransitionBuilder<String>> hash = new Automaton<>();
+        State[] bs = new State[4];
+        State[] hs = new State[4];
+        for (int i = 0; i < 4; i++) {
+            bs[i] = bits.addState(i == 0, i == 3);
+            hs[i] = hash.addState(i == 0, i == 3);
+        }
+        /* (a+b)*a(a+b)(a+b) */
+        int[][] trs = { { 0, 0, 0 }, { 0, 1, 0 }, { 0, 0, 1 }, { 1, 0, 2 }, { 1, 1, 2 }, { 2, 0, 3 }, { 2, 1, 3 } };
+        String[] lbls = { "a", "b" };
+        for (int[] t : trs) {
+            bits.addTransition(new Transition<>(bs[t[0]], lbls[t[1]], bs[t[2]]));
+            hash.addTransition(new Transition<>(hs[t[0]], lbls[t[1]], hs[t[2]]));
+        }
+        Automaton<String, Transition<String>, TransitionBuilder<String>> db = new ToDFA<String, Transition<String>, TransitionBuilder<String>>().transform(bits);
+        Automaton<String, Transition<String>, TransitionBuilder<String>> dh = new ToDFA<String, Transition<String>, TransitionBuilder<String>>().transform(hash);
+        assertEquals(8, db.states().size());
+        assertEquals(dh.states().size(), db.states().size());
+        assertEquals(dh.delta().size(), db.delta().size());
+        assertTrue(bits.clone().getStateFactory() instanceof BitSetStateFactory);
+    }
+}
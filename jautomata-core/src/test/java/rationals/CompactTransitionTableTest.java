@@ -0,0 +1,199 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+import rationals.transformations.ToDFA;
+
+public class CompactTransitionTableTest extends TestCase {
+
+    private static final String[] ALPH = { "a", "b", "c", null };
+
+    private Automaton<String, Transition<String>, TransitionBuilder<String>> compact;
+
+    private Automaton<String, Transition<String>, TransitionBuilder<String>> map;
+
+    /* map from states of compact to states of map */
+    private Map<State, State> iso;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        compact = new Automaton<>(null, new CompactTransitionTable<String>());
+        map = new Automaton<>();
+        iso = new HashMap<>();
+        Random rand = new Random(42);
+        List<State> cs = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            boolean init = i == 0;
+            boolean term = rand.nextInt(10) == 0;
+            State s = compact.addState(init, term);
+            iso.put(s, map.addState(init, term));
+            cs.add(s);
+        }
+        /* enough transitions to trigger several packings */
+        for (int i = 0; i < 5000; i++) {
+            State from = cs.get(rand.nextInt(cs.size()));
+            State to = cs.get(rand.nextInt(cs.size()));
+            String l = ALPH[rand.nextInt(ALPH.length)];
+            compact.addTransition(new Transition<>(from, l, to));
+            map.addTransition(new Transition<>(iso.get(from), l, iso.get(to)));
+        }
+    }
+
+    private Set<String> image(Set<Transition<String>> trs) {
+        Set<String> ret = new HashSet<>();
+        for (Transition<String> tr : trs)
+            ret.add(iso.get(tr.start()) + "," + tr.label() + "," + iso.get(tr.end()));
+        return ret;
+    }
+
+    private Set<String> strings(Set<Transition<String>> trs) {
+        Set<String> ret = new HashSet<>();
+        for (Transition<String> tr : trs)
+            ret.add(tr.start() + "," + tr.label() + "," + tr.end());
+        return ret;
+    }
+
+    public void testSameTransitionsThanMapTable() {
+        assertEquals(map.delta().size(), compact.delta().size());
+        assertEquals(strings(map.delta()), image(compact.delta()));
+        for (State s : compact.states()) {
+            State ms = iso.get(s);
+            assertEquals(strings(map.delta(ms)), image(compact.delta(s)));
+            assertEquals(strings(map.deltaMinusOne(ms)), image(compact.deltaMinusOne(s)));
+            for (String l : ALPH) {
+                assertEquals(strings(map.delta(ms, l)), image(compact.delta(s, l)));
+                assertEquals(strings(map.deltaMinusOne(ms, l)), image(compact.deltaMinusOne(s, l)));
+            }
+        }
+    }
+
+    public void testDeltaFrom() throws NoSuchStateException {
+        List<State> cs = new ArrayList<>(compact.states());
+        /* some transitions pending, some packed */
+        Random rand = new Random(3);
+        for (int i = 0; i < 100; i++) {
+            State from = cs.get(rand.nextInt(cs.size()));
+            State to = cs.get(rand.nextInt(cs.size()));
+            compact.addTransition(new Transition<>(from, "d", to));
+            map.addTransition(new Transition<>(iso.get(from), "d", iso.get(to)));
+        }
+        for (State s : cs) {
+            Set<State> tos = new HashSet<>();
+            for (Transition<String> tr : compact.delta(s))
+                tos.add(tr.end());
+            tos.add(cs.get(rand.nextInt(cs.size())));
+            for (State t : tos)
+                assertEquals(strings(map.deltaFrom(iso.get(s), iso.get(t))), image(compact.deltaFrom(s, t)));
+        }
+        State other = new Automaton<String, Transition<String>, TransitionBuilder<String>>().addState(false, false);
+        assertTrue(compact.deltaFrom(cs.get(0), other).isEmpty());
+    }
+
+    public void testDuplicatesAreIgnored() throws NoSuchStateException {
+        int n = compact.delta().size();
+        for (Transition<String> tr : compact.delta())
+            compact.addTransition(new Transition<>(tr.start(), tr.label(), tr.end()));
+        assertEquals(n, compact.delta().size());
+    }
+
+    public void testSameLanguageThanMapTable() {
+        Random rand = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            List<String> word = new ArrayList<>();
+            int ln = rand.nextInt(8);
+            for (int j = 0; j < ln; j++)
+                word.add(ALPH[rand.nextInt(ALPH.length - 1)]);
+            assertEquals(map.accept(word), compact.accept(word));
+        }
+        assertEquals(map.accessibleStates().size(), compact.accessibleStates().size());
+        assertEquals(map.coAccessibleStates().size(), compact.coAccessibleStates().size());
+    }
+
+    public void testCloneKeepsTable() {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> cl = compact.clone();
+        assertEquals(compact.delta().size(), cl.delta().size());
+        Automaton<String, Transition<String>, TransitionBuilder<String>> dfa = new ToDFA<String, Transition<String>, TransitionBuilder<String>>().transform(cl);
+        assertTrue(dfa.accept(Arrays.asList("a", "b")) == compact.accept(Arrays.asList("a", "b")));
+    }
+
+    public void testProjectOn() {
+        Set<String> alph = new HashSet<>(Arrays.asList("a", "b"));
+        compact.projectOn(alph);
+        map.projectOn(alph);
+        assertEquals(strings(map.delta()), image(compact.delta()));
+        assertTrue(compact.delta(compact.initials().iterator().next(), "c").isEmpty());
+    }
+
+    /* relabels packed and pending transitions, merging some with existing ones */
+    public void testRelabel() {
+        CompactTransitionTable<String> table = new CompactTransitionTable<>();
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        State[] sts = new State[40];
+        for (int i = 0; i < sts.length; i++)
+            sts[i] = a.addState(false, false);
+        Random rand = new Random(11);
+        List<Transition<String>> trs = new ArrayList<>();
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 3000; i++) {
+            Transition<String> tr = new Transition<>(sts[rand.nextInt(sts.length)], ALPH[rand.nextInt(ALPH.length)], sts[rand.nextInt(sts.length)]);
+            if (table.add(tr))
+                trs.add(tr);
+            expected.add(tr.start() + "," + tr.label() + "," + tr.end());
+        }
+        for (int i = 0; i < 500; i++) {
+            Transition<String> tr = trs.get(rand.nextInt(trs.size()));
+            String l = ALPH[rand.nextInt(ALPH.length)];
+            table.relabel(tr, l);
+            if (expected.remove(tr.start() + "," + tr.label() + "," + tr.end()))
+                expected.add(tr.start() + "," + l + "," + tr.end());
+            tr.setLabel(l);
+        }
+        assertEquals(expected, strings(table.delta()));
+        assertEquals(expected.size(), table.size());
+        Set<String> in = new HashSet<>(), out = new HashSet<>();
+        for (State st : sts)
+            for (String l : ALPH) {
+                out.addAll(strings(table.delta(st, l)));
+                for (Transition<String> tr : table.deltaMinusOne(st, l))
+                    in.add(tr.end() + "," + tr.label() + "," + tr.start());
+            }
+        assertEquals(expected, out);
+        assertEquals(expected, in);
+    }
+
+    public void testUpdateTransitionWith() throws NoSuchStateException {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>(null, new CompactTransitionTable<String>());
+        State s1 = a.addState(true, false);
+        State s2 = a.addState(false, true);
+        Transition<String> tr = new Transition<>(s1, "a", s2);
+        a.addTransition(tr);
+        a.updateTransitionWith(tr, "b");
+        assertTrue(a.accept(Arrays.asList("b")));
+        assertFalse(a.accept(Arrays.asList("a")));
+        assertEquals(new HashSet<>(Arrays.asList("b")), a.alphabet());
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import rationals.converters.Expression;
+
+public class CompiledDfaTest extends TestCase {
+
+    private Automaton<String, Transition<String>, TransitionBuilder<String>> parse(String expr) throws Exception {
+        return new Expression<Transition<String>, TransitionBuilder<String>>().fromString(expr);
+    }
+
+    public void testAcceptsSameWordsAsAutomaton() throws Exception {
+        String[] exprs = { "a(bb)*e+(ab)*c", "(a+b)*abb", "a*b*c*", "(ab+ba)*(c+1)" };
+        String[] letters = { "a", "b", "c", "e", "z" };
+        Random rand = new Random(42);
+        for (String expr : exprs) {
+            Automaton<String, Transition<String>, TransitionBuilder<String>> a = parse(expr);
+            CompiledDfa<String> dfa = CompiledDfa.compile(a);
+            for (int i = 0; i < 2000; i++) {
+                List<String> w = new ArrayList<>();
+                int n = rand.nextInt(10);
+                for (int j = 0; j < n; j++)
+                    w.add(letters[rand.nextInt(letters.length)]);
+                boolean expected = a.accept(w);
+                assertEquals(expr + " " + w, expected, dfa.accept(w));
+                assertEquals(expr + " " + w, expected, dfa.accept(new LinkedList<>(w)));
+                assertEquals(expr + " " + w, expected, dfa.accept(dfa.encode(w)));
+            }
+        }
+    }
+
+    public void testDeterministicAutomatonIsNotDeterminized() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        State s0 = a.addState(true, false);
+        State s1 = a.addState(false, true);
+        State s2 = a.addState(false, false);
+        a.addTransition(new Transition<>(s0, "a", s1));
+        a.addTransition(new Transition<>(s1, "b", s0));
+        a.addTransition(new Transition<>(s1, "c", s2));
+        CompiledDfa<String> dfa = CompiledDfa.compile(a);
+        assertEquals(3, dfa.stateCount());
+        assertEquals(3, dfa.labelCount());
+        assertSame(a.symbols(), dfa.symbols());
+        assertEquals(0, dfa.start());
+        assertTrue(dfa.isAccepting(dfa.step(0, a.symbols().indexOf("a"))));
+        assertEquals(-1, dfa.step(0, a.symbols().indexOf("b")));
+        assertEquals(-1, dfa.step(-1, a.symbols().indexOf("a")));
+        assertTrue(dfa.accept(Arrays.asList("a", "b", "a")));
+        assertFalse(dfa.accept(Arrays.asList("a", "c")));
+    }
+
+    public void testEmptyAndEpsilon() throws Exception {
+        CompiledDfa<String> empty = CompiledDfa.compile(new Automaton<String, Transition<String>, TransitionBuilder<String>>());
+        assertEquals(-1, empty.start());
+        assertFalse(empty.accept(new int[0]));
+        assertFalse(empty.accept(Arrays.asList("a")));
+        CompiledDfa<String> eps = CompiledDfa.compile(Automaton.<String, Transition<String>, TransitionBuilder<String>> epsilonAutomaton());
+        assertTrue(eps.accept(new int[0]));
+        assertTrue(eps.accept(new ArrayList<String>()));
+        assertFalse(eps.accept(Arrays.asList((String) null)));
+    }
+
+    public void testUnknownLetters() throws Exception {
+        CompiledDfa<String> dfa = CompiledDfa.compile(parse("a*"));
+        assertTrue(dfa.accept(Arrays.asList("a", "a")));
+        assertFalse(dfa.accept(Arrays.asList("a", "q")));
+        assertFalse(dfa.accept(new int[] { -1 }));
+        assertFalse(dfa.accept(new int[] { 1000 }));
+    }
+
+    public void testAcceptAllMatchesAccept() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = parse("(a+b)*abb+c(ab)*");
+        CompiledDfa<String> dfa = CompiledDfa.compile(a);
+        String[] letters = { "a", "b", "c", "z" };
+        Random rand = new Random(11);
+        /* spans several leaves, with shared prefixes and duplicates */
+        List<List<String>> words = new LinkedList<>();
+        int[][] encoded = new int[10000][];
+        for (int i = 0; i < 10000; i++) {
+            List<String> w = new ArrayList<>();
+            if (i % 3 == 0)
+                w.addAll(Arrays.asList("a", "b", "a"));
+            int n = rand.nextInt(8);
+            for (int j = 0; j < n; j++)
+                w.add(letters[rand.nextInt(letters.length)]);
+            words.add(i % 7 == 0 ? new LinkedList<>(w) : w);
+            encoded[i] = dfa.encode(w);
+        }
+        java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+        try {
+            java.util.BitSet res = dfa.acceptAll(words, pool);
+            assertEquals(res, dfa.acceptAll(words));
+            assertEquals(res, dfa.acceptAll(encoded, pool));
+            int i = 0;
+            for (List<String> w : words)
+                assertEquals(w.toString(), a.accept(w), res.get(i++));
+            assertTrue(res.cardinality() > 0);
+            java.util.Collections.sort(words, new java.util.Comparator<List<String>>() {
+                public int compare(List<String> o1, List<String> o2) {
+                    return o1.toString().compareTo(o2.toString());
+                }
+            });
+            res = dfa.acceptAll(words, pool);
+            i = 0;
+            for (List<String> w : words)
+                assertEquals(w.toString(), a.accept(w), res.get(i++));
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(dfa.acceptAll(new ArrayList<List<String>>()).isEmpty());
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+import rationals.properties.Bisimulation;
+import rationals.properties.LanguageEquivalent;
+import rationals.transformations.Pruner;
+import rationals.transformations.Union;
+
+public class DawgBuilderTest extends TestCase {
+
+    private static List<String> word(String s) {
+        List<String> ret = new ArrayList<>();
+        for (char c : s.toCharArray())
+            ret.add(String.valueOf(c));
+        return ret;
+    }
+
+    private static List<List<String>> words(String... ss) {
+        List<List<String>> ret = new ArrayList<>();
+        for (String s : ss)
+            ret.add(word(s));
+        return ret;
+    }
+
+    private static List<List<String>> randomWords(Random random, int n, int maxLength, int nlabels) {
+        Set<String> set = new TreeSet<>();
+        while (set.size() < n) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(maxLength + 1);
+            for (int i = 0; i < length; i++)
+                sb.append((char) ('a' + random.nextInt(nlabels)));
+            set.add(sb.toString());
+        }
+        List<List<String>> ret = new ArrayList<>();
+        for (String s : set)
+            ret.add(word(s));
+        return ret;
+    }
+
+    private static Automaton<String, Transition<String>, TransitionBuilder<String>> union(List<List<String>> words) {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> ret = new Automaton<>();
+        for (List<String> w : words)
+            ret = new Union<String, Transition<String>, TransitionBuilder<String>>().transform(ret,
+                    Automaton.<String, Transition<String>, TransitionBuilder<String>> labelAutomaton(w));
+        return ret;
+    }
+
+    private static void assertMinimal(Automaton<String, Transition<String>, TransitionBuilder<String>> a) {
+        assertEquals(1, a.initials().size());
+        for (State s : a.states())
+            for (String l : a.alphabet())
+                assertTrue(a.delta(s, l).size() <= 1);
+        assertEquals(a.states().size(), new Pruner<String, Transition<String>, TransitionBuilder<String>>()
+                .transform(a).states().size());
+        Bisimulation<String, Transition<String>, TransitionBuilder<String>> bisim = new Bisimulation<>(a, a);
+        List<State> states = new ArrayList<>(a.states());
+        for (int i = 0; i < states.size(); i++)
+            for (int j = i + 1; j < states.size(); j++)
+                assertFalse(bisim.equivalence(states.get(i), states.get(j)));
+    }
+
+    public void testSharedSuffixes() {
+        List<List<String>> ws = words("tap", "taps", "top", "tops");
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = DawgBuilder.of(ws.iterator(), true);
+        /* t, then a or o to the same state, p, then s */
+        assertEquals(5, a.states().size());
+        assertEquals(5, a.delta().size());
+        for (List<String> w : ws)
+            assertTrue(a.accept(w));
+        assertFalse(a.accept(word("ta")));
+        assertFalse(a.accept(word("tapss")));
+        assertMinimal(a);
+    }
+
+    public void testEmptyWordAndEmptyLanguage() {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = DawgBuilder.of(words("", "a").iterator(),
+                true);
+        assertTrue(a.accept(word("")));
+        assertTrue(a.accept(word("a")));
+        assertEquals(2, a.states().size());
+        a = DawgBuilder.of(Collections.<List<String>> emptyList().iterator(), true);
+        assertEquals(1, a.states().size());
+        assertTrue(a.delta().isEmpty());
+        assertFalse(a.accept(word("")));
+    }
+
+    public void testWordsSharingPrefixMayComeInAnyOrder() {
+        /* prefixes after their extensions, and labels in no particular order */
+        List<List<String>> ws = words("cab", "ca", "c", "bac", "ba", "b", "a");
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = DawgBuilder.of(ws.iterator(), true);
+        assertTrue(new LanguageEquivalent<String, Transition<String>, TransitionBuilder<String>>().test(a, union(ws)));
+        assertMinimal(a);
+    }
+
+    public void testUnsortedWords() {
+        List<List<String>> ws = words("ab", "b", "ac", "ab");
+        try {
+            DawgBuilder.of(ws.iterator(), true);
+            fail("words are not sorted");
+        } catch (IllegalArgumentException e) {
+        }
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = DawgBuilder.of(ws.iterator(), false);
+        assertTrue(new LanguageEquivalent<String, Transition<String>, TransitionBuilder<String>>().test(a, union(ws)));
+        assertMinimal(a);
+    }
+
+    public void testNullLabel() {
+        try {
+            new DawgBuilder<String>().add(Arrays.asList("a", null));
+            fail("null labels are not letters");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    public void testRandomWords() {
+        Random random = new Random(25);
+        for (int round = 0; round < 50; round++) {
+            List<List<String>> ws = randomWords(random, 1 + random.nextInt(30), 6, 2 + random.nextInt(2));
+            Automaton<String, Transition<String>, TransitionBuilder<String>> sorted = DawgBuilder.of(ws.iterator(),
+                    true);
+            assertMinimal(sorted);
+            assertTrue(new LanguageEquivalent<String, Transition<String>, TransitionBuilder<String>>().test(sorted,
+                    union(ws)));
+            Collections.shuffle(ws, random);
+            Automaton<String, Transition<String>, TransitionBuilder<String>> unsorted = DawgBuilder.of(ws.iterator(),
+                    false);
+            assertEquals(sorted.states().size(), unsorted.states().size());
+            assertEquals(sorted.delta().size(), unsorted.delta().size());
+            assertTrue(new LanguageEquivalent<String, Transition<String>, TransitionBuilder<String>>().test(sorted,
+                    unsorted));
+        }
+    }
+
+    public void testManyWords() {
+        List<List<String>> ws = randomWords(new Random(7), 10000, 12, 4);
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = DawgBuilder.of(ws.iterator(), true);
+        for (int i = 0; i < ws.size(); i += 97)
+            assertTrue(a.accept(ws.get(i)));
+        assertTrue(a.states().size() < ws.size());
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+public class EpsilonClosureTest extends TestCase {
+
+    private Automaton<String, Transition<String>, TransitionBuilder<String>> a;
+
+    private State[] states;
+
+    @Override
+    protected void setUp() throws Exception {
+        a = new Automaton<>();
+        states = new State[4];
+        for (int i = 0; i < 4; i++)
+            states[i] = a.addState(i == 0, i == 3);
+        a.addTransition(new Transition<String>(states[0], null, states[1]));
+        a.addTransition(new Transition<String>(states[1], "a", states[2]));
+        a.addTransition(new Transition<String>(states[2], "b", states[3]));
+    }
+
+    private Set<State> closure(State... s) {
+        Set<State> set = new HashSet<>();
+        Collections.addAll(set, s);
+        return new HashSet<>(a.epsilonClosure(set));
+    }
+
+    private Set<State> set(State... s) {
+        Set<State> set = new HashSet<>();
+        Collections.addAll(set, s);
+        return set;
+    }
+
+    public void testInvalidation() throws NoSuchStateException {
+        EpsilonClosure<String> index = a.epsilonClosures();
+        assertTrue(index.hasEpsilonTransitions());
+        assertEquals(set(states[0], states[1]), closure(states[0]));
+        assertEquals(set(states[2]), closure(states[2]));
+        /* labelled transitions and new states keep the index */
+        State s4 = a.addState(false, false);
+        a.addTransition(new Transition<String>(states[3], "c", s4));
+        assertSame(index, a.epsilonClosures());
+        assertEquals(set(s4), closure(s4));
+        /* compiled automata number new states after the indexed ones */
+        CompiledNfa<String> compiled = CompiledNfa.compile(a);
+        assertSame(index, a.epsilonClosures());
+        assertEquals(4, compiled.id(s4));
+        assertTrue(Arrays.equals(new int[] { 4 }, compiled.closureOf(4)));
+        long[] bits = new long[1];
+        compiled.addClosure(4, bits);
+        assertEquals(1L << 4, bits[0]);
+        int q0 = compiled.id(states[0]);
+        assertEquals(2, compiled.closureOf(q0).length);
+        a.addTransition(new Transition<String>(states[1], null, states[2]));
+        assertNotSame(index, a.epsilonClosures());
+        assertEquals(set(states[0], states[1], states[2]), closure(states[0]));
+        /* projection turns b and c into epsilon transitions */
+        index = a.epsilonClosures();
+        a.projectOn(Collections.singleton("a"));
+        assertNotSame(index, a.epsilonClosures());
+        assertEquals(set(states[0], states[1], states[2], states[3], s4), closure(states[0]));
+        assertTrue(a.accept(Collections.<String> emptyList()));
+    }
+
+    public void testLongChain() throws NoSuchStateException {
+        int n = 30000;
+        a = new Automaton<>();
+        State[] chain = new State[n];
+        for (int i = 0; i < n; i++)
+            chain[i] = a.addState(i == 0, i == n - 1);
+        for (int i = 0; i < n - 1; i++)
+            a.addTransition(new Transition<String>(chain[i], null, chain[i + 1]));
+        a.addTransition(new Transition<String>(chain[n - 1], null, chain[n / 2]));
+        assertEquals(n, a.epsilonClosure(a.initials()).size());
+        assertEquals(n - n / 2, closure(chain[n - 1]).size());
+        assertTrue(a.accept(Collections.<String> emptyList()));
+    }
+
+    public void testRandomAutomata() throws NoSuchStateException {
+        Random random = new Random(22);
+        for (int round = 0; round < 200; round++) {
+            int n = 1 + random.nextInt(10);
+            a = new Automaton<>();
+            states = new State[n];
+            for (int i = 0; i < n; i++)
+                states[i] = a.addState(i == 0, false);
+            boolean[][] eps = new boolean[n][n];
+            for (int i = 0; i < n; i++)
+                eps[i][i] = true;
+            int m = random.nextInt(2 * n + 1);
+            for (int i = 0; i < m; i++) {
+                int p = random.nextInt(n), q = random.nextInt(n);
+                boolean epsilon = random.nextBoolean();
+                a.addTransition(new Transition<String>(states[p], epsilon ? null : "a", states[q]));
+                eps[p][q] |= epsilon;
+            }
+            for (int k = 0; k < n; k++)
+                for (int p = 0; p < n; p++)
+                    for (int q = 0; q < n; q++)
+                        eps[p][q] |= eps[p][k] && eps[k][q];
+            EpsilonClosure<String> index = a.epsilonClosures();
+            int words = (n + 63) / 64;
+            /* visit states in random order so that closures are reused */
+            for (int i = 0; i < 2 * n; i++) {
+                int p = random.nextInt(n), r = random.nextInt(n);
+                Set<State> expected = new HashSet<>();
+                for (int q = 0; q < n; q++)
+                    if (eps[p][q] || eps[r][q])
+                        expected.add(states[q]);
+                assertEquals(expected, closure(states[p], states[r]));
+                long[] bits = new long[words];
+                index.addClosure(index.id(states[p]), bits);
+                int[] ids = new int[n];
+                int k = 0;
+                for (int q = 0; q < n; q++) {
+                    int id = index.id(states[q]);
+                    assertEquals(eps[p][q], (bits[id >>> 6] & (1L << id)) != 0);
+                    if (eps[p][q])
+                        ids[k++] = id;
+                }
+                ids = Arrays.copyOf(ids, k);
+                Arrays.sort(ids);
+                assertTrue(Arrays.equals(ids, index.closureOf(index.id(states[p]))));
+            }
+        }
+    }
+}
@@ -17,11 +17,15 @@
 package rationals;
 
 import java.util.Iterator;
+import java.util.Random;
 import java.util.Set;
 
 import junit.framework.TestCase;
+import rationals.properties.LanguageEquivalent;
+import rationals.transformations.EpsilonRemover;
 import rationals.transformations.EpsilonTransitionRemover;
 import rationals.transformations.Reducer;
+import rationals.transformations.ToCanonicalRFSA;
 
 /**
  * @version $Id: EpsilonRemoverTest.java 2 2006-08-24 14:41:48Z oqube $
@@ -92,6 +96,50 @@ public class EpsilonRemoverTest extends TestCase {
         System.err.println(b);
     }
 
+
+    public void testNondeterministicRemoval() throws NoSuchStateException {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        State s1 = a.addState(true, false);
+        State s2 = a.addState(false, false);
+        State s3 = a.addState(false, true);
+        a.addTransition(new Transition<String>(s1, null, s2));
+        a.addTransition(new Transition<String>(s1, "a", s2));
+        a.addTransition(new Transition<String>(s1, "a", s3));
+        a.addTransition(new Transition<String>(s2, "b", s3));
+        a.addTransition(new Transition<String>(s3, null, s1));
+        Automaton<String, Transition<String>, TransitionBuilder<String>> b = new EpsilonRemover<String, Transition<String>, TransitionBuilder<String>>().transform(a);
+        assertNoEpsilon(b.delta());
+        assertEquals(3, b.states().size());
+        assertEquals(1, b.initials().size());
+        assertEquals(1, b.terminals().size());
+        /* s1 keeps its two a transitions and gets the b transition of s2 */
+        assertEquals(3, b.delta(b.initials().iterator().next()).size());
+        assertTrue(new LanguageEquivalent<String, Transition<String>, TransitionBuilder<String>>().test(a, b));
+    }
+
+    public void testRandomAutomata() throws NoSuchStateException {
+        String[] labels = { null, "a", "b" };
+        Random random = new Random(23);
+        LanguageEquivalent<String, Transition<String>, TransitionBuilder<String>> equivalent = new LanguageEquivalent<>();
+        for (int round = 0; round < 200; round++) {
+            int n = 1 + random.nextInt(8);
+            Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+            State[] states = new State[n];
+            for (int i = 0; i < n; i++)
+                states[i] = a.addState(random.nextInt(3) == 0, random.nextInt(3) == 0);
+            int m = random.nextInt(3 * n);
+            for (int i = 0; i < m; i++)
+                a.addTransition(new Transition<String>(states[random.nextInt(n)], labels[random.nextInt(3)],
+                        states[random.nextInt(n)]));
+            Automaton<String, Transition<String>, TransitionBuilder<String>> b = new EpsilonRemover<String, Transition<String>, TransitionBuilder<String>>().transform(a);
+            assertNoEpsilon(b.delta());
+            assertEquals(n, b.states().size());
+            assertEquals(a.initials().size(), b.initials().size());
+            assertTrue(b.delta().size() <= n * m);
+            assertTrue(equivalent.test(a, b));
+            assertTrue(equivalent.test(a, new ToCanonicalRFSA<String, Transition<String>, TransitionBuilder<String>>().transform(a)));
+        }
+    }
     
     /**
      * @param s
@@ -0,0 +1,184 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+import rationals.converters.Expression;
+import rationals.properties.ModelCheck;
+import rationals.transformations.Complement;
+import rationals.transformations.Concatenation;
+import rationals.transformations.EpsilonTransitionRemover;
+import rationals.transformations.Normalizer;
+import rationals.transformations.PrefixClosure;
+import rationals.transformations.Product;
+import rationals.transformations.Pruner;
+import rationals.transformations.Reducer;
+import rationals.transformations.Reverser;
+import rationals.transformations.Star;
+import rationals.transformations.ToDFA;
+import rationals.transformations.UnaryTransformation;
+import rationals.transformations.Union;
+
+public class FrozenAutomatonTest extends TestCase {
+
+    private Automaton<String, Transition<String>, TransitionBuilder<String>> automaton;
+
+    private FrozenAutomaton<String, Transition<String>, TransitionBuilder<String>> frozen;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        automaton = new Expression<Transition<String>, TransitionBuilder<String>>().fromString("a(bb)*e+(ab)*c");
+        frozen = automaton.freeze();
+    }
+
+    public void testSameLanguage() {
+        assertTrue(equivalent(automaton, frozen));
+        assertEquals(automaton.states().size(), frozen.states().size());
+        assertEquals(automaton.delta().size(), frozen.delta().size());
+        assertEquals(automaton.alphabet(), frozen.alphabet());
+        assertSame(automaton.symbols(), frozen.symbols());
+        assertSame(frozen, frozen.freeze());
+    }
+
+    public void testMutatorsFailFast() {
+        State s = frozen.initials().iterator().next();
+        try {
+            frozen.addState(false, false);
+            fail("should not add state");
+        } catch (UnsupportedOperationException e) {
+        }
+        try {
+            frozen.addTransition(new Transition<>(s, "z", s));
+            fail("should not add transition");
+        } catch (UnsupportedOperationException e) {
+        } catch (NoSuchStateException e) {
+            fail(e.getMessage());
+        }
+        try {
+            frozen.projectOn(new HashSet<String>());
+            fail("should not project");
+        } catch (UnsupportedOperationException e) {
+        }
+        try {
+            frozen.states().clear();
+            fail("should not clear states");
+        } catch (UnsupportedOperationException e) {
+        }
+        try {
+            s.setInitial(false);
+            fail("should not change initial states");
+        } catch (UnsupportedOperationException e) {
+        }
+        assertTrue(s.isInitial());
+        assertEquals(1, frozen.initials().size());
+    }
+
+    public void testStateLooksUpLabels() throws NoSuchStateException {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        State s = a.state("s");
+        s.setInitial(true);
+        State t = a.state("t");
+        t.setTerminal(true);
+        a.addTransition(new Transition<>(s, "a", t));
+        FrozenAutomaton<String, Transition<String>, TransitionBuilder<String>> f = a.freeze();
+        State fs = f.state("s");
+        assertTrue(fs.isInitial());
+        assertTrue(f.states().contains(fs));
+        assertSame(fs, f.state("s"));
+        assertTrue(f.state("t").isTerminal());
+        assertEquals(2, f.states().size());
+        try {
+            f.state("u");
+            fail("should not create state");
+        } catch (UnsupportedOperationException e) {
+        }
+        assertEquals(2, f.states().size());
+    }
+
+    public void testSnapshotIsIndependent() throws Exception {
+        State s = automaton.addState(true, true);
+        automaton.addTransition(new Transition<>(s, "z", s));
+        assertTrue(automaton.accept(Arrays.asList("z", "z")));
+        assertFalse(frozen.accept(Arrays.asList("z", "z")));
+        assertFalse(frozen.alphabet().contains("z"));
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testTransformationsAcceptSnapshot() {
+        List<UnaryTransformation<String, Transition<String>, TransitionBuilder<String>>> ts = Arrays.<UnaryTransformation<String, Transition<String>, TransitionBuilder<String>>> asList(
+                new ToDFA<String, Transition<String>, TransitionBuilder<String>>(),
+                new Reducer<String, Transition<String>, TransitionBuilder<String>>(),
+                new Pruner<String, Transition<String>, TransitionBuilder<String>>(),
+                new Normalizer<String, Transition<String>, TransitionBuilder<String>>(),
+                new Star<String, Transition<String>, TransitionBuilder<String>>(),
+                new Reverser<String, Transition<String>, TransitionBuilder<String>>(),
+                new PrefixClosure<String, Transition<String>, TransitionBuilder<String>>(),
+                new EpsilonTransitionRemover<String, Transition<String>, TransitionBuilder<String>>(),
+                new Complement<String, Transition<String>, TransitionBuilder<String>>());
+        for (UnaryTransformation<String, Transition<String>, TransitionBuilder<String>> t : ts)
+            assertTrue(t.getClass().getName(), equivalent(t.transform(automaton), t.transform(frozen)));
+        assertTrue(equivalent(new Product<String, Transition<String>, TransitionBuilder<String>>().transform(automaton, automaton),
+                new Product<String, Transition<String>, TransitionBuilder<String>>().transform(frozen, frozen)));
+        assertTrue(equivalent(new Union<String, Transition<String>, TransitionBuilder<String>>().transform(automaton, automaton),
+                new Union<String, Transition<String>, TransitionBuilder<String>>().transform(frozen, frozen)));
+        assertTrue(equivalent(new Concatenation<String, Transition<String>, TransitionBuilder<String>>().transform(automaton, automaton),
+                new Concatenation<String, Transition<String>, TransitionBuilder<String>>().transform(frozen, frozen)));
+    }
+
+    public void testConcurrentAccept() throws Exception {
+        final List<List<String>> words = new ArrayList<>();
+        final List<Boolean> expected = new ArrayList<>();
+        String[] letters = { "a", "b", "c", "e" };
+        java.util.Random rand = new java.util.Random(7);
+        for (int i = 0; i < 2000; i++) {
+            List<String> w = new ArrayList<>();
+            int n = rand.nextInt(8);
+            for (int j = 0; j < n; j++)
+                w.add(letters[rand.nextInt(letters.length)]);
+            words.add(w);
+            expected.add(automaton.accept(w));
+        }
+        ExecutorService exec = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> res = new ArrayList<>();
+        for (int t = 0; t < 8; t++)
+            res.add(exec.submit(new Callable<Boolean>() {
+                public Boolean call() {
+                    for (int i = 0; i < words.size(); i++)
+                        if (frozen.accept(words.get(i)) != expected.get(i))
+                            return false;
+                    return true;
+                }
+            }));
+        exec.shutdown();
+        for (Future<Boolean> f : res)
+            assertTrue(f.get());
+    }
+
+    private boolean equivalent(Automaton<String, Transition<String>, TransitionBuilder<String>> a, Automaton<String, Transition<String>, TransitionBuilder<String>> b) {
+        ModelCheck<String, Transition<String>, TransitionBuilder<String>> mc = new ModelCheck<>();
+        return mc.test(a, b) && mc.test(b, a);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class LazyDfaTest extends TestCase {
+
+    private List<Integer> randomWord(Random rand, int nlabels, int max) {
+        List<Integer> w = new ArrayList<>();
+        for (int j = rand.nextInt(max); j > 0; j--)
+            w.add(rand.nextInt(nlabels + 1));
+        return w;
+    }
+
+    /* compares with a run for all capacities, including thrashing ones */
+    public void testAgreesWithRun() throws Exception {
+        Random rand = new Random(14);
+        for (int k = 0; k < 20; k++) {
+            Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = RandomAutomata.randomNfa(rand, 2 + rand.nextInt(20), 3, 2);
+            CompiledNfa<Integer> nfa = CompiledNfa.compile(a);
+            for (int capacity : new int[] { 2, 3, 16, 1000 }) {
+                LazyDfa<Integer> lazy = new LazyDfa<>(nfa, capacity);
+                Run<Integer> run = new Run<>(nfa, a.initials());
+                for (int i = 0; i < 200; i++) {
+                    List<Integer> w = randomWord(rand, 3, 30);
+                    run.reset();
+                    run.feedAll(w.iterator());
+                    assertEquals(capacity + " " + w, run.isAccepting(), lazy.accept(w));
+                    assertEquals(run.isDead(), lazy.isDead());
+                    assertTrue(lazy.cachedStates() <= capacity);
+                }
+            }
+        }
+    }
+
+    public void testTableIsReused() throws Exception {
+        Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = RandomAutomata.randomNfa(new Random(3), 10, 2, 3);
+        LazyDfa<Integer> lazy = a.lazyDfa(1000);
+        List<Integer> w = randomWord(new Random(5), 2, 50);
+        boolean accepted = lazy.accept(w);
+        long misses = lazy.misses();
+        assertTrue(misses > 0);
+        assertEquals(lazy.length(), lazy.hits() + misses);
+        assertEquals(accepted, lazy.accept(w));
+        assertEquals(misses, lazy.misses());
+        assertEquals(0, lazy.flushes());
+        assertEquals(0, lazy.fallbacks());
+    }
+
+    public void testFlushAndFallback() throws Exception {
+        /* the n-th letter from the end is 0: 2^n deterministic states */
+        int n = 8;
+        Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = new Automaton<>();
+        State[] s = new State[n + 1];
+        for (int i = 0; i <= n; i++)
+            s[i] = a.addState(i == 0, i == n);
+        a.addTransition(new Transition<>(s[0], 0, s[0]));
+        a.addTransition(new Transition<>(s[0], 1, s[0]));
+        a.addTransition(new Transition<>(s[0], 0, s[1]));
+        for (int i = 1; i < n; i++) {
+            a.addTransition(new Transition<>(s[i], 0, s[i + 1]));
+            a.addTransition(new Transition<>(s[i], 1, s[i + 1]));
+        }
+        Random rand = new Random(7);
+        List<Integer> w = new ArrayList<>();
+        for (int i = 0; i < 10000; i++)
+            w.add(rand.nextInt(2));
+        boolean expected = w.get(w.size() - n) == 0;
+        /* large enough: no flush */
+        LazyDfa<Integer> lazy = a.lazyDfa(1 << (n + 1));
+        assertEquals(expected, lazy.accept(w));
+        assertEquals(0, lazy.flushes());
+        /* each block visits few states many times: flushes, but no fallback */
+        List<Integer> blocks = new ArrayList<>();
+        for (int b = 0; b < 2; b++) {
+            List<Integer> block = w.subList(b * 20, b * 20 + 20);
+            for (int i = 0; i < 100; i++)
+                blocks.addAll(block);
+        }
+        lazy = a.lazyDfa(32);
+        assertEquals(blocks.get(blocks.size() - n) == 0, lazy.accept(blocks));
+        assertTrue(lazy.flushes() > 0);
+        assertEquals(0, lazy.fallbacks());
+        /* thrashing: the end of the word is read by a run */
+        lazy = a.lazyDfa(16);
+        assertEquals(expected, lazy.accept(w));
+        assertEquals(1, lazy.fallbacks());
+        assertEquals(w.size(), lazy.length());
+        assertEquals(expected, lazy.accept(w));
+        assertEquals(2, lazy.fallbacks());
+    }
+
+    public void testEmptyAndUnknownLetters() throws Exception {
+        Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = new Automaton<>();
+        State s0 = a.addState(true, true);
+        a.addTransition(new Transition<>(s0, 1, s0));
+        LazyDfa<Integer> lazy = a.lazyDfa(2);
+        assertTrue(lazy.accept(new ArrayList<Integer>()));
+        assertFalse(lazy.feed(2));
+        assertTrue(lazy.isDead());
+        lazy.reset();
+        assertFalse(lazy.feed(null));
+        assertTrue(new Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>>().lazyDfa(2).isDead());
+        try {
+            a.lazyDfa(1);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    /* labels interned in the shared alphabet after the table was sized have no transition */
+    public void testLettersInternedLater() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        State s0 = a.addState(true, false);
+        State s1 = a.addState(false, true);
+        a.addTransition(new Transition<>(s0, "a", s1));
+        a.addTransition(new Transition<>(s1, "a", s1));
+        a.addTransition(new Transition<>(s1, "b", s0));
+        LazyDfa<String> lazy = a.lazyDfa(4);
+        /* fills the rows that the new labels would otherwise be read from */
+        assertTrue(lazy.accept(Arrays.asList("a", "a")));
+        assertTrue(lazy.accept(Arrays.asList("a", "b", "a")));
+        for (int i = 0; i < 20; i++)
+            a.symbols().intern("z" + i);
+        assertFalse(lazy.accept(Arrays.asList("z1")));
+        assertFalse(lazy.accept(Arrays.asList("a", "z0")));
+        assertFalse(lazy.accept(Arrays.asList("z19")));
+        assertTrue(lazy.accept(Arrays.asList("a", "a")));
+        assertTrue(lazy.accept(Arrays.asList("a", "b", "a")));
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.Random;
+
+/**
+ * Random automata shared by unit tests and benchmarks.
+ */
+public final class RandomAutomata {
+
+    private RandomAutomata() {
+    }
+
+    /**
+     * Creates a random automaton whose first state is initial, with some
+     * epsilon transitions.
+     * 
+     * @param rand
+     *            the source of randomness.
+     * @param n
+     *            the number of states.
+     * @param nlabels
+     *            the labels are the integers from 0 to nlabels - 1.
+     * @param degree
+     *            the number of transitions leaving each state, about one in
+     *            ten being an epsilon transition.
+     * @return a new automaton.
+     * @throws NoSuchStateException
+     *             never.
+     */
+    public static Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> randomNfa(Random rand, int n, int nlabels, int degree) throws NoSuchStateException {
+        Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = new Automaton<>();
+        State[] sts = new State[n];
+        for (int i = 0; i < n; i++)
+            sts[i] = a.addState(i == 0, rand.nextInt(4) == 0);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < degree; j++) {
+                Integer l = rand.nextInt(10) == 0 ? null : rand.nextInt(nlabels);
+                a.addTransition(new Transition<>(sts[i], l, sts[rand.nextInt(n)]));
+            }
+        return a;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import rationals.converters.Expression;
+import rationals.transformations.Concatenation;
+import rationals.transformations.Star;
+
+public class RunTest extends TestCase {
+
+    /* (ab)*c over Character letters */
+    private Automaton<Character, Transition<Character>, TransitionBuilder<Character>> chars() throws Exception {
+        Automaton<Character, Transition<Character>, TransitionBuilder<Character>> a = new Automaton<>();
+        State s0 = a.addState(true, false);
+        State s1 = a.addState(false, false);
+        State s2 = a.addState(false, true);
+        a.addTransition(new Transition<>(s0, 'a', s1));
+        a.addTransition(new Transition<>(s1, 'b', s0));
+        a.addTransition(new Transition<>(s0, 'c', s2));
+        return a;
+    }
+
+    public void testRunAgreesWithAccept() throws Exception {
+        Expression<Transition<String>, TransitionBuilder<String>> e = new Expression<>();
+        List<Automaton<String, Transition<String>, TransitionBuilder<String>>> as = new ArrayList<>();
+        as.add(e.fromString("a(bb)*e+(ab)*c"));
+        as.add(e.fromString("(a+b)*abb"));
+        /* these contain epsilon transitions */
+        as.add(new Star<String, Transition<String>, TransitionBuilder<String>>().transform(e.fromString("ab+c")));
+        as.add(new Concatenation<String, Transition<String>, TransitionBuilder<String>>().transform(
+                new Star<String, Transition<String>, TransitionBuilder<String>>().transform(e.fromString("a")), e.fromString("b*c")));
+        String[] letters = { "a", "b", "c", "e", "z" };
+        Random rand = new Random(3);
+        for (Automaton<String, Transition<String>, TransitionBuilder<String>> a : as) {
+            Run<String> run = a.run();
+            for (int i = 0; i < 1000; i++) {
+                List<String> w = new ArrayList<>();
+                int n = rand.nextInt(8);
+                for (int j = 0; j < n; j++)
+                    w.add(letters[rand.nextInt(letters.length)]);
+                run.reset();
+                run.feedAll(w.iterator());
+                assertEquals(a + " " + w, a.accept(w), run.isAccepting());
+            }
+        }
+    }
+
+    public void testFeedLetterByLetter() throws Exception {
+        Run<Character> run = chars().run();
+        assertFalse(run.isAccepting());
+        assertTrue(run.feed('a'));
+        assertTrue(run.feed('b'));
+        assertTrue(run.feed('c'));
+        assertTrue(run.isAccepting());
+        assertEquals(3, run.length());
+        assertFalse(run.feed('c'));
+        assertTrue(run.isDead());
+        assertFalse(run.isAccepting());
+        run.reset();
+        assertFalse(run.feed(null));
+        run.reset();
+        assertFalse(run.feed('z'));
+    }
+
+    public void testCharacterSources() throws Exception {
+        Automaton<Character, Transition<Character>, TransitionBuilder<Character>> a = chars();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++)
+            sb.append("ab");
+        sb.append('c');
+        String s = sb.toString();
+        Run<Character> run = a.run();
+        assertTrue(run.feedAll(s));
+        assertTrue(run.isAccepting());
+        run.reset();
+        assertTrue(run.feedAll(new StringReader(s)));
+        assertTrue(run.isAccepting());
+        run.reset();
+        assertTrue(run.feedAll(new ByteArrayInputStream(s.getBytes("ISO-8859-1"))));
+        assertTrue(run.isAccepting());
+        assertEquals(s.length(), run.length());
+        run.reset();
+        assertFalse(run.feedAll(new StringReader("abba" + s)));
+        assertEquals(3, run.length());
+    }
+
+    public void testCopyIsIndependent() throws Exception {
+        Run<Character> run = chars().run();
+        run.feed('a');
+        Run<Character> copy = run.copy();
+        run.feed('b');
+        run.feed('c');
+        assertTrue(run.isAccepting());
+        assertFalse(copy.feed('c'));
+        copy = run.copy();
+        assertTrue(copy.isAccepting());
+        assertEquals(run.states(), copy.states());
+    }
+
+    public void testTraceStates() throws Exception {
+        Automaton<Character, Transition<Character>, TransitionBuilder<Character>> a = chars();
+        List<java.util.Set<State>> trace = a.traceStates(Arrays.asList('a', 'x', 'b', 'c'), null);
+        assertEquals(3, trace.size());
+        assertEquals(a.terminals(), trace.get(2));
+        assertNull(a.traceStates(Arrays.asList('a', 'a'), null));
+        assertEquals(3, a.longestPrefixWithProjection(Arrays.asList('a', 'x', 'b', 'b')));
+        assertTrue(a.prefixProjection(Arrays.asList('a', 'x', 'b')));
+        assertFalse(a.prefixProjection(Arrays.asList('b')));
+    }
+}
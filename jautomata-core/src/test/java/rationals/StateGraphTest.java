@@ -0,0 +1,158 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+import rationals.properties.isEmpty;
+import rationals.transformations.Accessible;
+import rationals.transformations.Pruner;
+
+public class StateGraphTest extends TestCase {
+
+    /* the states of the last automaton built */
+    private State[] states;
+
+    private Automaton<String, Transition<String>, TransitionBuilder<String>> automaton(int n, int[][] transitions)
+            throws NoSuchStateException {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        states = new State[n];
+        for (int i = 0; i < n; i++)
+            states[i] = a.addState(i == 0, false);
+        for (int[] t : transitions)
+            a.addTransition(new Transition<>(states[t[0]], t[1] == 0 ? null : "a", states[t[2]]));
+        return a;
+    }
+
+    /* would overflow the stack or take quadratic time with a recursive or fixpoint exploration */
+    public void testLongChain() throws NoSuchStateException {
+        int n = 20000;
+        int[][] chain = new int[n][];
+        for (int i = 0; i < n - 2; i++)
+            chain[i] = new int[] { i, i % 2, i + 1 };
+        /* n - 2 is not co-accessible and n - 1 is not accessible */
+        chain[n - 2] = new int[] { 0, 1, n - 2 };
+        chain[n - 1] = new int[] { n - 1, 1, 1 };
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = automaton(n, chain);
+        states[n - 3].setTerminal(true);
+        assertEquals(n - 1, a.accessibleStates().size());
+        assertEquals(n - 1, a.coAccessibleStates().size());
+        assertEquals(n - 2, a.accessibleAndCoAccessibleStates().size());
+        assertFalse(new isEmpty<String, Transition<String>, TransitionBuilder<String>>().test(a));
+        Automaton<String, Transition<String>, TransitionBuilder<String>> pruned = new Pruner<String, Transition<String>, TransitionBuilder<String>>()
+                .transform(a);
+        assertEquals(n - 2, pruned.states().size());
+        assertEquals(n - 3, pruned.delta().size());
+        Automaton<String, Transition<String>, TransitionBuilder<String>> from = new Accessible<String, Transition<String>, TransitionBuilder<String>>(
+                states[1]).transform(a);
+        assertEquals(n - 2, from.states().size());
+        assertEquals(1, from.terminals().size());
+        states[n - 3].setTerminal(false);
+        assertTrue(new isEmpty<String, Transition<String>, TransitionBuilder<String>>().test(a));
+    }
+
+    public void testComponents() throws NoSuchStateException {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = automaton(5,
+                new int[][] { { 0, 1, 1 }, { 1, 1, 2 }, { 2, 0, 0 }, { 2, 1, 3 }, { 3, 1, 4 }, { 4, 1, 4 } });
+        StateGraph<String> graph = StateGraph.of(a);
+        int[] comp = graph.components();
+        int c0 = comp[graph.id(states[0])];
+        assertEquals(c0, comp[graph.id(states[1])]);
+        assertEquals(c0, comp[graph.id(states[2])]);
+        assertTrue(comp[graph.id(states[4])] < comp[graph.id(states[3])]);
+        assertTrue(comp[graph.id(states[3])] < c0);
+        assertNull(graph.topologicalOrder());
+        /* a loop is a cycle */
+        assertNull(StateGraph.of(automaton(2, new int[][] { { 0, 1, 1 }, { 1, 1, 1 } })).topologicalOrder());
+        assertEquals(0, StateGraph.of(automaton(0, new int[0][])).topologicalOrder().length);
+    }
+
+    private boolean[][] closure(int n, int[][] transitions) {
+        boolean[][] reach = new boolean[n][n];
+        for (int p = 0; p < n; p++)
+            reach[p][p] = true;
+        for (int[] t : transitions)
+            reach[t[0]][t[2]] = true;
+        for (int k = 0; k < n; k++)
+            for (int p = 0; p < n; p++)
+                for (int q = 0; q < n; q++)
+                    reach[p][q] |= reach[p][k] && reach[k][q];
+        return reach;
+    }
+
+    private Set<Integer> set(int[] qs) {
+        Set<Integer> ret = new HashSet<>();
+        for (int q : qs)
+            assertTrue(ret.add(q));
+        return ret;
+    }
+
+    public void testRandomGraphs() throws NoSuchStateException {
+        Random random = new Random(21);
+        for (int round = 0; round < 300; round++) {
+            int n = 1 + random.nextInt(12);
+            boolean acyclic = round % 2 == 0;
+            int[][] transitions = new int[random.nextInt(2 * n + 1)][];
+            for (int i = 0; i < transitions.length; i++) {
+                int p = random.nextInt(n), q = random.nextInt(n);
+                if (acyclic && p >= q)
+                    transitions[i] = new int[] { q, 1, p == q ? n : p };
+                else
+                    transitions[i] = new int[] { p, random.nextInt(2), q };
+                if (transitions[i][2] == n)
+                    transitions[i] = new int[] { 0, 1, 0 };
+            }
+            Automaton<String, Transition<String>, TransitionBuilder<String>> a = automaton(n, transitions);
+            boolean[][] reach = closure(n, transitions);
+            StateGraph<String> graph = StateGraph.of(a);
+            int[] comp = graph.components();
+            for (int p = 0; p < n; p++) {
+                int gp = graph.id(states[p]);
+                Set<Integer> forward = set(graph.breadthFirst(new int[] { gp }, true));
+                assertEquals(forward, set(graph.depthFirst(new int[] { gp }, true)));
+                Set<Integer> backward = set(graph.breadthFirst(new int[] { gp }, false));
+                assertEquals(backward, set(graph.depthFirst(new int[] { gp }, false)));
+                for (int q = 0; q < n; q++) {
+                    int gq = graph.id(states[q]);
+                    assertEquals(reach[p][q], forward.contains(gq));
+                    assertEquals(reach[q][p], backward.contains(gq));
+                    assertEquals(reach[p][q] && reach[q][p], comp[gp] == comp[gq]);
+                    if (reach[p][q])
+                        assertTrue(comp[gp] >= comp[gq]);
+                }
+            }
+            int[] order = graph.topologicalOrder();
+            if (order != null) {
+                int[] rank = new int[n];
+                for (int i = 0; i < n; i++)
+                    rank[order[i]] = i;
+                for (int t = 0; t < graph.transitionCount(); t++)
+                    assertTrue(rank[graph.source(t)] < rank[graph.target(t)]);
+            }
+            boolean cyclic = false;
+            for (int p = 0; p < n; p++)
+                for (int q = 0; q < n; q++)
+                    cyclic |= p != q && reach[p][q] && reach[q][p];
+            for (int[] t : transitions)
+                cyclic |= t[0] == t[2];
+            assertEquals(cyclic, order == null);
+        }
+    }
+}
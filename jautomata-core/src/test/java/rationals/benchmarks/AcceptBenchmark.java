@@ -0,0 +1,113 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import rationals.Automaton;
+import rationals.CompiledDfa;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+
+/**
+ * Compares the throughput of {@link Automaton#accept(List)} with
+ * {@link CompiledDfa#accept(List)} and {@link CompiledDfa#accept(int[])} on
+ * random words.
+ * <p>
+ * This is not a unit test: run it from the test classpath. Arguments are the
+ * number of states of the random automaton, the size of its alphabet, the
+ * number of words and their length.
+ */
+public class AcceptBenchmark {
+
+	private interface Matcher {
+		boolean accept(int i);
+	}
+
+	private static void run(String name, Matcher m, int nwords, int length) {
+		int acc = 0;
+		/* warm up */
+		for (int r = 0; r < 3; r++)
+			for (int i = 0; i < nwords; i++)
+				if (m.accept(i))
+					acc++;
+		long start = System.nanoTime();
+		int rounds = 5;
+		for (int r = 0; r < rounds; r++)
+			for (int i = 0; i < nwords; i++)
+				if (m.accept(i))
+					acc++;
+		long time = System.nanoTime() - start;
+		double ns = (double) time / ((long) rounds * nwords * length);
+		System.out.printf("%-18s %10.2f ns/symbol %12.0f words/s (%d accepted)%n", name, ns, 1e9 / (ns * length), acc);
+	}
+
+	/* a complete random DFA, so that most words are read up to their end */
+	private static Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> randomDfa(Random rand,
+			int nstates, Integer[] alph) throws NoSuchStateException {
+		Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = new Automaton<>();
+		State[] sts = new State[nstates];
+		for (int i = 0; i < nstates; i++)
+			sts[i] = a.addState(i == 0, rand.nextInt(4) == 0);
+		for (int i = 0; i < nstates; i++)
+			for (Integer l : alph)
+				a.addTransition(new Transition<>(sts[i], l, sts[rand.nextInt(nstates)]));
+		return a;
+	}
+
+	public static void main(String[] args) throws NoSuchStateException {
+		int nstates = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+		int nlabels = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+		int nwords = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+		final int length = args.length > 3 ? Integer.parseInt(args[3]) : 32;
+		Integer[] alph = new Integer[nlabels];
+		for (int i = 0; i < nlabels; i++)
+			alph[i] = i;
+		Random rand = new Random(1234);
+		final Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = randomDfa(rand, nstates, alph);
+		final CompiledDfa<Integer> dfa = CompiledDfa.compile(a);
+		System.out.println(dfa);
+		final List<List<Integer>> words = new ArrayList<>();
+		final int[][] encoded = new int[nwords][];
+		for (int i = 0; i < nwords; i++) {
+			List<Integer> w = new ArrayList<>(length);
+			for (int j = 0; j < length; j++)
+				w.add(alph[rand.nextInt(nlabels)]);
+			words.add(w);
+			encoded[i] = dfa.encode(w);
+		}
+		run("Automaton", new Matcher() {
+			public boolean accept(int i) {
+				return a.accept(words.get(i));
+			}
+		}, nwords / 10, length);
+		run("CompiledDfa(List)", new Matcher() {
+			public boolean accept(int i) {
+				return dfa.accept(words.get(i));
+			}
+		}, nwords, length);
+		run("CompiledDfa(int[])", new Matcher() {
+			public boolean accept(int i) {
+				return dfa.accept(encoded[i]);
+			}
+		}, nwords, length);
+	}
+}
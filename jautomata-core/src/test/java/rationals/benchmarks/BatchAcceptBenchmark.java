@@ -0,0 +1,104 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import rationals.Automaton;
+import rationals.CompiledDfa;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+
+/**
+ * Measures the throughput of {@link CompiledDfa#acceptAll(java.util.Collection, ForkJoinPool)}
+ * with a growing number of threads, against a sequential loop calling
+ * {@link CompiledDfa#accept(List)}.
+ * <p>
+ * This is not a unit test: run it from the test classpath. Arguments are the
+ * number of words, their length, the length of the prefix shared by groups of
+ * words and the number of states of the random automaton.
+ */
+public class BatchAcceptBenchmark {
+
+	public static void main(String[] args) throws NoSuchStateException {
+		int nwords = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int length = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+		int prefix = args.length > 2 ? Integer.parseInt(args[2]) : 24;
+		int nstates = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+		int nlabels = 8;
+		Random rand = new Random(1234);
+		Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = new Automaton<>();
+		State[] sts = new State[nstates];
+		for (int i = 0; i < nstates; i++)
+			sts[i] = a.addState(i == 0, rand.nextInt(4) == 0);
+		for (int i = 0; i < nstates; i++)
+			for (int l = 0; l < nlabels; l++)
+				a.addTransition(new Transition<>(sts[i], l, sts[rand.nextInt(nstates)]));
+		CompiledDfa<Integer> dfa = CompiledDfa.compile(a);
+		/* groups of 100 words sharing a prefix */
+		List<List<Integer>> words = new ArrayList<>(nwords);
+		List<Integer> shared = null;
+		for (int i = 0; i < nwords; i++) {
+			if (i % 100 == 0) {
+				shared = new ArrayList<>();
+				for (int j = 0; j < prefix; j++)
+					shared.add(rand.nextInt(nlabels));
+			}
+			List<Integer> w = new ArrayList<>(shared);
+			for (int j = prefix; j < length; j++)
+				w.add(rand.nextInt(nlabels));
+			words.add(w);
+		}
+		int expected = 0;
+		long best = Long.MAX_VALUE;
+		for (int r = 0; r < 5; r++) {
+			long start = System.nanoTime();
+			int acc = 0;
+			for (List<Integer> w : words)
+				if (dfa.accept(w))
+					acc++;
+			best = Math.min(best, System.nanoTime() - start);
+			expected = acc;
+		}
+		report("sequential", best, nwords, expected);
+		int max = Runtime.getRuntime().availableProcessors();
+		for (int threads = 1; threads <= max; threads *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			best = Long.MAX_VALUE;
+			int acc = 0;
+			for (int r = 0; r < 5; r++) {
+				long start = System.nanoTime();
+				acc = dfa.acceptAll(words, pool).cardinality();
+				best = Math.min(best, System.nanoTime() - start);
+			}
+			pool.shutdown();
+			if (acc != expected)
+				throw new IllegalStateException("got " + acc + " accepted words, expected " + expected);
+			report("acceptAll/" + threads, best, nwords, acc);
+		}
+	}
+
+	private static void report(String name, long time, int nwords, int accepted) {
+		System.out.printf("%-14s %8d ms %14.0f words/s (%d accepted)%n", name, time / 1000000, nwords * 1e9 / time,
+				accepted);
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.benchmarks;
+
+import java.util.Random;
+
+import rationals.Automaton;
+import rationals.NoSuchStateException;
+import rationals.RandomAutomata;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.properties.Bisimulation;
+import rationals.properties.Relation;
+import rationals.properties.WeakBisimulation;
+
+/**
+ * Measures {@link Bisimulation} and {@link WeakBisimulation} of random
+ * automata of increasing size with themselves, which computes the coarsest
+ * bisimulation over two copies of each automaton.
+ * <p>
+ * This is not a unit test: run it from the test classpath. Arguments are the
+ * largest number of states, the size of the alphabet and the out-degree of
+ * states.
+ */
+public class BisimulationBenchmark {
+
+	private static long time(Relation<Integer, Transition<Integer>, TransitionBuilder<Integer>> r, Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a) {
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < 3; i++) {
+			long start = System.nanoTime();
+			r.setAutomata(a, a);
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		if (!r.equivalence(a.initials(), a.initials()))
+			throw new IllegalStateException("an automaton is not bisimilar to itself");
+		return best;
+	}
+
+	public static void main(String[] args) throws NoSuchStateException {
+		int max = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 17;
+		int nlabels = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+		int degree = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+		Random rand = new Random(1234);
+		System.out.printf("%8s %12s %10s %10s %14s%n", "states", "transitions", "strong(ms)", "weak(ms)", "strong(ns/tr)");
+		for (int n = 1 << 10; n <= max; n *= 2) {
+			Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = RandomAutomata.randomNfa(rand, n, nlabels, degree);
+			int m = a.transitionCount();
+			long strong = time(new Bisimulation<Integer, Transition<Integer>, TransitionBuilder<Integer>>(), a);
+			long weak = time(new WeakBisimulation<Integer, Transition<Integer>, TransitionBuilder<Integer>>(), a);
+			System.out.printf("%8d %12d %10.1f %10.1f %14.0f%n", n, m, strong / 1e6, weak / 1e6, strong / (2.0 * m));
+		}
+	}
+}
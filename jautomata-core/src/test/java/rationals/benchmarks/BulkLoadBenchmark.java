@@ -0,0 +1,101 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.benchmarks;
+
+import java.util.Random;
+
+import rationals.Automaton;
+import rationals.AutomatonBuilder;
+import rationals.CompactTransitionTable;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+
+/**
+ * Compares loading random transitions given as int triples with
+ * {@link Automaton#addTransition(Transition)}, into the default table and
+ * into a {@link CompactTransitionTable}, and with an
+ * {@link AutomatonBuilder}, with and without validation.
+ * <p>
+ * This is not a unit test: run it from the test classpath. Arguments are the
+ * number of states, the number of transitions and the size of the alphabet.
+ */
+public class BulkLoadBenchmark {
+
+	private static long perTransition(int n, int[] triples, Integer[] alph, boolean compact) throws NoSuchStateException {
+		System.gc();
+		long start = System.nanoTime();
+		Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = compact
+				? new Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>>(null, new CompactTransitionTable<Integer>())
+				: new Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>>();
+		State[] states = new State[n];
+		for (int q = 0; q < n; q++)
+			states[q] = a.addState(q == 0, q % 4 == 0);
+		for (int i = 0; i < triples.length; i += 3)
+			a.addTransition(new Transition<>(states[triples[i]], alph[triples[i + 1]], states[triples[i + 2]]));
+		long time = System.nanoTime() - start;
+		check(a, triples);
+		return time;
+	}
+
+	private static long bulk(int n, int[] triples, Integer[] alph, boolean validating) throws NoSuchStateException {
+		System.gc();
+		long start = System.nanoTime();
+		AutomatonBuilder<Integer> b = new AutomatonBuilder<>();
+		int[] labels = new int[alph.length];
+		for (int l = 0; l < alph.length; l++)
+			labels[l] = b.label(alph[l]);
+		for (int q = 0; q < n; q++)
+			b.addState(q == 0, q % 4 == 0);
+		int[] encoded = triples.clone();
+		for (int i = 1; i < encoded.length; i += 3)
+			encoded[i] = labels[encoded[i]];
+		b.setValidating(validating).addTransitions(encoded, 0, encoded.length / 3);
+		Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = b.build();
+		long time = System.nanoTime() - start;
+		check(a, triples);
+		return time;
+	}
+
+	private static void check(Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a, int[] triples) {
+		if (a.transitionCount() > triples.length / 3)
+			throw new IllegalStateException("found " + a.transitionCount() + " transitions");
+	}
+
+	public static void main(String[] args) throws NoSuchStateException {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int m = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+		int nlabels = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+		Random rand = new Random(1234);
+		Integer[] alph = new Integer[nlabels];
+		for (int l = 0; l < nlabels; l++)
+			alph[l] = l;
+		int[] triples = new int[3 * m];
+		for (int i = 0; i < m; i++) {
+			triples[3 * i] = rand.nextInt(n);
+			triples[3 * i + 1] = rand.nextInt(nlabels);
+			triples[3 * i + 2] = rand.nextInt(n);
+		}
+		System.out.printf("%8s %10s %12s %12s %12s %12s%n", "states", "trans", "map(ms)", "compact(ms)", "bulk(ms)",
+				"unchecked(ms)");
+		for (int r = 0; r < 3; r++)
+			System.out.printf("%8d %10d %12.1f %12.1f %12.1f %12.1f%n", n, m, perTransition(n, triples, alph, false) / 1e6,
+					perTransition(n, triples, alph, true) / 1e6, bulk(n, triples, alph, true) / 1e6,
+					bulk(n, triples, alph, false) / 1e6);
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import rationals.Automaton;
+import rationals.DawgBuilder;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.transformations.HopcroftReducer;
+import rationals.transformations.ToDFA;
+import rationals.transformations.Union;
+
+/**
+ * Compares building the minimal automaton of a random dictionary by union
+ * of {@link Automaton#labelAutomaton(List)} then determinization and
+ * minimization, with {@link DawgBuilder} from sorted and shuffled words.
+ * <p>
+ * This is not a unit test: run it from the test classpath. Arguments are the
+ * number of words, the maximal length of words and the size of the alphabet.
+ * The union is only measured for dictionaries of at most 1000 words.
+ */
+public class DawgBenchmark {
+
+	private static List<List<Character>> dictionary(Random rand, int n, int maxLength, int nlabels) {
+		Set<String> words = new TreeSet<>();
+		while (words.size() < n) {
+			StringBuilder sb = new StringBuilder();
+			int length = 1 + rand.nextInt(maxLength);
+			for (int i = 0; i < length; i++)
+				sb.append((char) ('a' + rand.nextInt(nlabels)));
+			words.add(sb.toString());
+		}
+		List<List<Character>> ret = new ArrayList<>();
+		for (String w : words) {
+			List<Character> word = new ArrayList<>();
+			for (char c : w.toCharArray())
+				word.add(c);
+			ret.add(word);
+		}
+		return ret;
+	}
+
+	private static Automaton<Character, Transition<Character>, TransitionBuilder<Character>> union(
+			List<List<Character>> words) {
+		Automaton<Character, Transition<Character>, TransitionBuilder<Character>> a = new Automaton<>();
+		Union<Character, Transition<Character>, TransitionBuilder<Character>> union = new Union<>();
+		for (List<Character> w : words)
+			a = union.transform(a, Automaton.<Character, Transition<Character>, TransitionBuilder<Character>> labelAutomaton(w));
+		a = new ToDFA<Character, Transition<Character>, TransitionBuilder<Character>>().transform(a);
+		return new HopcroftReducer<Character, Transition<Character>, TransitionBuilder<Character>>().transform(a);
+	}
+
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int maxLength = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+		int nlabels = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+		Random rand = new Random(1234);
+		System.out.printf("%8s %12s %12s %12s %10s%n", "words", "union(ms)", "sorted(ms)", "shuffled(ms)", "states");
+		for (int k = Math.min(n, 1000); k <= n; k *= 10) {
+			List<List<Character>> words = dictionary(rand, k, maxLength, nlabels);
+			List<List<Character>> shuffled = new ArrayList<>(words);
+			Collections.shuffle(shuffled, rand);
+			double unionTime = Double.NaN;
+			if (k <= 1000) {
+				System.gc();
+				long start = System.nanoTime();
+				union(words);
+				unionTime = (System.nanoTime() - start) / 1e6;
+			}
+			System.gc();
+			long start = System.nanoTime();
+			Automaton<Character, Transition<Character>, TransitionBuilder<Character>> a = DawgBuilder.of(
+					words.iterator(), true);
+			double sortedTime = (System.nanoTime() - start) / 1e6;
+			System.gc();
+			start = System.nanoTime();
+			Automaton<Character, Transition<Character>, TransitionBuilder<Character>> b = DawgBuilder.of(
+					shuffled.iterator(), false);
+			double shuffledTime = (System.nanoTime() - start) / 1e6;
+			if (a.states().size() != b.states().size())
+				throw new IllegalStateException(a.states().size() + " != " + b.states().size());
+			System.out.printf("%8d %12.1f %12.1f %12.1f %10d%n", k, unionTime, sortedTime, shuffledTime,
+					a.states().size());
+			if (k == n)
+				break;
+			if (k * 10 > n)
+				k = n / 10;
+		}
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.benchmarks;
+
+import java.util.Random;
+
+import rationals.Automaton;
+import rationals.NoSuchStateException;
+import rationals.RandomAutomata;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.transformations.SetToDFA;
+import rationals.transformations.ToDFA;
+import rationals.transformations.UnaryTransformation;
+
+/**
+ * Compares {@link ToDFA} with the subset construction over sets of
+ * {@link rationals.State} it replaced, on random non deterministic automata.
+ * <p>
+ * This is not a unit test: run it from the test classpath. Arguments are the
+ * number of states of the random automata, the size of their alphabet and
+ * the number of transitions per state.
+ */
+public class DeterminizationBenchmark {
+
+	static long time(UnaryTransformation<Integer, Transition<Integer>, TransitionBuilder<Integer>> t, Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a, int[] size) {
+		long best = Long.MAX_VALUE;
+		for (int r = 0; r < 3; r++) {
+			long start = System.nanoTime();
+			size[0] = t.transform(a).states().size();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+
+	public static void main(String[] args) throws NoSuchStateException {
+		int max = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+		int nlabels = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+		int degree = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+		Random rand = new Random(1234);
+		SetToDFA<Integer> sets = new SetToDFA<>();
+		ToDFA<Integer, Transition<Integer>, TransitionBuilder<Integer>> bitsets = new ToDFA<>();
+		System.out.printf("%8s %10s %12s %12s %8s%n", "states", "subsets", "sets(ms)", "bitsets(ms)", "ratio");
+		int[] size = new int[1];
+		for (int n = 4; n <= max; n *= 2) {
+			Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = RandomAutomata.randomNfa(rand, n, nlabels, degree);
+			long b = time(bitsets, a, size);
+			int subsets = size[0];
+			long s = time(sets, a, size);
+			if (size[0] != subsets)
+				throw new IllegalStateException("found " + size[0] + " subsets, expected " + subsets);
+			System.out.printf("%8d %10d %12.1f %12.1f %8.2f%n", n, subsets, s / 1e6, b / 1e6, (double) s / b);
+		}
+	}
+}
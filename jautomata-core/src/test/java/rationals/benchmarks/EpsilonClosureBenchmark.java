@@ -0,0 +1,99 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import rationals.Automaton;
+import rationals.NoSuchStateException;
+import rationals.RandomAutomata;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.transformations.TransformationsToolBox;
+
+/**
+ * Compares epsilon closures computed with the index of
+ * {@link Automaton#epsilonClosures()} with a search of epsilon transitions
+ * at each call, on the closures of single states and of random sets of
+ * states of random automata. The index is built once per automaton, and its
+ * construction is included in the time.
+ * <p>
+ * This is not a unit test: run it from the test classpath. Arguments are the
+ * largest number of states, the size of the sets and the number of sets.
+ */
+public class EpsilonClosureBenchmark {
+
+	/* the closure by a search at each call */
+	private static Set<State> search(Set<State> s, Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a) {
+		Set<State> ret = new HashSet<>(s);
+		List<State> todo = new ArrayList<>(s);
+		while (!todo.isEmpty()) {
+			State st = todo.remove(todo.size() - 1);
+			for (Transition<Integer> tr : a.delta(st))
+				if (tr.label() == null && ret.add(tr.end()))
+					todo.add(tr.end());
+		}
+		return ret;
+	}
+
+	public static void main(String[] args) throws NoSuchStateException {
+		int max = args.length > 0 ? Integer.parseInt(args[0]) : 64000;
+		int size = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+		int nsets = args.length > 2 ? Integer.parseInt(args[2]) : 20000;
+		Random rand = new Random(1234);
+		System.out.printf("%8s %12s %12s %8s%n", "states", "search(ms)", "index(ms)", "ratio");
+		for (int n = 1000; n <= max; n *= 4) {
+			Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = RandomAutomata.randomNfa(rand, n, 2, 3);
+			State[] states = a.states().toArray(new State[n]);
+			List<Set<State>> sets = new ArrayList<>();
+			for (State s : states) {
+				Set<State> single = new HashSet<>();
+				single.add(s);
+				sets.add(single);
+			}
+			for (int i = 0; i < nsets; i++) {
+				Set<State> set = new HashSet<>();
+				for (int j = 0; j < size; j++)
+					set.add(states[rand.nextInt(n)]);
+				sets.add(set);
+			}
+			long best = Long.MAX_VALUE, bestIndex = Long.MAX_VALUE;
+			for (int r = 0; r < 3; r++) {
+				long start = System.nanoTime();
+				long total = 0;
+				for (Set<State> set : sets)
+					total += search(set, a).size();
+				best = Math.min(best, System.nanoTime() - start);
+				start = System.nanoTime();
+				/* drop the index */
+				a.projectOn(new HashSet<>(a.alphabet()));
+				long totalIndex = 0;
+				for (Set<State> set : sets)
+					totalIndex += TransformationsToolBox.epsilonClosure(set, a).size();
+				bestIndex = Math.min(bestIndex, System.nanoTime() - start);
+				if (total != totalIndex)
+					throw new IllegalStateException("found " + totalIndex + " states, expected " + total);
+			}
+			System.out.printf("%8d %12.1f %12.1f %8.2f%n", n, best / 1e6, bestIndex / 1e6, (double) best / bestIndex);
+		}
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.benchmarks;
+
+import java.util.Random;
+
+import rationals.Automaton;
+import rationals.NoSuchStateException;
+import rationals.RandomAutomata;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.properties.AreEquivalent;
+import rationals.properties.CongruenceEquivalence;
+import rationals.properties.HopcroftKarpEquivalence;
+import rationals.properties.ModelCheck;
+import rationals.transformations.HopcroftReducer;
+
+/**
+ * Compares the language equivalence of a random automaton and its minimal
+ * automaton, using two {@link ModelCheck}s, {@link HopcroftKarpEquivalence}
+ * and {@link CongruenceEquivalence}.
+ * <p>
+ * This is not a unit test: run it from the test classpath. Arguments are the
+ * largest number of states, the size of the alphabet and the out-degree of
+ * states.
+ */
+public class EquivalenceBenchmark {
+
+	private interface Test {
+		boolean test();
+	}
+
+	private static double time(Test t) {
+		long best = Long.MAX_VALUE;
+		for (int r = 0; r < 3; r++) {
+			long start = System.nanoTime();
+			if (!t.test())
+				throw new IllegalStateException("an automaton is not equivalent to its minimal automaton");
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best / 1e6;
+	}
+
+	public static void main(String[] args) throws NoSuchStateException {
+		int max = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+		int nlabels = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+		int degree = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+		Random rand = new Random(1234);
+		System.out.printf("%8s %14s %14s %14s%n", "states", "modelcheck(ms)", "hk(ms)", "hkc(ms)");
+		for (int n = 4; n <= max; n *= 2) {
+			final Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = RandomAutomata.randomNfa(rand, n, nlabels, degree);
+			final Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> b = new HopcroftReducer<Integer, Transition<Integer>, TransitionBuilder<Integer>>().transform(a);
+			double m = time(new Test() {
+				public boolean test() {
+					ModelCheck<Integer, Transition<Integer>, TransitionBuilder<Integer>> mc = new ModelCheck<>();
+					return mc.test(a, b) && mc.test(b, a);
+				}
+			});
+			double hk = time(new Test() {
+				public boolean test() {
+					return new AreEquivalent<>(new HopcroftKarpEquivalence<Integer, Transition<Integer>, TransitionBuilder<Integer>>()).test(a, b);
+				}
+			});
+			double hkc = time(new Test() {
+				public boolean test() {
+					return new AreEquivalent<>(new CongruenceEquivalence<Integer, Transition<Integer>, TransitionBuilder<Integer>>()).test(a, b);
+				}
+			});
+			System.out.printf("%8d %14.1f %14.1f %14.1f%n", n, m, hk, hkc);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.benchmarks;
+
+import java.util.Random;
+
+import rationals.Automaton;
+import rationals.CompactTransitionTable;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.TransitionTable;
+
+/**
+ * Compares the heap footprint of automata stored in a
+ * {@link rationals.MapTransitionTable} and in a {@link CompactTransitionTable}.
+ * <p>
+ * This is not a unit test: run it with <code>java -Xmx2g</code> from the test
+ * classpath. Arguments are the number of states, the number of transitions and
+ * the size of the alphabet.
+ */
+public class FootprintBenchmark {
+
+	private static long used() {
+		Runtime rt = Runtime.getRuntime();
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return rt.totalMemory() - rt.freeMemory();
+	}
+
+	private static Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> build(TransitionTable<Integer> table, int nstates, int ntrans, int nlabels) throws NoSuchStateException {
+		Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = new Automaton<>(null, table);
+		State[] sts = new State[nstates];
+		for (int i = 0; i < nstates; i++)
+			sts[i] = a.addState(i == 0, i % 10 == 0);
+		Random rand = new Random(1234);
+		Integer[] labels = new Integer[nlabels];
+		for (int i = 0; i < nlabels; i++)
+			labels[i] = i;
+		for (int i = 0; i < ntrans; i++)
+			a.addTransition(new Transition<>(sts[rand.nextInt(nstates)], labels[rand.nextInt(nlabels)], sts[rand.nextInt(nstates)]));
+		return a;
+	}
+
+	private static long measure(String name, TransitionTable<Integer> table, int nstates, int ntrans, int nlabels) throws NoSuchStateException {
+		long before = used();
+		long start = System.nanoTime();
+		Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = build(table, nstates, ntrans, nlabels);
+		long time = System.nanoTime() - start;
+		if (table instanceof CompactTransitionTable)
+			((CompactTransitionTable<Integer>) table).pack();
+		long after = used();
+		long bytes = after - before;
+		System.out.printf("%-8s %10d transitions %12d bytes %8.1f bytes/transition %8d ms%n", name, ntrans, bytes, (double) bytes / ntrans, time / 1000000);
+		/* keep automaton reachable until measured */
+		if (a.states().isEmpty())
+			throw new IllegalStateException();
+		return bytes;
+	}
+
+	public static void main(String[] args) throws NoSuchStateException {
+		int nstates = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int ntrans = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+		int nlabels = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+		long m = measure("map", null, nstates, ntrans, nlabels);
+		long c = measure("compact", new CompactTransitionTable<Integer>(), nstates, ntrans, nlabels);
+		System.out.printf("compact/map ratio: %.3f%n", (double) c / m);
+	}
+}
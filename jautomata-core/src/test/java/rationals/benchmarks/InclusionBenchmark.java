@@ -0,0 +1,59 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.benchmarks;
+
+import java.util.Random;
+
+import rationals.Automaton;
+import rationals.NoSuchStateException;
+import rationals.RandomAutomata;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.properties.AntichainInclusion;
+import rationals.properties.ModelCheck;
+
+/**
+ * Compares {@link ModelCheck} with {@link AntichainInclusion} on random
+ * automata of increasing size, testing the inclusion of an automaton in
+ * itself, which requires a full exploration.
+ * <p>
+ * This is not a unit test: run it from the test classpath. Arguments are the
+ * largest number of states, the size of the alphabet and the out-degree of
+ * states.
+ */
+public class InclusionBenchmark {
+
+	public static void main(String[] args) throws NoSuchStateException {
+		int max = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+		int nlabels = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+		int degree = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+		Random rand = new Random(1234);
+		System.out.printf("%8s %14s %14s%n", "states", "modelcheck(ms)", "antichain(ms)");
+		for (int n = 4; n <= max; n *= 2) {
+			Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = RandomAutomata.randomNfa(rand, n, nlabels, degree);
+			long start = System.nanoTime();
+			boolean antichain = new AntichainInclusion<Integer, Transition<Integer>, TransitionBuilder<Integer>>().test(a, a);
+			long t = System.nanoTime() - start;
+			start = System.nanoTime();
+			new ModelCheck<Integer, Transition<Integer>, TransitionBuilder<Integer>>().test(a, a);
+			long m = System.nanoTime() - start;
+			if (!antichain)
+				throw new IllegalStateException("an automaton is not included in itself");
+			System.out.printf("%8d %14.1f %14.1f%n", n, m / 1e6, t / 1e6);
+		}
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import rationals.Automaton;
+import rationals.CompiledNfa;
+import rationals.LazyDfa;
+import rationals.NoSuchStateException;
+import rationals.RandomAutomata;
+import rationals.Run;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+
+/**
+ * Compares the throughput of a {@link Run} with a {@link LazyDfa} of several
+ * capacities, on random words read by a random nondeterministic automaton.
+ * Cache statistics are printed for each capacity.
+ * <p>
+ * This is not a unit test: run it from the test classpath. Arguments are the
+ * number of states of the random automaton, the size of its alphabet, the
+ * number of words and their length.
+ */
+public class LazyDfaBenchmark {
+
+	public static void main(String[] args) throws NoSuchStateException {
+		int nstates = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+		int nlabels = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+		int nwords = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+		int length = args.length > 3 ? Integer.parseInt(args[3]) : 256;
+		Random rand = new Random(1234);
+		Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = RandomAutomata.randomNfa(rand, nstates, nlabels, 2);
+		CompiledNfa<Integer> nfa = CompiledNfa.compile(a);
+		List<List<Integer>> words = new ArrayList<>();
+		for (int i = 0; i < nwords; i++) {
+			List<Integer> w = new ArrayList<>(length);
+			for (int j = 0; j < length; j++)
+				w.add(rand.nextInt(nlabels));
+			words.add(w);
+		}
+		double symbols = (double) nwords * length;
+		Run<Integer> run = new Run<>(nfa, a.initials());
+		long best = Long.MAX_VALUE;
+		int acc = 0;
+		for (int r = 0; r < 3; r++) {
+			long start = System.nanoTime();
+			for (List<Integer> w : words) {
+				run.reset();
+				if (run.feedAll(w.iterator()) && run.isAccepting())
+					acc++;
+			}
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		System.out.printf("%-16s %10.2f ns/symbol (%d accepted)%n", "Run", best / symbols, acc / 3);
+		for (int capacity : new int[] { 16, 256, 4096, 65536 }) {
+			LazyDfa<Integer> lazy = new LazyDfa<>(nfa, capacity);
+			best = Long.MAX_VALUE;
+			acc = 0;
+			for (int r = 0; r < 3; r++) {
+				long start = System.nanoTime();
+				for (List<Integer> w : words)
+					if (lazy.accept(w))
+						acc++;
+				best = Math.min(best, System.nanoTime() - start);
+			}
+			System.out.printf("%-16s %10.2f ns/symbol (%d accepted) %d hits %d misses %d flushes %d fallbacks%n", "LazyDfa/"
+					+ capacity, best / symbols, acc / 3, lazy.hits(), lazy.misses(), lazy.flushes(), lazy.fallbacks());
+		}
+	}
+}
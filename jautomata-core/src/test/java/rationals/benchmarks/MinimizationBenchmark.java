@@ -0,0 +1,181 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.benchmarks;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import rationals.Automaton;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.transformations.HopcroftReducer;
+import rationals.transformations.ToDFA;
+import rationals.transformations.TransformationsToolBox;
+import rationals.transformations.UnaryTransformation;
+
+/**
+ * Compares {@link HopcroftReducer} with the pairwise refinement formerly
+ * implemented by {@link rationals.transformations.Reducer}, on random
+ * deterministic automata of growing size, to find the crossover point.
+ * <p>
+ * This is not a unit test: run it from the test classpath. Arguments are the
+ * size of the alphabet and the largest number of states to try with the
+ * pairwise refinement.
+ */
+public class MinimizationBenchmark {
+
+	/* the refinement Reducer used before HopcroftReducer */
+	static class PairwiseReducer implements UnaryTransformation<Integer, Transition<Integer>, TransitionBuilder<Integer>> {
+
+		private boolean same(State e1, State e2, Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a, Map<State, Set<State>> m) {
+			if (!m.get(e1).equals(m.get(e2)))
+				return false;
+			Set<Transition<Integer>> tbs = a.delta(e2);
+			for (Transition<Integer> tr : a.delta(e1)) {
+				Set<Transition<Integer>> tbsl = a.delta(e2, tr.label());
+				if (tbsl.isEmpty())
+					return false;
+				for (Transition<Integer> tb : tbsl) {
+					tbs.remove(tb);
+					if (!m.get(tr.end()).equals(m.get(tb.end())))
+						return false;
+				}
+			}
+			return tbs.isEmpty();
+		}
+
+		public Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> transform(Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a) {
+			Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> b = new ToDFA<Integer, Transition<Integer>, TransitionBuilder<Integer>>().transform(a);
+			Map<State, Set<State>> current = new HashMap<State, Set<State>>();
+			Set<State> s1 = b.getStateFactory().stateSet();
+			Set<State> s2 = b.getStateFactory().stateSet();
+			for (State e : b.states()) {
+				if (e.isTerminal()) {
+					s1.add(e);
+					current.put(e, s1);
+				} else {
+					s2.add(e);
+					current.put(e, s2);
+				}
+			}
+			Map<State, Set<State>> old;
+			do {
+				old = current;
+				current = new HashMap<State, Set<State>>();
+				for (State e1 : old.keySet()) {
+					Set<State> s = b.getStateFactory().stateSet();
+					for (State e2 : current.keySet())
+						if (same(e1, e2, b, old)) {
+							s = current.get(e2);
+							break;
+						}
+					s.add(e1);
+					current.put(e1, s);
+				}
+			} while (!new HashSet<Set<State>>(current.values()).equals(new HashSet<Set<State>>(old.values())));
+			Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> c = new Automaton<>();
+			Set<Set<State>> setSet = new HashSet<Set<State>>(current.values());
+			Map<Set<State>, State> newStates = new HashMap<>();
+			for (Set<State> set : setSet)
+				newStates.put(set, c.addState(TransformationsToolBox.containsAnInitialState(set), TransformationsToolBox.containsATerminalState(set)));
+			for (Set<State> set : setSet) {
+				State r = set.iterator().next();
+				for (Iterator<Integer> k = b.alphabet().iterator(); k.hasNext();) {
+					Set<Transition<Integer>> ds = b.delta(r, k.next());
+					if (ds.isEmpty())
+						continue;
+					Transition<Integer> tr = ds.iterator().next();
+					try {
+						c.addTransition(new Transition<>(newStates.get(set), tr.label(), newStates.get(current.get(tr.end()))));
+					} catch (NoSuchStateException e) {
+						throw new Error(e);
+					}
+				}
+			}
+			return c;
+		}
+	}
+
+	/*
+	 * a random DFA whose states come in pairs of equivalent states, so that
+	 * minimization has some work to do
+	 */
+	static Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> randomDfa(Random rand, int n, int nlabels) throws NoSuchStateException {
+		Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = new Automaton<>();
+		int half = (n + 1) / 2;
+		int[][] delta = new int[half][nlabels];
+		boolean[] term = new boolean[half];
+		for (int i = 0; i < half; i++) {
+			term[i] = rand.nextInt(3) == 0;
+			for (int l = 0; l < nlabels; l++)
+				delta[i][l] = rand.nextInt(8) == 0 ? -1 : rand.nextInt(half);
+		}
+		State[] sts = new State[2 * half];
+		for (int i = 0; i < 2 * half; i++)
+			sts[i] = a.addState(i == 0, term[i % half]);
+		for (int i = 0; i < 2 * half; i++)
+			for (int l = 0; l < nlabels; l++)
+				if (delta[i % half][l] >= 0)
+					a.addTransition(new Transition<>(sts[i], l, sts[delta[i % half][l] + (rand.nextBoolean() ? half : 0)]));
+		return a;
+	}
+
+	private static long time(UnaryTransformation<Integer, Transition<Integer>, TransitionBuilder<Integer>> t, Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a, int[] size) {
+		long best = Long.MAX_VALUE;
+		int rounds = a.states().size() > 2000 ? 1 : 5;
+		for (int r = 0; r < rounds; r++) {
+			long start = System.nanoTime();
+			size[0] = t.transform(a).states().size();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+
+	public static void main(String[] args) throws NoSuchStateException {
+		int nlabels = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		int maxPairwise = args.length > 1 ? Integer.parseInt(args[1]) : 4000;
+		Random rand = new Random(1234);
+		PairwiseReducer pairwise = new PairwiseReducer();
+		HopcroftReducer<Integer, Transition<Integer>, TransitionBuilder<Integer>> hopcroft = new HopcroftReducer<>();
+		/* warm up */
+		for (int i = 0; i < 200; i++) {
+			Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = randomDfa(rand, 50, nlabels);
+			pairwise.transform(a);
+			hopcroft.transform(a);
+		}
+		System.out.printf("%8s %8s %14s %14s %8s%n", "states", "minimal", "pairwise(us)", "hopcroft(us)", "ratio");
+		int[] size = new int[1];
+		for (int n = 2; n <= 64000; n *= 2) {
+			Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = randomDfa(rand, n, nlabels);
+			long h = time(hopcroft, a, size);
+			int min = size[0];
+			if (n <= maxPairwise) {
+				long p = time(pairwise, a, size);
+				if (size[0] != min)
+					throw new IllegalStateException("pairwise found " + size[0] + " states, hopcroft " + min);
+				System.out.printf("%8d %8d %14d %14d %8.2f%n", a.states().size(), min, p / 1000, h / 1000, (double) p / h);
+			} else
+				System.out.printf("%8d %8d %14s %14d%n", a.states().size(), min, "-", h / 1000);
+		}
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import rationals.Automaton;
+import rationals.NoSuchStateException;
+import rationals.RandomAutomata;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.transformations.ParallelToDFA;
+import rationals.transformations.ToDFA;
+
+/**
+ * Measures the speedup of {@link ParallelToDFA} with pools of 1, 4, 16 and 64
+ * threads, against the sequential {@link ToDFA}.
+ * <p>
+ * This is not a unit test: run it from the test classpath with a large heap.
+ * Arguments are the number of states of the random automaton, the size of its
+ * alphabet and the out-degree of its states. Speedups are only meaningful up
+ * to the number of available processors, which is printed first.
+ */
+public class ParallelDeterminizationBenchmark {
+
+	public static void main(String[] args) throws NoSuchStateException {
+		int nstates = args.length > 0 ? Integer.parseInt(args[0]) : 80;
+		int nlabels = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+		int degree = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+		System.out.println("available processors: " + Runtime.getRuntime().availableProcessors());
+		Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = RandomAutomata.randomNfa(new Random(1234), nstates, nlabels, degree);
+		int[] size = new int[1];
+		long sequential = DeterminizationBenchmark.time(new ToDFA<Integer, Transition<Integer>, TransitionBuilder<Integer>>(), a, size);
+		int subsets = size[0];
+		System.out.printf("%-12s %8d ms %18s (%d states)%n", "sequential", sequential / 1000000, "", subsets);
+		long base = 0;
+		for (int threads : new int[] { 1, 4, 16, 64 }) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			long best = DeterminizationBenchmark.time(new ParallelToDFA<Integer, Transition<Integer>, TransitionBuilder<Integer>>(pool), a, size);
+			pool.shutdown();
+			if (size[0] != subsets)
+				throw new IllegalStateException("found " + size[0] + " states, expected " + subsets);
+			if (threads == 1)
+				base = best;
+			System.out.printf("%-12s %8d ms %6.2fx speedup%n", "parallel/" + threads, best / 1000000, (double) base / best);
+		}
+	}
+}
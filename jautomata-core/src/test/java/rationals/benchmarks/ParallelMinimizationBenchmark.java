@@ -0,0 +1,74 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import rationals.Automaton;
+import rationals.CompiledDfa;
+import rationals.NoSuchStateException;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.transformations.HopcroftReducer;
+import rationals.transformations.ParallelReducer;
+
+/**
+ * Measures the speedup of {@link ParallelReducer} with pools of 1, 4, 16 and
+ * 64 threads, against {@link HopcroftReducer}. The refinement alone, ie.
+ * {@link ParallelReducer#partition(CompiledDfa)}, is timed separately from the
+ * whole transformation as converting from and to {@link Automaton} is
+ * sequential.
+ * <p>
+ * This is not a unit test: run it from the test classpath with a large heap.
+ * Arguments are the number of states of the random automaton and the size of
+ * its alphabet. Speedups are only meaningful up to the number of available
+ * processors, which is printed first.
+ */
+public class ParallelMinimizationBenchmark {
+
+	public static void main(String[] args) throws NoSuchStateException {
+		int nstates = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		int nlabels = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		System.out.println("available processors: " + Runtime.getRuntime().availableProcessors());
+		Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = MinimizationBenchmark.randomDfa(new Random(1234), nstates, nlabels);
+		CompiledDfa<Integer> dfa = CompiledDfa.compile(a);
+		long start = System.nanoTime();
+		int min = new HopcroftReducer<Integer, Transition<Integer>, TransitionBuilder<Integer>>().transform(a).states().size();
+		System.out.printf("%-12s %8d ms %26s (%d states)%n", "hopcroft", (System.nanoTime() - start) / 1000000, "", min);
+		long base = 0;
+		for (int threads : new int[] { 1, 4, 16, 64 }) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			ParallelReducer<Integer, Transition<Integer>, TransitionBuilder<Integer>> reducer = new ParallelReducer<>(pool);
+			long best = Long.MAX_VALUE;
+			for (int r = 0; r < 3; r++) {
+				long s = System.nanoTime();
+				reducer.partition(dfa);
+				best = Math.min(best, System.nanoTime() - s);
+			}
+			if (threads == 1)
+				base = best;
+			start = System.nanoTime();
+			int size = reducer.transform(a).states().size();
+			long total = System.nanoTime() - start;
+			pool.shutdown();
+			if (size != min)
+				throw new IllegalStateException("found " + size + " states, expected " + min);
+			System.out.printf("%-12s %8d ms refinement %6.2fx speedup %8d ms total%n", "parallel/" + threads, best / 1000000, (double) base / best, total / 1000000);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.benchmarks;
+
+import java.util.Random;
+
+import rationals.Automaton;
+import rationals.NoSuchStateException;
+import rationals.RandomAutomata;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.properties.SimulationPreorder;
+
+/**
+ * Measures the computation of {@link SimulationPreorder} on random automata
+ * of increasing size, then on automata made of many copies of the same
+ * random automaton, whose bisimulation classes are those of one copy.
+ * <p>
+ * This is not a unit test: run it from the test classpath. Arguments are the
+ * largest number of states, the size of the alphabet and the out-degree of
+ * states.
+ */
+public class SimulationBenchmark {
+
+	private static Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> copies(Random rand, int size, int copies, int nlabels, int degree) throws NoSuchStateException {
+		int[] tails = new int[size * degree], labels = new int[size * degree], heads = new int[size * degree];
+		for (int t = 0; t < tails.length; t++) {
+			tails[t] = rand.nextInt(size);
+			labels[t] = rand.nextInt(nlabels);
+			heads[t] = rand.nextInt(size);
+		}
+		boolean[] terminals = new boolean[size];
+		for (int q = 0; q < size; q++)
+			terminals[q] = rand.nextInt(4) == 0;
+		Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = new Automaton<>();
+		State[] sts = new State[size];
+		for (int c = 0; c < copies; c++) {
+			for (int q = 0; q < size; q++)
+				sts[q] = a.addState(q == 0, terminals[q]);
+			for (int t = 0; t < tails.length; t++)
+				a.addTransition(new Transition<>(sts[tails[t]], labels[t], sts[heads[t]]));
+		}
+		return a;
+	}
+
+	private static void measure(Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a) {
+		long start = System.nanoTime();
+		SimulationPreorder sim = new SimulationPreorder(a);
+		long t = System.nanoTime() - start;
+		System.out.printf("%8d %12d %8d %10.1f%n", sim.stateCount(), a.transitionCount(), sim.classCount(), t / 1e6);
+	}
+
+	public static void main(String[] args) throws NoSuchStateException {
+		int max = args.length > 0 ? Integer.parseInt(args[0]) : 8192;
+		int nlabels = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+		int degree = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+		Random rand = new Random(1234);
+		System.out.printf("%8s %12s %8s %10s%n", "states", "transitions", "classes", "time(ms)");
+		for (int n = 256; n <= max; n *= 2)
+			measure(RandomAutomata.randomNfa(rand, n, nlabels, degree));
+		for (int copies : new int[] { 16, 64, 400 })
+			measure(copies(rand, 256, copies, nlabels, degree));
+	}
+}
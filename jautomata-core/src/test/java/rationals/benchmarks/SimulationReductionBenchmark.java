@@ -0,0 +1,65 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.benchmarks;
+
+import java.util.Random;
+
+import rationals.Automaton;
+import rationals.NoSuchStateException;
+import rationals.RandomAutomata;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.transformations.HopcroftReducer;
+import rationals.transformations.SimulationReducer;
+import rationals.transformations.ToDFA;
+import rationals.transformations.Union;
+
+/**
+ * Compares {@link ToDFA} with and without a prior {@link SimulationReducer}
+ * on automata with many simulation equivalent states: the union of a random
+ * automaton, a copy of it and its minimal automaton.
+ * <p>
+ * This is not a unit test: run it from the test classpath. Arguments are the
+ * largest number of states of the random automaton, the size of the alphabet
+ * and the out-degree of states.
+ */
+public class SimulationReductionBenchmark {
+
+	public static void main(String[] args) throws NoSuchStateException {
+		int max = args.length > 0 ? Integer.parseInt(args[0]) : 128;
+		int nlabels = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+		int degree = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+		Random rand = new Random(1234);
+		Union<Integer, Transition<Integer>, TransitionBuilder<Integer>> union = new Union<>();
+		SimulationReducer<Integer, Transition<Integer>, TransitionBuilder<Integer>> reducer = new SimulationReducer<>();
+		ToDFA<Integer, Transition<Integer>, TransitionBuilder<Integer>> dfa = new ToDFA<>();
+		System.out.printf("%8s %8s %10s %10s %12s %14s%n", "states", "reduced", "reduce(ms)", "dfa(ms)", "reduced+dfa", "dfa states");
+		for (int n = 8; n <= max; n *= 2) {
+			Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> r = RandomAutomata.randomNfa(rand, n, nlabels, degree);
+			Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = union.transform(union.transform(r, r),
+					new HopcroftReducer<Integer, Transition<Integer>, TransitionBuilder<Integer>>().transform(r));
+			int[] direct = new int[1], reduced = new int[1];
+			long d = DeterminizationBenchmark.time(dfa, a, direct);
+			long start = System.nanoTime();
+			Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> b = reducer.transform(a);
+			long s = System.nanoTime() - start;
+			long rd = DeterminizationBenchmark.time(dfa, b, reduced);
+			System.out.printf("%8d %8d %10.1f %10.1f %12.1f %7d/%-6d%n", a.states().size(), b.states().size(), s / 1e6,
+					d / 1e6, (s + rd) / 1e6, direct[0], reduced[0]);
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.mapped;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import rationals.Alphabet;
+import rationals.Automaton;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.converters.Expression;
+import rationals.transformations.Product;
+import rationals.transformations.Pruner;
+import rationals.transformations.ToDFA;
+
+public class MappedAutomatonTest extends TestCase {
+
+    private static final String[] LETTERS = { "a", "b", "c", "e" };
+
+    private File file;
+
+    private Automaton<String, Transition<String>, TransitionBuilder<String>> nfa;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        file = File.createTempFile("mapped", ".aut");
+        nfa = new Expression<Transition<String>, TransitionBuilder<String>>().fromString("a(bb)*e+(ab)*c+(a+b)*a(a+b)");
+    }
+
+    protected void tearDown() throws Exception {
+        file.delete();
+        super.tearDown();
+    }
+
+    public void testWriteStatesAndTransitions() throws Exception {
+        Alphabet<String> alph = new Alphabet<>();
+        MappedAutomaton<String> m;
+        try (MappedAutomatonWriter<String> w = new MappedAutomatonWriter<>(file, alph)) {
+            int s0 = w.addState(true, false);
+            int s1 = w.addState(false, false);
+            int s2 = w.addState(false, true);
+            int s3 = w.addState(false, false);
+            w.addTransition(s0, "a", s1);
+            w.addTransition(s0, "a", s1);
+            w.addTransition(s0, "b", s2);
+            w.addTransition(s1, null, s2);
+            w.addTransition(s3, "a", s0);
+            m = w.finish();
+        }
+        try {
+            assertEquals(4, m.stateCount());
+            assertEquals(4, m.transitionCount());
+            assertTrue(Arrays.equals(new int[] { 1 }, m.delta(0, alph.indexOf("a"))));
+            assertTrue(Arrays.equals(new int[] { 0 }, m.deltaMinusOne(1, alph.indexOf("a"))));
+            assertEquals(0, m.delta(1, alph.indexOf("a")).length);
+            assertTrue(m.accept(Arrays.asList("a")));
+            assertTrue(m.accept(Arrays.asList("b")));
+            assertFalse(m.accept(Arrays.asList("a", "b")));
+            assertFalse(m.accept(Arrays.asList("z")));
+            assertEquals(bits(0, 1, 2), m.accessibleStates());
+            assertEquals(bits(0, 1, 2, 3), m.coAccessibleStates());
+            assertEquals(bits(0, 1, 2), m.accessibleAndCoAccessibleStates());
+            assertEquals(bits(1, 2), m.epsilonClosure(bits(1)));
+        } finally {
+            m.close();
+        }
+        /* reopen */
+        m = MappedAutomaton.open(file, alph);
+        try {
+            assertEquals(4, m.transitionCount());
+            assertTrue(m.accept(Arrays.asList("b")));
+        } finally {
+            m.close();
+        }
+    }
+
+    public void testToDFAStreamsIntoWriter() throws Exception {
+        MappedAutomatonWriter<String> w = new MappedAutomatonWriter<>(file, nfa.symbols());
+        Automaton<String, Transition<String>, TransitionBuilder<String>> dfa = new ToDFA<String, Transition<String>, TransitionBuilder<String>>().transform(nfa);
+        new ToDFA<String, Transition<String>, TransitionBuilder<String>>().transformTo(nfa, w.<Transition<String>, TransitionBuilder<String>> automaton());
+        MappedAutomaton<String> m = w.finish();
+        try {
+            assertEquals(dfa.states().size(), m.stateCount());
+            assertEquals(dfa.delta().size(), m.transitionCount());
+            assertSameLanguage(nfa, m);
+        } finally {
+            m.close();
+        }
+    }
+
+    public void testProductAndPrunerStreamIntoWriter() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> b = new Expression<Transition<String>, TransitionBuilder<String>>().fromString("(a+b+c+e)*a(a+b+c+e)");
+        Automaton<String, Transition<String>, TransitionBuilder<String>> prod = new Product<String, Transition<String>, TransitionBuilder<String>>().transform(nfa, b);
+        MappedAutomatonWriter<String> w = new MappedAutomatonWriter<>(file, new Alphabet<String>());
+        new Product<String, Transition<String>, TransitionBuilder<String>>().transformTo(nfa, b, w.<Transition<String>, TransitionBuilder<String>> automaton());
+        MappedAutomaton<String> m = w.finish();
+        try {
+            assertSameLanguage(prod, m);
+        } finally {
+            m.close();
+        }
+        w = new MappedAutomatonWriter<>(file, new Alphabet<String>());
+        new Pruner<String, Transition<String>, TransitionBuilder<String>>().transformTo(prod, w.<Transition<String>, TransitionBuilder<String>> automaton());
+        m = w.finish();
+        try {
+            assertEquals(prod.accessibleAndCoAccessibleStates().size(), m.stateCount());
+            assertEquals(m.stateCount(), m.accessibleAndCoAccessibleStates().cardinality());
+            assertSameLanguage(prod, m);
+        } finally {
+            m.close();
+        }
+    }
+
+    private void assertSameLanguage(Automaton<String, Transition<String>, TransitionBuilder<String>> a, MappedAutomaton<String> m) {
+        Random rand = new Random(11);
+        for (int i = 0; i < 2000; i++) {
+            List<String> w = new ArrayList<>();
+            int n = rand.nextInt(7);
+            for (int j = 0; j < n; j++)
+                w.add(LETTERS[rand.nextInt(LETTERS.length)]);
+            assertEquals(w.toString(), a.accept(w), m.accept(w));
+        }
+    }
+
+    private static BitSet bits(int... is) {
+        BitSet b = new BitSet();
+        for (int i : is)
+            b.set(i);
+        return b;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.properties;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+import rationals.Automaton;
+import rationals.CompiledDfa;
+import rationals.RandomAutomata;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.converters.Expression;
+import rationals.transformations.ExecutionContext;
+import rationals.transformations.ResourceLimitException;
+
+public class AntichainInclusionTest extends TestCase {
+
+    private Automaton<String, Transition<String>, TransitionBuilder<String>> re(String s) throws Exception {
+        return new Expression<Transition<String>, TransitionBuilder<String>>().fromString(s);
+    }
+
+    public void testInclusion() throws Exception {
+        AntichainInclusion<String, Transition<String>, TransitionBuilder<String>> inc = new AntichainInclusion<>();
+        assertTrue(inc.test(re("(a+b)*c"), re("a(ab)*c")));
+        assertNull(inc.counterExample());
+        assertFalse(inc.test(re("a(b+c)(ab)*"), re("(a+b)*c")));
+        assertEquals(Arrays.asList("c"), inc.counterExample());
+        assertFalse(inc.test(re("(a+b)*c"), re("a(b+c)(ab)*")));
+        assertEquals(Arrays.asList("a", "b"), inc.counterExample());
+    }
+
+    public void testEmptyWord() throws Exception {
+        AntichainInclusion<String, Transition<String>, TransitionBuilder<String>> inc = new AntichainInclusion<>();
+        assertFalse(inc.test(re("a(a)*"), re("a*")));
+        assertEquals(new ArrayList<String>(), inc.counterExample());
+        assertTrue(inc.test(re("a*"), new Automaton<String, Transition<String>, TransitionBuilder<String>>()));
+    }
+
+    /*
+     * inclusion by a breadth-first search of the product of deterministic
+     * automata, over letters 0 and 1
+     */
+    private boolean included(Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a, Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> b) {
+        CompiledDfa<Integer> da = CompiledDfa.compile(a);
+        CompiledDfa<Integer> db = CompiledDfa.compile(b);
+        if (db.start() < 0)
+            return true;
+        Set<List<Integer>> seen = new HashSet<>();
+        List<List<Integer>> todo = new ArrayList<>();
+        todo.add(Arrays.asList(da.start(), db.start()));
+        for (int i = 0; i < todo.size(); i++) {
+            int qa = todo.get(i).get(0), qb = todo.get(i).get(1);
+            if (db.isAccepting(qb) && (qa < 0 || !da.isAccepting(qa)))
+                return false;
+            for (int l = 0; l < 2; l++) {
+                int nb = db.step(qb, db.symbols().indexOf(l));
+                List<Integer> next = Arrays.asList(da.step(qa, da.symbols().indexOf(l)), nb);
+                if (nb >= 0 && seen.add(next))
+                    todo.add(next);
+            }
+        }
+        return true;
+    }
+
+    /* checks against deterministic automata, and that counterexamples are shortest */
+    public void testRandomAutomata() throws Exception {
+        Random rand = new Random(16);
+        AntichainInclusion<Integer, Transition<Integer>, TransitionBuilder<Integer>> inc = new AntichainInclusion<>();
+        int failures = 0;
+        for (int k = 0; k < 200; k++) {
+            Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = RandomAutomata.randomNfa(rand, 2 + rand.nextInt(6), 2, 3);
+            Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> b = RandomAutomata.randomNfa(rand, 2 + rand.nextInt(6), 2, 2);
+            boolean included = inc.test(a, b);
+            assertEquals(included(a, b), included);
+            if (included)
+                continue;
+            failures++;
+            List<Integer> w = inc.counterExample();
+            assertTrue(b.accept(w));
+            assertFalse(a.accept(w));
+            for (List<Integer> v : words(w.size() - 1))
+                assertFalse(v.toString(), b.accept(v) && !a.accept(v));
+        }
+        assertTrue(failures > 10 && failures < 190);
+    }
+
+    /* words over {0, 1} up to given length */
+    private List<List<Integer>> words(int max) {
+        List<List<Integer>> ret = new ArrayList<>();
+        if (max >= 0)
+            ret.add(new ArrayList<Integer>());
+        for (int i = 0; i < ret.size(); i++)
+            if (ret.get(i).size() < max)
+                for (int l = 0; l < 2; l++) {
+                    List<Integer> w = new ArrayList<>(ret.get(i));
+                    w.add(l);
+                    ret.add(w);
+                }
+        return ret;
+    }
+
+    public void testSubsumptionKeepsExplorationSmall() throws Exception {
+        /* the n-th letter from the end is a, included in itself */
+        int n = 16;
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        State[] s = new State[n + 1];
+        for (int i = 0; i <= n; i++)
+            s[i] = a.addState(i == 0, i == n);
+        a.addTransition(new Transition<>(s[0], "a", s[0]));
+        a.addTransition(new Transition<>(s[0], "b", s[0]));
+        a.addTransition(new Transition<>(s[0], "a", s[1]));
+        for (int i = 1; i < n; i++) {
+            a.addTransition(new Transition<>(s[i], "a", s[i + 1]));
+            a.addTransition(new Transition<>(s[i], "b", s[i + 1]));
+        }
+        /* the complement would have 2^16 states */
+        assertTrue(new AntichainInclusion<String, Transition<String>, TransitionBuilder<String>>(new ExecutionContext().maxStates(10000)).test(a, a));
+        try {
+            new ModelCheck<String, Transition<String>, TransitionBuilder<String>>(new ExecutionContext().maxStates(10000)).test(a, a);
+            fail();
+        } catch (ResourceLimitException e) {
+        }
+    }
+}
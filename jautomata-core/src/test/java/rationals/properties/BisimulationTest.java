@@ -0,0 +1,188 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.properties;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+import rationals.Automaton;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+
+public class BisimulationTest extends TestCase {
+
+    private static final String[] LABELS = { null, "a", "b" };
+
+    private AreEquivalent<String, Transition<String>, TransitionBuilder<String>> strong = new AreEquivalent<>(
+            new Bisimulation<String, Transition<String>, TransitionBuilder<String>>());
+
+    private AreEquivalent<String, Transition<String>, TransitionBuilder<String>> weak = new AreEquivalent<>(
+            new WeakBisimulation<String, Transition<String>, TransitionBuilder<String>>());
+
+    /* the states of the last automaton built */
+    private State[] states;
+
+    private Automaton<String, Transition<String>, TransitionBuilder<String>> automaton(int n, boolean[] terminals,
+            int[][] transitions) throws NoSuchStateException {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        states = new State[n];
+        for (int i = 0; i < n; i++)
+            states[i] = a.addState(i == 0, terminals != null && terminals[i]);
+        for (int[] t : transitions)
+            a.addTransition(new Transition<>(states[t[0]], LABELS[t[1]], states[t[2]]));
+        return a;
+    }
+
+    /*
+     * p1 can read b and q2 cannot, so a search assuming (p1,q2) bisimilar
+     * while trying the a transitions must not keep that assumption.
+     */
+    public void testUnmatchedSuccessor() throws NoSuchStateException {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = automaton(3, null,
+                new int[][] { { 0, 1, 1 }, { 0, 2, 1 }, { 1, 2, 2 } });
+        Automaton<String, Transition<String>, TransitionBuilder<String>> b = automaton(4, null,
+                new int[][] { { 0, 1, 1 }, { 0, 1, 2 }, { 0, 2, 2 }, { 1, 2, 3 } });
+        assertFalse(strong.test(a, b));
+        assertFalse(strong.test(b, a));
+        assertTrue(strong.test(a, a));
+    }
+
+    public void testTerminalStates() throws NoSuchStateException {
+        int[][] loop = { { 0, 1, 0 } };
+        assertTrue(strong.test(automaton(1, new boolean[] { true }, loop), automaton(1, new boolean[] { true }, loop)));
+        assertFalse(strong.test(automaton(1, new boolean[] { true }, loop), automaton(1, null, loop)));
+    }
+
+    public void testLongChain() throws NoSuchStateException {
+        int n = 20000;
+        int[][] chain = new int[n - 1][];
+        for (int i = 0; i < n - 1; i++)
+            chain[i] = new int[] { i, 1, i + 1 };
+        boolean[] end = new boolean[n];
+        end[n - 1] = true;
+        boolean[] before = new boolean[n];
+        before[n - 2] = true;
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = automaton(n, end, chain);
+        assertTrue(strong.test(a, automaton(n, end, chain)));
+        assertFalse(strong.test(a, automaton(n, before, chain)));
+    }
+
+    public void testWeakBisimulation() throws NoSuchStateException {
+        /* a.b and a.tau.b */
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = automaton(3, null,
+                new int[][] { { 0, 1, 1 }, { 1, 2, 2 } });
+        Automaton<String, Transition<String>, TransitionBuilder<String>> b = automaton(4, null,
+                new int[][] { { 0, 1, 1 }, { 1, 0, 2 }, { 2, 2, 3 } });
+        assertFalse(strong.test(a, b));
+        assertTrue(weak.test(a, b));
+        /* an epsilon loop is silent, an epsilon move back to the start is not */
+        Automaton<String, Transition<String>, TransitionBuilder<String>> c = automaton(3, null,
+                new int[][] { { 0, 1, 1 }, { 1, 2, 2 }, { 1, 0, 1 } });
+        Automaton<String, Transition<String>, TransitionBuilder<String>> d = automaton(3, null,
+                new int[][] { { 0, 1, 1 }, { 1, 2, 2 }, { 1, 0, 0 } });
+        assertTrue(weak.test(a, c));
+        assertFalse(weak.test(a, d));
+    }
+
+    /* the greatest bisimulation of moves[p][l][q], computed as a fixpoint over all pairs */
+    private boolean[][] bisimulation(boolean[] terminals, boolean[][][] moves) {
+        int n = terminals.length;
+        boolean[][] rel = new boolean[n][n];
+        for (int p = 0; p < n; p++)
+            for (int q = 0; q < n; q++)
+                rel[p][q] = terminals[p] == terminals[q];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int p = 0; p < n; p++)
+                for (int q = 0; q < n; q++)
+                    if (rel[p][q] && !(matches(p, q, moves, rel) && matches(q, p, moves, rel))) {
+                        rel[p][q] = false;
+                        changed = true;
+                    }
+        }
+        return rel;
+    }
+
+    private boolean matches(int p, int q, boolean[][][] moves, boolean[][] rel) {
+        int n = rel.length;
+        for (int l = 0; l < LABELS.length; l++)
+            for (int p1 = 0; p1 < n; p1++)
+                if (moves[p][l][p1]) {
+                    boolean found = false;
+                    for (int q1 = 0; q1 < n && !found; q1++)
+                        found = moves[q][l][q1] && rel[p1][q1];
+                    if (!found)
+                        return false;
+                }
+        return true;
+    }
+
+    public void testRandomAutomata() throws NoSuchStateException {
+        Random random = new Random(18);
+        for (int round = 0; round < 200; round++) {
+            int n = 1 + random.nextInt(8);
+            boolean[] terminals = new boolean[n];
+            for (int i = 0; i < n; i++)
+                terminals[i] = random.nextInt(3) == 0;
+            int[][] transitions = new int[random.nextInt(2 * n + 1)][];
+            boolean[][][] moves = new boolean[n][LABELS.length][n];
+            for (int i = 0; i < transitions.length; i++) {
+                transitions[i] = new int[] { random.nextInt(n), random.nextInt(LABELS.length), random.nextInt(n) };
+                moves[transitions[i][0]][transitions[i][1]][transitions[i][2]] = true;
+            }
+            Automaton<String, Transition<String>, TransitionBuilder<String>> a = automaton(n, terminals, transitions);
+            Bisimulation<String, Transition<String>, TransitionBuilder<String>> bisim = new Bisimulation<>(a, a);
+            boolean[][] expected = bisimulation(terminals, moves);
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++)
+                    assertEquals(expected[i][j], bisim.equivalence(states[i], states[j]));
+            /* saturate epsilon moves for weak bisimulation */
+            boolean[][] eps = new boolean[n][n];
+            for (int p = 0; p < n; p++) {
+                eps[p][p] = true;
+                for (int q = 0; q < n; q++)
+                    eps[p][q] |= moves[p][0][q];
+            }
+            for (int k = 0; k < n; k++)
+                for (int p = 0; p < n; p++)
+                    for (int q = 0; q < n; q++)
+                        eps[p][q] |= eps[p][k] && eps[k][q];
+            boolean[][][] weakMoves = new boolean[n][LABELS.length][n];
+            boolean[] weakTerminals = new boolean[n];
+            for (int p = 0; p < n; p++)
+                for (int p1 = 0; p1 < n; p1++)
+                    if (eps[p][p1]) {
+                        weakTerminals[p] |= terminals[p1];
+                        weakMoves[p][0][p1] = true;
+                        for (int l = 1; l < LABELS.length; l++)
+                            for (int q1 = 0; q1 < n; q1++)
+                                if (moves[p1][l][q1])
+                                    for (int q = 0; q < n; q++)
+                                        weakMoves[p][l][q] |= eps[q1][q];
+                    }
+            WeakBisimulation<String, Transition<String>, TransitionBuilder<String>> wbisim = new WeakBisimulation<>();
+            wbisim.setAutomata(a, a);
+            expected = bisimulation(weakTerminals, weakMoves);
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++)
+                    assertEquals(expected[i][j], wbisim.equivalence(states[i], states[j]));
+        }
+    }
+}
@@ -86,7 +86,7 @@ public class EquivalentTest extends TestCase {
 		b.addTransition(new Transition<>(sts[2],"b",sts[3]));
 		b.addTransition(new Transition<>(sts[1],"c",sts[4]));
 		AreEquivalent<String, Transition<String>, TransitionBuilder<String>> eq = new AreEquivalent<>(new WeakBisimulation<String, Transition<String>, TransitionBuilder<String>>());
-		assertTrue(eq.test(a,b));
+		assertFalse(eq.test(a,b));
 	}
 
 	public void testEquivalence() throws NoSuchStateException {
@@ -0,0 +1,156 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.properties;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+import rationals.Automaton;
+import rationals.CompiledDfa;
+import rationals.RandomAutomata;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.converters.Expression;
+import rationals.transformations.Reducer;
+import rationals.transformations.ToDFA;
+
+public class LanguageEquivalenceTest extends TestCase {
+
+    private Automaton<String, Transition<String>, TransitionBuilder<String>> re(String s) throws Exception {
+        return new Expression<Transition<String>, TransitionBuilder<String>>().fromString(s);
+    }
+
+    private List<SubsetEquivalence<String, Transition<String>, TransitionBuilder<String>>> relations() {
+        List<SubsetEquivalence<String, Transition<String>, TransitionBuilder<String>>> ret = new ArrayList<>();
+        ret.add(new HopcroftKarpEquivalence<String, Transition<String>, TransitionBuilder<String>>());
+        ret.add(new CongruenceEquivalence<String, Transition<String>, TransitionBuilder<String>>());
+        return ret;
+    }
+
+    public void testRegularExpressions() throws Exception {
+        for (SubsetEquivalence<String, Transition<String>, TransitionBuilder<String>> r : relations()) {
+            AreEquivalent<String, Transition<String>, TransitionBuilder<String>> eq = new AreEquivalent<>(r);
+            assertTrue(eq.test(re("(a+b)*"), re("(a*b*)*")));
+            assertNull(r.getErrorTrace());
+            assertTrue(eq.test(re("a(ba)*"), re("(ab)*a")));
+            assertFalse(eq.test(re("(a+b)*c"), re("a*c")));
+            assertEquals(Arrays.asList("b", "c"), r.getErrorTrace());
+            /* letters of only one automaton */
+            assertFalse(eq.test(re("a*"), re("a*+d")));
+            assertEquals(Arrays.asList("d"), r.getErrorTrace());
+            assertFalse(eq.test(re("a"), re("a+1")));
+            assertEquals(new ArrayList<String>(), r.getErrorTrace());
+        }
+    }
+
+    public void testLanguageEquivalent() throws Exception {
+        LanguageEquivalent<String, Transition<String>, TransitionBuilder<String>> eq = new LanguageEquivalent<>();
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = re("(a+b)*abb");
+        assertTrue(eq.test(a, new Reducer<String, Transition<String>, TransitionBuilder<String>>().transform(a)));
+        assertFalse(eq.test(a, re("(a+b)*bb")));
+        assertEquals(Arrays.asList("b", "b"), eq.getErrorTrace());
+    }
+
+    /* true if a and b accept the same words over {0, 1}, by a search of the product of DFAs */
+    private boolean equivalent(Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a, Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> b) {
+        CompiledDfa<Integer> da = CompiledDfa.compile(a);
+        CompiledDfa<Integer> db = CompiledDfa.compile(b);
+        Set<List<Integer>> seen = new HashSet<>();
+        List<List<Integer>> todo = new ArrayList<>();
+        todo.add(Arrays.asList(da.start(), db.start()));
+        for (int i = 0; i < todo.size(); i++) {
+            int qa = todo.get(i).get(0), qb = todo.get(i).get(1);
+            if ((qa >= 0 && da.isAccepting(qa)) != (qb >= 0 && db.isAccepting(qb)))
+                return false;
+            for (int l = 0; l < 2; l++) {
+                List<Integer> next = Arrays.asList(da.step(qa, da.symbols().indexOf(l)), db.step(qb, db.symbols().indexOf(l)));
+                if ((next.get(0) >= 0 || next.get(1) >= 0) && seen.add(next))
+                    todo.add(next);
+            }
+        }
+        return true;
+    }
+
+    public void testRandomAutomata() throws Exception {
+        Random rand = new Random(17);
+        List<SubsetEquivalence<Integer, Transition<Integer>, TransitionBuilder<Integer>>> relations = new ArrayList<>();
+        relations.add(new HopcroftKarpEquivalence<Integer, Transition<Integer>, TransitionBuilder<Integer>>());
+        relations.add(new CongruenceEquivalence<Integer, Transition<Integer>, TransitionBuilder<Integer>>());
+        int different = 0;
+        for (int k = 0; k < 200; k++) {
+            Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = RandomAutomata.randomNfa(rand, 2 + rand.nextInt(6), 2, 3);
+            Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> b = k % 2 == 0 ? new ToDFA<Integer, Transition<Integer>, TransitionBuilder<Integer>>().transform(a)
+                    : RandomAutomata.randomNfa(rand, 2 + rand.nextInt(6), 2, 3);
+            boolean expected = equivalent(a, b);
+            List<Integer> trace = null;
+            for (SubsetEquivalence<Integer, Transition<Integer>, TransitionBuilder<Integer>> r : relations) {
+                assertEquals(expected, new AreEquivalent<>(r).test(a, b));
+                if (expected)
+                    continue;
+                List<Integer> w = r.getErrorTrace();
+                assertTrue(a.accept(w) != b.accept(w));
+                if (trace != null)
+                    assertEquals(trace.size(), w.size());
+                trace = w;
+            }
+            if (expected)
+                continue;
+            different++;
+            for (List<Integer> v : words(trace.size() - 1))
+                assertEquals(v.toString(), a.accept(v), b.accept(v));
+        }
+        assertTrue(different > 10 && different < 100);
+    }
+
+    /* words over {0, 1} up to given length */
+    private List<List<Integer>> words(int max) {
+        List<List<Integer>> ret = new ArrayList<>();
+        if (max >= 0)
+            ret.add(new ArrayList<Integer>());
+        for (int i = 0; i < ret.size(); i++)
+            if (ret.get(i).size() < max)
+                for (int l = 0; l < 2; l++) {
+                    List<Integer> w = new ArrayList<>(ret.get(i));
+                    w.add(l);
+                    ret.add(w);
+                }
+        return ret;
+    }
+
+    public void testStatesOfOneAutomaton() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        State s0 = a.addState(true, false);
+        State s1 = a.addState(false, true);
+        State s2 = a.addState(false, true);
+        a.addTransition(new Transition<>(s0, "a", s1));
+        a.addTransition(new Transition<>(s0, "a", s2));
+        a.addTransition(new Transition<>(s1, "b", s1));
+        a.addTransition(new Transition<>(s2, "b", s1));
+        for (SubsetEquivalence<String, Transition<String>, TransitionBuilder<String>> r : relations()) {
+            r.setAutomata(a, a);
+            assertTrue(r.equivalence(s1, s2));
+            assertFalse(r.equivalence(s0, s1));
+            assertEquals(new ArrayList<String>(), r.getErrorTrace());
+        }
+    }
+}
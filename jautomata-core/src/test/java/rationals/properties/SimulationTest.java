@@ -0,0 +1,157 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.properties;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+import rationals.Automaton;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+
+public class SimulationTest extends TestCase {
+
+    private static final String[] LABELS = { null, "a", "b" };
+
+    private Automaton<String, Transition<String>, TransitionBuilder<String>> automaton(State[] states, boolean[] initials,
+            boolean[] terminals, int[][] transitions) throws NoSuchStateException {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        for (int i = 0; i < states.length; i++)
+            states[i] = a.addState(initials[i], terminals[i]);
+        for (int[] t : transitions)
+            a.addTransition(new Transition<>(states[t[0]], LABELS[t[1]], states[t[2]]));
+        return a;
+    }
+
+    /* the greatest simulation of moves[p][l][q], computed as a fixpoint over all pairs */
+    private boolean[][] simulation(boolean[] terminals, boolean[][][] moves) {
+        int n = terminals.length;
+        boolean[][] rel = new boolean[n][n];
+        for (int p = 0; p < n; p++)
+            for (int q = 0; q < n; q++)
+                rel[p][q] = !terminals[p] || terminals[q];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int p = 0; p < n; p++)
+                for (int q = 0; q < n; q++)
+                    for (int l = 0; l < LABELS.length && rel[p][q]; l++)
+                        for (int p1 = 0; p1 < n && rel[p][q]; p1++)
+                            if (moves[p][l][p1]) {
+                                boolean found = false;
+                                for (int q1 = 0; q1 < n && !found; q1++)
+                                    found = moves[q][l][q1] && rel[p1][q1];
+                                if (!found) {
+                                    rel[p][q] = false;
+                                    changed = true;
+                                }
+                            }
+        }
+        return rel;
+    }
+
+    public void testRandomAutomata() throws NoSuchStateException {
+        Random random = new Random(19);
+        for (int round = 0; round < 200; round++) {
+            int n = 1 + random.nextInt(10);
+            boolean[] initials = new boolean[n], terminals = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                initials[i] = random.nextInt(3) == 0;
+                terminals[i] = random.nextInt(3) == 0;
+            }
+            int[][] transitions = new int[random.nextInt(3 * n + 1)][];
+            for (int i = 0; i < transitions.length; i++)
+                transitions[i] = new int[] { random.nextInt(n), random.nextInt(LABELS.length), random.nextInt(n) };
+            check(initials, terminals, transitions);
+        }
+    }
+
+    /* compares both preorders with the naive fixpoint */
+    private void check(boolean[] initials, boolean[] terminals, int[][] transitions) throws NoSuchStateException {
+        int n = initials.length;
+        boolean[][][] forward = new boolean[n][LABELS.length][n];
+        boolean[][][] backward = new boolean[n][LABELS.length][n];
+        for (int[] t : transitions) {
+            forward[t[0]][t[1]][t[2]] = true;
+            backward[t[2]][t[1]][t[0]] = true;
+        }
+        State[] states = new State[n];
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = automaton(states, initials, terminals, transitions);
+        SimulationPreorder fw = new SimulationPreorder(a);
+        SimulationPreorder bw = new SimulationPreorder(a, true);
+        boolean[][] expectedForward = simulation(terminals, forward);
+        boolean[][] expectedBackward = simulation(initials, backward);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++) {
+                assertEquals(expectedForward[i][j], fw.isSimulatedBy(states[i], states[j]));
+                assertEquals(expectedBackward[i][j], bw.isSimulatedBy(states[i], states[j]));
+            }
+    }
+
+    /* a class loses simulators while its own removals are being processed */
+    public void testRemovalsDuringProcessing() throws NoSuchStateException {
+        boolean[] initials = { true, false, false, false, false, false };
+        boolean[] terminals = { false, true, false, false, true, false };
+        check(initials, terminals, new int[][] { { 3, 1, 3 }, { 1, 1, 2 }, { 5, 0, 5 }, { 4, 0, 0 }, { 2, 0, 3 },
+                { 3, 1, 2 }, { 0, 0, 2 }, { 4, 1, 3 }, { 1, 0, 3 } });
+    }
+
+    public void testSimilar() throws NoSuchStateException {
+        /* a.b + a.a is simulated by a.(b + a), not conversely */
+        State[] states = new State[5];
+        boolean[] initial = { true, false, false, false, false };
+        boolean[] none = new boolean[5];
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = automaton(states, initial, none,
+                new int[][] { { 0, 1, 1 }, { 0, 1, 2 }, { 1, 2, 3 }, { 2, 1, 4 } });
+        Automaton<String, Transition<String>, TransitionBuilder<String>> b = automaton(states, initial, none,
+                new int[][] { { 0, 1, 1 }, { 1, 2, 2 }, { 1, 1, 3 } });
+        Similar<String, Transition<String>, TransitionBuilder<String>> similar = new Similar<>();
+        assertTrue(similar.test(a, b));
+        assertFalse(similar.test(b, a));
+        Simulation<String, Transition<String>, TransitionBuilder<String>> sim = new Simulation<>(a, b);
+        assertTrue(sim.equivalence(a.initials(), b.initials()));
+        assertFalse(sim.equivalence(a.states(), b.initials()));
+    }
+
+    /* many copies of the same automaton only cost as much as one */
+    public void testCopies() throws NoSuchStateException {
+        Random random = new Random(1234);
+        int size = 50, copies = 200, n = size * copies;
+        int[][] transitions = new int[2 * n][];
+        boolean[] initials = new boolean[n], terminals = new boolean[n];
+        int[][] pattern = new int[2 * size][];
+        for (int i = 0; i < pattern.length; i++)
+            pattern[i] = new int[] { random.nextInt(size), 1 + random.nextInt(2), random.nextInt(size) };
+        boolean[] accepting = new boolean[size];
+        for (int i = 0; i < size; i++)
+            accepting[i] = random.nextInt(4) == 0;
+        for (int c = 0; c < copies; c++) {
+            for (int i = 0; i < size; i++)
+                terminals[c * size + i] = accepting[i];
+            for (int i = 0; i < pattern.length; i++)
+                transitions[c * pattern.length + i] = new int[] { c * size + pattern[i][0], pattern[i][1],
+                        c * size + pattern[i][2] };
+        }
+        State[] states = new State[n];
+        SimulationPreorder sim = new SimulationPreorder(automaton(states, initials, terminals, transitions));
+        assertTrue(sim.classCount() <= size);
+        for (int i = 0; i < size; i++)
+            assertTrue(sim.isSimulatedBy(states[i], states[(copies - 1) * size + i]));
+    }
+}
@@ -84,4 +84,13 @@ public class EpsilonTransitionRemoverTest extends TestCase {
         String[] word2 = new String[] { "c","c","c"};
         assertTrue(b.accept(Arrays.asList(word2)));
     }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testSameLanguageOfAutomata() {
+    	EpsilonTransitionRemover<String, Transition<String>, TransitionBuilder<String>> norm = new EpsilonTransitionRemover<>();
+        Automaton<String, Transition<String>, TransitionBuilder<String>> b = norm.transform(automaton);
+        assertTrue(norm.sameLanguage(automaton, b));
+        assertFalse(norm.sameLanguage(automaton, new Automaton<String, Transition<String>, TransitionBuilder<String>>()));
+    }
 }
@@ -0,0 +1,144 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.transformations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+import rationals.Automaton;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.properties.ModelCheck;
+
+public class ExecutionContextTest extends TestCase {
+
+    /* the n-th letter from the end is a: its deterministic automaton has 2^n states */
+    private Automaton<String, Transition<String>, TransitionBuilder<String>> nthFromEnd(int n) throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        State[] s = new State[n + 1];
+        for (int i = 0; i <= n; i++)
+            s[i] = a.addState(i == 0, i == n);
+        a.addTransition(new Transition<>(s[0], "a", s[0]));
+        a.addTransition(new Transition<>(s[0], "b", s[0]));
+        a.addTransition(new Transition<>(s[0], "a", s[1]));
+        for (int i = 1; i < n; i++) {
+            a.addTransition(new Transition<>(s[i], "a", s[i + 1]));
+            a.addTransition(new Transition<>(s[i], "b", s[i + 1]));
+        }
+        return a;
+    }
+
+    public void testUnboundedContext() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> d = new ToDFA<String, Transition<String>, TransitionBuilder<String>>(
+                new ExecutionContext()).transform(nthFromEnd(6));
+        assertEquals(64, d.states().size());
+        assertEquals(128, d.transitionCount());
+    }
+
+    public void testMaxStates() throws Exception {
+        try {
+            new ToDFA<String, Transition<String>, TransitionBuilder<String>>(new ExecutionContext().maxStates(100)).transform(nthFromEnd(10));
+            fail();
+        } catch (ResourceLimitException e) {
+            assertEquals(ResourceLimitException.Reason.STATES, e.reason());
+            assertEquals("ToDFA", e.operation());
+            assertEquals(101, e.states());
+            assertTrue(e.transitions() > 0);
+        }
+    }
+
+    public void testMaxTransitions() throws Exception {
+        try {
+            new ToDFA<String, Transition<String>, TransitionBuilder<String>>(new ExecutionContext().maxTransitions(50)).transform(nthFromEnd(10));
+            fail();
+        } catch (ResourceLimitException e) {
+            assertEquals(ResourceLimitException.Reason.TRANSITIONS, e.reason());
+            assertEquals(51, e.transitions());
+        }
+    }
+
+    public void testCancelAndDeadline() throws Exception {
+        ExecutionContext ctx = new ExecutionContext();
+        ctx.cancel();
+        assertTrue(ctx.isCancelled());
+        try {
+            new ToDFA<String, Transition<String>, TransitionBuilder<String>>(ctx).transform(nthFromEnd(3));
+            fail();
+        } catch (ResourceLimitException e) {
+            assertEquals(ResourceLimitException.Reason.CANCELLED, e.reason());
+            assertEquals(1, e.states());
+        }
+        ctx = new ExecutionContext().timeout(0, TimeUnit.MILLISECONDS);
+        Thread.sleep(2);
+        try {
+            new EpsilonTransitionRemover<String, Transition<String>, TransitionBuilder<String>>(ctx).transform(nthFromEnd(3));
+            fail();
+        } catch (ResourceLimitException e) {
+            assertEquals(ResourceLimitException.Reason.DEADLINE, e.reason());
+            assertEquals("EpsilonTransitionRemover", e.operation());
+        }
+    }
+
+    public void testProgress() throws Exception {
+        final List<Integer> reported = new ArrayList<>();
+        ExecutionContext ctx = new ExecutionContext().progress(new ProgressListener() {
+            public void progress(String operation, int states, int transitions) {
+                assertEquals("ToDFA", operation);
+                reported.add(states);
+            }
+        }, 64);
+        new ToDFA<String, Transition<String>, TransitionBuilder<String>>(ctx).transform(nthFromEnd(9));
+        assertEquals(8, reported.size());
+        for (int i = 0; i < reported.size(); i++)
+            assertEquals(64 * (i + 1), reported.get(i).intValue());
+    }
+
+    public void testComplementAndModelCheck() throws Exception {
+        try {
+            new Complement<String, Transition<String>, TransitionBuilder<String>>(null, new ExecutionContext().maxStates(10)).transform(nthFromEnd(8));
+            fail();
+        } catch (ResourceLimitException e) {
+            assertEquals("ToDFA", e.operation());
+        }
+        ModelCheck<String, Transition<String>, TransitionBuilder<String>> mc = new ModelCheck<>(new ExecutionContext().maxStates(300));
+        try {
+            mc.test(nthFromEnd(10), nthFromEnd(10));
+            fail();
+        } catch (ResourceLimitException e) {
+            assertEquals(ResourceLimitException.Reason.STATES, e.reason());
+        }
+        assertTrue(new ModelCheck<String, Transition<String>, TransitionBuilder<String>>(new ExecutionContext().maxStates(300)).test(
+                nthFromEnd(4), nthFromEnd(4)));
+    }
+
+    public void testParallelToDFA() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            new ParallelToDFA<String, Transition<String>, TransitionBuilder<String>>(pool, new ExecutionContext().maxStates(200)).transform(nthFromEnd(12));
+            fail();
+        } catch (ResourceLimitException e) {
+            assertEquals(ResourceLimitException.Reason.STATES, e.reason());
+            assertEquals("ParallelToDFA", e.operation());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
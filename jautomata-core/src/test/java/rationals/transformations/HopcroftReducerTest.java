@@ -0,0 +1,101 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.transformations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import rationals.Automaton;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.converters.Expression;
+import rationals.properties.IsDeterministic;
+
+public class HopcroftReducerTest extends TestCase {
+
+    private final HopcroftReducer<String, Transition<String>, TransitionBuilder<String>> reducer = new HopcroftReducer<>();
+
+    /*
+     * compares languages on all words up to some length: ModelCheck would not
+     * do as the minimal automaton may have a smaller alphabet
+     */
+    private void assertSameWords(Automaton<String, Transition<String>, TransitionBuilder<String>> a, Automaton<String, Transition<String>, TransitionBuilder<String>> b, String[] letters, List<String> prefix, int length) {
+        assertEquals(prefix.toString(), a.accept(prefix), b.accept(prefix));
+        if (length == 0)
+            return;
+        for (String l : letters) {
+            prefix.add(l);
+            assertSameWords(a, b, letters, prefix, length - 1);
+            prefix.remove(prefix.size() - 1);
+        }
+    }
+
+    public void testMinimalSizes() throws Exception {
+        Expression<Transition<String>, TransitionBuilder<String>> e = new Expression<>();
+        assertEquals(4, reducer.transform(e.fromString("(a+b)*abb")).states().size());
+        assertEquals(1, reducer.transform(e.fromString("(a+b)*")).states().size());
+        assertEquals(3, reducer.transform(e.fromString("a(bb)*")).states().size());
+    }
+
+    public void testRandomAutomata() throws Exception {
+        Random rand = new Random(5);
+        String[] letters = { "a", "b", "c" };
+        for (int k = 0; k < 50; k++) {
+            Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+            int n = 2 + rand.nextInt(10);
+            State[] sts = new State[n];
+            for (int i = 0; i < n; i++)
+                sts[i] = a.addState(i == 0 || rand.nextInt(6) == 0, rand.nextInt(3) == 0);
+            for (int i = 0; i < 3 * n; i++)
+                a.addTransition(new Transition<>(sts[rand.nextInt(n)], letters[rand.nextInt(3)], sts[rand.nextInt(n)]));
+            Automaton<String, Transition<String>, TransitionBuilder<String>> m = reducer.transform(a);
+            assertTrue(new IsDeterministic<String, Transition<String>, TransitionBuilder<String>>().test(m));
+            assertSameWords(a, m, letters, new ArrayList<String>(), 6);
+            assertEquals(m.states().size(), reducer.transform(m).states().size());
+            assertTrue(m.states().size() <= new ToDFA<String, Transition<String>, TransitionBuilder<String>>().transform(a).states().size());
+        }
+    }
+
+    public void testMissingTransitionDistinguishesStates() throws Exception {
+        /* as with Reducer, a dead state is not merged with a missing transition */
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        State s0 = a.addState(true, false);
+        State s1 = a.addState(false, true);
+        State s2 = a.addState(false, true);
+        State dead = a.addState(false, false);
+        a.addTransition(new Transition<>(s0, "a", s1));
+        a.addTransition(new Transition<>(s0, "b", s2));
+        a.addTransition(new Transition<>(s2, "a", dead));
+        Automaton<String, Transition<String>, TransitionBuilder<String>> m = reducer.transform(a);
+        assertEquals(4, m.states().size());
+        assertEquals(m.states().size(), new Reducer<String, Transition<String>, TransitionBuilder<String>>().transform(a).states().size());
+        a.addTransition(new Transition<>(s1, "a", dead));
+        assertEquals(3, reducer.transform(a).states().size());
+    }
+
+    public void testNoInitialState() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        a.addState(false, true);
+        Automaton<String, Transition<String>, TransitionBuilder<String>> m = reducer.transform(a);
+        assertEquals(1, m.states().size());
+        assertEquals(1, m.initials().size());
+        assertTrue(m.terminals().isEmpty());
+    }
+}
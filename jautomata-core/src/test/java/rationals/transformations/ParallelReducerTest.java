@@ -0,0 +1,135 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.transformations;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.TestCase;
+import rationals.Automaton;
+import rationals.CompiledDfa;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.converters.Expression;
+
+public class ParallelReducerTest extends TestCase {
+
+    private ForkJoinPool pool;
+
+    private ParallelReducer<String, Transition<String>, TransitionBuilder<String>> reducer;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        pool = new ForkJoinPool(4);
+        reducer = new ParallelReducer<>(pool);
+    }
+
+    protected void tearDown() throws Exception {
+        pool.shutdown();
+        super.tearDown();
+    }
+
+    /* a random DFA made of two copies of the same automaton */
+    private Automaton<String, Transition<String>, TransitionBuilder<String>> doubled(Random rand, int half) throws Exception {
+        String[] letters = { "a", "b", "c" };
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        int[][] delta = new int[half][letters.length];
+        boolean[] term = new boolean[half];
+        for (int i = 0; i < half; i++) {
+            term[i] = rand.nextInt(3) == 0;
+            for (int l = 0; l < letters.length; l++)
+                delta[i][l] = rand.nextInt(6) == 0 ? -1 : rand.nextInt(half);
+        }
+        State[] sts = new State[2 * half];
+        for (int i = 0; i < 2 * half; i++)
+            sts[i] = a.addState(i == 0, term[i % half]);
+        for (int i = 0; i < 2 * half; i++)
+            for (int l = 0; l < letters.length; l++)
+                if (delta[i % half][l] >= 0)
+                    a.addTransition(new Transition<>(sts[i], letters[l], sts[delta[i % half][l] + (rand.nextBoolean() ? half : 0)]));
+        return a;
+    }
+
+    public void testSameSizeAsHopcroft() throws Exception {
+        Random rand = new Random(17);
+        HopcroftReducer<String, Transition<String>, TransitionBuilder<String>> hopcroft = new HopcroftReducer<>();
+        for (int half : new int[] { 1, 5, 50, 500, 5000 }) {
+            Automaton<String, Transition<String>, TransitionBuilder<String>> a = doubled(rand, half);
+            Automaton<String, Transition<String>, TransitionBuilder<String>> m = reducer.transform(a);
+            Automaton<String, Transition<String>, TransitionBuilder<String>> h = hopcroft.transform(a);
+            assertEquals(h.states().size(), m.states().size());
+            assertEquals(h.terminals().size(), m.terminals().size());
+            assertEquals(h.delta().size(), m.delta().size());
+            CompiledDfa<String> dm = CompiledDfa.compile(m), dh = CompiledDfa.compile(h);
+            String[] letters = { "a", "b", "c" };
+            for (int i = 0; i < 500; i++) {
+                String[] w = new String[rand.nextInt(12)];
+                for (int j = 0; j < w.length; j++)
+                    w[j] = letters[rand.nextInt(3)];
+                assertEquals(dh.accept(Arrays.asList(w)), dm.accept(Arrays.asList(w)));
+            }
+        }
+    }
+
+    public void testPartition() throws Exception {
+        CompiledDfa<String> dfa = CompiledDfa.compile(doubled(new Random(3), 100));
+        int[] classes = reducer.partition(dfa);
+        assertEquals(dfa.stateCount(), classes.length);
+        /* classes are dense, and each state has a twin */
+        java.util.BitSet used = new java.util.BitSet();
+        boolean[] accepting = new boolean[classes.length];
+        for (int q = 0; q < classes.length; q++) {
+            used.set(classes[q]);
+            accepting[classes[q]] = dfa.isAccepting(q);
+        }
+        assertEquals(used.length(), used.cardinality());
+        assertTrue(used.cardinality() <= 100);
+        for (int q = 0; q < classes.length; q++)
+            assertEquals(accepting[classes[q]], dfa.isAccepting(q));
+    }
+
+    /* classes are numbered in the order of their smallest state, whatever the threads */
+    public void testPartitionNumbering() throws Exception {
+        CompiledDfa<String> dfa = CompiledDfa.compile(doubled(new Random(5), 5000));
+        int[] classes = reducer.partition(dfa);
+        int last = -1;
+        for (int c : classes) {
+            assertTrue(c <= last + 1);
+            last = Math.max(last, c);
+        }
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(Arrays.equals(classes, reducer.partition(dfa)));
+                assertTrue(Arrays.equals(classes, new ParallelReducer<String, Transition<String>, TransitionBuilder<String>>(single).partition(dfa)));
+            }
+        } finally {
+            single.shutdown();
+        }
+    }
+
+    public void testNonDeterministicAndEmpty() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Expression<Transition<String>, TransitionBuilder<String>>().fromString("(a+b)*abb");
+        assertEquals(4, reducer.transform(a).states().size());
+        Automaton<String, Transition<String>, TransitionBuilder<String>> e = new Automaton<>();
+        e.addState(false, true);
+        assertEquals(1, reducer.transform(e).states().size());
+        assertTrue(reducer.transform(e).terminals().isEmpty());
+    }
+}
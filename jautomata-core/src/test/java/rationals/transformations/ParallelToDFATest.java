@@ -0,0 +1,94 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.transformations;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.TestCase;
+import rationals.Automaton;
+import rationals.RandomAutomata;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+
+public class ParallelToDFATest extends TestCase {
+
+    /*
+     * a canonical description of a DFA: states numbered breadth-first from
+     * the initial state, following labels in increasing order
+     */
+    private String canonical(Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a) {
+        Map<State, Integer> ids = new HashMap<>();
+        List<State> todo = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        State init = a.initials().iterator().next();
+        ids.put(init, 0);
+        todo.add(init);
+        for (int i = 0; i < todo.size(); i++) {
+            State s = todo.get(i);
+            sb.append(s.isTerminal() ? '*' : ' ').append(i).append(':');
+            TreeMap<Integer, State> out = new TreeMap<>();
+            for (Transition<Integer> tr : a.delta(s))
+                out.put(tr.label(), tr.end());
+            for (Map.Entry<Integer, State> e : out.entrySet()) {
+                Integer id = ids.get(e.getValue());
+                if (id == null) {
+                    ids.put(e.getValue(), id = todo.size());
+                    todo.add(e.getValue());
+                }
+                sb.append(' ').append(e.getKey()).append("->").append(id);
+            }
+            sb.append('\n');
+        }
+        assertEquals(a.states().size(), todo.size());
+        return sb.toString();
+    }
+
+    public void testSameAutomatonAsToDFA() throws Exception {
+        Random rand = new Random(8);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelToDFA<Integer, Transition<Integer>, TransitionBuilder<Integer>> parallel = new ParallelToDFA<>(pool);
+            ToDFA<Integer, Transition<Integer>, TransitionBuilder<Integer>> todfa = new ToDFA<>();
+            for (int k = 0; k < 20; k++) {
+                /* the last ones have levels larger than a task */
+                Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = RandomAutomata.randomNfa(rand, k < 15 ? 2 + rand.nextInt(12) : 30, 3, 2);
+                Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> d = todfa.transform(a);
+                String expected = canonical(d);
+                assertEquals(expected, canonical(parallel.transform(a)));
+                assertEquals(expected, canonical(parallel.transform(a)));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testNoInitialState() throws Exception {
+        Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = new Automaton<>();
+        a.addState(false, true);
+        Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> d = new ParallelToDFA<Integer, Transition<Integer>, TransitionBuilder<Integer>>().transform(a);
+        assertEquals(1, d.states().size());
+        assertEquals(1, d.initials().size());
+        assertTrue(d.terminals().isEmpty());
+    }
+}
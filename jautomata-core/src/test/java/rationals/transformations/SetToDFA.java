@@ -0,0 +1,71 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.transformations;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import rationals.Automaton;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+
+/**
+ * The subset construction over sets of {@link State} that {@link ToDFA} used
+ * before interning bitsets, kept as a reference for tests and benchmarks.
+ */
+public class SetToDFA<L> implements UnaryTransformation<L, Transition<L>, TransitionBuilder<L>> {
+
+    public Automaton<L, Transition<L>, TransitionBuilder<L>> transform(Automaton<L, Transition<L>, TransitionBuilder<L>> a) {
+        Automaton<L, Transition<L>, TransitionBuilder<L>> ret = new Automaton<>();
+        Map<Set<State>, State> bmap = new HashMap<>();
+        List<Set<State>> todo = new ArrayList<>();
+        Set<Set<State>> done = new HashSet<>();
+        Set<State> as = TransformationsToolBox.epsilonClosure(a.initials(), a);
+        State from = ret.addState(true, TransformationsToolBox.containsATerminalState(as));
+        bmap.put(as, from);
+        todo.add(as);
+        try {
+            do {
+                Set<State> sts = todo.remove(0);
+                from = bmap.get(sts);
+                if (done.contains(sts))
+                    continue;
+                done.add(sts);
+                Map<L, Set<State>> tam = TransformationsToolBox.mapAlphabet(a.delta(sts), a);
+                for (Map.Entry<L, Set<State>> e : tam.entrySet()) {
+                    Set<State> asc = TransformationsToolBox.epsilonClosure(e.getValue(), a);
+                    State to = bmap.get(asc);
+                    if (to == null) {
+                        to = ret.addState(false, TransformationsToolBox.containsATerminalState(asc));
+                        bmap.put(asc, to);
+                    }
+                    todo.add(asc);
+                    ret.addTransition(new Transition<L>(from, e.getKey(), to));
+                }
+            } while (!todo.isEmpty());
+        } catch (NoSuchStateException e) {
+            throw new Error(e);
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.transformations;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+import rationals.Automaton;
+import rationals.NoSuchStateException;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.properties.LanguageEquivalent;
+
+public class SimulationReducerTest extends TestCase {
+
+    private static final String[] LABELS = { null, "a", "b", "c" };
+
+    private final SimulationReducer<String, Transition<String>, TransitionBuilder<String>> reducer = new SimulationReducer<>();
+
+    private Automaton<String, Transition<String>, TransitionBuilder<String>> automaton(int n, int[] terminals, int[][] transitions) throws NoSuchStateException {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        State[] sts = new State[n];
+        for (int i = 0; i < n; i++)
+            sts[i] = a.addState(i == 0, false);
+        for (int t : terminals)
+            sts[t].setTerminal(true);
+        for (int[] t : transitions)
+            a.addTransition(new Transition<>(sts[t[0]], LABELS[t[1]], sts[t[2]]));
+        return a;
+    }
+
+    public void testMergeEquivalentStates() throws NoSuchStateException {
+        /* ab + ab + ac: forward then backward equivalence give a(b + c) */
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = automaton(7, new int[] { 2, 4, 6 },
+                new int[][] { { 0, 1, 1 }, { 1, 2, 2 }, { 0, 1, 3 }, { 3, 2, 4 }, { 0, 1, 5 }, { 5, 3, 6 } });
+        Automaton<String, Transition<String>, TransitionBuilder<String>> b = reducer.transform(a);
+        assertEquals(3, b.states().size());
+        assertEquals(3, b.delta().size());
+        assertTrue(new LanguageEquivalent<String, Transition<String>, TransitionBuilder<String>>().test(a, b));
+    }
+
+    public void testPruneLittleBrothers() throws NoSuchStateException {
+        /* ab + a(b + c): the first branch is useless */
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = automaton(4, new int[] { 2 },
+                new int[][] { { 0, 1, 1 }, { 1, 2, 2 }, { 0, 1, 3 }, { 3, 2, 2 }, { 3, 3, 2 } });
+        Automaton<String, Transition<String>, TransitionBuilder<String>> b = reducer.transform(a);
+        assertEquals(3, b.states().size());
+        assertEquals(3, b.delta().size());
+        assertTrue(new LanguageEquivalent<String, Transition<String>, TransitionBuilder<String>>().test(a, b));
+    }
+
+    public void testRandomAutomata() throws NoSuchStateException {
+        Random rand = new Random(20);
+        LanguageEquivalent<String, Transition<String>, TransitionBuilder<String>> equivalent = new LanguageEquivalent<>();
+        Pruner<String, Transition<String>, TransitionBuilder<String>> pruner = new Pruner<>();
+        for (int round = 0; round < 200; round++) {
+            int n = 1 + rand.nextInt(12);
+            int[] terminals = new int[1 + rand.nextInt(3)];
+            for (int i = 0; i < terminals.length; i++)
+                terminals[i] = rand.nextInt(n);
+            int[][] transitions = new int[rand.nextInt(3 * n + 1)][];
+            for (int i = 0; i < transitions.length; i++)
+                transitions[i] = new int[] { rand.nextInt(n), rand.nextInt(LABELS.length), rand.nextInt(n) };
+            Automaton<String, Transition<String>, TransitionBuilder<String>> a = automaton(n, terminals, transitions);
+            Automaton<String, Transition<String>, TransitionBuilder<String>> b = reducer.transform(a);
+            assertTrue(equivalent.test(a, b));
+            Automaton<String, Transition<String>, TransitionBuilder<String>> p = pruner.transform(a);
+            assertTrue(b.states().size() <= p.states().size());
+            assertTrue(b.delta().size() <= p.delta().size());
+        }
+    }
+}
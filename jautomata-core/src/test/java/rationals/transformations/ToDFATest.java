@@ -0,0 +1,99 @@
+/*
+ * (C) Copyright 2005 Arnaud Bailly (arnaud.oqube@gmail.com),
+ *     Yves Roos (yroos@lifl.fr) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the License);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an AS IS BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rationals.transformations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import rationals.Automaton;
+import rationals.CompiledDfa;
+import rationals.RandomAutomata;
+import rationals.State;
+import rationals.Transition;
+import rationals.TransitionBuilder;
+import rationals.properties.IsDeterministic;
+
+public class ToDFATest extends TestCase {
+
+    public void testSameSubsetsAsSetConstruction() throws Exception {
+        Random rand = new Random(21);
+        ToDFA<Integer, Transition<Integer>, TransitionBuilder<Integer>> todfa = new ToDFA<>();
+        SetToDFA<Integer> reference = new SetToDFA<>();
+        for (int k = 0; k < 40; k++) {
+            /* more than 64 states for some, to span several words */
+            Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> a = RandomAutomata.randomNfa(rand, 2 + rand.nextInt(k < 35 ? 12 : 100), 3, 2);
+            Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> d = todfa.transform(a);
+            Automaton<Integer, Transition<Integer>, TransitionBuilder<Integer>> r = reference.transform(a);
+            assertTrue(new IsDeterministic<Integer, Transition<Integer>, TransitionBuilder<Integer>>().test(d));
+            assertEquals(r.states().size(), d.states().size());
+            assertEquals(r.terminals().size(), d.terminals().size());
+            assertEquals(r.delta().size(), d.delta().size());
+            CompiledDfa<Integer> cd = CompiledDfa.compile(d);
+            for (int i = 0; i < 200; i++) {
+                List<Integer> w = new ArrayList<>();
+                for (int j = rand.nextInt(8); j > 0; j--)
+                    w.add(rand.nextInt(3));
+                assertEquals(a.accept(w), cd.accept(w));
+            }
+        }
+    }
+
+    public void testNoInitialState() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        State s = a.addState(false, true);
+        a.addTransition(new Transition<>(s, "a", s));
+        Automaton<String, Transition<String>, TransitionBuilder<String>> d = new ToDFA<String, Transition<String>, TransitionBuilder<String>>().transform(a);
+        assertEquals(1, d.states().size());
+        assertEquals(1, d.initials().size());
+        assertTrue(d.terminals().isEmpty());
+        assertTrue(d.delta().isEmpty());
+    }
+
+    public void testEpsilonClosureOfInitials() throws Exception {
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        State s0 = a.addState(true, false);
+        State s1 = a.addState(false, true);
+        a.addTransition(new Transition<String>(s0, null, s1));
+        a.addTransition(new Transition<>(s1, "a", s0));
+        Automaton<String, Transition<String>, TransitionBuilder<String>> d = new ToDFA<String, Transition<String>, TransitionBuilder<String>>().transform(a);
+        assertEquals(1, d.states().size());
+        assertEquals(1, d.terminals().size());
+        assertEquals(1, d.delta().size());
+        assertFalse(d.alphabet().contains(null));
+    }
+
+    /* would take a space quadratic in the length of the chain with one closure array per state */
+    public void testLongEpsilonChain() throws Exception {
+        int n = 20000;
+        Automaton<String, Transition<String>, TransitionBuilder<String>> a = new Automaton<>();
+        State[] states = new State[n];
+        for (int i = 0; i < n; i++)
+            states[i] = a.addState(i == 0, i == n - 1);
+        for (int i = 0; i < n; i++) {
+            a.addTransition(new Transition<>(states[i], "a", states[i]));
+            a.addTransition(new Transition<>(states[i], "b", states[n - 1]));
+            if (i + 1 < n)
+                a.addTransition(new Transition<String>(states[i], null, states[i + 1]));
+        }
+        Automaton<String, Transition<String>, TransitionBuilder<String>> d = new ToDFA<String, Transition<String>, TransitionBuilder<String>>().transform(a);
+        assertEquals(2, d.states().size());
+        assertEquals(2, d.terminals().size());
+        assertEquals(4, d.delta().size());
+    }
+}
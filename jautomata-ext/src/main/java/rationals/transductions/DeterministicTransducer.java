@@ -115,7 +115,7 @@ public class DeterministicTransducer extends Transducer {
         s.retainAll(terminals());
         if (s.isEmpty())
             return new Automaton();
-        Automaton a = new Automaton();
+        Automaton a = new Automaton(outputSymbols());
         State cur = a.addState(true, false);
         Iterator it = trs.iterator();
         while (it.hasNext()) {
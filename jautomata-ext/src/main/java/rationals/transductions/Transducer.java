@@ -25,6 +25,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
 
+import rationals.Alphabet;
 import rationals.Automaton;
 import rationals.NoSuchStateException;
 import rationals.State;
@@ -44,9 +45,9 @@ import rationals.transformations.Reducer;
 public class Transducer extends Automaton implements Transduction {
 
     /* input and output automata isomorphic ot this transducer */
-    private Automaton input = new Automaton();
+    private final Automaton input;
 
-    private Automaton output = new Automaton();
+    private final Automaton output;
 
     /* maps from states */
     /* map states of input automaton to this transducer states */
@@ -60,6 +61,28 @@ public class Transducer extends Automaton implements Transduction {
 
     private Map sout = new HashMap();
 
+    /**
+     * Creates an empty transducer with new input and output alphabets.
+     */
+    public Transducer() {
+        this(null, null);
+    }
+
+    /**
+     * Creates an empty transducer whose input and output letters are
+     * interned in given alphabets. Images computed by this transducer share
+     * the output alphabet.
+     * 
+     * @param inputs
+     *            the alphabet of input letters. May be null.
+     * @param outputs
+     *            the alphabet of output letters. May be null.
+     */
+    public Transducer(Alphabet inputs, Alphabet outputs) {
+        this.input = new Automaton(inputs);
+        this.output = new Automaton(outputs);
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -174,7 +197,7 @@ public class Transducer extends Automaton implements Transduction {
          * construct the output automaton from tf This is the concatenation of
          * all the sub automata induced by the list of set of transitions
          */
-        Automaton ret = new Automaton();
+        Automaton ret = new Automaton(outputSymbols());
         Map sm = new HashMap(); /* nap old states to new states */
         s = initials();
         for (Iterator i = s.iterator(); i.hasNext();) {
@@ -357,6 +380,20 @@ public class Transducer extends Automaton implements Transduction {
         return output.alphabet();
     }
 
+    /**
+     * @return the symbol table of input letters of this transducer
+     */
+    public Alphabet inputSymbols() {
+        return input.symbols();
+    }
+
+    /**
+     * @return the symbol table of output letters of this transducer
+     */
+    public Alphabet outputSymbols() {
+        return output.symbols();
+    }
+
     /**
      * This method creates a set of input letters that covers all the
      * transitions occuring in this transducer.